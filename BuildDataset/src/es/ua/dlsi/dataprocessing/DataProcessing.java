@@ -8,16 +8,20 @@ package es.ua.dlsi.dataprocessing;
 import dics.elements.dtd.Dictionary;
 import dics.elements.dtd.Pardef;
 import dictools.utils.DictionaryReader;
+import es.ua.dlsi.lexicalinformation.TagSymbolTable;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.monolingual.Suffix;
+import es.ua.dlsi.querying.FrequencyListReader;
 import es.ua.dlsi.suffixtree.Dix2suffixtree;
 import es.ua.dlsi.suffixtree.SuffixTree;
+import es.ua.dlsi.suffixtree.SuffixTreeMonitor;
 import es.ua.dlsi.utils.CmdLineParser;
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Arrays;
@@ -26,6 +30,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import javax.management.JMException;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
@@ -35,6 +40,8 @@ import org.json.simple.JSONObject;
  */
 public class DataProcessing {
 
+    /** Number of surface forms segmented at once when building a dataset. */
+    private static final int SEGMENTATION_CHUNK=4096;
     
     /**
      * Main method that can be called to print the suffix tree
@@ -49,6 +56,7 @@ public class DataProcessing {
         CmdLineParser.Option otrainoutput = parser.addStringOption("training-output");
         CmdLineParser.Option otestoutput = parser.addStringOption("test-output");
         CmdLineParser.Option ocorpus = parser.addStringOption('c',"corpus");
+        CmdLineParser.Option ojmx = parser.addBooleanOption('j',"jmx");
 
         try{
             parser.parse(args);
@@ -68,6 +76,7 @@ public class DataProcessing {
         String testoutputpath=(String)parser.getOptionValue(otestoutput,null);
         String corpusdir=(String)parser.getOptionValue(ocorpus,null);
         Boolean multiword=(Boolean)parser.getOptionValue(omultiword,false);
+        boolean jmx=(Boolean)parser.getOptionValue(ojmx,false);
         Set<String> validpos=new HashSet<>();
         validpos.addAll(Arrays.asList(((String)parser.getOptionValue(ovalidpos,null)).split(",")));
         Double trainpercent=(Double)parser.getOptionValue(otrainingpercent,1.0);
@@ -107,14 +116,9 @@ public class DataProcessing {
         DictionaryReader dicReader = new DictionaryReader(dicpath);
         Dictionary dic = dicReader.readDic();
         
-        Set<String> words_in_corpus=new HashSet();
+        Set<String> words_in_corpus=null;
         try{
-            String line;
-            // open input stream test.txt for reading purpose.
-            BufferedReader br = new BufferedReader(new FileReader(corpusdir));
-            while ((line = br.readLine()) != null) {
-               words_in_corpus.add(line.trim().split(" ")[1]);
-            }       
+            words_in_corpus=FrequencyListReader.ReadWords(corpusdir);
         }catch(Exception e){
             e.printStackTrace(System.err);
             System.err.println("Error in the format of the corpus.");
@@ -124,6 +128,15 @@ public class DataProcessing {
         //Building the suffix tree
         SuffixTree tree;
         tree=new Dix2suffixtree(dic).getSuffixTree();
+        if(jmx){
+            try{
+                SuffixTreeMonitor.Register(tree, dicpath);
+            }
+            catch(JMException e){
+                System.err.println("Warning: the suffix tree could not be registered in the MBean server ("
+                        +e.getMessage()+").");
+            }
+        }
         
         Set<Paradigm> small_pars=new HashSet();
         List<Paradigm> general_pars=new LinkedList();
@@ -136,13 +149,14 @@ public class DataProcessing {
         
         //Checking the paradigms that can be used
         for(Pardef p: dic.pardefs.elements){
-            Paradigm paradigm=new Paradigm(p, dic);
+            Paradigm paradigm=ParadigmRegistry.GetParadigm(p, dic);
             if(paradigm.getSuffixes().size()>0){
                 if(paradigm.getSuffixes().iterator().next().getLexInfo().size()>0){
                     String category=paradigm.getSuffixes().iterator().next().getLexInfo().get(0);
                     if(validpos.contains(category)){
-                        if(paradigm.GetNumberOfEntries(dic,false)> 0){
-                            if(paradigm.GetNumberOfEntries(dic,false) < min_size_of_paradigm)
+                        int nentries=paradigm.GetNumberOfEntries(dic,false);
+                        if(nentries> 0){
+                            if(nentries < min_size_of_paradigm)
                                 small_pars.add(paradigm);
                             else
                                 general_pars.add(paradigm);
@@ -196,6 +210,14 @@ public class DataProcessing {
             List<Paradigm> pars, SuffixTree tree, Set<String> words_in_corpus,
             PrintWriter output, Set<String> validpos){
        
+        //Identifiers of the valid lexical categories, so the lexical
+        //information of the suffixes is checked without comparing strings
+        TagSymbolTable tagsymbols=TagSymbolTable.GetSymbolTable();
+        BitSet validposids=new BitSet();
+        for(String pos: validpos){
+            validposids.set(tagsymbols.getOrAddId(pos));
+        }
+        
         //Getting all the entries associated to every paradigm
         List<Candidate> candidates=new LinkedList();
         for(Paradigm p: pars){
@@ -205,51 +227,85 @@ public class DataProcessing {
         long seed = System.nanoTime();
         Collections.shuffle(candidates, new Random(seed));
         
-        //Getting all the surface forms for every entry associated to every paradigm
+        //Getting all the surface forms for every entry associated to every
+        //paradigm; they are segmented and written in chunks, so only the
+        //candidates of one chunk are kept in memory at the same time
+        List<Candidate> entries=new ArrayList<Candidate>(SEGMENTATION_CHUNK);
+        List<String> sforms=new ArrayList<String>(SEGMENTATION_CHUNK);
         for(Candidate c: candidates){
             Map<String, Set<Suffix>> surfaceforms=c.GetExpansion(dic);
-            //Building the collection of candidates for every surface form
             for(Map.Entry<String,Set<Suffix>> s: surfaceforms.entrySet()){
                 String sform=s.getKey();
                 if(words_in_corpus.contains(sform)){
                     Set<Suffix> suffixes = s.getValue();
                     boolean validinflection=false;
                     for(Suffix suf: suffixes){
-                        List<String> lexinfo=suf.getLexInfo();
-                        if(lexinfo.size() > 0 && validpos.contains(lexinfo.get(0))){
+                        int category=suf.getCategory();
+                        if(category >= 0 && validposids.get(category)){
                             validinflection=true;
                         }
                     }
                     
                     if(validinflection){
-                    
-                        JSONObject json=new JSONObject();
-                        JSONArray candidatelist=new JSONArray();
-                        Set<Candidate> guessedcandidates=tree.SegmentWord(sform);
-                        boolean correct_found=false;
-                        for(Candidate candidate: guessedcandidates){
-                            if(candidate.equals(c))
-                                correct_found=true;
-                            Set<Suffix> candidatesuffixes=candidate.getSuffixes(dic);
-                            if(candidatesuffixes.iterator().hasNext()){
-                                List<String> lexinfo=candidate.getSuffixes(dic).iterator().next().getLexInfo();
-                                if(lexinfo.size() > 0 && validpos.contains(lexinfo.get(0)))
-                                    candidatelist.add(candidate.toJSON(dic));
-                            }
-                        }
-                        if(!correct_found)
-                        {
-                            System.err.println("ALERT: candidate '"+c.toString()+"' could not be found among the collection of sugested candidates!");
-                        }
-                        else{
-                            json.put("candidates",candidatelist);
-                            json.put("correct_candidate",c.toJSON(dic));
-                            json.put("surfaceword",sform);
-                            output.println(json.toJSONString());
+                        entries.add(c);
+                        sforms.add(sform);
+                        if(sforms.size()==SEGMENTATION_CHUNK){
+                            WriteChunk(dic, tree, entries, sforms, validposids, output);
+                            entries.clear();
+                            sforms.clear();
                         }
                     }
                 }
             }
         }
+        WriteChunk(dic, tree, entries, sforms, validposids, output);
+    }
+    
+    /**
+     * Method that segments a chunk of surface forms and writes a line of the
+     * dataset in JSON for every one of them. The surface forms are segmented
+     * all at once, so the forms sharing their ending share the traversal of
+     * the suffix tree.
+     * @param dic Dictionary to be processed
+     * @param tree Suffix tree used to detect the possible candidates for a given surface words
+     * @param entries Correct candidate of every surface form
+     * @param sforms Surface forms to be segmented
+     * @param validposids Identifiers of the valid lexical categories
+     * @param output PrintWriter where the output should be written
+     */
+    private static void WriteChunk(Dictionary dic, SuffixTree tree,
+            List<Candidate> entries, List<String> sforms, BitSet validposids,
+            PrintWriter output){
+        List<Set<Candidate>> segmentations=tree.SegmentWords(sforms);
+        
+        //Building the collection of candidates for every surface form
+        for(int i=0;i<sforms.size();i++){
+            Candidate c=entries.get(i);
+            String sform=sforms.get(i);
+            JSONObject json=new JSONObject();
+            JSONArray candidatelist=new JSONArray();
+            Set<Candidate> guessedcandidates=segmentations.get(i);
+            boolean correct_found=false;
+            for(Candidate candidate: guessedcandidates){
+                if(candidate.equals(c))
+                    correct_found=true;
+                Set<Suffix> candidatesuffixes=candidate.getSuffixes(dic);
+                if(candidatesuffixes.iterator().hasNext()){
+                    int category=candidatesuffixes.iterator().next().getCategory();
+                    if(category >= 0 && validposids.get(category))
+                        candidatelist.add(candidate.toJSON(dic));
+                }
+            }
+            if(!correct_found)
+            {
+                System.err.println("ALERT: candidate '"+c.toString()+"' could not be found among the collection of sugested candidates!");
+            }
+            else{
+                json.put("candidates",candidatelist);
+                json.put("correct_candidate",c.toJSON(dic));
+                json.put("surfaceword",sform);
+                output.println(json.toJSONString());
+            }
+        }
     }
 }
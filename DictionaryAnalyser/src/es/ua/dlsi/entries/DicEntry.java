@@ -25,6 +25,8 @@ package es.ua.dlsi.entries;
 import dics.elements.dtd.*;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.paradigms.DicParadigm;
+import es.ua.dlsi.paradigms.ExpansionVisitor;
+import es.ua.dlsi.paradigms.ParadigmExpander;
 import es.ua.dlsi.utils.Pair;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -45,37 +47,17 @@ public class DicEntry {
      * @param dic Dictionary from which the information of the paradigm are read.
      * @return Returns a set of surface forms as a result of the expansion.
      */
-    public static Set<String> ExpandElement(E element, boolean withlexinfo, Dictionary dic){
-        Set<String> exit=new HashSet<String>();
-        for(DixElement de: element.children){
-            if(de instanceof P){
-                StringBuilder suffix;
-                if(withlexinfo){
-                    suffix=new StringBuilder(((P)de).r.getValueNoTags());
-                    for(DixElement pe: ((P)de).r.children){
-                        if(pe instanceof S){
-                            suffix.append("<");
-                            suffix.append(((S)pe).name);
-                            suffix.append(">");
-                        }
-                    }
-                }
-                else {
-                    suffix=new StringBuilder(((P)de).l.getValueNoTags());
-                }
-                exit.add(suffix.toString());
+    public static Set<String> ExpandElement(E element, final boolean withlexinfo,
+            Dictionary dic){
+        final Set<String> exit=new HashSet<String>();
+        new ParadigmExpander(dic).Expand(element, "", new ExpansionVisitor() {
+            @Override
+            public void Visit(CharSequence surfaceform,
+                    CharSequence lexicalform, int[] tags, int ntags) {
+                exit.add(withlexinfo?lexicalform.toString():
+                        surfaceform.toString());
             }
-            else if(de instanceof Par){
-                Set<String> roots=new HashSet<String>();
-                for(String sb: exit){
-                    if(withlexinfo) {
-                        sb+="+";
-                    }
-                    roots.addAll(DicParadigm.ExpandParadigm(dic.pardefs.getParadigmDefinition(((Par)de).name),sb, withlexinfo, dic));
-                }
-                exit=roots;
-            }
-        }
+        });
         return exit;
     }
 
@@ -0,0 +1,372 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.entries;
+
+import dics.elements.dtd.Dictionary;
+import dics.elements.dtd.E;
+import dics.elements.dtd.Section;
+import es.ua.dlsi.monolingual.Candidate;
+import es.ua.dlsi.monolingual.ParadigmSymbolTable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Class that indexes the entries of a dictionary by paradigm. The index is
+ * built in a single pass over the sections of the dictionary and keeps, for
+ * every entry, the stem and the paradigm returned by
+ * <code>DicEntry.GetStemParadigm</code>, and, for every paradigm, the list of
+ * entries using it. In this way, counting or listing the entries of a paradigm
+ * does not require reading the whole dictionary again.
+ * <p>
+ * Entries are identified by their position in the dictionary (sections in
+ * order, and entries in order inside every section) and paradigms by their
+ * identifier in the <code>ParadigmSymbolTable</code> of the dictionary. The
+ * index describes the dictionary at the moment in which it is built: if
+ * entries are added to or removed from the sections of the dictionary later,
+ * {@link #Invalidate(Dictionary)} has to be called so the next call to
+ * {@link #GetIndex(Dictionary)} builds a new index.
+ * @author Miquel Esplà i Gomis
+ */
+public class DictionaryIndex {
+
+    /** Indexes already built for every dictionary. */
+    private static final Map<Dictionary,DictionaryIndex> indexes=
+            new WeakHashMap<Dictionary, DictionaryIndex>();
+
+    /** Symbol table with the identifiers of the paradigms. */
+    private final ParadigmSymbolTable symbols;
+
+    /** Entries of the dictionary. */
+    private final E[] entries;
+
+    /** Stem of every entry (<code>null</code> if the entry has no stem or no
+     * paradigm). */
+    private final String[] stems;
+
+    /** Identifier of the paradigm of every entry (-1 if the entry has no stem
+     * or no paradigm). */
+    private final int[] paradigms;
+
+    /** Flag that indicates, for every entry, if it is a multiword entry. */
+    private final boolean[] multiword;
+
+    /** Position in <code>paradigm_entries</code> of the first entry of every
+     * paradigm; the entries of the paradigm with identifier <code>p</code> are
+     * those between <code>paradigm_start[p]</code> and
+     * <code>paradigm_start[p+1]</code>. */
+    private final int[] paradigm_start;
+
+    /** Positions of the entries, grouped by paradigm and in the same order as
+     * in the dictionary. */
+    private final int[] paradigm_entries;
+
+    /** Number of entries that are not multiword of every paradigm. */
+    private final int[] singleword_count;
+
+    /** Map between every entry and its position in the dictionary. */
+    private final Map<E,Integer> positions;
+
+    /**
+     * Constructor of the class that indexes the entries of a dictionary.
+     * @param dic Dictionary to be indexed
+     */
+    public DictionaryIndex(Dictionary dic){
+        this.symbols=ParadigmSymbolTable.GetSymbolTable(dic);
+        List<E> elements=new ArrayList<E>();
+        for(Section section: dic.sections){
+            elements.addAll(section.elements);
+        }
+        int nentries=elements.size();
+        this.entries=elements.toArray(new E[nentries]);
+        this.stems=new String[nentries];
+        this.paradigms=new int[nentries];
+        this.multiword=new boolean[nentries];
+        this.positions=new IdentityHashMap<E, Integer>(nentries);
+        for(int i=0;i<nentries;i++){
+            positions.put(entries[i], i);
+            multiword[i]=entries[i].isMultiWord();
+            Candidate c=DicEntry.GetStemParadigm(entries[i]);
+            if(c!=null){
+                stems[i]=c.getStem();
+                paradigms[i]=symbols.getOrAddId(c.getParadigm());
+            }
+            else{
+                paradigms[i]=-1;
+            }
+        }
+
+        //Grouping the entries by paradigm
+        int nparadigms=symbols.size();
+        this.paradigm_start=new int[nparadigms+1];
+        this.singleword_count=new int[nparadigms];
+        for(int i=0;i<nentries;i++){
+            if(paradigms[i]>=0){
+                paradigm_start[paradigms[i]+1]++;
+                if(!multiword[i]) {
+                    singleword_count[paradigms[i]]++;
+                }
+            }
+        }
+        for(int p=0;p<nparadigms;p++){
+            paradigm_start[p+1]+=paradigm_start[p];
+        }
+        this.paradigm_entries=new int[paradigm_start[nparadigms]];
+        int[] next=new int[nparadigms];
+        for(int i=0;i<nentries;i++){
+            int p=paradigms[i];
+            if(p>=0){
+                paradigm_entries[paradigm_start[p]+next[p]]=i;
+                next[p]++;
+            }
+        }
+    }
+
+    /**
+     * Method that returns the index of a dictionary. The index is built the
+     * first time this method is called for a dictionary and reused afterwards,
+     * until it is discarded with {@link #Invalidate(Dictionary)}.
+     * @param dic Dictionary to be indexed
+     * @return Returns the index of the dictionary
+     */
+    public static DictionaryIndex GetIndex(Dictionary dic){
+        synchronized(indexes){
+            DictionaryIndex index=indexes.get(dic);
+            if(index==null){
+                index=new DictionaryIndex(dic);
+                indexes.put(dic, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Method that discards the index of a dictionary, so it is built again the
+     * next time it is requested with {@link #GetIndex(Dictionary)}. This
+     * method has to be called after adding or removing entries of the
+     * dictionary (for example, when an entry is held out in a leave-one-out
+     * evaluation); otherwise, the methods using the index, such as
+     * <code>Paradigm.GetNumberOfEntries</code> or
+     * <code>Paradigm.GetRelatedEntries</code>, would still describe the
+     * dictionary before the change. The structures built on the index, such as
+     * the <code>FullFormLexicon</code> of the dictionary, are built again too.
+     * @param dic Dictionary whose index is discarded
+     */
+    public static void Invalidate(Dictionary dic){
+        synchronized(indexes){
+            indexes.remove(dic);
+        }
+    }
+
+    /**
+     * Method that returns the number of entries in the dictionary.
+     * @return Returns the number of entries in the dictionary
+     */
+    public int NumberOfEntries(){
+        return entries.length;
+    }
+
+    /**
+     * Method that returns an entry of the dictionary.
+     * @param entry Position of the entry
+     * @return Returns the entry in the given position
+     */
+    public E getEntry(int entry){
+        return entries[entry];
+    }
+
+    /**
+     * Method that returns the position of an entry in the dictionary.
+     * @param element Entry of the dictionary
+     * @return Returns the position of the entry or -1 if the entry was not in
+     * the dictionary when the index was built
+     */
+    public int getPosition(E element){
+        Integer position=positions.get(element);
+        if(position==null) {
+            return -1;
+        }
+        else {
+            return position;
+        }
+    }
+
+    /**
+     * Method that returns the stem of an entry.
+     * @param entry Position of the entry
+     * @return Returns the stem of the entry or <code>null</code> if the entry
+     * has no stem or no paradigm
+     */
+    public String getStem(int entry){
+        return stems[entry];
+    }
+
+    /**
+     * Method that returns the identifier of the paradigm of an entry.
+     * @param entry Position of the entry
+     * @return Returns the identifier of the paradigm of the entry or -1 if the
+     * entry has no stem or no paradigm
+     */
+    public int getParadigmId(int entry){
+        return paradigms[entry];
+    }
+
+    /**
+     * Method that returns the name of the paradigm of an entry.
+     * @param entry Position of the entry
+     * @return Returns the name of the paradigm of the entry or <code>null</code>
+     * if the entry has no stem or no paradigm
+     */
+    public String getParadigm(int entry){
+        if(paradigms[entry]<0) {
+            return null;
+        }
+        else {
+            return symbols.getName(paradigms[entry]);
+        }
+    }
+
+    /**
+     * Method that indicates if an entry is a multiword entry.
+     * @param entry Position of the entry
+     * @return Returns <code>true</code> if the entry is multiword and
+     * <code>false</code> otherwise
+     */
+    public boolean isMultiWord(int entry){
+        return multiword[entry];
+    }
+
+    /**
+     * Method that returns a pair stem/paradigm for an entry of the dictionary.
+     * The result is the same as that of <code>DicEntry.GetStemParadigm</code>.
+     * @param entry Position of the entry
+     * @return Returns a new candidate with the stem and paradigm of the entry
+     * or <code>null</code> if the entry has no stem or no paradigm
+     */
+    public Candidate getCandidate(int entry){
+        if(paradigms[entry]<0) {
+            return null;
+        }
+        else {
+            return new Candidate(stems[entry], symbols.getName(paradigms[entry]));
+        }
+    }
+
+    /**
+     * Method that returns a pair stem/paradigm for an entry of the dictionary.
+     * If the entry was not in the dictionary when the index was built, it is
+     * obtained with <code>DicEntry.GetStemParadigm</code>.
+     * @param element Entry of the dictionary
+     * @return Returns a new candidate with the stem and paradigm of the entry
+     * or <code>null</code> if the entry has no stem or no paradigm
+     */
+    public Candidate getCandidate(E element){
+        int position=getPosition(element);
+        if(position<0) {
+            return DicEntry.GetStemParadigm(element);
+        }
+        else {
+            return getCandidate(position);
+        }
+    }
+
+    /**
+     * Method that returns the number of entries of a paradigm.
+     * @param paradigm Name of the paradigm
+     * @param accept_multiword Do we count multiword entries?
+     * @return Returns the number of entries of the dictionary using the paradigm
+     */
+    public int getNumberOfEntries(String paradigm, boolean accept_multiword){
+        int p=symbols.getId(paradigm);
+        if(p<0 || p>=singleword_count.length) {
+            return 0;
+        }
+        else if(accept_multiword) {
+            return paradigm_start[p+1]-paradigm_start[p];
+        }
+        else {
+            return singleword_count[p];
+        }
+    }
+
+    /**
+     * Method that returns the maximum number of entries of a paradigm in the
+     * dictionary.
+     * @param accept_multiword Do we count multiword entries?
+     * @return Returns the number of entries of the paradigm with more entries
+     */
+    public int getMaxNumberOfEntries(boolean accept_multiword){
+        int max=0;
+        for(int p=0;p<singleword_count.length;p++){
+            int n=(accept_multiword)? paradigm_start[p+1]-paradigm_start[p]:
+                    singleword_count[p];
+            if(n>max) {
+                max=n;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Method that returns the positions of the entries of a paradigm.
+     * @param paradigm Name of the paradigm
+     * @param accept_multiword Do we accept multiword entries?
+     * @return Returns the positions of the entries using the paradigm, in the
+     * same order as in the dictionary
+     */
+    public int[] getEntries(String paradigm, boolean accept_multiword){
+        int p=symbols.getId(paradigm);
+        if(p<0 || p>=singleword_count.length) {
+            return new int[0];
+        }
+        int[] exit=new int[(accept_multiword)? paradigm_start[p+1]-paradigm_start[p]:
+                singleword_count[p]];
+        int n=0;
+        for(int i=paradigm_start[p];i<paradigm_start[p+1];i++){
+            int entry=paradigm_entries[i];
+            if(accept_multiword || !multiword[entry]) {
+                exit[n++]=entry;
+            }
+        }
+        return exit;
+    }
+
+    /**
+     * Method that returns the entries related to a given paradigm.
+     * @param paradigm Name of the paradigm
+     * @param accept_multiword Do we accept multiword entries?
+     * @return Returns the pairs stem/paradigm of the entries using the paradigm
+     */
+    public Set<Candidate> GetRelatedEntries(String paradigm, boolean accept_multiword){
+        int[] related=getEntries(paradigm, accept_multiword);
+        Set<Candidate> candidates=new HashSet<Candidate>(related.length*2);
+        for(int entry: related){
+            candidates.add(getCandidate(entry));
+        }
+        return candidates;
+    }
+}
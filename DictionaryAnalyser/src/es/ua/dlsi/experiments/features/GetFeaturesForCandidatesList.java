@@ -30,16 +30,14 @@ import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.querying.RankedCandidate;
 import es.ua.dlsi.querying.Vocabulary;
 import es.ua.dlsi.sortedsetofcandidates.SortedSetOfCandidates;
+import es.ua.dlsi.suffixtree.CompactSuffixTree;
 import es.ua.dlsi.suffixtree.Dix2suffixtree;
+import es.ua.dlsi.suffixtree.SuffixTreeImageException;
 import es.ua.dlsi.utils.CmdLineParser;
 import java.io.BufferedReader;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.PrintWriter;
 import java.util.LinkedList;
 import java.util.List;
@@ -63,7 +61,7 @@ public class GetFeaturesForCandidatesList {
         CmdLineParser.Option ovocabularypath = parser.addStringOption('v',"vocabulary");
         CmdLineParser.Option opathjavaobjects = parser.addStringOption('p',"path-objects");
         CmdLineParser.Option odumpsuffixtreepath = parser.addStringOption("dump-suffix-tree");
-        CmdLineParser.Option osuffixtreeobjectpath = parser.addStringOption("load-suffix-tree-object");
+        CmdLineParser.Option osuffixtreeimagepath = parser.addStringOption("load-suffix-tree-image");
 
         try{
             parser.parse(args);
@@ -83,7 +81,7 @@ public class GetFeaturesForCandidatesList {
         String vocabularypath=(String)parser.getOptionValue(ovocabularypath,null);
         String pathjavaobjects=(String)parser.getOptionValue(opathjavaobjects,null);
         String dumpsuffixtreepath=(String)parser.getOptionValue(odumpsuffixtreepath,null);
-        String suffixtreeobjectpath=(String)parser.getOptionValue(osuffixtreeobjectpath,null);
+        String suffixtreeimagepath=(String)parser.getOptionValue(osuffixtreeimagepath,null);
         boolean notclosedcats=(Boolean)parser.getOptionValue(onotclosedcats,false);
 
         BufferedReader br=null;
@@ -118,7 +116,7 @@ public class GetFeaturesForCandidatesList {
         //Reading the vocabulary
         Vocabulary vocabulary=null;
         try {
-            vocabulary=new Vocabulary(vocabularypath);
+            vocabulary=Vocabulary.Load(vocabularypath, true);
         } catch (FileNotFoundException ex) {
             System.err.println("ERROR: File '"+vocabularypath+"' could not be found.");
             System.exit(-1);
@@ -134,38 +132,37 @@ public class GetFeaturesForCandidatesList {
         
         System.err.print("Building suffix tree... ");
         //Building the suffix tree
-        ObjectInputStream ois=null;
         Dix2suffixtree d2s=null;
-        if(suffixtreeobjectpath!=null){
+        long dicchecksum=0;
+        if(suffixtreeimagepath!=null || dumpsuffixtreepath!=null){
             try{
-                ois=new ObjectInputStream(
-                        new FileInputStream(suffixtreeobjectpath));
-                d2s=(Dix2suffixtree)ois.readObject();
-                ois.close();
-            }
-            catch(FileNotFoundException fnfe){
-                System.err.println("Error while trying to open the suffix tree object");
-                ois=null;
+                dicchecksum=CompactSuffixTree.DictionaryChecksum(dictionary);
             }
             catch(IOException ioe){
-                System.err.println("Error while trying to read the suffix tree object");
-                ois=null;
+                System.err.println("Error while trying to read the dictionary file '"+dictionary+"'");
+                System.exit(-1);
             }
-            catch(ClassNotFoundException cnfe){
-                System.err.println("Error while trying to read the suffix tree object");
-                ois=null;
+        }
+        if(suffixtreeimagepath!=null){
+            try{
+                d2s=new Dix2suffixtree(dic,
+                        CompactSuffixTree.Map(suffixtreeimagepath, dicchecksum));
+            }
+            catch(SuffixTreeImageException stie){
+                System.err.println("Error while trying to read the suffix tree image: "+stie.getMessage());
+            }
+            catch(IOException ioe){
+                System.err.println("Error while trying to open the suffix tree image");
             }
         }
-        if(ois==null){
+        if(d2s==null){
             d2s=new Dix2suffixtree(dic);
             if(dumpsuffixtreepath!=null){
                 try{
-                    ObjectOutputStream oos=new ObjectOutputStream(new FileOutputStream(dumpsuffixtreepath));
-                    oos.writeObject(d2s);
-                    oos.close();
+                    d2s.getCompactSuffixTree().Write(dumpsuffixtreepath, dicchecksum);
                 }
                 catch(IOException ioe){
-                    System.err.println("Error while trying to write the suffix tree object");
+                    System.err.println("Error while trying to write the suffix tree image");
                 }
             }
         }
@@ -25,6 +25,7 @@ package es.ua.dlsi.experiments.id3;
 import dics.elements.dtd.*;
 import dictools.utils.DictionaryReader;
 import es.ua.dlsi.entries.DicEntry;
+import es.ua.dlsi.entries.DictionaryIndex;
 import es.ua.dlsi.features.FeatureExtractor;
 import es.ua.dlsi.features.FeatureSet;
 import es.ua.dlsi.id3.InstanceCollection;
@@ -33,6 +34,7 @@ import es.ua.dlsi.id3.Tree;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.EquivalentCandidates;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.monolingual.Suffix;
 import es.ua.dlsi.paradigms.paradigmprofiling.ParadigmProfiler;
 import es.ua.dlsi.querying.RankedCandidate;
@@ -120,7 +122,7 @@ public class CheckCorrectCandidatePositionLeaveOneOutScoresMaximumEntropy {
         //Reading the vocabulary
         Vocabulary vocabulary=null;
         try {
-            vocabulary=new Vocabulary(vocabularypath);
+            vocabulary=Vocabulary.Load(vocabularypath, true);
         } catch (FileNotFoundException ex) {
             System.err.println("ERROR: File '"+vocabularypath+"' could not be found.");
             System.exit(-1);
@@ -155,6 +157,10 @@ public class CheckCorrectCandidatePositionLeaveOneOutScoresMaximumEntropy {
         for(Section s: dic.sections){
             for(int i=0;i<s.elements.size();i++){
                 E e=s.elements.remove(i);
+                //The entry is also held out from the index of the dictionary
+                DictionaryIndex.Invalidate(dic);
+                //The entry is also held out from the suffix tree
+                d2s.removeEntry(e);
                 //If the entry is a multiword is discarded
                 if(e.isMultiWord()){
                     System.err.println("Multiword: "+e.toString());
@@ -166,12 +172,12 @@ public class CheckCorrectCandidatePositionLeaveOneOutScoresMaximumEntropy {
                         Pardef pardef=dic.pardefs.getParadigmDefinition(candidate.getParadigm());
                         if(pardef!=null){
                             ParadigmProfiler pp=new ParadigmProfiler(
-                                    new Paradigm(pardef, dic),dic);
+                                    ParadigmRegistry.GetParadigm(pardef, dic),dic);
                             if(!remove1entry || pp.NumberOfWords()>1){
                                 String stem=candidate.getStem();
                                 String bestsurfaceform;
                                 Pardef p= dic.pardefs.getParadigmDefinition(candidate.getParadigm());
-                                Paradigm paradigm=new Paradigm(p, dic);
+                                Paradigm paradigm=ParadigmRegistry.GetParadigm(p, dic);
                                 
                                 //If indicated, entries generating forms from a closed category may be discarded
                                 if(!notclosedcats || !paradigm.isClosedCategory()){
@@ -255,6 +261,8 @@ public class CheckCorrectCandidatePositionLeaveOneOutScoresMaximumEntropy {
                                             pw.println(bestsurfaceform+";"+stem+";"+paradigm.getName()+";"+numberofquestions);
                                             pw.flush();
                                             s.elements.add(i, e);
+                                            DictionaryIndex.Invalidate(dic);
+                                            d2s.addEntry(e);
                                         }catch(NotInTreeException ex){
                                             System.out.println("Error: correct candidate for "+
                                                     stem+";"+paradigm.getName()+" is not in the ID3 tree.");
@@ -25,21 +25,28 @@ package es.ua.dlsi.experiments.monolingual;
 
 import dics.elements.dtd.Dictionary;
 import dictools.utils.DictionaryReader;
+import es.ua.dlsi.lexicalinformation.TagSymbolTable;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.Suffix;
+import es.ua.dlsi.suffixtree.CompactSuffixTree;
 import es.ua.dlsi.suffixtree.Dix2suffixtree;
-import es.ua.dlsi.suffixtree.SuffixTree;
+import es.ua.dlsi.suffixtree.SuffixTreeMonitor;
 import es.ua.dlsi.utils.CmdLineParser;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.management.JMException;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
@@ -53,6 +60,9 @@ import org.json.simple.JSONObject;
  */
 public class CandidatesForWord {
 
+    /** Number of surface forms segmented at once. */
+    private static final int SEGMENTATION_CHUNK=4096;
+
     /**
      * Main method that performs the expansion of the stem-paradigm pair. Main
      * method that expands a pair stem-paradigm in an Apertium's monolingual
@@ -77,6 +87,12 @@ public class CandidatesForWord {
         CmdLineParser.Option oparadigms = parser.addStringOption('p',"paradigms");
         //Valid part-of-speech cathegories that can be taken into account for generating candidates
         CmdLineParser.Option ovalidpos = parser.addStringOption('v',"valid-pos");
+        //Binary image of the suffix tree to be loaded (or written if it is not valid)
+        CmdLineParser.Option osuffixtreeimage = parser.addStringOption("suffix-tree-image");
+        //Minimise the suffix tree by sharing equivalent sub-trees
+        CmdLineParser.Option ominimise = parser.addBooleanOption('m',"minimise-tree");
+        //Register the suffix tree in the MBean server to monitor the segmentation
+        CmdLineParser.Option ojmx = parser.addBooleanOption('j',"jmx");
 
 
         try{
@@ -97,10 +113,16 @@ public class CandidatesForWord {
         String surfaceformlistfile=(String)parser.getOptionValue(osurfaceformlistfile,null);
         String dictionary=(String)parser.getOptionValue(odictionary,null);
         String paradigmsfile=(String)parser.getOptionValue(oparadigms,null);
+        String suffixtreeimage=(String)parser.getOptionValue(osuffixtreeimage,null);
+        boolean minimise=(Boolean)parser.getOptionValue(ominimise,false);
+        boolean jmx=(Boolean)parser.getOptionValue(ojmx,false);
         Set<String> validpos=new HashSet<String>();
         String validposlist=(String)parser.getOptionValue(ovalidpos,null);
         if(validposlist!=null)
             validpos.addAll(Arrays.asList((validposlist).split(",")));
+        BitSet validposids=new BitSet();
+        for(String pos: validpos)
+            validposids.set(TagSymbolTable.GetSymbolTable().getOrAddId(pos));
         
         if(help){
             System.err.println("This tool provides the list of stem/paradigm candidates"
@@ -129,6 +151,16 @@ public class CandidatesForWord {
                     + "restrictions (LR, RL, or both) can be set with this option;"
                     + "inflections produced by entries tagged with this"
                     + "restriction will be ignored");
+            System.err.println("\t--suffix-tree-image: Path to a binary image of"
+                    + "the suffix tree; if the image exists and was built from"
+                    + "the same dictionary, it is used instead of building the"
+                    + "tree; otherwise, the tree is built and the image is written");
+            System.err.println("\t-m: If this option is enabled, the suffix tree"
+                    + "is minimised by sharing its equivalent sub-trees, which"
+                    + "reduces the memory used");
+            System.err.println("\t-j: If this option is enabled, the statistics"
+                    + "and the segmentation counters of the suffix tree are"
+                    + "exposed through JMX while the tool runs");
             
             System.exit(0);
         }
@@ -213,36 +245,105 @@ public class CandidatesForWord {
         dic=dicReader.readDic();
 
         //Building the suffix tree
-        SuffixTree tree;
-        tree=new Dix2suffixtree(dic).getSuffixTree();
+        CompactSuffixTree tree=null;
+        long dicchecksum=0;
+        if(suffixtreeimage!=null){
+            try{
+                dicchecksum=CompactSuffixTree.DictionaryChecksum(dictionary);
+                if(new File(suffixtreeimage).exists()) {
+                    tree=CompactSuffixTree.Map(suffixtreeimage, dicchecksum);
+                }
+            } catch (IOException ex) {
+                System.err.println("Warning: suffix tree image could not be used ("
+                        +ex.getMessage()+"); the tree will be built again.");
+            }
+        }
+        if(tree==null){
+            tree=new Dix2suffixtree(dic).getCompactSuffixTree();
+            if(minimise) {
+                tree=tree.Minimise();
+            }
+            if(suffixtreeimage!=null){
+                try{
+                    tree.Write(suffixtreeimage, dicchecksum);
+                } catch (IOException ex) {
+                    System.err.println("Warning: suffix tree image '"+suffixtreeimage
+                            +"' could not be written.");
+                }
+            }
+        }
+
+        if(jmx){
+            try{
+                SuffixTreeMonitor.Register(tree, dictionary);
+            }
+            catch(JMException e){
+                System.err.println("Warning: the suffix tree could not be registered in the MBean server ("
+                        +e.getMessage()+").");
+            }
+        }
 
         if(dic==null){
             System.err.print("There was an error while reading dictionary in ");
             System.err.println(dictionary);
         }
         else{
-            for(String sform: surfaceform_list){
-                //output.println("=== PARSING NEW SURFACE FORM: "+sform+" ===");
-                
-                JSONObject json=new JSONObject();
-                JSONArray candidatelist=new JSONArray();
-                
-                Set<Candidate> guessedcandidates=tree.SegmentWord(sform);
-
-                for(Candidate candidate: guessedcandidates){
-                    Set<Suffix> candidatesuffixes=candidate.getSuffixes(dic);
-                    if(candidatesuffixes.iterator().hasNext()){
-                        List<String> lexinfo=candidate.getSuffixes(dic).iterator().next().getLexInfo();
-                        if(validpos.isEmpty() || (lexinfo.size() > 0 && validpos.contains(lexinfo.get(0))))
-                            candidatelist.add(candidate.toJSON(dic));
+            //Segmenting the surface forms in parallel, one chunk at a time
+            ForkJoinPool pool=new ForkJoinPool();
+            try{
+                List<String> sforms=new ArrayList<String>(SEGMENTATION_CHUNK);
+                for(String sform: surfaceform_list){
+                    sforms.add(sform);
+                    if(sforms.size()==SEGMENTATION_CHUNK){
+                        WriteChunk(dic, tree, pool, sforms, validpos, validposids, output);
+                        sforms.clear();
                     }
                 }
-                json.put("candidates",candidatelist);
-                json.put("surfaceword",sform);
-                output.println(json.toJSONString());
+                WriteChunk(dic, tree, pool, sforms, validpos, validposids, output);
+            }
+            finally{
+                pool.shutdown();
             }
             //output.println();
         }
         output.close();
     }
+
+    /**
+     * Method that segments a chunk of surface forms and writes a line in JSON
+     * with the candidates of every one of them. Only the candidates of a chunk
+     * are kept in memory at the same time.
+     * @param dic Dictionary from which the suffix tree was built
+     * @param tree Suffix tree used to detect the possible candidates
+     * @param pool Fork-join pool in which the segmentation is run
+     * @param sforms Surface forms to be segmented
+     * @param validpos Valid lexical categories (all of them if it is empty)
+     * @param validposids Identifiers of the valid lexical categories
+     * @param output PrintWriter where the output should be written
+     */
+    private static void WriteChunk(Dictionary dic, CompactSuffixTree tree,
+            ForkJoinPool pool, List<String> sforms, Set<String> validpos,
+            BitSet validposids, PrintWriter output){
+        List<Set<Candidate>> segmentations=tree.SegmentAll(sforms, pool);
+        for(int i=0;i<sforms.size();i++){
+            //output.println("=== PARSING NEW SURFACE FORM: "+sform+" ===");
+
+            JSONObject json=new JSONObject();
+            JSONArray candidatelist=new JSONArray();
+
+            Set<Candidate> guessedcandidates=segmentations.get(i);
+
+            for(Candidate candidate: guessedcandidates){
+                Set<Suffix> candidatesuffixes=candidate.getSuffixes(dic);
+                if(candidatesuffixes.iterator().hasNext()){
+                    int category=candidatesuffixes.iterator().next().getCategory();
+                    if(validpos.isEmpty() || (category >= 0 && validposids.get(category)))
+                        candidatelist.add(candidate.toJSON(dic));
+                }
+            }
+            json.put("candidates",candidatelist);
+            json.put("surfaceword",sforms.get(i));
+            output.println(json.toJSONString());
+        }
+    }
 }
@@ -26,6 +26,7 @@ import dics.elements.dtd.Dictionary;
 import dics.elements.dtd.Pardef;
 import dictools.utils.DictionaryReader;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.utils.CmdLineParser;
 
 /**
@@ -60,7 +61,7 @@ public class EntriesPerParadigm {
         DictionaryReader dicReader = new DictionaryReader(dicpath);
         Dictionary dic = dicReader.readDic();
         for(Pardef p: dic.pardefs.elements){
-            Paradigm paradigm=new Paradigm(p, dic);
+            Paradigm paradigm=ParadigmRegistry.GetParadigm(p, dic);
             if(!paradigm.isClosedCategory()){
                 System.out.print(paradigm.getName());
                 System.out.print(":");
@@ -24,13 +24,10 @@ package es.ua.dlsi.experiments.monolingual;
 
 import dics.elements.dtd.*;
 import dictools.utils.DictionaryReader;
-import es.ua.dlsi.entries.DicEntry;
-import es.ua.dlsi.monolingual.Candidate;
+import es.ua.dlsi.lexicalinformation.FullFormLexicon;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -70,42 +67,30 @@ public class GenerateSurfaceFormsAndPossibleParadigms {
         }
         DictionaryReader dicReader = new DictionaryReader(dicpath);
         Dictionary dic=dicReader.readDic();
-        Map<String,Set<String>> surface_forms_paradigms=new HashMap<String,Set<String>>();
         if(dic==null){
             System.err.print("There was an error while reading dictionary in ");
             System.err.println(args[0]);
         }
         else{
-            for(Section s: dic.sections){
-                for(E e: s.elements){
-                    Candidate candidate=DicEntry.GetStemParadigm(e);
-                    if(candidate!=null){
-                        Set<String> surfaceforms=candidate.GetSurfaceForms(dic);
-                        for(String form: surfaceforms){
-                            if(!surface_forms_paradigms.containsKey(form)){
-                                Set<String> parlist=new HashSet<String>();
-                                parlist.add(candidate.getParadigm());
-                                surface_forms_paradigms.put(form, parlist);
-                            }
-                            else{
-                                surface_forms_paradigms.get(form).add(candidate.getParadigm());
-                            }
-                        }
+            FullFormLexicon lexicon=FullFormLexicon.GetLexicon(dic);
+            for(int form=0;form<lexicon.NumberOfSurfaceForms();form++){
+                Set<String> paradigms=new LinkedHashSet<String>();
+                for(int analysis: lexicon.getAnalyses(form, false)){
+                    paradigms.add(lexicon.getParadigm(analysis));
+                }
+                if(!paradigms.isEmpty()){
+                    output.print(lexicon.getSurfaceForm(form));
+                    output.print(": ");
+                    StringBuilder sb=new StringBuilder();
+                    for(String paradigm: paradigms){
+                        sb.append(paradigm);
+                        sb.append(", ");
                     }
+                    output.println(sb.substring(0, sb.length()-2));
+                    output.flush();
                 }
             }
         }
-        for(Map.Entry<String,Set<String>> entry: surface_forms_paradigms.entrySet()){
-            output.print(entry.getKey());
-            output.print(": ");
-            StringBuilder sb=new StringBuilder();
-            for(String paradigm: entry.getValue()){
-                sb.append(paradigm);
-                sb.append(", ");
-            }
-            output.println(sb.substring(0, sb.length()-2));
-            output.flush();
-        }
         output.close();
     }
 }
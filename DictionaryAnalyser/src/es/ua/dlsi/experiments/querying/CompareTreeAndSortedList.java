@@ -25,12 +25,14 @@ package es.ua.dlsi.experiments.querying;
 import dics.elements.dtd.*;
 import dictools.utils.DictionaryReader;
 import es.ua.dlsi.entries.DicEntry;
+import es.ua.dlsi.entries.DictionaryIndex;
 import es.ua.dlsi.id3.InstanceCollection;
 import es.ua.dlsi.id3.NotInTreeException;
 import es.ua.dlsi.id3.Tree;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.EquivalentCandidates;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.paradigms.paradigmprofiling.ParadigmProfiler;
 import es.ua.dlsi.querying.RankedCandidate;
 import es.ua.dlsi.querying.Vocabulary;
@@ -99,22 +101,10 @@ public class CompareTreeAndSortedList {
         else{
             Set<String> possiblesurfaceforms=new LinkedHashSet<String>();
             //the key of this map is the set of surface forms and the value is the set of paradigms generating them
-            Set<EquivalentCandidates> sf_candidate=new LinkedHashSet<EquivalentCandidates>();
-            for(Candidate c: candidates){
-                if(!notclosedcats || ! c.isClosedCategoryParadigm(dic)){
-                    boolean added=false;
-                    for(EquivalentCandidates ec: sf_candidate){
-                        if(c.GetSurfaceForms(dic).equals(ec.getSurfaceForms(dic))){
-                            ec.addCandidate(c);
-                            added=true;
-                            break;
-                        }
-                    }
-                    if(!added){
-                        sf_candidate.add(new EquivalentCandidates(c));
-                        possiblesurfaceforms.addAll(c.GetSurfaceForms(dic));
-                    }
-                }
+            Set<EquivalentCandidates> sf_candidate=EquivalentCandidates.GroupCandidates(
+                    candidates, dic, notclosedcats);
+            for(EquivalentCandidates ec: sf_candidate){
+                possiblesurfaceforms.addAll(ec.getSurfaceForms(dic));
             }
 
             InstanceCollection records;
@@ -162,13 +152,13 @@ public class CompareTreeAndSortedList {
         Pardef pardef=dic.pardefs.getParadigmDefinition(candidate.getParadigm());
         if(pardef!=null){
             ParadigmProfiler pp=new ParadigmProfiler(
-                    new Paradigm(pardef, dic),dic);
+                    ParadigmRegistry.GetParadigm(pardef, dic),dic);
             if(!remove1entry || pp.NumberOfWords()>1){
                 String stem=candidate.getStem();
                 String bestsurfaceform;
 
                 Pardef p= dic.pardefs.getParadigmDefinition(candidate.getParadigm());
-                Paradigm paradigm=new Paradigm(p, dic);
+                Paradigm paradigm=ParadigmRegistry.GetParadigm(p, dic);
 
                 //Choosing the most frequent surface form in the vocabulary
                 bestsurfaceform=vocabulary.GetMostFrequentSurfaceForm(stem, paradigm);
@@ -334,7 +324,7 @@ public class CompareTreeAndSortedList {
         //Reading the vocabulary
         Vocabulary vocabulary=null;
         try {
-            vocabulary=new Vocabulary(vocabularypath);
+            vocabulary=Vocabulary.Load(vocabularypath, true);
         } catch (FileNotFoundException ex) {
             System.err.println("ERROR: File '"+vocabularypath+"' could not be found.");
             System.exit(-1);
@@ -358,6 +348,8 @@ public class CompareTreeAndSortedList {
             for(Section s: dic.sections){
                 for(int i=0;i<s.elements.size();i++){
                     E e=s.elements.remove(i);
+                    //The entry is also held out from the index of the dictionary
+                    DictionaryIndex.Invalidate(dic);
                     //If the entry is a multiword is discarded
                     if(e.isMultiWord()){
                         System.err.println("Multiword: "+e.toString());
@@ -374,6 +366,7 @@ public class CompareTreeAndSortedList {
                         }
                     }
                     s.elements.add(i, e);
+                    DictionaryIndex.Invalidate(dic);
                 }
             }
         }
@@ -396,6 +389,8 @@ public class CompareTreeAndSortedList {
                                 Candidate candidate_tmp=DicEntry.GetStemParadigm(e);
                                 if(candidate.equals(candidate_tmp)){
                                     sec.elements.remove(i);
+                                    //The entry is also held out from the index of the dictionary
+                                    DictionaryIndex.Invalidate(dic);
                                     s=sec;
                                     pos=i;
                                     break;
@@ -408,6 +403,7 @@ public class CompareTreeAndSortedList {
                                     remove1entry, notclosedcats, d2s, plf_tmp,
                                     pw, scoredtreepw, nonscoredtreepw);
                         s.elements.add(pos, e);
+                        DictionaryIndex.Invalidate(dic);
                     }
                     else{
                         System.err.println("Candidate "+candidate+" could not be found in the dictionary");
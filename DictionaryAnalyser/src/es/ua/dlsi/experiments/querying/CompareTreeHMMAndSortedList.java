@@ -30,6 +30,7 @@ import es.ua.dlsi.id3.Tree;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.EquivalentCandidates;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.paradigms.paradigmprofiling.ParadigmProfiler;
 import es.ua.dlsi.querying.RankedCandidate;
 import es.ua.dlsi.querying.Vocabulary;
@@ -170,22 +171,10 @@ public class CompareTreeHMMAndSortedList {
         else{
             Set<String> possiblesurfaceforms=new LinkedHashSet<String>();
             //the key of this map is the set of surface forms and the value is the set of paradigms generating them
-            Set<EquivalentCandidates> sf_candidate=new LinkedHashSet<EquivalentCandidates>();
-            for(Candidate c: candidates){
-                if(!notclosedcats || ! c.isClosedCategoryParadigm(dic)){
-                    boolean added=false;
-                    for(EquivalentCandidates ec: sf_candidate){
-                        if(c.GetSurfaceForms(dic).equals(ec.getSurfaceForms(dic))){
-                            ec.addCandidate(c);
-                            added=true;
-                            break;
-                        }
-                    }
-                    if(!added){
-                        sf_candidate.add(new EquivalentCandidates(c));
-                        possiblesurfaceforms.addAll(c.GetSurfaceForms(dic));
-                    }
-                }
+            Set<EquivalentCandidates> sf_candidate=EquivalentCandidates.GroupCandidates(
+                    candidates, dic, notclosedcats);
+            for(EquivalentCandidates ec: sf_candidate){
+                possiblesurfaceforms.addAll(ec.getSurfaceForms(dic));
             }
 
             InstanceCollection records;
@@ -236,12 +225,12 @@ public class CompareTreeHMMAndSortedList {
         Pardef pardef=dic.pardefs.getParadigmDefinition(candidate.getParadigm());
         if(pardef!=null){
             ParadigmProfiler pp=new ParadigmProfiler(
-                    new Paradigm(pardef, dic),dic);
+                    ParadigmRegistry.GetParadigm(pardef, dic),dic);
             if(!remove1entry || pp.NumberOfWords()>1){
                 String stem=candidate.getStem();
 
                 Pardef p= dic.pardefs.getParadigmDefinition(candidate.getParadigm());
-                Paradigm paradigm=new Paradigm(p, dic);
+                Paradigm paradigm=ParadigmRegistry.GetParadigm(p, dic);
 
                 //If indicated, entries generating forms from a closed category may be discarded
                 if(!notclosedcats || !paradigm.isClosedCategory()){
@@ -407,7 +396,7 @@ public class CompareTreeHMMAndSortedList {
         //Reading the vocabulary
         Vocabulary vocabulary=null;
         try {
-            vocabulary=new Vocabulary(vocabularypath);
+            vocabulary=Vocabulary.Load(vocabularypath, true);
         } catch (FileNotFoundException ex) {
             System.err.println("ERROR: File '"+vocabularypath+"' could not be found.");
             System.exit(-1);
@@ -28,8 +28,10 @@ import dics.elements.dtd.Pardef;
 import dics.elements.dtd.Section;
 import dictools.utils.DictionaryReader;
 import es.ua.dlsi.entries.DicEntry;
+import es.ua.dlsi.entries.DictionaryIndex;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.paradigms.paradigmprofiling.ParadigmProfiler;
 import es.ua.dlsi.querying.Vocabulary;
 import es.ua.dlsi.sortedsetofcandidates.NotInListException;
@@ -102,7 +104,7 @@ public class CheckCorrectCandidatePositionLeaveOneOut {
         //Reading the vocabulary
         Vocabulary vocabulary=null;
         try {
-            vocabulary=new Vocabulary(vocabularypath);
+            vocabulary=Vocabulary.Load(vocabularypath, true);
         } catch (FileNotFoundException ex) {
             System.err.println("ERROR: File '"+vocabularypath+"' could not be found.");
             System.exit(-1);
@@ -123,6 +125,8 @@ public class CheckCorrectCandidatePositionLeaveOneOut {
         for(Section s: dic.sections){
             for(int i=0;i<s.elements.size();i++){
                 E e=s.elements.remove(i);
+                //The entry is also held out from the index of the dictionary
+                DictionaryIndex.Invalidate(dic);
                 //If the entry is a multiword is discarded
                 if(e.isMultiWord()){
                     System.err.println("Multiword: "+e.toString());
@@ -130,14 +134,14 @@ public class CheckCorrectCandidatePositionLeaveOneOut {
                 else{
                     //Getting the stema and paradign of the entry
                     Candidate candidate=DicEntry.GetStemParadigm(e);
-                    ParadigmProfiler pp=new ParadigmProfiler(new Paradigm(
-                            dic.pardefs.getParadigmDefinition(candidate.getParadigm()), dic),dic);
+                    ParadigmProfiler pp=new ParadigmProfiler(ParadigmRegistry.GetParadigm(
+                            candidate.getParadigm(), dic),dic);
                     if(!remove1entry || pp.NumberOfWords()>1){
                         if(candidate.getStem()!=null && candidate.getParadigm()!=null){
                             String stem=candidate.getStem();
                             String bestsurfaceform;
                             Pardef p= dic.pardefs.getParadigmDefinition(candidate.getParadigm());
-                            Paradigm paradigm=new Paradigm(p, dic);
+                            Paradigm paradigm=ParadigmRegistry.GetParadigm(p, dic);
                             //If indicated, entries generating forms from a closed category may be discarded
                             if(!notclosedcats || !paradigm.isClosedCategory()){
                                 //Choosing the most frequent surface form in the vocabulary
@@ -178,6 +182,7 @@ public class CheckCorrectCandidatePositionLeaveOneOut {
                                     pw.println(stem+";"+paradigm.getName()+";"+pos+";"+numberofquestions);
                                     pw.flush();
                                     s.elements.add(i, e);
+                                    DictionaryIndex.Invalidate(dic);
                                 }catch(NotInListException ex){
                                     System.err.println("Candidate "+candidate.toString()+" is not in the list of candidates.");
                                 }
@@ -28,7 +28,9 @@ import es.ua.dlsi.bilingual.ParadigmRelationship;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.querying.Vocabulary;
 import es.ua.dlsi.sortedsetofcandidates.SortedSetOfCandidates;
+import es.ua.dlsi.suffixtree.CompactSuffixTree;
 import es.ua.dlsi.suffixtree.Dix2suffixtree;
+import es.ua.dlsi.suffixtree.SuffixTreeImageException;
 import es.ua.dlsi.utils.CmdLineParser;
 import java.io.*;
 
@@ -53,6 +55,8 @@ public class CheckPositionCandidateForStemPar {
         CmdLineParser.Option onotclosedcats = parser.addBooleanOption("remove-closedcats");
         CmdLineParser.Option ovocabularypath = parser.addStringOption('v',"vocabulary");
         CmdLineParser.Option opathjavaobjects = parser.addStringOption('p',"path-objects");
+        CmdLineParser.Option odumpsuffixtreepath = parser.addStringOption("dump-suffix-tree");
+        CmdLineParser.Option osuffixtreeimagepath = parser.addStringOption("load-suffix-tree-image");
 
         try{
             parser.parse(args);
@@ -76,6 +80,8 @@ public class CheckPositionCandidateForStemPar {
         boolean reverse=(Boolean)parser.getOptionValue(oreverse,false);
         boolean notclosedcats=(Boolean)parser.getOptionValue(onotclosedcats,false);
         String pathjavaobjects=(String)parser.getOptionValue(opathjavaobjects,null);
+        String dumpsuffixtreepath=(String)parser.getOptionValue(odumpsuffixtreepath,null);
+        String suffixtreeimagepath=(String)parser.getOptionValue(osuffixtreeimagepath,null);
 
         //Preparing output stream
         PrintWriter pw;
@@ -94,7 +100,7 @@ public class CheckPositionCandidateForStemPar {
         //Reading the vocabulary
         Vocabulary vocabulary=null;
         try {
-            vocabulary=new Vocabulary(vocabularypath);
+            vocabulary=Vocabulary.Load(vocabularypath, true);
         } catch (FileNotFoundException ex) {
             System.err.println("ERROR: File '"+vocabularypath+"' could not be found.");
             System.exit(-1);
@@ -111,15 +117,51 @@ public class CheckPositionCandidateForStemPar {
         Dictionary biling_dic;
         dicReader = new DictionaryReader(bilingdic);
         biling_dic = dicReader.readDic();
-        Dix2suffixtree d2s;
+        Dix2suffixtree d2s=null;
         Dictionary dic;
+        String dicpath;
         if(reverse){
             dic=dic_left;
+            dicpath=leftdic;
         }
         else{
             dic=dic_right;
+            dicpath=rightdic;
+        }
+        //The suffix tree is only queried, so it can be loaded from an image
+        long dicchecksum=0;
+        if(suffixtreeimagepath!=null || dumpsuffixtreepath!=null){
+            try{
+                dicchecksum=CompactSuffixTree.DictionaryChecksum(dicpath);
+            }
+            catch(IOException ioe){
+                System.err.println("Error while trying to read the dictionary file '"+dicpath+"'");
+                System.exit(-1);
+            }
+        }
+        if(suffixtreeimagepath!=null){
+            try{
+                d2s=new Dix2suffixtree(dic,
+                        CompactSuffixTree.Map(suffixtreeimagepath, dicchecksum));
+            }
+            catch(SuffixTreeImageException stie){
+                System.err.println("Error while trying to read the suffix tree image: "+stie.getMessage());
+            }
+            catch(IOException ioe){
+                System.err.println("Error while trying to open the suffix tree image");
+            }
+        }
+        if(d2s==null){
+            d2s=new Dix2suffixtree(dic);
+            if(dumpsuffixtreepath!=null){
+                try{
+                    d2s.getCompactSuffixTree().Write(dumpsuffixtreepath, dicchecksum);
+                }
+                catch(IOException ioe){
+                    System.err.println("Error while trying to write the suffix tree image");
+                }
+            }
         }
-        d2s=new Dix2suffixtree(dic);
         
         ParadigmRelationship parrelationship=new ParadigmRelationship(biling_dic,
                 dic_left, dic_right, reverse, remove1entry, notclosedcats);
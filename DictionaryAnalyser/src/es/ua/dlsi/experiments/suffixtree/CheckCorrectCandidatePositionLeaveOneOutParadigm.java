@@ -26,9 +26,11 @@ import dics.elements.dtd.*;
 import dictools.utils.DictionaryReader;
 import es.ua.dlsi.bilingual.ParadigmRelationship;
 import es.ua.dlsi.entries.DicEntry;
+import es.ua.dlsi.entries.DictionaryIndex;
 import es.ua.dlsi.lexicalinformation.LexicalForms;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.monolingual.Suffix;
 import es.ua.dlsi.querying.Vocabulary;
 import es.ua.dlsi.sortedsetofcandidates.NotInListException;
@@ -395,7 +397,7 @@ public class CheckCorrectCandidatePositionLeaveOneOutParadigm {
         //Reading the vocabulary
         Vocabulary vocabulary=null;
         try {
-            vocabulary=new Vocabulary(vocabularypath);
+            vocabulary=Vocabulary.Load(vocabularypath, true);
         } catch (FileNotFoundException ex) {
             System.err.println("ERROR: File '"+vocabularypath+"' could not be found.");
             System.exit(-1);
@@ -431,6 +433,8 @@ public class CheckCorrectCandidatePositionLeaveOneOutParadigm {
         for(Section s: dic.sections){
             for(int i=0;i<s.elements.size();i++){
                 E e=s.elements.remove(i);
+                //The entry is also held out from the index of the dictionary
+                DictionaryIndex.Invalidate(dic);
                 //If the entry is a multiword is discarded
                 if(e.isMultiWord()){
                     System.err.println("Multiword: "+e.toString());
@@ -444,7 +448,7 @@ public class CheckCorrectCandidatePositionLeaveOneOutParadigm {
                         String bestsurfaceform;
                         List<String> bestlexinfo;
                         Pardef p= dic.pardefs.getParadigmDefinition(candidate.getParadigm());
-                        Paradigm paradigm=new Paradigm(p, dic);
+                        Paradigm paradigm=ParadigmRegistry.GetParadigm(p, dic);
                         //If indicated, entries generating forms from a closed category may be discarded
                         if(!notclosedcats || !paradigm.isClosedCategory()){
                             //Choosing the most frequent surface form in the vocabulary
@@ -492,6 +496,7 @@ public class CheckCorrectCandidatePositionLeaveOneOutParadigm {
                                 int bilingpos=candidates.GetCandidatePosition(candidate);
                                 pw.println(stem+";"+paradigm.getName()+";"+nobilingpos+";"+bilingpos);
                                 s.elements.add(i, e);
+                                DictionaryIndex.Invalidate(dic);
                             }catch(NotInListException ex){
                                 System.err.println("Warning: candidate "+candidate.toString()+" is not in the sorted list of candidates.");
                             }
@@ -25,10 +25,12 @@ package es.ua.dlsi.experiments.suffixtree;
 import dics.elements.dtd.Dictionary;
 import dictools.utils.DictionaryReader;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.suffixtree.Dix2suffixtree;
 import es.ua.dlsi.suffixtree.Node;
 import es.ua.dlsi.suffixtree.SuffixTree;
 import es.ua.dlsi.utils.CmdLineParser;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -44,22 +46,48 @@ public class GetAllParadigmsWithAmbiguousSuffixes {
 
     public static Map<String,Set<Node>> GetVisitedNodesPerParadigm(Node leaf, 
             Dictionary dic, Boolean notclosedcategories){
+        BitSet excluded=new BitSet();
+        if(notclosedcategories){
+            Node curr_pos=leaf;
+            while(curr_pos!=null){
+                for(int p=0;p<curr_pos.NumberOfParadigms();p++){
+                    int id=curr_pos.getParadigmId(p);
+                    if(!excluded.get(id) && ParadigmRegistry.GetParadigm(curr_pos.
+                            getSymbolTable().getName(id), dic).isClosedCategory()){
+                        excluded.set(id);
+                    }
+                }
+                curr_pos=curr_pos.GetParent();
+            }
+        }
+        return GetVisitedNodesPerParadigm(leaf, excluded);
+    }
+    
+    /**
+     * Method that returns, for every paradigm in the path between a leaf and
+     * the root of the suffix tree, the nodes in which the paradigm appears.
+     * @param leaf Leaf node from which the path starts
+     * @param excluded Identifiers of the paradigms to be ignored (see
+     * <code>GetClosedCategoryParadigms</code>)
+     * @return Returns a map with the nodes in which every paradigm appears
+     */
+    public static Map<String,Set<Node>> GetVisitedNodesPerParadigm(Node leaf, 
+            BitSet excluded){
         Map<String,Set<Node>> visited_nodes_branch=new HashMap<String, Set<Node>>();
         Node curr_pos=leaf;
         while(curr_pos!=null){
-            if(curr_pos.getParadigmNames()!=null){
-                for(String paradigm: curr_pos.getParadigmNames()){
-                    Paradigm p=new Paradigm(paradigm, dic);
-                    if(!notclosedcategories || !p.isClosedCategory()){
-                        if(visited_nodes_branch.containsKey(paradigm)){
-                            //If the node converges with 
-                            visited_nodes_branch.get(paradigm).add(curr_pos);
-                        }
-                        else{
-                            Set<Node> tmp_set=new LinkedHashSet<Node>();
-                            tmp_set.add(curr_pos);
-                            visited_nodes_branch.put(paradigm, tmp_set);
-                        }
+            for(int p=0;p<curr_pos.NumberOfParadigms();p++){
+                int id=curr_pos.getParadigmId(p);
+                if(!excluded.get(id)){
+                    String paradigm=curr_pos.getSymbolTable().getName(id);
+                    if(visited_nodes_branch.containsKey(paradigm)){
+                        //If the node converges with 
+                        visited_nodes_branch.get(paradigm).add(curr_pos);
+                    }
+                    else{
+                        Set<Node> tmp_set=new LinkedHashSet<Node>();
+                        tmp_set.add(curr_pos);
+                        visited_nodes_branch.put(paradigm, tmp_set);
                     }
                 }
             }
@@ -103,10 +131,17 @@ public class GetAllParadigmsWithAmbiguousSuffixes {
         Map<String,Map<Node,String>> par_suffixes=new HashMap<String, Map<Node, String>>();
         Set<Node> leaf_nodes=st.GetLeafsSet();
         System.err.println("Leaf nodes in suffix tree obtained!");
+        BitSet excluded;
+        if(notclosedcategories) {
+            excluded=GetDataAboutAmbiguousSuffixes.GetClosedCategoryParadigms(st, dic);
+        }
+        else {
+            excluded=new BitSet();
+        }
         int count_repeated_nodes_in_branch=0;
         for(Node leaf: leaf_nodes){
             Map<String,Set<Node>> visited_nodes_branch=
-                    GetVisitedNodesPerParadigm(leaf, dic, notclosedcategories);
+                    GetVisitedNodesPerParadigm(leaf, excluded);
             if(proportions){
                 for(Map.Entry<String,Set<Node>> pair: visited_nodes_branch.entrySet()){
                     if(pair.getValue().size()>1){
@@ -26,10 +26,12 @@ import dics.elements.dtd.Dictionary;
 import dics.elements.dtd.Pardef;
 import dictools.utils.DictionaryReader;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.suffixtree.Dix2suffixtree;
 import es.ua.dlsi.suffixtree.Node;
 import es.ua.dlsi.suffixtree.SuffixTree;
 import es.ua.dlsi.utils.CmdLineParser;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -43,24 +45,68 @@ import java.util.Stack;
  */
 public class GetDataAboutAmbiguousSuffixes {
 
+    /**
+     * Method that returns the set of paradigms in a suffix tree which belong to
+     * closed categories.
+     * @param st Suffix tree
+     * @param dic Dictionary from which the suffix tree was built
+     * @return Returns a <code>BitSet</code> with the identifiers of the
+     * paradigms of closed categories
+     */
+    public static BitSet GetClosedCategoryParadigms(SuffixTree st, Dictionary dic){
+        BitSet exit=new BitSet(st.NumberOfParadigms());
+        for(int id=0;id<st.NumberOfParadigms();id++){
+            if(ParadigmRegistry.GetParadigm(st.getParadigmName(id), dic).isClosedCategory()){
+                exit.set(id);
+            }
+        }
+        return exit;
+    }
+    
     public static Map<String,Stack<Node>> GetVisitedNodesPerParadigm(Node leaf, 
             Dictionary dic, Boolean notclosedcategories){
+        BitSet excluded=new BitSet();
+        if(notclosedcategories){
+            Node curr_pos=leaf;
+            while(curr_pos!=null){
+                for(int p=0;p<curr_pos.NumberOfParadigms();p++){
+                    int id=curr_pos.getParadigmId(p);
+                    if(!excluded.get(id) && ParadigmRegistry.GetParadigm(curr_pos.
+                            getSymbolTable().getName(id), dic).isClosedCategory()){
+                        excluded.set(id);
+                    }
+                }
+                curr_pos=curr_pos.GetParent();
+            }
+        }
+        return GetVisitedNodesPerParadigm(leaf, excluded);
+    }
+    
+    /**
+     * Method that returns, for every paradigm in the path between a leaf and
+     * the root of the suffix tree, the nodes in which the paradigm appears.
+     * @param leaf Leaf node from which the path starts
+     * @param excluded Identifiers of the paradigms to be ignored (see
+     * <code>GetClosedCategoryParadigms</code>)
+     * @return Returns a map with the nodes in which every paradigm appears
+     */
+    public static Map<String,Stack<Node>> GetVisitedNodesPerParadigm(Node leaf, 
+            BitSet excluded){
         Map<String,Stack<Node>> visited_nodes_branch=new HashMap<String, Stack<Node>>();
         Node curr_pos=leaf;
         while(curr_pos!=null){
-            if(curr_pos.getParadigmNames()!=null){
-                for(String paradigm: curr_pos.getParadigmNames()){
-                    Paradigm p=new Paradigm(paradigm, dic);
-                    if(!notclosedcategories || !p.isClosedCategory()){
-                        if(visited_nodes_branch.containsKey(paradigm)){
-                            //If the node converges with 
-                            visited_nodes_branch.get(paradigm).push(curr_pos);
-                        }
-                        else{
-                            Stack<Node> tmp_set=new Stack<Node>();
-                            tmp_set.push(curr_pos);
-                            visited_nodes_branch.put(paradigm, tmp_set);
-                        }
+            for(int p=0;p<curr_pos.NumberOfParadigms();p++){
+                int id=curr_pos.getParadigmId(p);
+                if(!excluded.get(id)){
+                    String paradigm=curr_pos.getSymbolTable().getName(id);
+                    if(visited_nodes_branch.containsKey(paradigm)){
+                        //If the node converges with 
+                        visited_nodes_branch.get(paradigm).push(curr_pos);
+                    }
+                    else{
+                        Stack<Node> tmp_set=new Stack<Node>();
+                        tmp_set.push(curr_pos);
+                        visited_nodes_branch.put(paradigm, tmp_set);
                     }
                 }
             }
@@ -101,6 +147,13 @@ public class GetDataAboutAmbiguousSuffixes {
         SuffixTree st=d2s.getSuffixTree();
         Set<Node> leaf_nodes=st.GetLeafsSet();
         System.err.println("Leaf nodes in suffix tree obtained!");
+        BitSet excluded;
+        if(notclosedcategories) {
+            excluded=GetClosedCategoryParadigms(st, dic);
+        }
+        else {
+            excluded=new BitSet();
+        }
         Map<Node,Map<String,Set<Node>>> hierarchical_nodes=
                 new HashMap<Node, Map<String,Set<Node>>>();
         //Building the hierarchi of nodes (a list of the highest nodes involving
@@ -108,7 +161,7 @@ public class GetDataAboutAmbiguousSuffixes {
         //
         for(Node leaf: leaf_nodes){
             Map<String,Stack<Node>> visited_nodes_branch=
-                    GetVisitedNodesPerParadigm(leaf, dic, notclosedcategories);
+                    GetVisitedNodesPerParadigm(leaf, excluded);
             for(Map.Entry<String,Stack<Node>> pair: visited_nodes_branch.entrySet()){
                 if(pair.getValue().size()>1){
                     Node highest_node_in_tree=pair.getValue().pop();
@@ -135,7 +188,7 @@ public class GetDataAboutAmbiguousSuffixes {
         }
         Set<String> non_ambiguous_paradigms=new HashSet<String>();
         for(Pardef p: dic.pardefs.elements){
-            Paradigm par=new Paradigm(p, dic);
+            Paradigm par=ParadigmRegistry.GetParadigm(p, dic);
             if(!par.isClosedCategory()){
                 non_ambiguous_paradigms.add(par.getName());
             }
@@ -45,9 +45,9 @@ public class NumberOfPairsNodeSuffix {
         nodestack.add(suffixtree.rootnode);
         while(!nodestack.isEmpty()){
             Node newnode=nodestack.pop();
-            if(newnode.getParadigmNames()!=null){
+            if(newnode.NumberOfParadigms()>0){
                 nodes++;
-                pairs_node_suffix+=newnode.getParadigmNames().size();
+                pairs_node_suffix+=newnode.NumberOfParadigms();
             }
             if(newnode.getChildren()!=null)
                 nodestack.addAll(newnode.getChildren().values());
@@ -0,0 +1,96 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.experiments.suffixtree;
+
+import dics.elements.dtd.Dictionary;
+import dictools.utils.DictionaryReader;
+import es.ua.dlsi.suffixtree.Dix2suffixtree;
+import es.ua.dlsi.suffixtree.SuffixTree;
+import es.ua.dlsi.suffixtree.SuffixTreeMonitor;
+import es.ua.dlsi.utils.CmdLineParser;
+import javax.management.JMException;
+
+/**
+ * Class that contains an only main method that builds the suffix tree from a
+ * dictionary and prints its statistics (number of nodes and leaves, histograms
+ * of fan-out, depth and paradigms per node, and estimated memory) in JSON
+ * format. Optionally, the tree can be registered in the platform MBean server
+ * and kept in memory so it can be inspected with a JMX client.
+ * @author Miquel Esplà i Gomis
+ */
+public class PrintSuffixTreeStatistics {
+
+    /**
+     * Main method that can be called to print the statistics of the suffix tree
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        CmdLineParser parser = new CmdLineParser();
+        CmdLineParser.Option odicpath = parser.addStringOption('d',"dictionary");
+        CmdLineParser.Option ojmx = parser.addBooleanOption('j',"jmx");
+
+        try{
+            parser.parse(args);
+        }
+        catch(CmdLineParser.IllegalOptionValueException e){
+            System.err.println(e);
+            System.exit(-1);
+        }
+        catch(CmdLineParser.UnknownOptionException e){
+            System.err.println(e);
+            System.exit(-1);
+        }
+
+        String dicpath=(String)parser.getOptionValue(odicpath,null);
+        boolean jmx=(Boolean)parser.getOptionValue(ojmx,false);
+
+        if(dicpath==null){
+            System.err.println("Error: a dictionary must be specified (option -d).");
+            System.exit(-1);
+        }
+
+        DictionaryReader dicReader = new DictionaryReader(dicpath);
+        Dictionary dic = dicReader.readDic();
+        Dix2suffixtree d2s=new Dix2suffixtree(dic);
+        SuffixTree suffixtree=d2s.getSuffixTree();
+
+        System.out.println(suffixtree.getStatistics().toJSON().toJSONString());
+
+        if(jmx){
+            try{
+                SuffixTreeMonitor.Register(suffixtree, dicpath);
+            }
+            catch(JMException e){
+                System.err.println(e);
+                System.exit(-1);
+            }
+            System.err.println("Suffix tree registered in the MBean server; press Ctrl+C to exit.");
+            try{
+                Thread.sleep(Long.MAX_VALUE);
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
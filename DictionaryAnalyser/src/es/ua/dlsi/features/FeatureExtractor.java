@@ -23,18 +23,14 @@
 package es.ua.dlsi.features;
 
 import dics.elements.dtd.Dictionary;
-import dics.elements.dtd.E;
 import dics.elements.dtd.Pardef;
-import dics.elements.dtd.Section;
-import es.ua.dlsi.entries.DicEntry;
+import es.ua.dlsi.entries.DictionaryIndex;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.querying.RankedCandidate;
 import es.ua.dlsi.querying.Vocabulary;
 import es.ua.dlsi.suffixtree.Dix2suffixtree;
-import es.ua.dlsi.utils.ModificableInteger;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -51,7 +47,7 @@ public class FeatureExtractor {
     
     private String pathjavaobjects;
     
-    private Map<String,ModificableInteger> entities_per_paradigm;
+    private DictionaryIndex index;
     
     private int max_entries_per_paradigm;
     
@@ -64,28 +60,12 @@ public class FeatureExtractor {
         this.pathjavaobjects=pathjavaobjects;
         this.d2s=d2s;
         
-        this.max_entries_per_paradigm=0;
-        this.entities_per_paradigm=new HashMap<String, ModificableInteger>();
-        for(Section s: dic.sections){
-            for(E element: s.elements){
-                Candidate c=DicEntry.GetStemParadigm(element);
-                if(c!=null){
-                    if(!this.entities_per_paradigm.containsKey(c.getParadigm())){
-                        this.entities_per_paradigm.put(c.getParadigm(),new ModificableInteger());
-                    }
-                    this.entities_per_paradigm.get(c.getParadigm()).increment();
-                }
-            }
-        }
-        for(ModificableInteger mi: this.entities_per_paradigm.values()){
-            if(this.max_entries_per_paradigm<mi.getValue()){
-                this.max_entries_per_paradigm=mi.getValue();
-            }
-        }
+        this.index=DictionaryIndex.GetIndex(dic);
+        this.max_entries_per_paradigm=index.getMaxNumberOfEntries(true);
         
         this.max_inflections=0;
         for(Pardef pardef: this.dic.pardefs.elements){
-            Paradigm par=new Paradigm(pardef, dic);
+            Paradigm par=ParadigmRegistry.GetParadigm(pardef, dic);
             int num_inflections=par.GetSurfaceFroms("").size();
             if(num_inflections>max_inflections) {
                 max_inflections=num_inflections;
@@ -94,11 +74,7 @@ public class FeatureExtractor {
     }
     
     public FeatureSet GetFeatureSet(String stem, String paradigmname, boolean notclosedcats){
-        int total_entries=0;
-        if(entities_per_paradigm.containsKey(paradigmname)){
-            total_entries+=entities_per_paradigm.get(
-                    paradigmname).getValue();
-        }
+        int total_entries=index.getNumberOfEntries(paradigmname, true);
         double prop_entries_paradigm=((double)total_entries/max_entries_per_paradigm);
         Candidate c=new Candidate(stem, paradigmname);
         Set<String> possible_surfaceforms=c.GetSurfaceForms(dic);
@@ -121,10 +97,7 @@ public class FeatureExtractor {
     public FeatureSet GetFeatureSet(RankedCandidate rc, boolean notclosedcats){
         int total_entries=0;
         for(Candidate candidate: rc.getCandidates()){
-            if(entities_per_paradigm.containsKey(candidate.getParadigm())){
-                total_entries+=entities_per_paradigm.get(
-                        candidate.getParadigm()).getValue();
-            }
+            total_entries+=index.getNumberOfEntries(candidate.getParadigm(), true);
         }
         double prop_entries_paradigm=((double)total_entries/max_entries_per_paradigm);
         Set<String> possible_surfaceforms=rc.getSurfaceForms(dic);
@@ -96,22 +96,10 @@ public class BuildTreeFromSuffixTree {
         
         Set<String> possiblesurfaceforms=new LinkedHashSet<String>();
         //the key of this map is the set of surface forms and the value is the set of paradigms generating them
-        Set<EquivalentCandidates> sf_candidate=new LinkedHashSet<EquivalentCandidates>();
-        for(Candidate c: candidates){
-            if(!notclosedcategories || ! c.isClosedCategoryParadigm(dic)){
-                boolean added=false;
-                for(EquivalentCandidates ec: sf_candidate){
-                    if(c.GetSurfaceForms(dic).equals(ec.getSurfaceForms(dic))){
-                        ec.addCandidate(c);
-                        added=true;
-                        break;
-                    }
-                }
-                if(!added){
-                    sf_candidate.add(new EquivalentCandidates(c));
-                    possiblesurfaceforms.addAll(c.GetSurfaceForms(dic));
-                }
-            }
+        Set<EquivalentCandidates> sf_candidate=EquivalentCandidates.GroupCandidates(
+                candidates, dic, notclosedcategories);
+        for(EquivalentCandidates ec: sf_candidate){
+            possiblesurfaceforms.addAll(ec.getSurfaceForms(dic));
         }
         
         if(tablepath!=null){
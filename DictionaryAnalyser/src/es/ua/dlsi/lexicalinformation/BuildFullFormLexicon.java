@@ -0,0 +1,92 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.lexicalinformation;
+
+import dics.elements.dtd.Dictionary;
+import dictools.utils.DictionaryReader;
+import es.ua.dlsi.utils.CmdLineParser;
+import java.io.IOException;
+
+/**
+ * Class that only contains a main method which builds the full-form lexicon of
+ * a dictionary and saves it to disk, so it can be loaded with
+ * <code>FullFormLexicon.Load</code> instead of expanding the dictionary again.
+ * @author Miquel Esplà i Gomis
+ */
+public class BuildFullFormLexicon {
+
+    /**
+     * Main method that builds and saves the lexicon.
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        CmdLineParser parser = new CmdLineParser();
+        //Dictionary from which the lexicon is built
+        CmdLineParser.Option odictionary = parser.addStringOption('d',"dictionary");
+        //Option for specifying the output file path
+        CmdLineParser.Option ooutput = parser.addStringOption('o',"output");
+
+        try{
+            parser.parse(args);
+        }
+        catch(CmdLineParser.IllegalOptionValueException e){
+            System.err.println(e);
+            System.exit(-1);
+        }
+        catch(CmdLineParser.UnknownOptionException e){
+            System.err.println(e);
+            System.exit(-1);
+        }
+
+        String dictionary=(String)parser.getOptionValue(odictionary,null);
+        String outputpath=(String)parser.getOptionValue(ooutput,null);
+
+        if(dictionary==null){
+            System.err.println("Error: It is necessary to set the dictionary path (use opton -d or --dictionary).");
+            System.exit(-1);
+        }
+        if(outputpath==null){
+            System.err.println("Error: It is necessary to set the output file path (use opton -o or --output).");
+            System.exit(-1);
+        }
+
+        DictionaryReader dicReader = new DictionaryReader(dictionary);
+        Dictionary dic=dicReader.readDic();
+        if(dic==null){
+            System.err.print("There was an error while reading dictionary in ");
+            System.err.println(dictionary);
+            System.exit(-1);
+        }
+        FullFormLexicon lexicon=FullFormLexicon.GetLexicon(dic);
+        try {
+            lexicon.Save(outputpath);
+        } catch (IOException ex) {
+            System.err.print("Error while writing the lexicon to file '");
+            System.err.print(outputpath);
+            System.err.println("'.");
+            System.exit(-1);
+        }
+        System.err.println(lexicon.NumberOfSurfaceForms()+" surface forms and "+
+                lexicon.NumberOfLexicalForms()+" lexical forms saved.");
+    }
+}
@@ -31,6 +31,7 @@ import dics.elements.dtd.Pardef;
 import dics.elements.dtd.S;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -48,6 +49,9 @@ public class ClosedCategories {
     /** Set of closed categories **/
     private static Set<String> closedposcat=null;
 
+    /** Identifiers in the {@link TagSymbolTable} of the closed categories **/
+    private static volatile BitSet closedposcatids=null;
+
     /**
      * Method that determines whether a given lexical category is closed or not.
      * This method determines whether a given lexical category is closed or not
@@ -69,6 +73,28 @@ public class ClosedCategories {
         return closedposcat.contains(catname);
     }
     
+    /**
+     * Method that determines whether a given lexical category is closed or not
+     * by using the identifier of the category in the {@link TagSymbolTable}.
+     * @param catid Identifier of the category to be checked.
+     * @return Returns <code>true</code> if the category is closed and
+     * <code>false</code> otherwise.
+     */
+    public static boolean isClosedCat(int catid){
+        BitSet ids=closedposcatids;
+        if(ids==null){
+            //Initialising the set of names of closed categories
+            isClosedCat("");
+            TagSymbolTable symbols=TagSymbolTable.GetSymbolTable();
+            ids=new BitSet();
+            for(String cat: closedposcat){
+                ids.set(symbols.getOrAddId(cat));
+            }
+            closedposcatids=ids;
+        }
+        return catid>=0 && ids.get(catid);
+    }
+    
     /**
      * Method that determines whether the forms generated by a given paradigm
      * belong or not to a closed paradigm.
@@ -0,0 +1,854 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.lexicalinformation;
+
+import dics.elements.dtd.Dictionary;
+import dics.elements.dtd.DixElement;
+import dics.elements.dtd.E;
+import dics.elements.dtd.I;
+import dics.elements.dtd.P;
+import dics.elements.dtd.Par;
+import dics.elements.dtd.Pardef;
+import dics.elements.dtd.S;
+import es.ua.dlsi.entries.DictionaryIndex;
+import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
+import es.ua.dlsi.monolingual.Suffix;
+import es.ua.dlsi.utils.FrontCodedStringTable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Class that indexes all the word forms generated by the entries of a
+ * monolingual dictionary. For every surface form (and for its lowercase
+ * variant, if it is different) the lexicon keeps the list of its analyses:
+ * the entry that generates it, the paradigm of the entry and the lexical tags
+ * of the suffix. It also indexes the lexical forms of the dictionary (the
+ * right side of the entries, as used by <code>LexicalForms</code>). The forms
+ * are kept in <code>FrontCodedStringTable</code> objects and the analyses in
+ * arrays of integers, so the lexicon is built once per dictionary and shared by
+ * all the components that need to look up full forms (see
+ * {@link #GetLexicon(Dictionary)}); it can also be saved to disk and loaded
+ * again without expanding the dictionary. A lighter version of the lexicon,
+ * containing only the lexical forms, is built for <code>LexicalForms</code>
+ * when the full lexicon is not available (see
+ * {@link #GetLexicalFormsLexicon(Dictionary)}).
+ * <p>
+ * Entries are identified by their position in <code>DictionaryIndex</code>
+ * and analyses by their position in the lexicon. The analyses of a form are
+ * kept in the same order as the entries in the dictionary.
+ * @author Miquel Esplà i Gomis
+ */
+public class FullFormLexicon implements Serializable{
+
+    /**
+     * Class that collects the analyses of one of the tables of forms while the
+     * lexicon is being built.
+     */
+    private static class Analyses{
+        /** Form of every analysis */
+        List<String> forms=new ArrayList<String>();
+
+        /** Entry of every analysis */
+        int[] entries=new int[1024];
+
+        /** Paradigm of every analysis */
+        int[] paradigms=new int[1024];
+
+        /** Sequence of tags of every analysis */
+        int[] sequences=new int[1024];
+
+        /** Analyses corresponding to lowercase variants of the surface form */
+        BitSet folded=new BitSet();
+
+        /**
+         * Method that adds a new analysis.
+         * @param form Form analysed
+         * @param entry Entry generating the form
+         * @param paradigm Identifier of the paradigm (-1 if none)
+         * @param sequence Identifier of the sequence of tags
+         * @param isfolded Flag that indicates if the form is the lowercase
+         * variant of the surface form generated by the entry
+         */
+        void Add(String form, int entry, int paradigm, int sequence,
+                boolean isfolded){
+            int n=forms.size();
+            if(n==entries.length){
+                entries=Arrays.copyOf(entries, n*2);
+                paradigms=Arrays.copyOf(paradigms, n*2);
+                sequences=Arrays.copyOf(sequences, n*2);
+            }
+            forms.add(form);
+            entries[n]=entry;
+            paradigms[n]=paradigm;
+            sequences[n]=sequence;
+            folded.set(n, isfolded);
+        }
+
+        /**
+         * Method that returns the positions of the analyses sorted by form,
+         * keeping the order in which they were added for the same form.
+         * @return Returns the positions of the analyses sorted by form
+         */
+        Integer[] Sort(){
+            Integer[] order=new Integer[forms.size()];
+            for(int i=0;i<order.length;i++) {
+                order[i]=i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return forms.get(o1).compareTo(forms.get(o2));
+                }
+            });
+            return order;
+        }
+    }
+
+    /** Lexicons already built for every dictionary. */
+    private static final Map<Dictionary,FullFormLexicon> lexicons=
+            new WeakHashMap<Dictionary, FullFormLexicon>();
+
+    /** Lexicons containing only the lexical forms already built for every
+     * dictionary. */
+    private static final Map<Dictionary,FullFormLexicon> lexicalform_lexicons=
+            new WeakHashMap<Dictionary, FullFormLexicon>();
+
+    /** Number of entries in the dictionary */
+    private final int nentries;
+
+    /** Checksum of the dictionary from which the lexicon was built (see
+     * {@link #DictionaryChecksum(Dictionary)}) */
+    private final long dicchecksum;
+
+    /** Surface forms (and lowercase variants) generated by the dictionary */
+    private final FrontCodedStringTable surfaceforms;
+
+    /** Position of the first analysis of every surface form; the analyses of
+     * the form <code>f</code> are those between <code>surface_start[f]</code>
+     * and <code>surface_start[f+1]</code>. */
+    private final int[] surface_start;
+
+    /** Lexical forms of the dictionary */
+    private final FrontCodedStringTable lexicalforms;
+
+    /** Position of the first analysis of every lexical form (the analyses of
+     * the lexical forms are placed after those of the surface forms). */
+    private final int[] lexical_start;
+
+    /** Entry of every analysis */
+    private final int[] analysis_entries;
+
+    /** Paradigm of every analysis (position in <code>paradigm_names</code>,
+     * or -1 if the analysis does not come from a paradigm) */
+    private final int[] analysis_paradigms;
+
+    /** Sequence of tags of every analysis */
+    private final int[] analysis_tags;
+
+    /** Analyses corresponding to the lowercase variant of a surface form */
+    private final BitSet folded;
+
+    /** Length of the stem of every entry (-1 if the entry has no stem or no
+     * paradigm) */
+    private final int[] stem_lengths;
+
+    /** Names of the paradigms used in the lexicon */
+    private final String[] paradigm_names;
+
+    /** Position of the first tag of every sequence of tags in <code>tags</code> */
+    private final int[] tags_start;
+
+    /** Identifiers in the {@link TagSymbolTable} of the tags of all the
+     * sequences */
+    private final int[] tags;
+
+    /** Index of the dictionary from which the entries of the lexicon were
+     * taken; if the index of the dictionary is discarded (see
+     * <code>DictionaryIndex.Invalidate</code>), the lexicon is built again */
+    private transient DictionaryIndex source_index;
+
+    /** Flag that indicates that the lexicon only contains the lexical forms of
+     * the dictionary, so it cannot be saved or shared as a full lexicon */
+    private transient boolean only_lexical_forms;
+
+    /**
+     * Constructor of the class that builds the lexicon of a dictionary.
+     * @param dic Dictionary from which the lexicon is built
+     */
+    public FullFormLexicon(Dictionary dic){
+        this(dic, false);
+    }
+
+    /**
+     * Overloaded constructor of the class that builds the lexicon of a
+     * dictionary or only its lexical forms. In the second case the paradigms
+     * are not expanded, the lexicon contains no surface forms and its checksum
+     * is not computed.
+     * @param dic Dictionary from which the lexicon is built
+     * @param only_lexical_forms If <code>true</code>, only the lexical forms
+     * of the dictionary are included in the lexicon
+     */
+    private FullFormLexicon(Dictionary dic, boolean only_lexical_forms){
+        DictionaryIndex index=DictionaryIndex.GetIndex(dic);
+        TagSymbolTable symbols=TagSymbolTable.GetSymbolTable();
+        this.source_index=index;
+        this.only_lexical_forms=only_lexical_forms;
+        this.nentries=index.NumberOfEntries();
+        this.dicchecksum=(only_lexical_forms)? 0: DictionaryChecksum(dic);
+        this.stem_lengths=new int[nentries];
+        Map<String,Integer> paradigmids=new HashMap<String, Integer>();
+        List<String> paradigmlist=new ArrayList<String>();
+        Map<List<Integer>,Integer> sequenceids=new HashMap<List<Integer>, Integer>();
+        List<int[]> sequencelist=new ArrayList<int[]>();
+        Map<String,Pardef> pardefs=new HashMap<String, Pardef>();
+        for(Pardef p: dic.pardefs.elements){
+            if(!pardefs.containsKey(p.name)) {
+                pardefs.put(p.name, p);
+            }
+        }
+        Analyses surface=new Analyses();
+        Analyses lexical=new Analyses();
+        for(int i=0;i<nentries;i++){
+            String stem=index.getStem(i);
+            if(stem==null){
+                stem_lengths[i]=-1;
+            }
+            else{
+                stem_lengths[i]=stem.length();
+            }
+            if(stem!=null && !only_lexical_forms){
+                String parname=index.getParadigm(i);
+                Paradigm paradigm=ParadigmRegistry.GetParadigm(parname, dic);
+                if(paradigm!=null){
+                    int parid=GetId(parname, paradigmids, paradigmlist);
+                    for(Suffix suffix: paradigm.getSuffixes()){
+                        String form=stem+suffix.getSuffix();
+                        int sequence=GetId(suffix.getTags(), sequenceids,
+                                sequencelist);
+                        surface.Add(form, i, parid, sequence, false);
+                        String lowerform=form.toLowerCase();
+                        if(!lowerform.equals(form)) {
+                            surface.Add(lowerform, i, parid, sequence, true);
+                        }
+                    }
+                }
+            }
+
+            //Lexical forms, read as in the original LexicalForms class
+            E e=index.getEntry(i);
+            if(!index.isMultiWord(i)){
+                String lemma="";
+                for (DixElement de: e.children){
+                    if(de instanceof I){
+                        if(!((I)de).getValueNoTags().equals("")) {
+                            lemma=((I)de).getValueNoTags();
+                        }
+                    }
+                    else if(de instanceof P){
+                        if(!((P)de).r.getValueNoTags().equals("")) {
+                            lemma=((P)de).r.getValueNoTags();
+                        }
+                        List<Integer> lexinfo=new ArrayList<Integer>();
+                        for(DixElement lexinfode: ((P)de).r.children){
+                            if(lexinfode instanceof S){
+                                lexinfo.add(symbols.getOrAddId(((S)lexinfode).name));
+                            }
+                        }
+                        if(!lexinfo.isEmpty()){
+                            lexical.Add(lemma, i, -1, GetId(lexinfo,
+                                    sequenceids, sequencelist), false);
+                        }
+                    }
+                    else if(de instanceof Par){
+                        String parname=((Par)de).name;
+                        Pardef pardef=pardefs.get(parname);
+                        if(pardef!=null){
+                            int parid=GetId(parname, paradigmids, paradigmlist);
+                            for(E pare: pardef.elements){
+                                for(DixElement parde: pare.children){
+                                    if(parde instanceof P){
+                                        String form=lemma+((P)parde).r.getValueNoTags();
+                                        List<Integer> lexinfo=new ArrayList<Integer>();
+                                        for(DixElement lexinfode: ((P)parde).r.children){
+                                            if(lexinfode instanceof S){
+                                                lexinfo.add(symbols.getOrAddId(
+                                                        ((S)lexinfode).name));
+                                            }
+                                        }
+                                        lexical.Add(form, i, parid, GetId(lexinfo,
+                                                sequenceids, sequencelist), false);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        int nsurface=surface.forms.size();
+        int nanalyses=nsurface+lexical.forms.size();
+        this.analysis_entries=new int[nanalyses];
+        this.analysis_paradigms=new int[nanalyses];
+        this.analysis_tags=new int[nanalyses];
+        this.folded=new BitSet(nsurface);
+        List<String> forms=new ArrayList<String>();
+        List<Integer> starts=new ArrayList<Integer>();
+        Store(surface, 0, forms, starts);
+        this.surfaceforms=new FrontCodedStringTable(forms.toArray(new String[forms.size()]));
+        this.surface_start=ToArray(starts, nsurface);
+        forms.clear();
+        starts.clear();
+        Store(lexical, nsurface, forms, starts);
+        this.lexicalforms=new FrontCodedStringTable(forms.toArray(new String[forms.size()]));
+        this.lexical_start=ToArray(starts, nanalyses);
+
+        this.paradigm_names=paradigmlist.toArray(new String[paradigmlist.size()]);
+        this.tags_start=new int[sequencelist.size()+1];
+        int ntags=0;
+        for(int s=0;s<sequencelist.size();s++){
+            tags_start[s]=ntags;
+            ntags+=sequencelist.get(s).length;
+        }
+        tags_start[sequencelist.size()]=ntags;
+        this.tags=new int[ntags];
+        for(int s=0;s<sequencelist.size();s++){
+            int[] sequence=sequencelist.get(s);
+            System.arraycopy(sequence, 0, tags, tags_start[s], sequence.length);
+        }
+    }
+
+    /**
+     * Method that copies the analyses collected for a table of forms to the
+     * arrays of the lexicon, sorted by form.
+     * @param analyses Analyses collected
+     * @param offset Position in the arrays of the lexicon of the first analysis
+     * @param forms List where the different forms are added, sorted
+     * @param starts List where the position of the first analysis of every
+     * form is added
+     */
+    private void Store(Analyses analyses, int offset, List<String> forms,
+            List<Integer> starts){
+        Integer[] order=analyses.Sort();
+        String previous=null;
+        for(int i=0;i<order.length;i++){
+            int a=order[i];
+            String form=analyses.forms.get(a);
+            if(!form.equals(previous)){
+                forms.add(form);
+                starts.add(offset+i);
+                previous=form;
+            }
+            analysis_entries[offset+i]=analyses.entries[a];
+            analysis_paradigms[offset+i]=analyses.paradigms[a];
+            analysis_tags[offset+i]=analyses.sequences[a];
+            if(analyses.folded.get(a)) {
+                folded.set(offset+i);
+            }
+        }
+    }
+
+    /**
+     * Method that converts a list of positions into an array, adding the
+     * position following the last analysis at the end.
+     * @param starts Positions of the first analysis of every form
+     * @param end Position following the last analysis
+     * @return Returns the array of positions
+     */
+    private static int[] ToArray(List<Integer> starts, int end){
+        int[] exit=new int[starts.size()+1];
+        for(int i=0;i<starts.size();i++) {
+            exit[i]=starts.get(i);
+        }
+        exit[starts.size()]=end;
+        return exit;
+    }
+
+    /**
+     * Method that returns the identifier of a paradigm name, adding it to the
+     * list of names if it is new.
+     * @param name Name of the paradigm
+     * @param ids Map from names to identifiers
+     * @param names List of names
+     * @return Returns the identifier of the name
+     */
+    private static int GetId(String name, Map<String,Integer> ids,
+            List<String> names){
+        Integer id=ids.get(name);
+        if(id==null){
+            id=names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * Method that returns the identifier of a sequence of tags, adding it to
+     * the list of sequences if it is new.
+     * @param sequence Identifiers of the tags (null is the empty sequence)
+     * @param ids Map from sequences to identifiers
+     * @param sequences List of sequences
+     * @return Returns the identifier of the sequence
+     */
+    private static int GetId(int[] sequence, Map<List<Integer>,Integer> ids,
+            List<int[]> sequences){
+        List<Integer> key=new ArrayList<Integer>();
+        if(sequence!=null){
+            for(int tag: sequence) {
+                key.add(tag);
+            }
+        }
+        return GetId(key, ids, sequences);
+    }
+
+    /**
+     * Method that returns the identifier of a sequence of tags, adding it to
+     * the list of sequences if it is new.
+     * @param key Identifiers of the tags
+     * @param ids Map from sequences to identifiers
+     * @param sequences List of sequences
+     * @return Returns the identifier of the sequence
+     */
+    private static int GetId(List<Integer> key, Map<List<Integer>,Integer> ids,
+            List<int[]> sequences){
+        Integer id=ids.get(key);
+        if(id==null){
+            id=sequences.size();
+            ids.put(key, id);
+            int[] sequence=new int[key.size()];
+            for(int i=0;i<sequence.length;i++) {
+                sequence[i]=key.get(i);
+            }
+            sequences.add(sequence);
+        }
+        return id;
+    }
+
+    /**
+     * Method that returns the lexicon of a dictionary. The lexicon is built the
+     * first time this method is called for a dictionary and reused afterwards,
+     * as long as the index of the dictionary is not discarded because its
+     * entries changed (see <code>DictionaryIndex.Invalidate</code>).
+     * @param dic Dictionary
+     * @return Returns the lexicon of the dictionary
+     */
+    public static FullFormLexicon GetLexicon(Dictionary dic){
+        synchronized(lexicons){
+            FullFormLexicon lexicon=lexicons.get(dic);
+            if(lexicon==null || lexicon.source_index!=DictionaryIndex.GetIndex(dic)){
+                lexicon=new FullFormLexicon(dic);
+                lexicons.put(dic, lexicon);
+            }
+            return lexicon;
+        }
+    }
+
+    /**
+     * Method that returns a lexicon containing, at least, the lexical forms of
+     * a dictionary, as needed by <code>LexicalForms</code>. If the full
+     * lexicon of the dictionary was already built (see
+     * {@link #GetLexicon(Dictionary)}) it is returned; otherwise, a lexicon
+     * containing only the lexical forms is built, without expanding the
+     * paradigms, and reused afterwards.
+     * @param dic Dictionary
+     * @return Returns a lexicon with the lexical forms of the dictionary
+     */
+    static FullFormLexicon GetLexicalFormsLexicon(Dictionary dic){
+        DictionaryIndex index=DictionaryIndex.GetIndex(dic);
+        synchronized(lexicons){
+            FullFormLexicon lexicon=lexicons.get(dic);
+            if(lexicon!=null && lexicon.source_index==index) {
+                return lexicon;
+            }
+            lexicon=lexicalform_lexicons.get(dic);
+            if(lexicon==null || lexicon.source_index!=index){
+                lexicon=new FullFormLexicon(dic, true);
+                lexicalform_lexicons.put(dic, lexicon);
+            }
+            return lexicon;
+        }
+    }
+
+    /**
+     * Method that computes the checksum of a dictionary. The checksum is
+     * computed on the paradigm definitions and the entries of the dictionary,
+     * and it is stored in the lexicon in order to detect saved lexicons which
+     * were built from a different version of the dictionary.
+     * @param dic Dictionary
+     * @return Returns the CRC32 checksum of the content of the dictionary
+     */
+    public static long DictionaryChecksum(Dictionary dic){
+        CRC32 crc=new CRC32();
+        for(Pardef p: dic.pardefs.elements){
+            crc.update(p.toString().getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        DictionaryIndex index=DictionaryIndex.GetIndex(dic);
+        for(int i=0;i<index.NumberOfEntries();i++){
+            crc.update(index.getEntry(i).toString().getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Method that sets the lexicon to be returned by
+     * {@link #GetLexicon(Dictionary)} for a dictionary, for example, a lexicon
+     * loaded with {@link #Load(String)}. The lexicon is only accepted if it was
+     * built from the same version of the dictionary (see
+     * {@link #DictionaryChecksum(Dictionary)}).
+     * @param dic Dictionary
+     * @param lexicon Lexicon of the dictionary
+     * @throws IllegalArgumentException Thrown if the lexicon was built from a
+     * different dictionary
+     */
+    public static void SetLexicon(Dictionary dic, FullFormLexicon lexicon){
+        if(lexicon.only_lexical_forms || lexicon.NumberOfEntries()!=DictionaryIndex.GetIndex(dic).NumberOfEntries() ||
+                lexicon.getDictionaryChecksum()!=DictionaryChecksum(dic)) {
+            throw new IllegalArgumentException("The lexicon was built from a different dictionary");
+        }
+        synchronized(lexicons){
+            lexicon.source_index=DictionaryIndex.GetIndex(dic);
+            lexicons.put(dic, lexicon);
+        }
+    }
+
+    /**
+     * Method that saves the lexicon to a file. Lexicons containing only the
+     * lexical forms of the dictionary cannot be saved.
+     * @param path Path of the file
+     * @throws IOException Thrown if the file cannot be written
+     */
+    public void Save(String path) throws IOException{
+        if(only_lexical_forms) {
+            throw new IllegalStateException("The lexicon only contains the lexical forms of the dictionary");
+        }
+        ObjectOutputStream oos=new ObjectOutputStream(new BufferedOutputStream(
+                new FileOutputStream(path)));
+        try{
+            oos.writeObject(this);
+        }
+        finally{
+            oos.close();
+        }
+    }
+
+    /**
+     * Method that loads a lexicon saved with {@link #Save(String)}.
+     * @param path Path of the file
+     * @return Returns the lexicon loaded
+     * @throws IOException Thrown if the file cannot be read or does not
+     * contain a lexicon
+     */
+    public static FullFormLexicon Load(String path) throws IOException{
+        ObjectInputStream ois=new ObjectInputStream(new BufferedInputStream(
+                new FileInputStream(path)));
+        try{
+            return (FullFormLexicon)ois.readObject();
+        }
+        catch(ClassNotFoundException ex){
+            throw new IOException("File "+path+" does not contain a lexicon", ex);
+        }
+        catch(ClassCastException ex){
+            throw new IOException("File "+path+" does not contain a lexicon", ex);
+        }
+        finally{
+            ois.close();
+        }
+    }
+
+    /**
+     * Method that returns the number of entries of the dictionary from which
+     * the lexicon was built.
+     * @return Returns the number of entries of the dictionary
+     */
+    public int NumberOfEntries(){
+        return nentries;
+    }
+
+    /**
+     * Method that returns the checksum of the dictionary from which the lexicon
+     * was built (see {@link #DictionaryChecksum(Dictionary)}).
+     * @return Returns the checksum of the dictionary
+     */
+    public long getDictionaryChecksum(){
+        return dicchecksum;
+    }
+
+    /**
+     * Method that returns the number of different surface forms (including the
+     * lowercase variants) in the lexicon.
+     * @return Returns the number of surface forms
+     */
+    public int NumberOfSurfaceForms(){
+        return surfaceforms.size();
+    }
+
+    /**
+     * Method that returns a surface form of the lexicon.
+     * @param id Identifier of the surface form (between 0 and
+     * <code>NumberOfSurfaceForms()-1</code>, in alphabetical order)
+     * @return Returns the surface form
+     */
+    public String getSurfaceForm(int id){
+        return surfaceforms.getString(id);
+    }
+
+    /**
+     * Method that returns the identifier of a surface form.
+     * @param form Surface form
+     * @return Returns the identifier of the surface form or -1 if it is not
+     * in the lexicon
+     */
+    public int getSurfaceFormId(CharSequence form){
+        return surfaceforms.getId(form);
+    }
+
+    /**
+     * Method that returns the analyses of a surface form generated by the
+     * entries of the dictionary.
+     * @param form Surface form
+     * @return Returns the analyses of the form (empty if it is not generated
+     * by any entry)
+     */
+    public int[] getAnalyses(CharSequence form){
+        return getAnalyses(surfaceforms.getId(form), false);
+    }
+
+    /**
+     * Method that returns the analyses of the surface forms that, written in
+     * lowercase, are equal to a form, and are different from it.
+     * @param lowercaseform Form in lowercase
+     * @return Returns the analyses of the surface forms whose lowercase variant
+     * is the form (empty if there is none)
+     */
+    public int[] getFoldedAnalyses(CharSequence lowercaseform){
+        return getAnalyses(surfaceforms.getId(lowercaseform), true);
+    }
+
+    /**
+     * Method that returns the analyses of a surface form.
+     * @param id Identifier of the surface form (-1 for a form not in the
+     * lexicon)
+     * @param isfolded If <code>true</code>, the analyses of the surface forms
+     * whose lowercase variant is the form are returned; otherwise, the analyses
+     * of the form itself are returned
+     * @return Returns the positions of the analyses
+     */
+    public int[] getAnalyses(int id, boolean isfolded){
+        if(id<0) {
+            return new int[0];
+        }
+        int start=surface_start[id], end=surface_start[id+1];
+        int n=0;
+        for(int a=start;a<end;a++){
+            if(folded.get(a)==isfolded) {
+                n++;
+            }
+        }
+        int[] exit=new int[n];
+        n=0;
+        for(int a=start;a<end;a++){
+            if(folded.get(a)==isfolded) {
+                exit[n++]=a;
+            }
+        }
+        return exit;
+    }
+
+    /**
+     * Method that returns the number of different lexical forms in the lexicon.
+     * @return Returns the number of lexical forms
+     */
+    public int NumberOfLexicalForms(){
+        return lexicalforms.size();
+    }
+
+    /**
+     * Method that returns a lexical form of the lexicon.
+     * @param id Identifier of the lexical form (between 0 and
+     * <code>NumberOfLexicalForms()-1</code>, in alphabetical order)
+     * @return Returns the lexical form
+     */
+    public String getLexicalForm(int id){
+        return lexicalforms.getString(id);
+    }
+
+    /**
+     * Method that returns the analyses of a lexical form (the right side of an
+     * entry of the dictionary, without tags).
+     * @param form Lexical form
+     * @return Returns the analyses of the form (empty if it is not in the
+     * dictionary)
+     */
+    public int[] getLexicalAnalyses(CharSequence form){
+        return getLexicalAnalyses(lexicalforms.getId(form));
+    }
+
+    /**
+     * Method that returns the analyses of a lexical form.
+     * @param id Identifier of the lexical form (-1 for a form not in the
+     * lexicon)
+     * @return Returns the positions of the analyses
+     */
+    public int[] getLexicalAnalyses(int id){
+        if(id<0) {
+            return new int[0];
+        }
+        int[] exit=new int[lexical_start[id+1]-lexical_start[id]];
+        for(int i=0;i<exit.length;i++) {
+            exit[i]=lexical_start[id]+i;
+        }
+        return exit;
+    }
+
+    /**
+     * Method that returns the entry of an analysis.
+     * @param analysis Position of the analysis
+     * @return Returns the position of the entry in <code>DictionaryIndex</code>
+     */
+    public int getEntry(int analysis){
+        return analysis_entries[analysis];
+    }
+
+    /**
+     * Method that returns the paradigm of an analysis.
+     * @param analysis Position of the analysis
+     * @return Returns the name of the paradigm or <code>null</code> if the
+     * analysis does not come from a paradigm
+     */
+    public String getParadigm(int analysis){
+        int p=analysis_paradigms[analysis];
+        return (p<0)? null: paradigm_names[p];
+    }
+
+    /**
+     * Method that returns the length of the stem of the entry of an analysis,
+     * i.e. the position where the suffix of a surface form starts.
+     * @param analysis Position of the analysis
+     * @return Returns the length of the stem (-1 if the entry has no stem)
+     */
+    public int getStemLength(int analysis){
+        return stem_lengths[analysis_entries[analysis]];
+    }
+
+    /**
+     * Method that indicates if an analysis corresponds to the lowercase variant
+     * of the surface form generated by the entry.
+     * @param analysis Position of the analysis
+     * @return Returns <code>true</code> if the analysis was stored for the
+     * lowercase variant of the form
+     */
+    public boolean isFolded(int analysis){
+        return folded.get(analysis);
+    }
+
+    /**
+     * Method that returns the number of tags of an analysis.
+     * @param analysis Position of the analysis
+     * @return Returns the number of tags
+     */
+    public int getNumberOfTags(int analysis){
+        int s=analysis_tags[analysis];
+        return tags_start[s+1]-tags_start[s];
+    }
+
+    /**
+     * Method that returns a tag of an analysis.
+     * @param analysis Position of the analysis
+     * @param position Position of the tag
+     * @return Returns the identifier of the tag in the {@link TagSymbolTable}
+     */
+    public int getTag(int analysis, int position){
+        return tags[tags_start[analysis_tags[analysis]]+position];
+    }
+
+    /**
+     * Method that returns the tags of an analysis.
+     * @param analysis Position of the analysis
+     * @return Returns the identifiers of the tags in the {@link TagSymbolTable}
+     */
+    public int[] getTags(int analysis){
+        int s=analysis_tags[analysis];
+        return Arrays.copyOfRange(tags, tags_start[s], tags_start[s+1]);
+    }
+
+    /**
+     * Method that serialises the lexicon. The identifiers of the tags are only
+     * valid in the current process, so the names of the tags used are written
+     * after the rest of the object.
+     * @param out Stream where the object is written
+     * @throws IOException Thrown if the object cannot be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException{
+        out.defaultWriteObject();
+        int maxtag=-1;
+        for(int tag: tags) {
+            maxtag=Math.max(maxtag, tag);
+        }
+        out.writeInt(maxtag+1);
+        TagSymbolTable symbols=TagSymbolTable.GetSymbolTable();
+        for(int tag=0;tag<=maxtag;tag++){
+            out.writeUTF(symbols.getName(tag));
+        }
+    }
+
+    /**
+     * Method that reads a serialised lexicon and translates the identifiers of
+     * its tags to those of the {@link TagSymbolTable} of this process.
+     * @param in Stream from which the object is read
+     * @throws IOException Thrown if the object cannot be read
+     * @throws ClassNotFoundException Thrown if a class of the object is not
+     * found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException{
+        in.defaultReadObject();
+        int ntags=in.readInt();
+        int[] ids=new int[ntags];
+        TagSymbolTable symbols=TagSymbolTable.GetSymbolTable();
+        for(int tag=0;tag<ntags;tag++){
+            ids[tag]=symbols.getOrAddId(in.readUTF());
+        }
+        for(int i=0;i<tags.length;i++){
+            tags[i]=ids[tags[i]];
+        }
+    }
+}
@@ -24,9 +24,9 @@ package es.ua.dlsi.lexicalinformation;
 
 import dics.elements.dtd.*;
 import dics.elements.dtd.Dictionary;
+import es.ua.dlsi.entries.DictionaryIndex;
 import es.ua.dlsi.utils.Pair;
 import java.util.*;
-import java.util.Map.Entry;
 
 /**
  * Class that represents the lexical forms in an Apertium monolingual dictionary.
@@ -37,109 +37,43 @@ import java.util.Map.Entry;
  */
 public class LexicalForms {
 
-    /**
-     * Class that represents the lexical information of a given lexical form.
-     * This class contains the lexical information of a given lexical form, and
-     * some additional information, namely, the name of the paradigm (if defined)
-     * and the <code>E</code> entry from the dictionary.
-     */
-    public class LexicalInfo{
-        public List<String> lexicaltags;
-        public String paradigm;
-        public E entry;
-
-        public LexicalInfo(List<String> lexicaltags, String paradigm, E entry){
-            this.lexicaltags=lexicaltags;
-            this.paradigm=paradigm;
-            this.entry=entry;
-        }
-    }
+    /** Value used in the queries for the tags that match any other tag */
+    private static final int ANY_TAG=-2;
     
     /**
-     * Map with the a set of lexical forms in a dictionary.
-     * This map has, as the key, a stem, and the value contains the list of all
-     * the possible collections of lexical information combinations for the
+     * Lexicon of the dictionary, which contains, for every lexical form, the
+     * list of all the possible collections of lexical information for the
      * corresponding entries in the dictionary.
      */
-    Map<String,List<LexicalInfo>> lexforms;
+    private FullFormLexicon lexicon;
+
+    /** Index of the entries of the dictionary */
+    private DictionaryIndex index;
 
     /**
      * Constructor of the class.
-     * This constructor takes a monolingual dictionary and builds the map of
-     * lexical forms for the class.
+     * This constructor takes a monolingual dictionary and obtains the lexical
+     * forms for the class from its {@link FullFormLexicon}. If the full lexicon
+     * of the dictionary has not been built, only its lexical forms are read,
+     * without expanding the paradigms.
      * @param dic Monoliingual dictionary from which the lexical forms will be
      * obtained.
      */
     public LexicalForms(Dictionary dic){
-        lexforms=new LinkedHashMap<String, List<LexicalInfo>>();
-        for(Section sec: dic.sections){
-            for(E e: sec.elements){
-                if(!e.isMultiWord()){
-                    String stem="";
-                    for (DixElement de: e.children){
-                        if(de instanceof I){
-                            if(!((I)de).getValueNoTags().equals("")) {
-                                stem=((I)de).getValueNoTags();
-                            }
-                        }
-                        else if(de instanceof P)
-                        {
-                            if(!((P)de).r.getValueNoTags().equals("")) {
-                                stem=((P)de).r.getValueNoTags();
-                            }
-                            List<String> lstmp=new LinkedList<String>();
-                            boolean anyfound=false;
-                            for(DixElement lexinfode: ((P)de).r.children){
-                                if(lexinfode instanceof S){
-                                    lstmp.add(((S)lexinfode).name);
-                                    anyfound=true;
-                                }
-                            }
-                            if(anyfound){
-                                if(lexforms.containsKey(stem)) {
-                                    lexforms.get(stem).add(new LexicalInfo(lstmp, "", e));
-                                }
-                                else{
-                                    List<LexicalInfo> l=new LinkedList<LexicalInfo>();
-                                    l.add(new LexicalInfo(lstmp,"", e));
-                                    lexforms.put(stem, l);
-                                }
-                            }
-                        }
-                        else if(de instanceof Par)
-                        {
-                            List<E> parElements=dic.pardefs.getParadigmDefinition(((Par)de).name).elements;
-                            if(parElements.size()>0){
-                                for(E pare: parElements){
-                                    for(DixElement parde: pare.children){
-                                        if(parde instanceof P){
-                                            StringBuilder sb=new StringBuilder(stem);
-                                            if(!((P)parde).r.getValueNoTags().equals("")) {
-                                                sb.append(((P)parde).r.getValueNoTags());
-                                            }
-                                            List<String> lstmp=new LinkedList<String>();
-                                            for(DixElement lexinfode: ((P)parde).r.children){
-                                                if(lexinfode instanceof S){
-                                                    lstmp.add(((S)lexinfode).name);
-                                                }
-                                            }
-                                            if(lexforms.containsKey(sb.toString())) {
-                                                lexforms.get(sb.toString()).add(new LexicalInfo(lstmp,((Par)de).name, e));
-                                            }
-                                            else{
-                                                List<LexicalInfo> l=new LinkedList<LexicalInfo>();
-                                                l.add(new LexicalInfo(lstmp,((Par)de).name, e));
-                                                lexforms.put(sb.toString(), l);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        this(dic, FullFormLexicon.GetLexicalFormsLexicon(dic));
+    }
+
+    /**
+     * Overloaded constructor of the class.
+     * This constructor takes a monolingual dictionary and the lexicon
+     * previously built from it (for example, loaded from disk).
+     * @param dic Monoliingual dictionary from which the lexical forms will be
+     * obtained.
+     * @param lexicon Lexicon built from the dictionary
+     */
+    public LexicalForms(Dictionary dic, FullFormLexicon lexicon){
+        this.lexicon=lexicon;
+        this.index=DictionaryIndex.GetIndex(dic);
     }
     
     
@@ -184,6 +118,59 @@ public class LexicalForms {
         return lstmp;
     }
     
+    /**
+     * Method that translates the lexical information of a query into
+     * identifiers of the {@link TagSymbolTable}. The tags "ND" and "GD" (not
+     * determined number and gender) match any other tag, and the tags that are
+     * not in the table do not match any tag.
+     * @param lexinfo Lexical information of the query
+     * @return Returns the identifiers of the tags of the query
+     */
+    private static int[] GetQuery(List<String> lexinfo){
+        TagSymbolTable symbols=TagSymbolTable.GetSymbolTable();
+        int[] query=new int[lexinfo.size()];
+        int i=0;
+        for(String tag: lexinfo){
+            if(tag.equals("ND") || tag.equals("GD")) {
+                query[i]=ANY_TAG;
+            }
+            else {
+                query[i]=symbols.getId(tag);
+            }
+            i++;
+        }
+        return query;
+    }
+
+    /**
+     * Method that checks if the first tags of a lexical form match a query.
+     * @param query Identifiers of the tags of the query (see <code>GetQuery</code>)
+     * @param analysis Analysis of the lexical form in the lexicon; it must
+     * contain, at least, as many tags as the query
+     * @return Returns <code>true</code> if every tag of the query is equal to
+     * the tag in the same position of the lexical form or matches any tag
+     */
+    private boolean Matches(int[] query, int analysis){
+        for(int i=0;i<query.length;i++){
+            if(query[i]!=ANY_TAG && query[i]!=lexicon.getTag(analysis, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method that returns the name of the paradigm of an analysis of a lexical
+     * form.
+     * @param analysis Analysis of the lexical form in the lexicon
+     * @return Returns the name of the paradigm or an empty string if the
+     * lexical form is not generated by a paradigm
+     */
+    private String getParadigm(int analysis){
+        String paradigm=lexicon.getParadigm(analysis);
+        return (paradigm==null)? "": paradigm;
+    }
+
     /**
      * Method that obtains name of the paradigm to which a lexical form belongs
      * from a set of candidates.
@@ -196,27 +183,16 @@ public class LexicalForms {
      */
     public String GetParadigmFromLexForm(String stem,List<String> lexinfo,
             Set<String> possibleparadigms){
-        List<LexicalInfo> candidates=lexforms.get(stem);
+        int[] candidates=lexicon.getLexicalAnalyses(stem);
         if(lexinfo==null){
             System.err.println("Error: lexical information cannot be null");
         }
-        if(candidates!=null) {
-            for(LexicalInfo p: candidates){
-                if(possibleparadigms.contains(p.paradigm)){
-                    int i;
-                    if(lexinfo.size()>0){
-                        for(i=0;i<lexinfo.size();i++){
-                            if(p.lexicaltags.size()>=lexinfo.size()){
-                                if(!lexinfo.get(i).equals("ND") &&
-                                        !lexinfo.get(i).equals("GD") &&
-                                        !lexinfo.get(i).equals(p.lexicaltags.get(i))) {
-                                    break;
-                                }
-                            }
-                        }
-                        if(i==lexinfo.size()) {
-                            return p.paradigm;
-                        }
+        int[] query=GetQuery(lexinfo);
+        for(int p: candidates){
+            if(possibleparadigms.contains(getParadigm(p))){
+                if(query.length>0){
+                    if(lexicon.getNumberOfTags(p)<query.length || Matches(query, p)) {
+                        return getParadigm(p);
                     }
                 }
             }
@@ -234,26 +210,15 @@ public class LexicalForms {
      * @return Returns the name of the first paradigm generating the lexical form.
      */
     public String GetParadigmFromLexForm(String stem,List<String> lexinfo){
-        List<LexicalInfo> candidates=lexforms.get(stem);
+        int[] candidates=lexicon.getLexicalAnalyses(stem);
         if(lexinfo==null){
             System.err.println("Error: lexical information cannot be null");
         }
-        if(candidates!=null) {
-            for(LexicalInfo p: candidates){
-                int i;
-                if(lexinfo.size()>0){
-                    for(i=0;i<lexinfo.size();i++){
-                        if(p.lexicaltags.size()>=lexinfo.size()){
-                            if(!lexinfo.get(i).equals("ND") &&
-                                    !lexinfo.get(i).equals("GD") &&
-                                    !lexinfo.get(i).equals(p.lexicaltags.get(i))) {
-                                break;
-                            }
-                        }
-                    }
-                    if(i==lexinfo.size()) {
-                        return p.paradigm;
-                    }
+        int[] query=GetQuery(lexinfo);
+        for(int p: candidates){
+            if(query.length>0){
+                if(lexicon.getNumberOfTags(p)<query.length || Matches(query, p)) {
+                    return getParadigm(p);
                 }
             }
         }
@@ -269,26 +234,17 @@ public class LexicalForms {
      */
     public Set<Pair<String,E>> GetParsAndEntriesFromLexForm(String stem,List<String> lexinfo){
         Set<Pair<String,E>> result=new LinkedHashSet<Pair<String,E>>();
-        List<LexicalInfo> candidates=lexforms.get(stem);
+        int[] candidates=lexicon.getLexicalAnalyses(stem);
         if(lexinfo==null){
             System.err.println("Error: lexical information cannot be null");
         }
-        if(candidates!=null){
-            for(LexicalInfo p: candidates){
-                int i;
-                if(lexinfo.size()>0){
-                    for(i=0;i<lexinfo.size();i++){
-                        if(p.lexicaltags.size()>=lexinfo.size()){
-                            if(!lexinfo.get(i).equals("ND") &&
-                                    !lexinfo.get(i).equals("GD") &&
-                                    !lexinfo.get(i).equals(p.lexicaltags.get(i))) {
-                                break;
-                            }
-                        }
-                    }
-                    if(i==lexinfo.size() && !p.paradigm.equals("")) {
-                        result.add(new Pair<String, E>(p.paradigm,p.entry));
-                    }
+        int[] query=GetQuery(lexinfo);
+        for(int p: candidates){
+            if(query.length>0){
+                if((lexicon.getNumberOfTags(p)<query.length || Matches(query, p))
+                        && !getParadigm(p).equals("")) {
+                    result.add(new Pair<String, E>(getParadigm(p),
+                            index.getEntry(lexicon.getEntry(p))));
                 }
             }
         }
@@ -311,25 +267,16 @@ public class LexicalForms {
      */
     public Set<String> GetParadigmsFromLexForm(String stem,List<String> lexinfo){
         Set<String> result=new LinkedHashSet<String>();
-        List<LexicalInfo> candidates=lexforms.get(stem);
+        int[] candidates=lexicon.getLexicalAnalyses(stem);
         if(lexinfo==null){
             System.err.println("Error: lexical information cannot be null");
         }
-        if(candidates!=null){
-            for(LexicalInfo p: candidates){
-                int i;
-                if(lexinfo.size()>0){
-                    if(p.lexicaltags.size()>=lexinfo.size()){
-                        for(i=0;i<lexinfo.size();i++){
-                                if(!lexinfo.get(i).equals("ND") &&
-                                        !lexinfo.get(i).equals("GD") &&
-                                        !lexinfo.get(i).equals(p.lexicaltags.get(i))) {
-                                break;
-                            }
-                        }
-                        if(i==lexinfo.size() && !p.paradigm.equals("")) {
-                            result.add(p.paradigm);
-                        }
+        int[] query=GetQuery(lexinfo);
+        for(int p: candidates){
+            if(query.length>0){
+                if(lexicon.getNumberOfTags(p)>=query.length){
+                    if(Matches(query, p) && !getParadigm(p).equals("")) {
+                        result.add(getParadigm(p));
                     }
                 }
             }
@@ -346,14 +293,14 @@ public class LexicalForms {
      * Method that prints the collection of lexical forms.
      */
     public void Print(){
-        for(Entry<String,List<LexicalInfo>> e: lexforms.entrySet()){
-            for(LexicalInfo p: e.getValue()){
-                System.out.print(e.getKey());
+        for(int form=0;form<lexicon.NumberOfLexicalForms();form++){
+            for(int p: lexicon.getLexicalAnalyses(form)){
+                System.out.print(lexicon.getLexicalForm(form));
                 System.out.print(" ");
-                System.out.print(p.paradigm);
+                System.out.print(getParadigm(p));
                 System.out.print(": ");
-                for(String s: p.lexicaltags){
-                    System.out.print(s);
+                for(int tag: lexicon.getTags(p)){
+                    System.out.print(TagSymbolTable.GetSymbolTable().getName(tag));
                     System.out.print(", ");
                 }
                 System.out.println();
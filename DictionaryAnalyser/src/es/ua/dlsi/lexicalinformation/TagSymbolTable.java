@@ -0,0 +1,186 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.lexicalinformation;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class that maps the lexical tags (the symbols <code>&lt;s n="..."/&gt;</code>
+ * of Apertium dictionaries) to dense integer identifiers. Storing the lexical
+ * information as arrays of identifiers instead of lists of strings reduces the
+ * memory used by the expanded paradigms and allows to compare tags as
+ * integers. Only one table is kept (see {@link #GetSymbolTable()}), shared by
+ * all the dictionaries loaded, so the identifiers of the tags of a monolingual
+ * dictionary can be compared with those of a bilingual dictionary. The names of
+ * the tags are only needed when the lexical information is printed.
+ * @author Miquel Esplà i Gomis
+ */
+public class TagSymbolTable {
+
+    /** Table shared by all the dictionaries. */
+    private static final TagSymbolTable table=new TagSymbolTable();
+
+    /** Names of the tags; the identifier of a tag is its position. */
+    private volatile String[] names;
+
+    /** Number of tags in the table. */
+    private volatile int size;
+
+    /** Map between the names of the tags and their identifiers. */
+    private final ConcurrentHashMap<String,Integer> ids;
+
+    /**
+     * Constructor of the class that builds an empty table.
+     */
+    private TagSymbolTable(){
+        this.names=new String[64];
+        this.size=0;
+        this.ids=new ConcurrentHashMap<String, Integer>();
+    }
+
+    /**
+     * Method that returns the symbol table of the lexical tags.
+     * @return Returns the symbol table of the lexical tags
+     */
+    public static TagSymbolTable GetSymbolTable(){
+        return table;
+    }
+
+    /**
+     * Method that returns the identifier of a tag.
+     * @param name Name of the tag
+     * @return Returns the identifier of the tag or -1 if the tag is not in the
+     * table
+     */
+    public int getId(String name){
+        Integer id=ids.get(name);
+        if(id==null) {
+            return -1;
+        }
+        else {
+            return id;
+        }
+    }
+
+    /**
+     * Method that returns the identifier of a tag, adding the tag to the table
+     * if it was not in it.
+     * @param name Name of the tag
+     * @return Returns the identifier of the tag
+     */
+    public int getOrAddId(String name){
+        Integer id=ids.get(name);
+        if(id!=null) {
+            return id;
+        }
+        synchronized(this){
+            id=ids.get(name);
+            if(id==null){
+                id=size;
+                if(size==names.length) {
+                    names=Arrays.copyOf(names, size*2);
+                }
+                names[size]=name.intern();
+                size++;
+                ids.put(names[id], id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Method that returns the identifiers of a list of tags, adding to the table
+     * those tags that were not in it.
+     * @param tags List of names of tags
+     * @return Returns an array with the identifiers of the tags, in the same
+     * order as in the list
+     */
+    public int[] getOrAddIds(List<String> tags){
+        int[] exit=new int[tags.size()];
+        int i=0;
+        for(String tag: tags){
+            exit[i++]=getOrAddId(tag);
+        }
+        return exit;
+    }
+
+    /**
+     * Method that returns the name of a tag given its identifier.
+     * @param id Identifier of the tag
+     * @return Returns the name of the tag
+     */
+    public String getName(int id){
+        return names[id];
+    }
+
+    /**
+     * Method that returns a list of names of tags backed by an array of
+     * identifiers. The list is a view of the array: no string is stored, and
+     * the names are looked up in the table when the elements are read. The
+     * list cannot be modified.
+     * @param tags Array of identifiers of tags
+     * @return Returns a list with the names of the tags
+     */
+    public List<String> AsList(int[] tags){
+        return new TagList(tags);
+    }
+
+    /**
+     * Method that returns the number of tags in the table.
+     * @return Returns the number of tags in the table
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Unmodifiable list of names of tags backed by an array of identifiers.
+     */
+    private class TagList extends AbstractList<String> implements RandomAccess{
+
+        /** Identifiers of the tags. */
+        private final int[] tags;
+
+        /**
+         * Constructor of the class.
+         * @param tags Identifiers of the tags
+         */
+        TagList(int[] tags){
+            this.tags=tags;
+        }
+
+        @Override
+        public String get(int index){
+            return getName(tags[index]);
+        }
+
+        @Override
+        public int size(){
+            return tags.length;
+        }
+    }
+}
@@ -23,11 +23,12 @@
 package es.ua.dlsi.monolingual;
 
 import dics.elements.dtd.Dictionary;
-import dics.elements.dtd.DixElement;
-import dics.elements.dtd.P;
 import dics.elements.dtd.Pardef;
 import es.ua.dlsi.lexicalinformation.ClosedCategories;
 import es.ua.dlsi.suffixtree.Node;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -37,22 +38,32 @@ import org.json.simple.JSONObject;
 /**
  * Class that represents a candidate to be a pair stem/suffix-set.
  * Class that candidate stem/suffix-set which could be a part of the dictionary.
+ * <p>
+ * Candidates are created in large numbers when segmenting words, and most of
+ * them are discarded soon, so they are kept as light as possible: the stem is
+ * stored as a reference to the word from which it is taken and its length
+ * (the stem is only built when requested), the paradigm is stored as its
+ * identifier in the table of paradigms shared by all the candidates (see
+ * {@link ParadigmSymbolTable#GetSharedTable()}), and the expansion and the
+ * lemma of the candidate are not stored, but computed when requested from the
+ * paradigm, whose suffixes are expanded only once and which is cached by its
+ * identifier (see {@link ParadigmRegistry#getParadigm(int)}).
  * @author Miquel Esplà i Gomis
  */
 public class Candidate implements Serializable, Comparable<Object> {
-    /**Stem of the lexical form*/
-    private String stem;
+    /**Word from which the stem of the lexical form is taken*/
+    private String word;
     
-    /**Paradigm to which the entry belongs*/
-    private String paradigm;
+    /**Length of the stem of the lexical form (the stem is the prefix of
+     * <code>word</code> of this length)*/
+    private int stem_length;
     
-    /**Expansion of the combination of the stem and the paradigm*/
-    private Map<String,Set<Suffix>> expansion;
+    /**Identifier of the paradigm to which the entry belongs in the table of
+     * paradigms shared by all the candidates, or -1 if the candidate has no
+     * paradigm; the candidate is serialised with the name of the paradigm*/
+    private transient int paradigm;
     
-    /**Lemma of the candidate**/
-    private String lemma;
-    
-    /**Lemma of the candidate**/
+    /**Node of the suffix tree in which the candidate was found**/
     private Node reftotree;
     
     /**
@@ -61,10 +72,52 @@ public class Candidate implements Serializable, Comparable<Object> {
      * @param paradigm Paradigm to add to the new object.
      */
     public Candidate(String stem, String paradigm){
-        this.stem=stem;
+        this.word=stem;
+        this.stem_length=(stem==null)? 0: stem.length();
+        this.paradigm=GetParadigmId(paradigm);
+    }
+    
+    /**
+     * Overloaded constructor of the class that takes the stem from a prefix of
+     * a word, without copying it.
+     * @param word Word which starts with the stem of the candidate
+     * @param stem_length Length of the stem of the candidate
+     * @param paradigm Paradigm to add to the new object.
+     */
+    public Candidate(String word, int stem_length, String paradigm){
+        this.word=word;
+        this.stem_length=stem_length;
+        this.paradigm=GetParadigmId(paradigm);
+    }
+
+    /**
+     * Overloaded constructor of the class that takes the stem from a prefix of
+     * a word, without copying it, and the paradigm from its identifier.
+     * @param word Word which starts with the stem of the candidate
+     * @param stem_length Length of the stem of the candidate
+     * @param paradigm Identifier of the paradigm in the table shared by all
+     * the candidates (see {@link ParadigmSymbolTable#GetSharedTable()})
+     */
+    public Candidate(String word, int stem_length, int paradigm){
+        this.word=word;
+        this.stem_length=stem_length;
         this.paradigm=paradigm;
-        this.lemma=null;
-        this.expansion=null;
+    }
+
+    /**
+     * Method that returns the identifier of a paradigm in the table shared by
+     * all the candidates, adding it to the table if it was not in it.
+     * @param paradigm Name of the paradigm
+     * @return Returns the identifier of the paradigm, or -1 if the name is
+     * <code>null</code>
+     */
+    private static int GetParadigmId(String paradigm){
+        if(paradigm==null) {
+            return -1;
+        }
+        else {
+            return ParadigmSymbolTable.GetSharedTable().getOrAddId(paradigm);
+        }
     }
 
     /**
@@ -72,6 +125,21 @@ public class Candidate implements Serializable, Comparable<Object> {
      * @return Returns the name of the paradigm
      */
     public String getParadigm() {
+        if(paradigm<0) {
+            return null;
+        }
+        else {
+            return ParadigmSymbolTable.GetSharedTable().getName(paradigm);
+        }
+    }
+
+    /**
+     * Method that returns the identifier of the paradigm in the table shared
+     * by all the candidates (see {@link ParadigmSymbolTable#GetSharedTable()}).
+     * @return Returns the identifier of the paradigm, or -1 if the candidate
+     * has no paradigm
+     */
+    public int getParadigmId() {
         return paradigm;
     }
 
@@ -80,7 +148,7 @@ public class Candidate implements Serializable, Comparable<Object> {
      * @param paradigm Name of the paradigm to be set.
      */
     public void setParadigm(String paradigm) {
-        this.paradigm = paradigm;
+        this.paradigm = GetParadigmId(paradigm);
     }
 
     /**
@@ -88,7 +156,20 @@ public class Candidate implements Serializable, Comparable<Object> {
      * @return Returns the stem of the candidate
      */
     public String getStem() {
-        return stem;
+        if(word==null || stem_length==word.length()) {
+            return word;
+        }
+        else {
+            return word.substring(0, stem_length);
+        }
+    }
+
+    /**
+     * Method that returns the length of the stem of the candidate.
+     * @return Returns the length of the stem of the candidate
+     */
+    public int getStemLength() {
+        return stem_length;
     }
 
     /**
@@ -96,7 +177,8 @@ public class Candidate implements Serializable, Comparable<Object> {
      * @param stem Stem of the candidate to be set.
      */
     public void setStem(String stem) {
-        this.stem = stem;
+        this.word = stem;
+        this.stem_length = (stem==null)? 0: stem.length();
     }
 
     /**
@@ -123,19 +205,31 @@ public class Candidate implements Serializable, Comparable<Object> {
         return GetExpansion(dic).keySet();
     }
     
+    /**
+     * Method that returns the key identifying the set of surface forms generated
+     * by the candidate (see {@link ParadigmEquivalences}). Two candidates
+     * generate the same surface forms if and only if their keys are equal, and
+     * the key is obtained without expanding the candidate.
+     * @param dic Dictionary from which the paradigm will be read
+     * @return Returns the key of the set of surface forms of the candidate
+     */
+    public ParadigmEquivalences.Key getEquivalenceKey(Dictionary dic){
+        return ParadigmRegistry.GetRegistry(dic).getEquivalences().getKey(
+                this.getStem(), this.getParadigm());
+    }
+    
     /**
      * Method that indicates if the candidate belongs to a closed cathegory.
      * @param dic Dictionary from which the lexical information of the candidate will be read.
      * @return Returns <code>true</code> if the candidate belongs to a closed cathegory and <code>false</code> otherwhise.
      */
     public boolean isClosedCategoryParadigm(Dictionary dic){
-        Pardef p=dic.pardefs.getParadigmDefinition(this.paradigm);
+        Pardef p=dic.pardefs.getParadigmDefinition(this.getParadigm());
         if(p==null) {
             return false;
         }
         else {
-            return ClosedCategories.isClosedCategoryParadigm(
-                    dic.pardefs.getParadigmDefinition(this.paradigm));
+            return ClosedCategories.isClosedCategoryParadigm(p);
         }
     }
 
@@ -153,10 +247,12 @@ public class Candidate implements Serializable, Comparable<Object> {
             return false;
         }
         final Candidate other = (Candidate) obj;
-        if ((this.stem == null) ? (other.stem != null) : !this.stem.equals(other.stem)) {
+        if ((this.word == null) ? (other.word != null) : (other.word == null ||
+                this.stem_length != other.stem_length ||
+                !this.word.regionMatches(0, other.word, 0, this.stem_length))) {
             return false;
         }
-        if ((this.paradigm == null) ? (other.paradigm != null) : !this.paradigm.equals(other.paradigm)) {
+        if (this.paradigm != other.paradigm) {
             return false;
         }
         return true;
@@ -168,9 +264,17 @@ public class Candidate implements Serializable, Comparable<Object> {
      */
     @Override
     public int hashCode() {
+        //Same value as the hash code of the stem, without building it
+        int stemhash = 0;
+        if(this.word != null){
+            for(int i=0;i<this.stem_length;i++) {
+                stemhash = 31 * stemhash + this.word.charAt(i);
+            }
+        }
         int hash = 7;
-        hash = 67 * hash + (this.stem != null ? this.stem.hashCode() : 0);
-        hash = 67 * hash + (this.paradigm != null ? this.paradigm.hashCode() : 0);
+        hash = 67 * hash + stemhash;
+        //Same value as the hash code of the name of the paradigm
+        hash = 67 * hash + (this.paradigm >= 0 ? this.getParadigm().hashCode() : 0);
         return hash;
     }
     
@@ -189,10 +293,10 @@ public class Candidate implements Serializable, Comparable<Object> {
     public int compareTo(Object obj) throws ClassCastException  
     {
         final Candidate other = (Candidate) obj;
-        if (this.stem == null){
-            if(other.stem == null){
-                if (this.paradigm == null){
-                    if(other.paradigm == null){
+        if (this.word == null){
+            if(other.word == null){
+                if (this.paradigm < 0){
+                    if(other.paradigm < 0){
                         return 0;
                     }
                     else{
@@ -200,11 +304,11 @@ public class Candidate implements Serializable, Comparable<Object> {
                     }
                 }
                 else{
-                    if(other.paradigm == null){
+                    if(other.paradigm < 0){
                         return 1;
                     }
                     else{
-                        return this.paradigm.compareTo(other.paradigm);
+                        return this.getParadigm().compareTo(other.getParadigm());
                     }
                 }
             }
@@ -213,11 +317,20 @@ public class Candidate implements Serializable, Comparable<Object> {
             }
         }
         else{
-            if(other.stem == null){
+            if(other.word == null){
                 return 1;
             }
             else{
-                return this.stem.compareTo(other.stem);
+                //Same result as comparing the stems, without building them
+                int len=Math.min(this.stem_length, other.stem_length);
+                for(int i=0;i<len;i++){
+                    char c1=this.word.charAt(i);
+                    char c2=other.word.charAt(i);
+                    if(c1!=c2) {
+                        return c1-c2;
+                    }
+                }
+                return this.stem_length-other.stem_length;
             }
         }
    }
@@ -226,27 +339,21 @@ public class Candidate implements Serializable, Comparable<Object> {
      * Method that produces the whole expansion of the candidate.
      * The method expands the combination of the stem and the paradigm, producing
      * a map with all the surface forms possible as a key and the set of possible 
-     * suffixes that can generate that surface form as a value.
+     * suffixes that can generate that surface form as a value. The expansion is
+     * not built: the map returned is a view of the suffixes of the paradigm
+     * grouped by their form, which are computed only once for every paradigm
+     * (see <code>Paradigm.getSuffixesByForm</code>), so looking up a surface
+     * form does not build any string and the surface forms are only built
+     * when the map is iterated.
      * @param dic Dictionary from which the the paradigm is read.
-     * @return Returns a map with all the surface forms possible as a key and the
-     * set of possible suffixes that can generate that surface form as a value.
+     * @return Returns a map with all the surface forms possible as a key, in
+     * the order of the suffixes of the paradigm, and the set of possible
+     * suffixes that can generate that surface form as a value (neither the map
+     * nor the sets of suffixes can be modified).
      */
     public Map<String,Set<Suffix>> GetExpansion(Dictionary dic){
-        if(this.expansion==null){
-            Paradigm p=new Paradigm(this.paradigm, dic);
-            lemma=stem+p.GetLemmaSuffix();
-            this.expansion=new HashMap<String, Set<Suffix>>();
-            for(Suffix s: p.getSuffixes()){
-                StringBuilder sb=new StringBuilder(this.stem);
-                sb.append(s.getSuffix());
-                String sf=sb.toString();
-                if(!this.expansion.containsKey(sf)) {
-                    this.expansion.put(sf,new LinkedHashSet<Suffix>());
-                }
-                this.expansion.get(sf).add(s);
-            }
-        }
-        return this.expansion;
+        Paradigm p=ParadigmRegistry.GetRegistry(dic).getParadigm(this.paradigm);
+        return new Expansion(this.getStem(), p.getSuffixesByForm());
     }
     
     /**
@@ -255,16 +362,13 @@ public class Candidate implements Serializable, Comparable<Object> {
      * @return Returns the lema of the candidate
      */
     public String GetLemma(Dictionary dic){
-        if(lemma==null){
-            for(DixElement parchild: dic.pardefs.getParadigmDefinition(
-                    this.paradigm).elements.get(0).children){
-                if(parchild instanceof P){
-                    this.lemma=(this.stem+((P)parchild).r.getValueNoTags());
-                    break;
-                }
-            }
+        String suffix=ParadigmRegistry.GetRegistry(dic).getParadigm(this.paradigm).GetLemmaSuffix();
+        if(suffix==null) {
+            return null;
+        }
+        else {
+            return this.getStem()+suffix;
         }
-        return lemma;
     }
     
     /**
@@ -276,16 +380,29 @@ public class Candidate implements Serializable, Comparable<Object> {
      */
     @Override
     public String toString(){
-        StringBuilder sb=new StringBuilder(this.stem);
+        StringBuilder sb=new StringBuilder(this.getStem());
         sb.append("|");
-        sb.append(this.paradigm);
+        sb.append(this.getParadigm());
         return sb.toString();
     }
 
+    /**
+     * Method that returns the node of the suffix tree in which the candidate
+     * was found. Only the candidates produced by <code>SuffixTree</code> have
+     * this reference; it is <code>null</code> for those produced by
+     * <code>CompactSuffixTree</code>.
+     * @return Returns the node of the suffix tree in which the candidate was
+     * found, or <code>null</code> if it is not known
+     */
     public Node getReftotree() {
         return reftotree;
     }
 
+    /**
+     * Method that sets the node of the suffix tree in which the candidate was
+     * found.
+     * @param reftotree Node of the suffix tree
+     */
     public void setReftotree(Node reftotree) {
         this.reftotree = reftotree;
     }
@@ -322,4 +439,104 @@ public class Candidate implements Serializable, Comparable<Object> {
         
         return json;
     }
+
+    /**
+     * Method that serialises the candidate. The identifier of the paradigm is
+     * only valid in the current process, so the name of the paradigm is
+     * written after the rest of the object.
+     * @param out Stream where the object is written
+     * @throws IOException Thrown if the object cannot be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException{
+        out.defaultWriteObject();
+        out.writeObject(getParadigm());
+    }
+
+    /**
+     * Method that reads a serialised candidate and translates the name of its
+     * paradigm to its identifier in the current process.
+     * @param in Stream from which the object is read
+     * @throws IOException Thrown if the object cannot be read
+     * @throws ClassNotFoundException Thrown if a class of the object is not
+     * found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException{
+        in.defaultReadObject();
+        this.paradigm=GetParadigmId((String)in.readObject());
+    }
+
+    /**
+     * Class that implements the expansion of a candidate as a view of the
+     * suffixes of its paradigm grouped by their form: every surface form is
+     * the stem followed by one of these forms.
+     */
+    private static class Expansion extends AbstractMap<String,Set<Suffix>>{
+        /** Stem of the candidate. */
+        private final String stem;
+
+        /** Suffixes of the paradigm grouped by their form. */
+        private final Map<String,Set<Suffix>> suffixes;
+
+        /**
+         * Constructor of the class.
+         * @param stem Stem of the candidate
+         * @param suffixes Suffixes of the paradigm grouped by their form
+         */
+        Expansion(String stem, Map<String,Set<Suffix>> suffixes){
+            this.stem=stem;
+            this.suffixes=suffixes;
+        }
+
+        @Override
+        public int size(){
+            return suffixes.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key){
+            return get(key)!=null;
+        }
+
+        @Override
+        public Set<Suffix> get(Object key){
+            if(!(key instanceof String) || !((String)key).startsWith(stem)) {
+                return null;
+            }
+            return suffixes.get(((String)key).substring(stem.length()));
+        }
+
+        @Override
+        public Set<Map.Entry<String,Set<Suffix>>> entrySet(){
+            return new AbstractSet<Map.Entry<String,Set<Suffix>>>() {
+                @Override
+                public int size(){
+                    return suffixes.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<String,Set<Suffix>>> iterator(){
+                    final Iterator<Map.Entry<String,Set<Suffix>>> it=
+                            suffixes.entrySet().iterator();
+                    return new Iterator<Map.Entry<String,Set<Suffix>>>() {
+                        @Override
+                        public boolean hasNext(){
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String,Set<Suffix>> next(){
+                            Map.Entry<String,Set<Suffix>> e=it.next();
+                            return new AbstractMap.SimpleImmutableEntry<String,Set<Suffix>>(
+                                    stem+e.getKey(), e.getValue());
+                        }
+
+                        @Override
+                        public void remove(){
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            };
+        }
+    }
 }
@@ -23,7 +23,10 @@
 package es.ua.dlsi.monolingual;
 
 import dics.elements.dtd.Dictionary;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -82,6 +85,38 @@ public class EquivalentCandidates {
         return surfaceforms;
     }
 
+    /**
+     * Method that groups a collection of candidates in sets of candidates
+     * generating the same surface forms. The candidates are grouped by the key
+     * of their surface forms (see <code>Candidate.getEquivalenceKey</code>),
+     * so none of them needs to be expanded.
+     * @param candidates Candidates to be grouped
+     * @param dic Dictionary containing the inflection information
+     * @param notclosedcats Flag that indicates if the candidates belonging to
+     * closed categories must be discarded
+     * @return Returns the groups of equivalent candidates, in the order in
+     * which the first candidate of every group appears in the collection
+     */
+    public static Set<EquivalentCandidates> GroupCandidates(
+            Collection<Candidate> candidates, Dictionary dic,
+            boolean notclosedcats){
+        Map<ParadigmEquivalences.Key,EquivalentCandidates> groups=
+                new LinkedHashMap<ParadigmEquivalences.Key, EquivalentCandidates>();
+        for(Candidate c: candidates){
+            if(!notclosedcats || ! c.isClosedCategoryParadigm(dic)){
+                ParadigmEquivalences.Key key=c.getEquivalenceKey(dic);
+                EquivalentCandidates ec=groups.get(key);
+                if(ec==null) {
+                    groups.put(key, new EquivalentCandidates(c));
+                }
+                else {
+                    ec.addCandidate(c);
+                }
+            }
+        }
+        return new LinkedHashSet<EquivalentCandidates>(groups.values());
+    }
+
     /**
      * Method that computes a hash code from the variables in the object.
      * @return Returns the hash code computed
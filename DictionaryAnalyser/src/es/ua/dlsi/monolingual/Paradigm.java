@@ -23,18 +23,21 @@
 package es.ua.dlsi.monolingual;
 
 import dics.elements.dtd.*;
-import es.ua.dlsi.entries.DicEntry;
+import es.ua.dlsi.entries.DictionaryIndex;
 import es.ua.dlsi.lexicalinformation.ClosedCategories;
-import es.ua.dlsi.utils.Pair;
 import java.io.Serializable;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
- * Class which represents a paradigm from a dictionary of Apertium
+ * Class which represents a paradigm from a dictionary of Apertium. The suffixes
+ * are expanded when the object is built and cannot be modified afterwards, so
+ * the same object can be shared by any number of candidates and threads (see
+ * {@link ParadigmRegistry}).
  * @author Miquel Esplà i Gomis
  */
 public class Paradigm implements Serializable{
@@ -48,6 +51,15 @@ public class Paradigm implements Serializable{
     private Set<Suffix> suffixes;
     
     private boolean multiword;
+
+    /** Flag that indicates if the paradigm belongs to a closed category */
+    private boolean closed_category;
+
+    /**
+     * Suffixes of the paradigm grouped by their form (see
+     * <code>getSuffixesByForm</code>); computed the first time they are needed.
+     */
+    private transient volatile Map<String,Set<Suffix>> suffixes_by_form;
     
     /**
      * Overloaded constructor of the class
@@ -68,19 +80,15 @@ public class Paradigm implements Serializable{
         this.multiword=false;
         suffixes=new LinkedHashSet<Suffix>();
         
-        Set<Pair<StringBuilder,List<String>>> lstmp=
-                new LinkedHashSet<Pair<StringBuilder,List<String>>>();
-        
-        lstmp.add(new Pair<StringBuilder,List<String>>(new StringBuilder(),new LinkedList<String>()));
-        
-        Set<Pair<String,List<String>>> sufftmp=BuildSuffixes(par.elements,lstmp,dic);
-        
-        for(Pair<String,List<String>> s: sufftmp){
-            Suffix suf=new Suffix(s.getFirst(),s.getSecond());
+        //The expansion of the pardefs is shared by all the paradigms of the
+        //dictionary, so nested pardefs are only expanded once
+        for(Suffix suf: ParadigmRegistry.GetRegistry(dic).getExpansion(par)){
             if(suf.getSuffix().contains(" "))
                 this.multiword=true;
             this.suffixes.add(suf);
         }
+        this.suffixes=Collections.unmodifiableSet(this.suffixes);
+        this.closed_category=CheckClosedCategory();
         
         for(DixElement parchild: dic.pardefs.getParadigmDefinition(
                 name).elements.get(0).children){
@@ -91,68 +99,6 @@ public class Paradigm implements Serializable{
         }
     }
 
-    /**
-     * Method that generates all the possible suffixes
-     * @param elements List of elements from which the suffixes are read
-     * @param currentLexicalForms List of paradigms pre-generated
-     * @param dic Dictionary from which the paradigm is read
-     * @return Returns the list of suffixes generated by the paradigm
-     */
-    private Set<Pair<String,List<String>>> BuildSuffixes(List<E> elements,
-            Set<Pair<StringBuilder,List<String>>> currentLexicalForms, Dictionary dic)
-    {
-        //
-         List<Pair<String,List<String>>> localList=new LinkedList<Pair<String,List<String>>>();
-         for(E element: elements)
-         {
-             Set<Pair<StringBuilder,List<String>>> listgeneratedByElement=
-                     new LinkedHashSet<Pair<StringBuilder,List<String>>>();
-             for (DixElement e: element.children)
-             {
-                 if (e instanceof P){
-                     if(listgeneratedByElement.isEmpty()) {
-                         listgeneratedByElement.add(new Pair(new StringBuilder(""),new LinkedList<String>()));
-                     }
-                     for(Pair<StringBuilder,List<String>> b: listgeneratedByElement){
-                        b.getFirst().append(((P)e).l.getValueNoTags());
-                        for(DixElement subde: ((P)e).r.children){
-                            if(subde instanceof S) {
-                                b.getSecond().add(((S)subde).name);
-                            }
-                        }
-                     }
-                 }
-                 else if (e instanceof Par)
-                 {
-                     List<E> parElements=dic.pardefs.getParadigmDefinition(((Par)e).name).elements;
-                     Set<Pair<String,List<String>>> resultList=BuildSuffixes(parElements,
-                             listgeneratedByElement, dic);
-                     listgeneratedByElement.clear();
-                     for(Pair<String,List<String>> r: resultList) {
-                         listgeneratedByElement.add(new Pair(new StringBuilder(r.getFirst()),
-                         r.getSecond()));
-                     }
-                 }
-             }
-             for(Pair<StringBuilder,List<String>> b: listgeneratedByElement) {
-                 localList.add(new Pair(b.getFirst().toString(),b.getSecond()));
-             }
-         }
-
-         //Combine lists
-         Set<Pair<String,List<String>>> finalList = new LinkedHashSet<Pair<String,List<String>>>();
-         for(Pair<StringBuilder,List<String>> lexHead: currentLexicalForms) {
-            for(Pair<String,List<String>> lexTail: localList){
-                List<String> newlist=new LinkedList<String>(lexHead.getSecond());
-                newlist.addAll(lexTail.getSecond());
-                finalList.add(new Pair<String,List<String>>(lexHead.getFirst()+
-                        lexTail.getFirst(),newlist));
-            }
-        }
-
-         return finalList;
-    }
-
     /**
      * Method that returns the name of the paradigm
      * @return Returns the name of the paradigm
@@ -163,29 +109,65 @@ public class Paradigm implements Serializable{
 
     /**
      * Method that returns the list of suffixes generated by the paradigm
-     * @return Returns the list of suffixes generated by the paradigm
+     * @return Returns the list of suffixes generated by the paradigm (the set
+     * cannot be modified)
      */
     public Set<Suffix> getSuffixes(){
         return this.suffixes;
     }
     
+    /**
+     * Method that returns the suffixes of the paradigm grouped by their form,
+     * i.e. the different strings added to a stem by the paradigm, each of them
+     * with the suffixes (with different lexical information) producing it. The
+     * map is built the first time this method is called and shared by all
+     * the candidates using the paradigm (see <code>Candidate.GetExpansion</code>).
+     * @return Returns a map with the different forms of the suffixes as keys,
+     * in the order in which they first appear in the paradigm, and the set of
+     * suffixes with each form as values (neither the map nor the sets can be
+     * modified)
+     */
+    public Map<String,Set<Suffix>> getSuffixesByForm(){
+        Map<String,Set<Suffix>> exit=this.suffixes_by_form;
+        if(exit==null){
+            Map<String,Set<Suffix>> byform=new LinkedHashMap<String, Set<Suffix>>();
+            for(Suffix suf: suffixes){
+                Set<Suffix> sameform=byform.get(suf.getSuffix());
+                if(sameform==null){
+                    sameform=new LinkedHashSet<Suffix>();
+                    byform.put(suf.getSuffix(), sameform);
+                }
+                sameform.add(suf);
+            }
+            for(Map.Entry<String,Set<Suffix>> e: byform.entrySet()){
+                e.setValue(Collections.unmodifiableSet(e.getValue()));
+            }
+            exit=Collections.unmodifiableMap(byform);
+            this.suffixes_by_form=exit;
+        }
+        return exit;
+    }
+    
     /**
      * Method that indicates if the paradigm belongs to a closed category.
      * @return Returns <code>true</code> if the paradigm belongs to a closed category and <code>false</code> otherwise.
      */
     public boolean isClosedCategory(){
+        return this.closed_category;
+    }
+
+    /**
+     * Method that checks if the paradigm belongs to a closed category from the
+     * lexical information of its first suffix.
+     * @return Returns <code>true</code> if the paradigm belongs to a closed category and <code>false</code> otherwise.
+     */
+    private boolean CheckClosedCategory(){
         if(this.suffixes.isEmpty()) {
             return false;
         }
         else{
-            List<String> lexical_info=this.suffixes.iterator().next().getLexInfo();
-            if(lexical_info.isEmpty()) {
-                return false;
-            }
-            else{
-                String lexical_category=lexical_info.get(0);
-                return ClosedCategories.isClosedCat(lexical_category);
-            }
+            int lexical_category=this.suffixes.iterator().next().getCategory();
+            return ClosedCategories.isClosedCat(lexical_category);
         }
     }
     
@@ -217,47 +199,31 @@ public class Paradigm implements Serializable{
     }
     
     /**
-     * Method that returns the suffix that is added to a stem to generate the lemma.
-     * @return Returns the suffix for generating the lemma of a candidate
+     * Method that returns the number of entries of the dictionary using the
+     * paradigm. The entries are counted using the index of the dictionary (see
+     * <code>DictionaryIndex</code>), which is built only once: if entries are
+     * added to or removed from the dictionary, the index has to be discarded
+     * with <code>DictionaryIndex.Invalidate</code> for the count to change.
+     * @param dic Dictionary to be used
+     * @param accept_multiword Do we count multiword entries?
+     * @return Returns the number of entries using the paradigm
      */
     public int GetNumberOfEntries(Dictionary dic, boolean accept_multiword){
-        int number=0;
-        for(Section sec: dic.sections){
-            for(E e: sec.elements){
-                if(!e.isMultiWord() || accept_multiword){
-                    Candidate candidate=DicEntry.GetStemParadigm(e);
-                    if(candidate!=null){
-                        if(this.name.equals(candidate.getParadigm())){
-                            number++;
-                        }
-                    }
-                }
-            }
-        }
-        return number;
+        return DictionaryIndex.GetIndex(dic).getNumberOfEntries(this.name, accept_multiword);
     }
     
     /**
-     * Method that returns the entries related to a given paradigm.
+     * Method that returns the entries related to a given paradigm. The entries
+     * are obtained from the index of the dictionary (see
+     * <code>DictionaryIndex</code>), which is built only once: if entries are
+     * added to or removed from the dictionary, the index has to be discarded
+     * with <code>DictionaryIndex.Invalidate</code> for the result to change.
      * @param dic Dictionary to be used
      * @param accept_multiword Do we accept multiword entries?
      * @return Returns the entries related to a given paradigm
      */
     public Set<Candidate> GetRelatedEntries(Dictionary dic, boolean accept_multiword){
-        Set<Candidate> candidates=new HashSet<Candidate>();
-        for(Section sec: dic.sections){
-            for(E e: sec.elements){
-                if(!e.isMultiWord() || accept_multiword){
-                    Candidate candidate=DicEntry.GetStemParadigm(e);
-                    if(candidate!=null){
-                        if(this.name.equals(candidate.getParadigm())){
-                            candidates.add(candidate);
-                        }
-                    }
-                }
-            }
-        }
-        return candidates;
+        return DictionaryIndex.GetIndex(dic).GetRelatedEntries(this.name, accept_multiword);
     }
     
     /**
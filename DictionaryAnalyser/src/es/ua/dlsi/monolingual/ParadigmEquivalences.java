@@ -0,0 +1,257 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.monolingual;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class that partitions the paradigms of a dictionary in classes of paradigms
+ * generating the same surface forms. Two candidates stem/paradigm generate
+ * the same set of surface forms if and only if the longest common prefix of
+ * their surface forms is the same and the rest of the forms (once this prefix
+ * is removed) are the same too. The longest common prefix of the forms is the
+ * stem followed by the longest common prefix of the suffixes of the paradigm,
+ * and the rest of the forms only depend on the paradigm. Therefore, the
+ * paradigms are grouped in classes of paradigms whose suffixes, once their
+ * longest common prefix is removed, are the same, so the set of surface forms
+ * of a candidate is identified by a key (see {@link Key}) made of this class
+ * and the stem followed by the common prefix of the paradigm. This makes it
+ * possible to know if two candidates are equivalent without expanding any of
+ * them. For example, with a word segmented at different offsets, the
+ * candidates <i>cas/a__n</i> and <i>ca/sa__n</i> have the same key if the
+ * suffixes of <i>sa__n</i> are those of <i>a__n</i> preceded by <i>s</i>.
+ * <p>
+ * The equivalences are computed once for every dictionary and stored in its
+ * registry of paradigms (see <code>ParadigmRegistry.getEquivalences</code>).
+ * @author Miquel Esplà i Gomis
+ */
+public class ParadigmEquivalences {
+
+    /**
+     * Class that identifies the set of surface forms generated by a candidate
+     * stem/paradigm: two candidates generate the same surface forms if and
+     * only if their keys are equal.
+     */
+    public static final class Key {
+        /** Longest common prefix of the surface forms */
+        private final String prefix;
+
+        /** Class of equivalent paradigms of the candidate */
+        private final int paradigm_class;
+
+        /**
+         * Overloaded constructor of the class.
+         * @param prefix Longest common prefix of the surface forms
+         * @param paradigm_class Class of equivalent paradigms of the candidate
+         */
+        private Key(String prefix, int paradigm_class){
+            this.prefix=prefix;
+            this.paradigm_class=paradigm_class;
+        }
+
+        /**
+         * Method that returns the longest common prefix of the surface forms.
+         * @return Returns the longest common prefix of the surface forms
+         */
+        public String getPrefix(){
+            return prefix;
+        }
+
+        /**
+         * Method that returns the class of equivalent paradigms of the key.
+         * @return Returns the class of equivalent paradigms of the key
+         */
+        public int getParadigmClass(){
+            return paradigm_class;
+        }
+
+        /**
+         * Method that computes a hash code from the variables in the object.
+         * @return Returns the hash code computed
+         */
+        @Override
+        public int hashCode(){
+            return prefix.hashCode()*31+paradigm_class;
+        }
+
+        /**
+         * Method that compares the object with another one.
+         * @param obj Object to be compared
+         * @return Returns <code>true</code> if both keys identify the same set
+         * of surface forms and <code>false</code> otherwise
+         */
+        @Override
+        public boolean equals(Object obj){
+            if(!(obj instanceof Key)) {
+                return false;
+            }
+            Key other=(Key)obj;
+            return this.paradigm_class==other.paradigm_class &&
+                    this.prefix.equals(other.prefix);
+        }
+
+        /**
+         * Method that returns a string representation of the key.
+         * @return Returns a string representation of the key
+         */
+        @Override
+        public String toString(){
+            return prefix+"|"+paradigm_class;
+        }
+    }
+
+    /** Class of the paradigms that do not generate any surface form */
+    public static final int EMPTY_CLASS=0;
+
+    /** Class of every paradigm, indexed by name */
+    private final Map<String,Integer> classes;
+
+    /** Longest common prefix of the suffixes of every paradigm, indexed by name */
+    private final Map<String,String> prefixes;
+
+    /** Number of classes of paradigms */
+    private final int nclasses;
+
+    /**
+     * Constructor of the class; the equivalences are computed from a list of
+     * paradigms already expanded.
+     * @param paradigms List of paradigms to be partitioned
+     * @param broken Names of the paradigms that could not be expanded; each
+     * of them is put in a class of its own
+     */
+    ParadigmEquivalences(List<Paradigm> paradigms, Set<String> broken){
+        this.classes=new HashMap<String, Integer>();
+        this.prefixes=new HashMap<String, String>();
+        Map<Set<String>,Integer> ids=new HashMap<Set<String>, Integer>();
+        ids.put(new HashSet<String>(), EMPTY_CLASS);
+        for(Paradigm p: paradigms){
+            if(p==null) {
+                continue;
+            }
+            Set<String> suffixes=new LinkedHashSet<String>();
+            for(Suffix s: p.getSuffixes()){
+                suffixes.add(s.getSuffix());
+            }
+            String prefix=LongestCommonPrefix(suffixes);
+            Set<String> rest=new HashSet<String>();
+            for(String s: suffixes){
+                rest.add(s.substring(prefix.length()));
+            }
+            Integer id=ids.get(rest);
+            if(id==null){
+                id=ids.size();
+                ids.put(rest, id);
+            }
+            classes.put(p.getName(), id);
+            prefixes.put(p.getName(), prefix);
+        }
+        int id=ids.size();
+        for(String name: broken){
+            classes.put(name, id++);
+            prefixes.put(name, "");
+        }
+        this.nclasses=id;
+    }
+
+    /**
+     * Method that computes the longest common prefix of a set of strings.
+     * @param strings Set of strings
+     * @return Returns the longest common prefix of the strings (an empty
+     * string if the set is empty)
+     */
+    private static String LongestCommonPrefix(Set<String> strings){
+        String exit=null;
+        for(String s: strings){
+            if(exit==null) {
+                exit=s;
+            }
+            else{
+                int len=0;
+                int max=Math.min(exit.length(), s.length());
+                while(len<max && exit.charAt(len)==s.charAt(len)) {
+                    len++;
+                }
+                exit=exit.substring(0, len);
+            }
+            if(exit.isEmpty()) {
+                break;
+            }
+        }
+        return (exit==null)? "": exit;
+    }
+
+    /**
+     * Method that returns the class of equivalent paradigms of a paradigm.
+     * Paradigms in the same class generate the same surface forms once the
+     * longest common prefix of their suffixes is removed.
+     * @param paradigm Name of the paradigm
+     * @return Returns the class of the paradigm (<code>EMPTY_CLASS</code> if
+     * the paradigm does not generate any surface form or is not defined in
+     * the dictionary)
+     */
+    public int getParadigmClass(String paradigm){
+        Integer exit=classes.get(paradigm);
+        return (exit==null)? EMPTY_CLASS: exit;
+    }
+
+    /**
+     * Method that returns the longest common prefix of the suffixes of a
+     * paradigm.
+     * @param paradigm Name of the paradigm
+     * @return Returns the longest common prefix of the suffixes of the
+     * paradigm (an empty string if the paradigm is not defined)
+     */
+    public String getCommonPrefix(String paradigm){
+        String exit=prefixes.get(paradigm);
+        return (exit==null)? "": exit;
+    }
+
+    /**
+     * Method that returns the number of classes of paradigms.
+     * @return Returns the number of classes of paradigms, including
+     * <code>EMPTY_CLASS</code>
+     */
+    public int getNumberOfClasses(){
+        return nclasses;
+    }
+
+    /**
+     * Method that returns the key identifying the set of surface forms
+     * generated by a candidate stem/paradigm, without expanding it.
+     * @param stem Stem of the candidate
+     * @param paradigm Name of the paradigm of the candidate
+     * @return Returns the key of the candidate
+     */
+    public Key getKey(String stem, String paradigm){
+        int paradigm_class=getParadigmClass(paradigm);
+        if(paradigm_class==EMPTY_CLASS) {
+            return new Key("", EMPTY_CLASS);
+        }
+        return new Key(stem+prefixes.get(paradigm), paradigm_class);
+    }
+}
@@ -0,0 +1,630 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.monolingual;
+
+import dics.elements.dtd.Dictionary;
+import dics.elements.dtd.DixElement;
+import dics.elements.dtd.E;
+import dics.elements.dtd.P;
+import dics.elements.dtd.Par;
+import dics.elements.dtd.Pardef;
+import dics.elements.dtd.S;
+import es.ua.dlsi.lexicalinformation.TagSymbolTable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Class that keeps the paradigms of a dictionary already expanded. Expanding a
+ * paradigm (see {@link Paradigm}) requires generating all its suffixes,
+ * including those coming from nested paradigms, which is expensive and was
+ * repeated every time a <code>Paradigm</code> object was built. The registry
+ * of a dictionary (see {@link #GetRegistry(Dictionary)}) expands every
+ * paradigm only the first time it is requested and returns the same object
+ * afterwards. Since <code>Paradigm</code> objects cannot be modified once built,
+ * they can be shared safely; different threads can request paradigms at the
+ * same time and, even then, every paradigm is expanded only once.
+ * <p>
+ * The references between paradigms (<code>&lt;par&gt;</code> elements inside a
+ * <code>&lt;pardef&gt;</code>) are handled as a directed acyclic graph: the
+ * expansion of every paradigm is computed from the expansions of the
+ * paradigms it references, which are computed only once and shared by all the
+ * paradigms referencing them. The graph is checked for cycles when the
+ * registry is built; the pardefs that are part of a cycle, or reference one,
+ * cannot be expanded, but the rest of the paradigms of the dictionary can be
+ * used normally. <code>Compile</code> expands a set of paradigms in
+ * parallel, level by level, starting from those that do not reference any
+ * other paradigm.
+ * <p>
+ * The registry assumes that the paradigm definitions of the dictionary are
+ * not modified after the first paradigm is requested.
+ * @author Miquel Esplà i Gomis
+ */
+public class ParadigmRegistry {
+
+    /** Registries already built for every dictionary. */
+    private static final Map<Dictionary,ParadigmRegistry> registries=
+            new WeakHashMap<Dictionary, ParadigmRegistry>();
+
+    /** Dictionary from which the paradigms are read. It is only weakly
+     * referenced: the registry is the value of the dictionary in
+     * <code>registries</code>, and a strong reference would keep the
+     * dictionary (and its registry) in memory forever. */
+    private final WeakReference<Dictionary> dictionary;
+
+    /** Paradigms expanded (or being expanded), indexed by name. */
+    private final ConcurrentHashMap<String,FutureTask<Paradigm>> paradigms;
+
+    /** Paradigms already requested, indexed by their identifier in the table
+     * shared by the candidates (see <code>getParadigm(int)</code>). The array
+     * is replaced by a larger copy whenever a paradigm is added, so it can be
+     * read without locking. */
+    private volatile Paradigm[] paradigms_by_id;
+
+    /** Suffixes generated by every pardef (or being generated), indexed by name. */
+    private final ConcurrentHashMap<String,FutureTask<List<Suffix>>> expansions;
+
+    /** Names of the pardefs referenced by every pardef of the dictionary. */
+    private final Map<String,Set<String>> references;
+
+    /** Level of every pardef in the graph of references: 0 for the pardefs
+     * that do not reference any other pardef, and one more than the maximum
+     * level of the pardefs referenced otherwise. */
+    private final Map<String,Integer> levels;
+
+    /** Pardefs that cannot be expanded because they are part of a cycle in
+     * the graph of references or reference a pardef in a cycle, with the
+     * description of the cycle. */
+    private final Map<String,String> cyclic;
+
+    /** Classes of equivalent paradigms, computed the first time they are
+     * requested (see <code>getEquivalences</code>). */
+    private ParadigmEquivalences equivalences;
+
+    /**
+     * Constructor of the class.
+     * @param dic Dictionary from which the paradigms are read
+     */
+    private ParadigmRegistry(Dictionary dic){
+        this.dictionary=new WeakReference<Dictionary>(dic);
+        this.paradigms=new ConcurrentHashMap<String, FutureTask<Paradigm>>();
+        this.paradigms_by_id=new Paradigm[0];
+        this.expansions=new ConcurrentHashMap<String, FutureTask<List<Suffix>>>();
+        this.references=new HashMap<String, Set<String>>();
+        for(Pardef pardef: dic.pardefs.elements){
+            Set<String> referenced=new LinkedHashSet<String>();
+            for(E element: pardef.elements){
+                for(DixElement e: element.children){
+                    if(e instanceof Par && dic.pardefs.getParadigmDefinition(((Par)e).name)!=null){
+                        referenced.add(((Par)e).name);
+                    }
+                }
+            }
+            references.put(pardef.name, referenced);
+        }
+        this.cyclic=new HashMap<String, String>();
+        this.levels=ComputeLevels();
+    }
+
+    /**
+     * Method that sorts the graph of references between pardefs topologically
+     * and computes the level of every pardef. The graph is traversed with an
+     * iterative depth-first search, so cycles are detected before expanding
+     * any paradigm: the pardefs in a cycle, and those referencing them, are
+     * stored in <code>cyclic</code>, and the references closing a cycle are
+     * ignored to compute the levels.
+     * @return Returns a map with the level of every pardef
+     */
+    private Map<String,Integer> ComputeLevels(){
+        Map<String,Integer> exit=new HashMap<String, Integer>();
+        //Pardefs in the path of the search
+        Set<String> inpath=new LinkedHashSet<String>();
+        for(String root: references.keySet()){
+            if(exit.containsKey(root)) {
+                continue;
+            }
+            Stack<String> stack=new Stack<String>();
+            stack.push(root);
+            while(!stack.isEmpty()){
+                String name=stack.peek();
+                if(exit.containsKey(name)){
+                    stack.pop();
+                    continue;
+                }
+                if(inpath.add(name)){
+                    //First visit: the referenced pardefs are processed before
+                    for(String child: references.get(name)){
+                        if(inpath.contains(child)){
+                            List<String> cycle=new ArrayList<String>(inpath);
+                            cycle=cycle.subList(cycle.indexOf(child), cycle.size());
+                            String description="Cycle in the references between pardefs: "+
+                                    cycle+" -> "+child;
+                            for(String member: cycle){
+                                if(!cyclic.containsKey(member)) {
+                                    cyclic.put(member, description);
+                                }
+                            }
+                        }
+                        else if(!exit.containsKey(child)) {
+                            stack.push(child);
+                        }
+                    }
+                }
+                else{
+                    //Second visit: all the referenced pardefs have a level
+                    int level=0;
+                    for(String child: references.get(name)){
+                        if(exit.containsKey(child)) {
+                            level=Math.max(level, exit.get(child)+1);
+                        }
+                        if(cyclic.containsKey(child) && !cyclic.containsKey(name)) {
+                            cyclic.put(name, cyclic.get(child));
+                        }
+                    }
+                    exit.put(name, level);
+                    inpath.remove(name);
+                    stack.pop();
+                }
+            }
+        }
+        return exit;
+    }
+
+    /**
+     * Method that returns the registry of paradigms of a dictionary. The
+     * registry is built the first time this method is called for a dictionary
+     * and reused afterwards.
+     * @param dic Dictionary from which the paradigms are read
+     * @return Returns the registry of paradigms of the dictionary
+     */
+    public static ParadigmRegistry GetRegistry(Dictionary dic){
+        synchronized(registries){
+            ParadigmRegistry registry=registries.get(dic);
+            if(registry==null){
+                registry=new ParadigmRegistry(dic);
+                registries.put(dic, registry);
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * Method that returns a paradigm of a dictionary, expanding it if it was
+     * not requested before. This is equivalent to
+     * <code>GetRegistry(dic).getParadigm(name)</code>.
+     * @param name Name of the paradigm
+     * @param dic Dictionary from which the paradigm is read
+     * @return Returns the paradigm or <code>null</code> if the dictionary does
+     * not contain any paradigm with that name
+     */
+    public static Paradigm GetParadigm(String name, Dictionary dic){
+        return GetRegistry(dic).getParadigm(name);
+    }
+
+    /**
+     * Method that returns a paradigm of a dictionary, expanding it if it was
+     * not requested before. This is equivalent to
+     * <code>GetRegistry(dic).getParadigm(pardef)</code>.
+     * @param pardef Definition of the paradigm in the dictionary
+     * @param dic Dictionary from which the paradigm is read
+     * @return Returns the paradigm
+     */
+    public static Paradigm GetParadigm(Pardef pardef, Dictionary dic){
+        return GetRegistry(dic).getParadigm(pardef);
+    }
+
+    /**
+     * Method that returns a paradigm, expanding it if it was not requested
+     * before.
+     * @param name Name of the paradigm
+     * @return Returns the paradigm or <code>null</code> if the dictionary does
+     * not contain any paradigm with that name
+     */
+    public Paradigm getParadigm(final String name){
+        if(name==null) {
+            return null;
+        }
+        //The definition of the paradigm is only looked up the first time it
+        //is requested; names not defined in the dictionary are memoised too
+        return Memoise(paradigms, name, new Callable<Paradigm>() {
+            @Override
+            public Paradigm call() {
+                Dictionary dic=getDictionary();
+                Pardef pardef=dic.pardefs.getParadigmDefinition(name);
+                if(pardef==null) {
+                    return null;
+                }
+                return new Paradigm(pardef, dic);
+            }
+        });
+    }
+
+    /**
+     * Method that returns a paradigm, expanding it if it was not requested
+     * before.
+     * @param pardef Definition of the paradigm in the dictionary
+     * @return Returns the paradigm
+     */
+    public Paradigm getParadigm(Pardef pardef){
+        return getParadigm(pardef.name);
+    }
+
+    /**
+     * Method that returns a paradigm from its identifier in the table shared
+     * by all the candidates (see <code>ParadigmSymbolTable.GetSharedTable</code>),
+     * expanding it if it was not requested before. Once a paradigm has been
+     * requested, it is found with a single access to an array, without
+     * looking up its name.
+     * @param id Identifier of the paradigm in the shared table
+     * @return Returns the paradigm or <code>null</code> if the identifier is
+     * negative or the dictionary does not contain any paradigm with that name
+     */
+    public Paradigm getParadigm(int id){
+        if(id<0) {
+            return null;
+        }
+        Paradigm[] cache=paradigms_by_id;
+        if(id<cache.length && cache[id]!=null) {
+            return cache[id];
+        }
+        Paradigm paradigm=getParadigm(ParadigmSymbolTable.GetSharedTable().getName(id));
+        if(paradigm!=null){
+            synchronized(paradigms){
+                cache=paradigms_by_id;
+                Paradigm[] newcache=Arrays.copyOf(cache, Math.max(cache.length, id+1));
+                newcache[id]=paradigm;
+                paradigms_by_id=newcache;
+            }
+        }
+        return paradigm;
+    }
+
+    /**
+     * Method that returns the list of suffixes generated by a pardef, computing
+     * it if it was not requested before. The list follows the order of the
+     * elements of the pardef and does not contain repeated suffixes.
+     * @param pardef Definition of the paradigm in the dictionary
+     * @return Returns the list of suffixes generated by the pardef (the list
+     * cannot be modified)
+     * @throws IllegalArgumentException If the pardef is part of a cycle in the
+     * references between pardefs or references a pardef in a cycle
+     */
+    public List<Suffix> getExpansion(final Pardef pardef){
+        String cycle=cyclic.get(pardef.name);
+        if(cycle!=null) {
+            throw new IllegalArgumentException("Pardef "+pardef.name+
+                    " cannot be expanded. "+cycle);
+        }
+        return Memoise(expansions, pardef.name, new Callable<List<Suffix>>() {
+            @Override
+            public List<Suffix> call() {
+                return Expand(pardef);
+            }
+        });
+    }
+
+    /**
+     * Method that generates the list of suffixes of a pardef. Every element
+     * <code>&lt;e&gt;</code> of the pardef generates a list of suffixes by
+     * appending the content of its <code>&lt;p&gt;</code> elements and
+     * combining it with the expansion of the pardefs referenced by its
+     * <code>&lt;par&gt;</code> elements; these expansions are obtained from
+     * the registry, so they are computed only once.
+     * @param pardef Definition of the paradigm in the dictionary
+     * @return Returns the list of suffixes generated by the pardef
+     */
+    private List<Suffix> Expand(Pardef pardef){
+        Dictionary dic=getDictionary();
+        TagSymbolTable tagsymbols=TagSymbolTable.GetSymbolTable();
+        Set<Suffix> exit=new LinkedHashSet<Suffix>();
+        for(E element: pardef.elements){
+            List<StringBuilder> forms=new ArrayList<StringBuilder>();
+            List<int[]> tags=new ArrayList<int[]>();
+            for(DixElement e: element.children){
+                if(e instanceof P){
+                    if(forms.isEmpty()){
+                        forms.add(new StringBuilder());
+                        tags.add(new int[0]);
+                    }
+                    String left=((P)e).l.getValueNoTags();
+                    List<String> symbols=new ArrayList<String>();
+                    for(DixElement subde: ((P)e).r.children){
+                        if(subde instanceof S) {
+                            symbols.add(((S)subde).name);
+                        }
+                    }
+                    int[] symbolids=tagsymbols.getOrAddIds(symbols);
+                    for(int i=0;i<forms.size();i++){
+                        forms.get(i).append(left);
+                        if(symbolids.length>0) {
+                            tags.set(i, Concatenate(tags.get(i), symbolids));
+                        }
+                    }
+                }
+                else if(e instanceof Par){
+                    String parname=((Par)e).name;
+                    Pardef referenced=dic.pardefs.getParadigmDefinition(parname);
+                    if(referenced==null) {
+                        throw new IllegalArgumentException("Pardef "+pardef.name+
+                                " references an undefined pardef: "+parname);
+                    }
+                    //Every combination of the current suffixes with those of
+                    //the referenced pardef is kept only once; the expansion of
+                    //the referenced pardef has no repetitions, so, if there is
+                    //only one current suffix, all the combinations are different
+                    List<Suffix> tails=getExpansion(referenced);
+                    Collection<Suffix> combined;
+                    if(forms.size()==1) {
+                        combined=new ArrayList<Suffix>(tails.size());
+                    }
+                    else {
+                        combined=new LinkedHashSet<Suffix>();
+                    }
+                    for(int i=0;i<forms.size();i++){
+                        String head=forms.get(i).toString();
+                        for(Suffix tail: tails){
+                            combined.add(new Suffix(head+tail.getSuffix(),
+                                    Concatenate(tags.get(i), tail.getTags())));
+                        }
+                    }
+                    forms.clear();
+                    tags.clear();
+                    for(Suffix s: combined){
+                        forms.add(new StringBuilder(s.getSuffix()));
+                        tags.add(s.getTags());
+                    }
+                }
+            }
+            for(int i=0;i<forms.size();i++){
+                exit.add(new Suffix(forms.get(i).toString(), tags.get(i)));
+            }
+        }
+        //Repeated suffixes are removed, keeping the first occurrence
+        return Collections.unmodifiableList(new ArrayList<Suffix>(exit));
+    }
+
+    /**
+     * Method that concatenates two arrays of identifiers of tags.
+     * @param first First array
+     * @param second Second array
+     * @return Returns a new array with the elements of the first array followed
+     * by those of the second one
+     */
+    private static int[] Concatenate(int[] first, int[] second){
+        int[] exit=Arrays.copyOf(first, first.length+second.length);
+        System.arraycopy(second, 0, exit, first.length, second.length);
+        return exit;
+    }
+
+    /**
+     * Method that expands a set of paradigms and all the pardefs they
+     * reference in parallel. The pardefs are expanded by levels: first those
+     * that do not reference any other pardef, then those referencing only
+     * pardefs of the first level, and so on, so all the pardefs in a level
+     * can be expanded at the same time using the expansions of the previous
+     * levels.
+     * @param names Names of the paradigms to be expanded
+     * @return Returns the list of paradigms, in the same order as the list of
+     * names (<code>null</code> for the names not defined in the dictionary)
+     */
+    public List<Paradigm> Compile(List<String> names){
+        Dictionary dic=getDictionary();
+        //Collecting the pardefs referenced, directly or not, by the paradigms
+        List<List<String>> bylevel=new ArrayList<List<String>>();
+        Set<String> closure=new LinkedHashSet<String>();
+        Stack<String> stack=new Stack<String>();
+        for(String name: names){
+            if(references.containsKey(name)) {
+                stack.push(name);
+            }
+        }
+        while(!stack.isEmpty()){
+            String name=stack.pop();
+            if(closure.add(name)){
+                int level=levels.get(name);
+                while(bylevel.size()<=level) {
+                    bylevel.add(new ArrayList<String>());
+                }
+                bylevel.get(level).add(name);
+                stack.addAll(references.get(name));
+            }
+        }
+
+        int nthreads=Math.min(Runtime.getRuntime().availableProcessors(),
+                Math.max(1, closure.size()));
+        ExecutorService pool=Executors.newFixedThreadPool(nthreads);
+        try{
+            for(List<String> level: bylevel){
+                List<Future<List<Suffix>>> futures=new ArrayList<Future<List<Suffix>>>(level.size());
+                for(String name: level){
+                    final Pardef pardef=dic.pardefs.getParadigmDefinition(name);
+                    futures.add(pool.submit(new Callable<List<Suffix>>() {
+                        @Override
+                        public List<Suffix> call() {
+                            return getExpansion(pardef);
+                        }
+                    }));
+                }
+                for(Future<List<Suffix>> future: futures){
+                    future.get();
+                }
+            }
+            List<Future<Paradigm>> futures=new ArrayList<Future<Paradigm>>(names.size());
+            for(final String name: names){
+                futures.add(pool.submit(new Callable<Paradigm>() {
+                    @Override
+                    public Paradigm call() {
+                        return getParadigm(name);
+                    }
+                }));
+            }
+            List<Paradigm> exit=new ArrayList<Paradigm>(names.size());
+            for(Future<Paradigm> future: futures){
+                exit.add(future.get());
+            }
+            return exit;
+        }
+        catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+        catch(ExecutionException ex){
+            throw Unwrap(ex);
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Method that expands all the paradigms of the dictionary in parallel (see
+     * <code>Compile</code>).
+     * @return Returns the list of paradigms, in the same order as in the
+     * dictionary
+     */
+    public List<Paradigm> CompileAll(){
+        Dictionary dic=getDictionary();
+        List<String> names=new ArrayList<String>(dic.pardefs.elements.size());
+        for(Pardef pardef: dic.pardefs.elements){
+            names.add(pardef.name);
+        }
+        return Compile(names);
+    }
+
+    /**
+     * Method that returns the classes of equivalent paradigms of the dictionary
+     * (see {@link ParadigmEquivalences}). All the paradigms are expanded (see
+     * <code>CompileAll</code>) and partitioned the first time this method is
+     * called; the same object is returned afterwards. If some paradigm cannot
+     * be expanded (it references an undefined pardef or is part of a cycle),
+     * the paradigms are expanded one by one and those failing are put in a
+     * class of their own, so only the candidates using them fail when they are
+     * expanded.
+     * @return Returns the classes of equivalent paradigms of the dictionary
+     */
+    public synchronized ParadigmEquivalences getEquivalences(){
+        if(equivalences==null) {
+            Dictionary dic=getDictionary();
+            List<Paradigm> compiled;
+            Set<String> broken=new LinkedHashSet<String>();
+            try{
+                compiled=CompileAll();
+            }
+            catch(RuntimeException ex){
+                compiled=new ArrayList<Paradigm>(dic.pardefs.elements.size());
+                for(Pardef pardef: dic.pardefs.elements){
+                    try{
+                        compiled.add(getParadigm(pardef.name));
+                    }
+                    catch(RuntimeException e){
+                        broken.add(pardef.name);
+                    }
+                }
+            }
+            equivalences=new ParadigmEquivalences(compiled, broken);
+        }
+        return equivalences;
+    }
+
+    /**
+     * Method that returns the dictionary from which the paradigms are read.
+     * @return Returns the dictionary of the registry
+     * @throws IllegalStateException If the dictionary is not used anymore and
+     * it has been garbage-collected
+     */
+    public Dictionary getDictionary(){
+        Dictionary exit=dictionary.get();
+        if(exit==null) {
+            throw new IllegalStateException("The dictionary of the registry of paradigms has been garbage-collected.");
+        }
+        return exit;
+    }
+
+    /**
+     * Method that returns the value stored in a map for a given name,
+     * computing it if it was not requested before. If several threads request
+     * the same name at the same time, the value is computed only by one of them
+     * and the rest wait for the result.
+     * @param <T> Type of the values stored in the map
+     * @param memo Map with the values computed (or being computed)
+     * @param name Name of the value requested
+     * @param builder Object that computes the value
+     * @return Returns the value for the name
+     */
+    private static <T> T Memoise(ConcurrentHashMap<String,FutureTask<T>> memo,
+            String name, Callable<T> builder){
+        FutureTask<T> task=memo.get(name);
+        if(task==null){
+            FutureTask<T> newtask=new FutureTask<T>(builder);
+            task=memo.putIfAbsent(name, newtask);
+            if(task==null){
+                task=newtask;
+                task.run();
+            }
+        }
+        try{
+            return task.get();
+        }
+        catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+        catch(ExecutionException ex){
+            //The value will be computed again next time it is requested
+            memo.remove(name, task);
+            throw Unwrap(ex);
+        }
+    }
+
+    /**
+     * Method that returns the exception thrown by a task executed in another
+     * thread.
+     * @param ex Exception wrapping the one thrown by the task
+     * @return Returns the exception thrown by the task, if unchecked, or a
+     * <code>RuntimeException</code> wrapping it otherwise
+     */
+    private static RuntimeException Unwrap(ExecutionException ex){
+        if(ex.getCause() instanceof RuntimeException) {
+            return (RuntimeException)ex.getCause();
+        }
+        else {
+            return new RuntimeException(ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.monolingual;
+
+import dics.elements.dtd.Dictionary;
+import dics.elements.dtd.Pardef;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class that maps the names of the paradigms of a dictionary to dense integer
+ * identifiers. Using these identifiers instead of the names of the paradigms
+ * allows to store sets of paradigms as arrays of integers or
+ * <code>BitSet</code> objects, and to compare them without hashing strings.
+ * The table for a dictionary is built only once (see
+ * {@link #GetSymbolTable(Dictionary)}): the paradigms of the dictionary are
+ * numbered in the same order in which they appear in the <code>pardefs</code>
+ * section, and new names can be added later to the table if needed.
+ * @author Miquel Esplà i Gomis
+ */
+public class ParadigmSymbolTable implements Serializable{
+
+    /** Tables already built for every dictionary. */
+    private static final Map<Dictionary,ParadigmSymbolTable> tables=
+            new WeakHashMap<Dictionary, ParadigmSymbolTable>();
+
+    /** Table shared by all the candidates, whatever their dictionary (see
+     * {@link #GetSharedTable()}). */
+    private static final ParadigmSymbolTable shared=new ParadigmSymbolTable();
+
+    /** Names of the paradigms; the identifier of a paradigm is its position. */
+    private volatile String[] names;
+
+    /** Number of paradigms in the table. */
+    private volatile int size;
+
+    /** Map between the names of the paradigms and their identifiers. */
+    private final ConcurrentHashMap<String,Integer> ids;
+
+    /**
+     * Constructor of the class that builds an empty table.
+     */
+    public ParadigmSymbolTable(){
+        this.names=new String[16];
+        this.size=0;
+        this.ids=new ConcurrentHashMap<String, Integer>();
+    }
+
+    /**
+     * Overloaded constructor of the class that builds the table for the
+     * paradigms of a dictionary.
+     * @param dic Dictionary from which the paradigms are read
+     */
+    public ParadigmSymbolTable(Dictionary dic){
+        this();
+        for(Pardef p: dic.pardefs.elements){
+            getOrAddId(p.name);
+        }
+    }
+
+    /**
+     * Method that returns the symbol table of the paradigms of a dictionary. The
+     * table is built the first time this method is called for a dictionary and
+     * reused afterwards.
+     * @param dic Dictionary from which the paradigms are read
+     * @return Returns the symbol table of the paradigms of the dictionary
+     */
+    public static ParadigmSymbolTable GetSymbolTable(Dictionary dic){
+        synchronized(tables){
+            ParadigmSymbolTable table=tables.get(dic);
+            if(table==null){
+                table=new ParadigmSymbolTable(dic);
+                tables.put(dic, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Method that returns the table of paradigms shared by all the candidates
+     * (see <code>Candidate</code>), which store their paradigm as an identifier
+     * of this table. Paradigms are added to the table as they are used, and
+     * paradigms with the same name in different dictionaries have the same
+     * identifier.
+     * @return Returns the table of paradigms shared by all the candidates
+     */
+    public static ParadigmSymbolTable GetSharedTable(){
+        return shared;
+    }
+
+    /**
+     * Method that returns the identifier of a paradigm.
+     * @param name Name of the paradigm
+     * @return Returns the identifier of the paradigm or -1 if the paradigm is
+     * not in the table
+     */
+    public int getId(String name){
+        Integer id=ids.get(name);
+        if(id==null) {
+            return -1;
+        }
+        else {
+            return id;
+        }
+    }
+
+    /**
+     * Method that returns the identifier of a paradigm, adding the paradigm to
+     * the table if it was not in it.
+     * @param name Name of the paradigm
+     * @return Returns the identifier of the paradigm
+     */
+    public int getOrAddId(String name){
+        Integer id=ids.get(name);
+        if(id!=null) {
+            return id;
+        }
+        synchronized(this){
+            id=ids.get(name);
+            if(id==null){
+                id=size;
+                if(size==names.length) {
+                    names=Arrays.copyOf(names, size*2);
+                }
+                names[size]=name.intern();
+                size++;
+                ids.put(names[id], id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Method that returns the name of a paradigm given its identifier.
+     * @param id Identifier of the paradigm
+     * @return Returns the name of the paradigm
+     */
+    public String getName(int id){
+        return names[id];
+    }
+
+    /**
+     * Method that returns the number of paradigms in the table.
+     * @return Returns the number of paradigms in the table
+     */
+    public int size(){
+        return size;
+    }
+}
@@ -135,7 +135,7 @@ public class RepresentativeSampleOfEntries {
             
             Vocabulary vocabulary=null;
             try{
-                vocabulary=new Vocabulary(corpuspath);
+                vocabulary=Vocabulary.Load(corpuspath);
             }catch(IOException ex2){
                 ex2.printStackTrace(System.err);
                 System.exit(-1);
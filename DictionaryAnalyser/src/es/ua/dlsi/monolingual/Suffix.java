@@ -22,19 +22,28 @@
 
 package es.ua.dlsi.monolingual;
 
+import es.ua.dlsi.lexicalinformation.TagSymbolTable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 /**
  * Class which contains a string which is used as a suffix of a word or set of
- * words.
+ * words. The lexical tags of the suffix are stored as identifiers of the
+ * {@link TagSymbolTable}; the names of the tags are only looked up when the
+ * list of tags is read or printed.
  * @author Miquel Esplà i Gomis
  */
 public class Suffix implements Serializable{
     /** The suffix. */
     private String suffix;
 
-    /** List of lexical tags. */
-    private List<String> lexinfo;
+    /** Identifiers of the lexical tags (<code>null</code> if the suffix has no
+     * lexical information). The identifiers are only valid in the current
+     * execution, so the names of the tags are serialised instead. */
+    private transient int[] tags;
 
     /**
      * Overloaded constructor of the class.
@@ -42,7 +51,7 @@ public class Suffix implements Serializable{
      */
     public Suffix(String suffix){
         this.suffix=suffix;
-        this.lexinfo=null;
+        this.tags=null;
     }
 
     /**
@@ -52,7 +61,23 @@ public class Suffix implements Serializable{
      */
     public Suffix(String suffix, List<String> lexinfo){
         this.suffix=suffix;
-        this.lexinfo=lexinfo;
+        if(lexinfo==null) {
+            this.tags=null;
+        }
+        else {
+            this.tags=TagSymbolTable.GetSymbolTable().getOrAddIds(lexinfo);
+        }
+    }
+
+    /**
+     * Overloaded constructor of the class.
+     * @param suffix New suffix
+     * @param tags Identifiers of the lexical tags in the {@link TagSymbolTable}
+     * (the array is not copied, so it should not be modified afterwards)
+     */
+    public Suffix(String suffix, int[] tags){
+        this.suffix=suffix;
+        this.tags=tags;
     }
 
     /**
@@ -65,17 +90,48 @@ public class Suffix implements Serializable{
 
     /**
      * Method that returns the list of lexical tags.
-     * @return Returns the list of lexical tags
+     * @return Returns the list of lexical tags (the list cannot be modified) or
+     * <code>null</code> if the suffix has no lexical information
      */
     public List<String> getLexInfo(){
-        return this.lexinfo;
+        if(this.tags==null) {
+            return null;
+        }
+        else {
+            return TagSymbolTable.GetSymbolTable().AsList(this.tags);
+        }
+    }
+
+    /**
+     * Method that returns the identifiers of the lexical tags.
+     * @return Returns the identifiers of the lexical tags in the
+     * {@link TagSymbolTable} or <code>null</code> if the suffix has no lexical
+     * information; the array must not be modified
+     */
+    public int[] getTags(){
+        return this.tags;
+    }
+
+    /**
+     * Method that returns the identifier of the first lexical tag, which is
+     * usually the lexical category.
+     * @return Returns the identifier of the first tag or -1 if the suffix has
+     * no lexical tags
+     */
+    public int getCategory(){
+        if(this.tags==null || this.tags.length==0) {
+            return -1;
+        }
+        else {
+            return this.tags[0];
+        }
     }
 
     @Override
     public int hashCode() {
         int hash = 3;
         hash = 37 * hash + (this.suffix != null ? this.suffix.hashCode() : 0);
-        hash = 37 * hash + (this.lexinfo != null ? this.lexinfo.hashCode() : 0);
+        hash = 37 * hash + Arrays.hashCode(this.tags);
         return hash;
     }
 
@@ -91,7 +147,7 @@ public class Suffix implements Serializable{
         if ((this.suffix == null) ? (other.suffix != null) : !this.suffix.equals(other.suffix)) {
             return false;
         }
-        if (this.lexinfo != other.lexinfo && (this.lexinfo == null || !this.lexinfo.equals(other.lexinfo))) {
+        if (!Arrays.equals(this.tags, other.tags)) {
             return false;
         }
         return true;
@@ -116,11 +172,54 @@ public class Suffix implements Serializable{
     @Override
     public String toString(){
         StringBuilder sb=new StringBuilder(this.suffix);
-        for(String label: this.lexinfo){
+        TagSymbolTable symbols=TagSymbolTable.GetSymbolTable();
+        for(int tag: this.tags){
             sb.append("<");
-            sb.append(label);
+            sb.append(symbols.getName(tag));
             sb.append(">");
         }
         return sb.toString();
     }
+
+    /**
+     * Method that serialises the suffix, writing the names of the lexical tags
+     * instead of their identifiers.
+     * @param out Stream where the object is written
+     * @throws IOException If the object cannot be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException{
+        out.defaultWriteObject();
+        if(this.tags==null) {
+            out.writeInt(-1);
+        }
+        else{
+            out.writeInt(this.tags.length);
+            TagSymbolTable symbols=TagSymbolTable.GetSymbolTable();
+            for(int tag: this.tags){
+                out.writeUTF(symbols.getName(tag));
+            }
+        }
+    }
+
+    /**
+     * Method that reads a serialised suffix, looking up the identifiers of the
+     * lexical tags in the table of the current execution.
+     * @param in Stream from which the object is read
+     * @throws IOException If the object cannot be read
+     * @throws ClassNotFoundException If the class of a field cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException{
+        in.defaultReadObject();
+        int ntags=in.readInt();
+        if(ntags<0) {
+            this.tags=null;
+        }
+        else{
+            this.tags=new int[ntags];
+            TagSymbolTable symbols=TagSymbolTable.GetSymbolTable();
+            for(int i=0;i<ntags;i++){
+                this.tags[i]=symbols.getOrAddId(in.readUTF());
+            }
+        }
+    }
 }
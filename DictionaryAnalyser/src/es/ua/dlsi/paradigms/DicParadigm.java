@@ -50,16 +50,16 @@ public class DicParadigm {
      * @return Returns 
      */
     public static Set<String> ExpandParadigm(Pardef p, String stem,
-            boolean withlexinfo, Dictionary dic){
-        Set<String> exit=new LinkedHashSet<String>();
-        for(E e: p.elements){
-            Set<String> l=DicEntry.ExpandElement(e, withlexinfo, dic);
-            StringBuilder sb=new StringBuilder(stem);
-            for(String s: l){
-                sb.append(s);
-                exit.add(sb.toString());
+            final boolean withlexinfo, Dictionary dic){
+        final Set<String> exit=new LinkedHashSet<String>();
+        new ParadigmExpander(dic).Expand(p, stem, new ExpansionVisitor() {
+            @Override
+            public void Visit(CharSequence surfaceform,
+                    CharSequence lexicalform, int[] tags, int ntags) {
+                exit.add(withlexinfo?lexicalform.toString():
+                        surfaceform.toString());
             }
-        }
+        });
         return exit;
     }
     /**
@@ -26,20 +26,43 @@ import dics.elements.dtd.*;
 import dictools.utils.DictionaryReader;
 import es.ua.dlsi.lexicalinformation.ClosedCategories;
 import es.ua.dlsi.utils.CmdLineParser;
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Class that only contains a main method which runs over all the entries of
  * a dictionary and expands them. This class contains a main method that
  * runs over all the entries of the an Apertium's monolingual dictionary and
  * expands them by producing all the surface forms and, if specified, the
- * lexical information
+ * lexical information. The entries can be expanded in parallel: they are split
+ * in chunks which are expanded by a pool of threads, and the output of every
+ * chunk is written, in the order of the dictionary, by the main thread.
  * @author Miquel Esplà i Gomis
  */
 public class ExpandAllDic {
 
+    /** Size of the buffers used for writing the output */
+    private static final int BUFFER_SIZE=1<<20;
+
+    /** Default number of entries in every chunk expanded by a thread */
+    private static final int DEFAULT_CHUNK_SIZE=1000;
+
     /** Dictionary to be expanded */
     private static Dictionary dic;
 
@@ -47,7 +70,9 @@ public class ExpandAllDic {
      * The main method that expands the dictionary. This main method that
      * runs over all the entries of the an Apertium's monolingual dictionary and
      * expands them by producing all the surface forms and, if specified, the
-     * lexical information
+     * lexical information. Option -t sets the number of threads used for the
+     * expansion, option --chunk-size sets the number of entries expanded by
+     * each task and option -z compresses the output with gzip.
      * @param args the command line arguments
      */
     public static void main(String[] args) {
@@ -63,6 +88,12 @@ public class ExpandAllDic {
         //Flag for specifying if entries corresponding to closed categories should
         //be discarded
         CmdLineParser.Option onotclosedcats = parser.addBooleanOption("no-closedcats");
+        //Number of threads used for expanding the entries
+        CmdLineParser.Option othreads = parser.addIntegerOption('t',"threads");
+        //Number of entries expanded by each task
+        CmdLineParser.Option ochunksize = parser.addIntegerOption("chunk-size");
+        //Flag for specifying if the output must be compressed with gzip
+        CmdLineParser.Option ogzip = parser.addBooleanOption('z',"gzip");
 
         try{
             parser.parse(args);
@@ -78,25 +109,47 @@ public class ExpandAllDic {
 
         String outputpath=(String)parser.getOptionValue(ooutput,null);
         String dictionary=(String)parser.getOptionValue(odictionary,null);
-        boolean withlexinfo=(Boolean)parser.getOptionValue(owithlexinfo,false);
+        final boolean withlexinfo=(Boolean)parser.getOptionValue(owithlexinfo,false);
         boolean notclosedcats=(Boolean)parser.getOptionValue(onotclosedcats,false);
+        int threads=(Integer)parser.getOptionValue(othreads,1);
+        final int chunksize=(Integer)parser.getOptionValue(ochunksize,DEFAULT_CHUNK_SIZE);
+        boolean gzip=(Boolean)parser.getOptionValue(ogzip,false);
 
         if(dictionary==null){
             System.err.println("Error: It is necessary to set the dictionary path (use opton -d or --dictionary).");
             System.exit(-1);
         }
+        if(threads<1){
+            System.err.println("Error: the number of threads (option -t or --threads) must be greater than 0.");
+            System.exit(-1);
+        }
+        if(chunksize<1){
+            System.err.println("Error: the size of the chunks (option --chunk-size) must be greater than 0.");
+            System.exit(-1);
+        }
 
-        PrintWriter output;
+        OutputStream os;
         if(outputpath!=null){
             try {
-                output = new PrintWriter(outputpath);
+                os = new FileOutputStream(outputpath);
             } catch (FileNotFoundException ex) {
                 System.err.println("Warning: output file could not be opened; exit will be printed on screen;");
-                output = new PrintWriter(System.out);
+                os = System.out;
             }
         } else{
             System.err.println("Warning: no output file defined; exit will be printed on screen;");
-            output = new PrintWriter(System.out);
+            os = System.out;
+        }
+        PrintWriter output=null;
+        try {
+            if(gzip) {
+                os = new GZIPOutputStream(os, BUFFER_SIZE);
+            }
+            output = new PrintWriter(new BufferedWriter(
+                    new OutputStreamWriter(os), BUFFER_SIZE));
+        } catch (IOException ex) {
+            System.err.println("Error while opening the compressed output.");
+            System.exit(-1);
         }
 
         DictionaryReader dicReader = new DictionaryReader(dictionary);
@@ -109,6 +162,15 @@ public class ExpandAllDic {
             System.err.println(dictionary);
         }
         else{
+            Map<String,Pardef> pardefs=new HashMap<String,Pardef>();
+            for(Pardef p: dic.pardefs.elements){
+                if(!pardefs.containsKey(p.name)) {
+                    pardefs.put(p.name, p);
+                }
+            }
+            final List<String> stems=new ArrayList<String>();
+            final List<String> paradigms=new ArrayList<String>();
+            final List<Pardef> definitions=new ArrayList<Pardef>();
             for(Section s: dic.sections){
                 for(E e: s.elements){
                     String stem=null;
@@ -143,23 +205,106 @@ public class ExpandAllDic {
                             }
                         }
                         if(stem!=null && par!=null){
-                            Pardef p= dic.pardefs.getParadigmDefinition(par);
+                            Pardef p= pardefs.get(par);
                             if(!notclosedcats || !ClosedCategories.isClosedCategoryParadigm(p)){
-                                Set<String> expansions=DicParadigm.ExpandParadigm(p,
-                                        stem, withlexinfo, dic);
-                                for(String exp: expansions) {
-                                    output.print(par);
-                                    output.print("+");
-                                    output.print(stem);
-                                    output.print(";");
-                                    output.println(exp);
-                                }
+                                stems.add(stem);
+                                paradigms.add(par);
+                                definitions.add(p);
                             }
                         }
                     }
                 }
             }
+
+            if(threads==1){
+                ParadigmExpander expander=new ParadigmExpander(dic);
+                for(int from=0;from<stems.size();from+=chunksize){
+                    output.print(ExpandChunk(stems, paradigms, definitions, from,
+                            Math.min(from+chunksize, stems.size()), expander,
+                            withlexinfo));
+                }
+            }
+            else{
+                final ThreadLocal<ParadigmExpander> expanders=
+                        new ThreadLocal<ParadigmExpander>(){
+                    @Override
+                    protected ParadigmExpander initialValue() {
+                        return new ParadigmExpander(dic);
+                    }
+                };
+                //At most two chunks per thread are kept in memory waiting to
+                //be written
+                LinkedList<Future<String>> pending=new LinkedList<Future<String>>();
+                ExecutorService pool=Executors.newFixedThreadPool(threads);
+                try{
+                    for(int from=0;from<stems.size() || !pending.isEmpty();from+=chunksize){
+                        if(from<stems.size()){
+                            final int chunkstart=from;
+                            pending.add(pool.submit(new Callable<String>() {
+                                @Override
+                                public String call() {
+                                    return ExpandChunk(stems, paradigms,
+                                            definitions, chunkstart,
+                                            Math.min(chunkstart+chunksize,
+                                            stems.size()), expanders.get(),
+                                            withlexinfo);
+                                }
+                            }));
+                        }
+                        if(pending.size()>=threads*2 || from+chunksize>=stems.size()) {
+                            output.print(pending.removeFirst().get());
+                        }
+                    }
+                }
+                catch(InterruptedException ex){
+                    System.err.println("Error: the expansion of the dictionary was interrupted.");
+                    System.exit(-1);
+                }
+                catch(ExecutionException ex){
+                    System.err.print("Error while expanding the dictionary: ");
+                    System.err.println(ex.getCause());
+                    System.exit(-1);
+                }
+                finally{
+                    pool.shutdown();
+                }
+            }
         }
         output.close();
     }
+
+    /**
+     * Method that expands a chunk of the entries collected from the dictionary
+     * and returns the lines of the output corresponding to them, in the format
+     * <code>paradigm+stem;form</code>.
+     * @param stems Stems of the entries
+     * @param paradigms Names of the paradigms of the entries
+     * @param definitions Definitions of the paradigms of the entries
+     * @param from Position of the first entry of the chunk
+     * @param to Position following the last entry of the chunk
+     * @param expander Expander used for expanding the entries
+     * @param withlexinfo Flag that indicates if the lexical forms have to be
+     * produced instead of the surface forms
+     * @return Returns the lines produced for the chunk of entries
+     */
+    private static String ExpandChunk(List<String> stems, List<String> paradigms,
+            List<Pardef> definitions, int from, int to,
+            ParadigmExpander expander, final boolean withlexinfo){
+        final StringBuilder exit=new StringBuilder();
+        final String newline=System.getProperty("line.separator");
+        for(int i=from;i<to;i++){
+            final String prefix=paradigms.get(i)+"+"+stems.get(i)+";";
+            expander.ExpandDistinct(definitions.get(i), stems.get(i),
+                    withlexinfo, new ExpansionVisitor() {
+                @Override
+                public void Visit(CharSequence surfaceform,
+                        CharSequence lexicalform, int[] tags, int ntags) {
+                    exit.append(prefix);
+                    exit.append(withlexinfo?lexicalform:surfaceform);
+                    exit.append(newline);
+                }
+            });
+        }
+        return exit.toString();
+    }
 }
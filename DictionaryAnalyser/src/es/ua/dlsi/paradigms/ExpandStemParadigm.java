@@ -28,7 +28,6 @@ import es.ua.dlsi.utils.CmdLineParser;
 import java.io.*;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Class that only contains a main method which expands a pair stem-paradigm.
@@ -83,7 +82,7 @@ public class ExpandStemParadigm {
         String stemlistfile=(String)parser.getOptionValue(ostemlistfile,null);
         String paradigmlistfile=(String)parser.getOptionValue(oparadigmlistfile,null);
         String dictionary=(String)parser.getOptionValue(odictionary,null);
-        boolean withlexinfo=(Boolean)parser.getOptionValue(owithlexinfo,false);
+        final boolean withlexinfo=(Boolean)parser.getOptionValue(owithlexinfo,false);
 
         List<String> paradigm_list=new LinkedList<String>();
         List<String> stem_list=new LinkedList<String>();
@@ -184,13 +183,21 @@ public class ExpandStemParadigm {
             System.err.println(dictionary);
         }
         else{
+            final PrintWriter writer=output;
+            ParadigmExpander expander=new ParadigmExpander(dic);
             for(String par: paradigm_list){
+                Pardef p= dic.pardefs.getParadigmDefinition(par);
                 for(String st: stem_list){
-                    Pardef p= dic.pardefs.getParadigmDefinition(par);
-                    Set<String> expansions=DicParadigm.ExpandParadigm(p,st,withlexinfo, dic);
-                    for(String exp: expansions) {
-                        output.println(par+"+"+st+";"+exp);
-                    }
+                    final String prefix=par+"+"+st+";";
+                    expander.ExpandDistinct(p, st, withlexinfo,
+                            new ExpansionVisitor() {
+                        @Override
+                        public void Visit(CharSequence surfaceform,
+                                CharSequence lexicalform, int[] tags, int ntags) {
+                            writer.print(prefix);
+                            writer.println(withlexinfo?lexicalform:surfaceform);
+                        }
+                    });
                 }
             }
         }
@@ -0,0 +1,49 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.paradigms;
+
+/**
+ * Interface for the objects that receive the inflected forms produced by
+ * <code>ParadigmExpander</code>. Instead of building a set with all the
+ * expansions of a paradigm, the expander calls the method <code>Visit</code>
+ * of this interface for every expansion, so the caller can write it or filter
+ * it without keeping the whole expansion in memory.
+ * @author Miquel Esplà i Gomis
+ */
+public interface ExpansionVisitor {
+    /**
+     * Method called by the expander for every inflected form produced. The
+     * character sequences and the array of tags are buffers reused by the
+     * expander, so their content is only valid during the call; the visitor
+     * has to copy them (for example, calling <code>toString()</code>) if it
+     * needs to keep them.
+     * @param surfaceform Surface form (stem and left side of the paradigm)
+     * @param lexicalform Lexical form (stem, right side of the paradigm and
+     * tags between angle brackets)
+     * @param tags Identifiers of the tags of the lexical form in
+     * <code>TagSymbolTable</code>
+     * @param ntags Number of valid positions in <code>tags</code>
+     */
+    void Visit(CharSequence surfaceform, CharSequence lexicalform, int[] tags,
+            int ntags);
+}
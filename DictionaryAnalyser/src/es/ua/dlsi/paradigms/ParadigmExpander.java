@@ -0,0 +1,338 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.paradigms;
+
+import dics.elements.dtd.Dictionary;
+import dics.elements.dtd.DixElement;
+import dics.elements.dtd.E;
+import dics.elements.dtd.I;
+import dics.elements.dtd.P;
+import dics.elements.dtd.Par;
+import dics.elements.dtd.Pardef;
+import dics.elements.dtd.S;
+import es.ua.dlsi.lexicalinformation.TagSymbolTable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class that expands paradigm definitions of an Apertium dictionary producing
+ * the inflected forms one by one. The surface form, the lexical form and the
+ * tags of every expansion are built in buffers which are reused for all the
+ * expansions (and for all the stems expanded with the same object), and each
+ * of them is passed to an <code>ExpansionVisitor</code>; in this way, no set
+ * with the whole expansion of a paradigm is kept in memory. The elements of
+ * the paradigm are expanded as in Apertium: the contents of
+ * <code>&lt;i&gt;</code> and <code>&lt;p&gt;</code> are concatenated in order
+ * and every <code>&lt;par&gt;</code> is replaced by each of the elements of
+ * the referenced paradigm. Objects of this class are not thread safe.
+ * @author Miquel Esplà i Gomis
+ */
+public class ParadigmExpander {
+
+    /**
+     * Continuation of the expansion of an element after the expansion of a
+     * nested paradigm: the children of the element that are still to be
+     * expanded and the continuation of the element that contains it.
+     */
+    private static class Continuation{
+        /** Children of the element being expanded */
+        final List<DixElement> children;
+        
+        /** Position of the next child to be expanded */
+        final int index;
+        
+        /** Continuation of the enclosing element (null for the outermost) */
+        final Continuation next;
+
+        /**
+         * Overloaded constructor of the class.
+         * @param children Children of the element being expanded
+         * @param index Position of the next child to be expanded
+         * @param next Continuation of the enclosing element
+         */
+        Continuation(List<DixElement> children, int index, Continuation next){
+            this.children=children;
+            this.index=index;
+            this.next=next;
+        }
+    }
+
+    /** Dictionary from which the paradigm definitions are taken */
+    private Dictionary dic;
+
+    /**
+     * Paradigm definitions already looked up in the dictionary, indexed by
+     * name (the dictionary looks them up sequentially)
+     */
+    private Map<String,Pardef> pardefs;
+
+    /** Buffer containing the surface form being built */
+    private StringBuilder surfaceform;
+
+    /** Buffer containing the lexical form being built */
+    private StringBuilder lexicalform;
+
+    /** Buffer containing the identifiers of the tags of the lexical form */
+    private int[] tags;
+
+    /** Number of valid positions in <code>tags</code> */
+    private int ntags;
+
+    /** Visitor receiving the expansions */
+    private ExpansionVisitor visitor;
+
+    /** Position of the next expansion produced for the current paradigm */
+    private int position;
+
+    /**
+     * Positions of the expansions of the current paradigm that must not be
+     * passed to the visitor (null if all of them are passed)
+     */
+    private BitSet skip;
+
+    /**
+     * Positions of the repeated surface forms in the expansion of every
+     * paradigm (see <code>getRepeatedExpansions</code>)
+     */
+    private Map<Pardef,BitSet> repeated_surfaceforms;
+
+    /**
+     * Positions of the repeated lexical forms in the expansion of every
+     * paradigm (see <code>getRepeatedExpansions</code>)
+     */
+    private Map<Pardef,BitSet> repeated_lexicalforms;
+
+    /**
+     * Overloaded constructor of the class.
+     * @param dic Dictionary from which the paradigm definitions are taken
+     */
+    public ParadigmExpander(Dictionary dic){
+        this.dic=dic;
+        this.pardefs=new HashMap<String,Pardef>();
+        this.surfaceform=new StringBuilder();
+        this.lexicalform=new StringBuilder();
+        this.tags=new int[16];
+        this.ntags=0;
+        this.repeated_surfaceforms=new IdentityHashMap<Pardef,BitSet>();
+        this.repeated_lexicalforms=new IdentityHashMap<Pardef,BitSet>();
+    }
+
+    /**
+     * Method that expands a paradigm with a stem and passes every inflected
+     * form obtained to a visitor, in the order of the elements of the paradigm.
+     * The same form may be produced more than once if it is generated by
+     * different elements (see <code>ExpandDistinct</code>).
+     * @param p Definition of the paradigm to be expanded
+     * @param stem Stem to be prepended to the suffixes of the paradigm
+     * @param visitor Visitor receiving the expansions
+     */
+    public void Expand(Pardef p, String stem, ExpansionVisitor visitor){
+        Expand(p, stem, visitor, null);
+    }
+
+    /**
+     * Method that expands a paradigm with a stem and passes every different
+     * inflected form obtained to a visitor, which is the behaviour of
+     * <code>DicParadigm.ExpandParadigm</code>. Since the stem is a prefix
+     * shared by all the forms, the positions of the repeated forms do not
+     * depend on it: they are computed the first time the paradigm is expanded
+     * and reused for the rest of stems.
+     * @param p Definition of the paradigm to be expanded
+     * @param stem Stem to be prepended to the suffixes of the paradigm
+     * @param withlexinfo Flag that indicates if the forms are compared through
+     * their lexical form (true) or through their surface form (false)
+     * @param visitor Visitor receiving the expansions
+     */
+    public void ExpandDistinct(Pardef p, String stem, boolean withlexinfo,
+            ExpansionVisitor visitor){
+        Expand(p, stem, visitor, getRepeatedExpansions(p, withlexinfo));
+    }
+
+    /**
+     * Method that expands a single element of a dictionary with a stem and
+     * passes every inflected form obtained to a visitor.
+     * @param element Element to be expanded
+     * @param stem Stem to be prepended to the expansion of the element
+     * @param visitor Visitor receiving the expansions
+     */
+    public void Expand(E element, String stem, ExpansionVisitor visitor){
+        this.visitor=visitor;
+        this.skip=null;
+        this.position=0;
+        Reset(stem);
+        Walk(element.children, 0, null);
+        this.visitor=null;
+    }
+
+    /**
+     * Method that returns the positions of the expansions of a paradigm that
+     * repeat a form already produced by a previous expansion.
+     * @param p Definition of the paradigm
+     * @param withlexinfo Flag that indicates if the forms are compared through
+     * their lexical form (true) or through their surface form (false)
+     * @return Returns the positions of the repeated expansions
+     */
+    public BitSet getRepeatedExpansions(Pardef p, final boolean withlexinfo){
+        Map<Pardef,BitSet> cache=withlexinfo?repeated_lexicalforms:
+                repeated_surfaceforms;
+        BitSet exit=cache.get(p);
+        if(exit==null){
+            final BitSet repeated=new BitSet();
+            final Set<String> seen=new HashSet<String>();
+            Expand(p, "", new ExpansionVisitor() {
+                int position=0;
+                @Override
+                public void Visit(CharSequence surfaceform,
+                        CharSequence lexicalform, int[] tags, int ntags) {
+                    String form=withlexinfo?lexicalform.toString():
+                            surfaceform.toString();
+                    if(!seen.add(form)) {
+                        repeated.set(position);
+                    }
+                    position++;
+                }
+            }, null);
+            exit=repeated;
+            cache.put(p, exit);
+        }
+        return exit;
+    }
+
+    /**
+     * Method that expands a paradigm passing to the visitor the expansions
+     * whose position is not in <code>skip</code>.
+     * @param p Definition of the paradigm to be expanded
+     * @param stem Stem to be prepended to the suffixes of the paradigm
+     * @param visitor Visitor receiving the expansions
+     * @param skip Positions of the expansions to be discarded (null if none)
+     */
+    private void Expand(Pardef p, String stem, ExpansionVisitor visitor,
+            BitSet skip){
+        this.visitor=visitor;
+        this.skip=skip;
+        this.position=0;
+        for(E e: p.elements){
+            Reset(stem);
+            Walk(e.children, 0, null);
+        }
+        this.visitor=null;
+        this.skip=null;
+    }
+
+    /**
+     * Method that sets the buffers to the initial state of an expansion.
+     * @param stem Stem with which all the forms start
+     */
+    private void Reset(String stem){
+        surfaceform.setLength(0);
+        surfaceform.append(stem);
+        lexicalform.setLength(0);
+        lexicalform.append(stem);
+        ntags=0;
+    }
+
+    /**
+     * Method that expands the children of an element from a given position and,
+     * once the element is finished, its continuation. When the end of the
+     * outermost element is reached, the form in the buffers is passed to the
+     * visitor. Nested paradigms are expanded by calling this method for each
+     * of their elements, restoring the buffers before each of them.
+     * @param children Children of the element being expanded
+     * @param from Position of the first child to be expanded
+     * @param next Continuation of the enclosing element (null if the element
+     * is the outermost one)
+     */
+    private void Walk(List<DixElement> children, int from, Continuation next){
+        for(int i=from;i<children.size();i++){
+            DixElement de=children.get(i);
+            if(de instanceof I){
+                String value=((I)de).getValueNoTags();
+                surfaceform.append(value);
+                lexicalform.append(value);
+            }
+            else if(de instanceof P){
+                P pair=(P)de;
+                surfaceform.append(pair.l.getValueNoTags());
+                lexicalform.append(pair.r.getValueNoTags());
+                for(DixElement pe: pair.r.children){
+                    if(pe instanceof S){
+                        String tag=((S)pe).name;
+                        lexicalform.append("<");
+                        lexicalform.append(tag);
+                        lexicalform.append(">");
+                        AddTag(TagSymbolTable.GetSymbolTable().getOrAddId(tag));
+                    }
+                }
+            }
+            else if(de instanceof Par){
+                String parname=((Par)de).name;
+                Pardef referenced=pardefs.get(parname);
+                if(referenced==null) {
+                    referenced=dic.pardefs.getParadigmDefinition(parname);
+                    if(referenced==null) {
+                        throw new IllegalArgumentException(
+                                "Reference to an undefined pardef: "+parname);
+                    }
+                    pardefs.put(parname, referenced);
+                }
+                Continuation rest=new Continuation(children, i+1, next);
+                int surfacelength=surfaceform.length();
+                int lexicallength=lexicalform.length();
+                int tagslength=ntags;
+                for(E e: referenced.elements){
+                    surfaceform.setLength(surfacelength);
+                    lexicalform.setLength(lexicallength);
+                    ntags=tagslength;
+                    Walk(e.children, 0, rest);
+                }
+                return;
+            }
+        }
+        if(next!=null) {
+            Walk(next.children, next.index, next.next);
+        }
+        else{
+            if(skip==null || !skip.get(position)) {
+                visitor.Visit(surfaceform, lexicalform, tags, ntags);
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Method that appends a tag to the buffer of tags, growing it if needed.
+     * @param tag Identifier of the tag
+     */
+    private void AddTag(int tag){
+        if(ntags==tags.length) {
+            tags=Arrays.copyOf(tags, tags.length*2);
+        }
+        tags[ntags++]=tag;
+    }
+}
@@ -51,7 +51,10 @@ public class DictionaryWord implements Comparable<DictionaryWord> {
     }
 
     /**
-     * Method that returns the profile of a stem and a paradigm
+     * Method that returns the profile of a stem and a paradigm. The surface
+     * forms are checked with <code>Vocabulary.Contains(String, String)</code>,
+     * so they are not built when the vocabulary has a Bloom filter that
+     * discards them.
      * @param stem Stem of the word
      * @param paradigm Paradigm which generates the inflections
      * @param wordlist Word list in which the inflections should be searched
@@ -61,7 +64,7 @@ public class DictionaryWord implements Comparable<DictionaryWord> {
             Vocabulary wordlist){
         Map<String,Integer> hits=new HashMap<String, Integer>();
         for(Suffix s: paradigm.getSuffixes()){
-            if(wordlist.Contains(stem+s.getSuffix())) {
+            if(wordlist.Contains(stem, s.getSuffix())) {
                 hits.put(s.getSuffix(), 1);
             }
             else {
@@ -9,6 +9,7 @@ import es.ua.dlsi.suffixtree.Dix2suffixtree;
 import es.ua.dlsi.suffixtree.Node;
 import es.ua.dlsi.suffixtree.SuffixTree;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -84,11 +85,11 @@ public class Lexicon {
         
         Stack<StoredNode> intermediate_states=new Stack<StoredNode>();
 
-        Set<String> init_visited_nodes=new LinkedHashSet<String>();
+        BitSet init_visited_nodes=suffixtree.rootnode.getParadigmSet();
         Set<String> init_current_paradigms=new LinkedHashSet<String>();
-        for(String par: suffixtree.rootnode.getParadigmNames()){
-            init_visited_nodes.add(par);
-            init_current_paradigms.add(par);
+        for(int p=0;p<suffixtree.rootnode.NumberOfParadigms();p++){
+            init_current_paradigms.add(suffixtree.getParadigmName(
+                    suffixtree.rootnode.getParadigmId(p)));
         }
         
         for(Node child: suffixtree.rootnode.getChildren().values()){
@@ -100,17 +101,18 @@ public class Lexicon {
         while(!intermediate_states.isEmpty()){
             StoredNode storednode=intermediate_states.pop();
             Node curr_node=storednode.current_node;
-            Set<String> visited_nodes=
-                    new LinkedHashSet<String>(storednode.visited_paradigms);
+            BitSet visited_nodes=(BitSet)storednode.visited_paradigms.clone();
             Set<String> current_paradigms=
                     new LinkedHashSet<String>(storednode.possible_paradigms);
             if(curr_node.isStartingsuffix()){
-                for(String par: curr_node.getParadigmNames()){
-                    if(visited_nodes.contains(par)){
+                for(int p=0;p<curr_node.NumberOfParadigms();p++){
+                    int id=curr_node.getParadigmId(p);
+                    String par=suffixtree.getParadigmName(id);
+                    if(visited_nodes.get(id)){
                         current_paradigms.add(par+"|"+curr_node.SufixToRoot());
                     }
                     else{
-                        visited_nodes.add(par);
+                        visited_nodes.set(id);
                         current_paradigms.add(par);
                     }
                 }
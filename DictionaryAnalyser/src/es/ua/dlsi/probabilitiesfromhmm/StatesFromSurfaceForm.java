@@ -5,18 +5,17 @@
 package es.ua.dlsi.probabilitiesfromhmm;
 
 import dics.elements.dtd.Dictionary;
-import dics.elements.dtd.E;
-import dics.elements.dtd.Section;
-import es.ua.dlsi.entries.DicEntry;
+import es.ua.dlsi.entries.DictionaryIndex;
 import es.ua.dlsi.lexicalinformation.ClosedCategories;
+import es.ua.dlsi.lexicalinformation.FullFormLexicon;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
 import es.ua.dlsi.suffixtree.Node;
 import es.ua.dlsi.suffixtree.SuffixTree;
 import java.io.PrintWriter;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -25,139 +24,140 @@ import java.util.Set;
  */
 public class StatesFromSurfaceForm {
     
-    Map<String,Set<String>> surface_forms_paradigms;
-    Map<String,Set<String>> lowercase_surface_forms_paradigms;
+    /** Lexicon with the surface forms generated by the dictionary */
+    FullFormLexicon lexicon;
+    
+    /** Entries of the dictionary whose surface forms are taken into account:
+     * entries with a paradigm which are not multiword and do not belong to a
+     * closed category */
+    BitSet valid_entries;
+    
     SuffixTree suffixtree;
     
     public static boolean IsAmbiguous(String parname, Node node){
         if(node!=null){
+            return IsAmbiguous(node.getSymbolTable().getId(parname), node);
+        }
+        else
+            return false;
+    }
+    
+    /**
+     * Method that checks if a paradigm generates a suffix which is a suffix of
+     * the one represented by a given node, i.e. if the paradigm appears in any
+     * of the ancestors of the node.
+     * @param parid Identifier of the paradigm in the symbol table of the tree
+     * @param node Node of the suffix tree
+     * @return Returns <code>true</code> if the paradigm is ambiguous for the
+     * node and <code>false</code> otherwise
+     */
+    public static boolean IsAmbiguous(int parid, Node node){
+        if(node!=null && parid>=0){
             Node curnode=node.GetParent();
             while(curnode!=null){
-                if(curnode.getParadigmNames()!=null){
-                    if(curnode.getParadigmNames().contains(parname)){
-                        return true;
-                    }
+                if(curnode.hasParadigm(parid)){
+                    return true;
                 }
                 curnode=curnode.GetParent();
             }
-            return false;
         }
-        else
-            return false;
+        return false;
     }
     
     public StatesFromSurfaceForm(Dictionary dic, SuffixTree suffixtree){
+        this(dic, suffixtree, FullFormLexicon.GetLexicon(dic));
+    }
+    
+    public StatesFromSurfaceForm(Dictionary dic, SuffixTree suffixtree,
+            FullFormLexicon lexicon){
         this.suffixtree=suffixtree;
+        this.lexicon=lexicon;
 
-        surface_forms_paradigms=new HashMap<String,Set<String>>();
-        lowercase_surface_forms_paradigms=new HashMap<String,Set<String>>();
-        for(Section s: dic.sections){
-            for(E e: s.elements){
-                if(!e.isMultiWord() && !ClosedCategories.isClosedCategory(e, dic)){
-                    Candidate candidate=DicEntry.GetStemParadigm(e);
-                    if(candidate!=null){
-                        Paradigm par=new Paradigm(candidate.getParadigm(), dic);
-                        if(!par.isMultiword()){
-                            Set<String> surfaceforms=candidate.GetSurfaceForms(dic);
-                            for(String form: surfaceforms){
-                                try{
-                                    String suffix=form.substring(candidate.getStem().length());
-                                    Node node=suffixtree.NodeMatchingSuffix(suffix);
-                                    if(!node.getParadigmNames().contains(candidate.getParadigm())){
-                                        System.err.println("Error: wrong node detction 1.");
-                                        System.exit(-1);
-                                    }
-                                    if(surface_forms_paradigms.containsKey(form)){
-                                        if(IsAmbiguous(candidate.getParadigm(),node)){
-                                            surface_forms_paradigms.get(form).add(
-                                                    candidate.getParadigm()+"|"+suffix);
-                                        }
-                                        else{
-                                            surface_forms_paradigms.get(form).add(
-                                                    candidate.getParadigm());
-                                        }
-                                    }
-                                    else{
-                                        Set<String> parlist=new HashSet<String>();
-                                        if(IsAmbiguous(candidate.getParadigm(),node)){
-                                            parlist.add(candidate.getParadigm()+"|"+suffix);
-                                        }
-                                        else{
-                                            parlist.add(candidate.getParadigm());
-                                        }
-                                        surface_forms_paradigms.put(form, parlist);
-                                    }
-
-                                    String lowerform=form.toLowerCase();
-                                    suffix=lowerform.substring(candidate.getStem().length());
-                                    node=suffixtree.NodeMatchingSuffix(suffix);
-                                    if(!lowerform.equals(form)){
-                                        if(!lowercase_surface_forms_paradigms.containsKey(
-                                                lowerform)){
-                                            Set<String> parlist=new HashSet<String>();
-                                            if(IsAmbiguous(candidate.getParadigm(),node)){
-                                                parlist.add(candidate.getParadigm()+"|"+
-                                                        lowerform.substring(
-                                                        candidate.getStem().length()));
-                                            }
-                                            else{
-                                                parlist.add(candidate.getParadigm());
-                                            }
-                                            lowercase_surface_forms_paradigms.put(
-                                                    lowerform, parlist);
-                                        }
-                                        else{
-                                            if(IsAmbiguous(candidate.getParadigm(), node)){
-                                                lowercase_surface_forms_paradigms.get(
-                                                        lowerform).add(candidate.getParadigm()
-                                                        +"|"+lowerform.substring(
-                                                        candidate.getStem().length()));
-                                            }
-                                            else{
-                                                lowercase_surface_forms_paradigms.get(
-                                                        lowerform).add(candidate.getParadigm());
-                                            }
-                                        }
-                                    }
-                                }
-                                catch(NullPointerException npe){
-                                    npe.printStackTrace(System.err);
-                                    System.err.println("Error when processing word '"+
-                                            surfaceforms+"'");
-                                }
-                            }
-                        }
+        DictionaryIndex index=DictionaryIndex.GetIndex(dic);
+        valid_entries=new BitSet(index.NumberOfEntries());
+        for(int i=0;i<index.NumberOfEntries();i++){
+            if(!index.isMultiWord(i) && index.getParadigmId(i)>=0 &&
+                    !ClosedCategories.isClosedCategory(index.getEntry(i), dic)){
+                Paradigm par=ParadigmRegistry.GetParadigm(index.getParadigm(i), dic);
+                if(par!=null && !par.isMultiword()){
+                    valid_entries.set(i);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Method that returns the states (paradigms, followed by the suffix if the
+     * paradigm is ambiguous for it) of a set of analyses of a surface form.
+     * @param form Surface form
+     * @param analyses Analyses of the form in the lexicon
+     * @return Returns the set of states or <code>null</code> if none of the
+     * analyses corresponds to a valid entry
+     */
+    private Set<String> GetStates(String form, int[] analyses){
+        Set<String> states=null;
+        for(int a: analyses){
+            if(valid_entries.get(lexicon.getEntry(a))){
+                String paradigm=lexicon.getParadigm(a);
+                String suffix=form.substring(lexicon.getStemLength(a));
+                Node node=suffixtree.NodeMatchingSuffix(suffix);
+                if(node!=null){
+                    if(!lexicon.isFolded(a) && !node.hasParadigm(
+                            suffixtree.getParadigmId(paradigm))){
+                        System.err.println("Error: wrong node detction 1.");
+                        System.exit(-1);
+                    }
+                    if(states==null)
+                        states=new HashSet<String>();
+                    if(IsAmbiguous(paradigm, node)){
+                        states.add(paradigm+"|"+suffix);
+                    }
+                    else{
+                        states.add(paradigm);
                     }
                 }
             }
         }
+        return states;
     }
     
     public Set<String> GetStatesFromSurfaceForm(String surfaceform){
         System.err.print(surfaceform+"\t"+surfaceform.toLowerCase()+"\t");
-        if(this.surface_forms_paradigms.containsKey(surfaceform)){
-            for (String tag: this.surface_forms_paradigms.get(surfaceform))
+        Set<String> formstates=GetStates(surfaceform, lexicon.getAnalyses(surfaceform));
+        Set<String> lowercasestates=null;
+        if(formstates==null){
+            String lowerform=surfaceform.toLowerCase();
+            lowercasestates=GetStates(lowerform, lexicon.getFoldedAnalyses(lowerform));
+        }
+        if(formstates!=null){
+            for (String tag: formstates)
                 System.err.print(tag+"\t");
             System.err.println();
-            return this.surface_forms_paradigms.get(surfaceform);
+            return formstates;
         }
-        else if(this.lowercase_surface_forms_paradigms.containsKey(surfaceform.toLowerCase())){System.err.print(surfaceform+"\t"+surfaceform.toLowerCase()+"\t");
-            for (String tag: this.lowercase_surface_forms_paradigms.get(surfaceform.toLowerCase()))
+        else if(lowercasestates!=null){System.err.print(surfaceform+"\t"+surfaceform.toLowerCase()+"\t");
+            for (String tag: lowercasestates)
                 System.err.print(tag+"\t");
             System.err.println();
-            return this.lowercase_surface_forms_paradigms.get(surfaceform.toLowerCase());
+            return lowercasestates;
         }
         else{
             Set<Candidate> candidates=this.suffixtree.SegmentWord(surfaceform);
             Set<String> states=new HashSet<String>();
             for(Candidate c: candidates){
-                if(!c.getReftotree().getParadigmNames().contains(c.getParadigm())){
+                int parid=suffixtree.getParadigmId(c.getParadigm());
+                String suffix=surfaceform.substring(c.getStem().length());
+                //Candidates which do not keep their node are looked up again
+                Node node=c.getReftotree();
+                if(node==null) {
+                    node=suffixtree.NodeMatchingSuffix(suffix);
+                }
+                if(node==null || !node.hasParadigm(parid)){
                     System.err.println("Error: wrong node detction 2.");
                     System.exit(-1);
                 }
-                if(IsAmbiguous(c.getParadigm(), c.getReftotree())){
-                    states.add(c.getParadigm()+"|"+surfaceform.
-                            substring(c.getStem().length()));
+                if(IsAmbiguous(parid, node)){
+                    states.add(c.getParadigm()+"|"+suffix);
                 }
                 else{
                      states.add(c.getParadigm());
@@ -188,35 +188,35 @@ public class StatesFromSurfaceForm {
     }
     
     public void PrintAllSurfaceformsStates(PrintWriter pw){
-        for(Map.Entry<String,Set<String>> form: surface_forms_paradigms.entrySet()){
-            pw.print(form.getKey());
-            pw.print("\t");
-            pw.print(form.getValue().size());
-            pw.print("\t");
-            StringBuilder sb=new StringBuilder();
-            for(String state: form.getValue()){
-                sb.append(state);
-                sb.append(" ");
-            }
-            sb.deleteCharAt(sb.length()-1);
-            pw.println(sb);
-            pw.flush();
-        }
-        
-        for(Map.Entry<String,Set<String>> form:
-                lowercase_surface_forms_paradigms.entrySet()){
-            pw.print(form.getKey());
-            pw.print("\t");
-            pw.print(form.getValue().size());
-            pw.print("\t");
-            StringBuilder sb=new StringBuilder();
-            for(String state: form.getValue()){
-                sb.append(state);
-                sb.append(" ");
+        PrintSurfaceformsStates(pw, false);
+        PrintSurfaceformsStates(pw, true);
+    }
+    
+    /**
+     * Method that prints the states of all the surface forms in the lexicon,
+     * or those of their lowercase variants.
+     * @param pw Writer where the states are printed
+     * @param folded If <code>true</code>, the states of the lowercase variants
+     * of the surface forms are printed
+     */
+    private void PrintSurfaceformsStates(PrintWriter pw, boolean folded){
+        for(int id=0;id<lexicon.NumberOfSurfaceForms();id++){
+            String form=lexicon.getSurfaceForm(id);
+            Set<String> states=GetStates(form, lexicon.getAnalyses(id, folded));
+            if(states!=null){
+                pw.print(form);
+                pw.print("\t");
+                pw.print(states.size());
+                pw.print("\t");
+                StringBuilder sb=new StringBuilder();
+                for(String state: states){
+                    sb.append(state);
+                    sb.append(" ");
+                }
+                sb.deleteCharAt(sb.length()-1);
+                pw.println(sb);
+                pw.flush();
             }
-            sb.deleteCharAt(sb.length()-1);
-            pw.println(sb);
-            pw.flush();
         }
     }
 }
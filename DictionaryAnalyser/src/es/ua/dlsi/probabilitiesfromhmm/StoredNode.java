@@ -5,6 +5,7 @@
 package es.ua.dlsi.probabilitiesfromhmm;
 
 import es.ua.dlsi.suffixtree.Node;
+import java.util.BitSet;
 import java.util.Set;
 
 /**
@@ -13,7 +14,7 @@ import java.util.Set;
  */
     
 public class StoredNode{
-    public StoredNode(Node current_node, Set<String> visited_paradigms,
+    public StoredNode(Node current_node, BitSet visited_paradigms,
             Set<String> possible_paradigms){
         this.current_node=current_node;
         this.visited_paradigms=visited_paradigms;
@@ -22,7 +23,8 @@ public class StoredNode{
 
     public Node current_node;
 
-    public Set<String> visited_paradigms;
+    /** Identifiers of the paradigms already found in the path to the root */
+    public BitSet visited_paradigms;
     
     public Set<String> possible_paradigms;
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.querying;
+
+import java.io.Serializable;
+
+/**
+ * Class that implements a blocked Bloom filter of strings, used to discard
+ * quickly most of the words that are not in a vocabulary (see
+ * <code>Vocabulary.BuildFilter</code>). The bits of the filter are divided in
+ * blocks of 512 bits (the size of a cache line) and all the bits of a string
+ * are set in the same block, so checking a string only needs to access
+ * memory once. As in any Bloom filter, a string added is always found, but a
+ * string not added may also be found with a small probability.
+ * <p>
+ * The strings are hashed char by char, so a string can be checked as the
+ * concatenation of two strings without building it (see
+ * {@link #MightContain(String, String)}).
+ * @author Miquel Esplà i Gomis
+ */
+public class BlockedBloomFilter implements Serializable{
+
+    /** Number of bits of every block. */
+    private static final int BLOCK_BITS=512;
+
+    /** Number of <code>long</code> values in every block. */
+    private static final int BLOCK_LONGS=BLOCK_BITS/64;
+
+    /** Number of bits used in the filter for every string. */
+    private static final int BITS_PER_STRING=10;
+
+    /** Number of bits set in the filter for every string. */
+    private static final int NUMBER_OF_HASHES=7;
+
+    /** Offset basis of the FNV-1a hash function. */
+    private static final long FNV_OFFSET=0xcbf29ce484222325L;
+
+    /** Prime of the FNV-1a hash function. */
+    private static final long FNV_PRIME=0x100000001b3L;
+
+    /** Bits of the filter. */
+    private long[] bits;
+
+    /** Number of blocks of the filter. */
+    private int nblocks;
+
+    /**
+     * Overloaded constructor of the class, which builds an empty filter with
+     * enough space for a given number of strings.
+     * @param expected Number of strings to be added to the filter
+     */
+    public BlockedBloomFilter(int expected){
+        long blocks=((long)Math.max(1, expected)*BITS_PER_STRING+BLOCK_BITS-1)/BLOCK_BITS;
+        this.nblocks=(int)Math.min(blocks, Integer.MAX_VALUE/BLOCK_LONGS);
+        this.bits=new long[nblocks*BLOCK_LONGS];
+    }
+
+    /**
+     * Method that adds a string to the filter.
+     * @param s String to be added
+     */
+    public void Add(String s){
+        long hash=Mix(Hash(FNV_OFFSET, s));
+        int base=Block(hash);
+        int h1=(int)hash;
+        int h2=(int)(hash>>>16)|1;
+        for(int i=0;i<NUMBER_OF_HASHES;i++){
+            int bit=(h1+i*h2)&(BLOCK_BITS-1);
+            bits[base+(bit>>>6)]|=1L<<bit;
+        }
+    }
+
+    /**
+     * Method that checks if a string may have been added to the filter.
+     * @param s String to be checked
+     * @return Returns <code>false</code> if the string has not been added to
+     * the filter, and <code>true</code> if it has probably been added
+     */
+    public boolean MightContain(String s){
+        return Check(Mix(Hash(FNV_OFFSET, s)));
+    }
+
+    /**
+     * Method that checks if the concatenation of two strings may have been
+     * added to the filter, without building the concatenation.
+     * @param prefix First part of the string to be checked
+     * @param suffix Second part of the string to be checked
+     * @return Returns <code>false</code> if the concatenation has not been
+     * added to the filter, and <code>true</code> if it has probably been added
+     */
+    public boolean MightContain(String prefix, String suffix){
+        return Check(Mix(Hash(Hash(FNV_OFFSET, prefix), suffix)));
+    }
+
+    /**
+     * Method that checks if all the bits of a hash are set in the filter.
+     * @param hash Hash of the string to be checked
+     * @return Returns <code>true</code> if all the bits are set and
+     * <code>false</code> otherwise
+     */
+    private boolean Check(long hash){
+        int base=Block(hash);
+        int h1=(int)hash;
+        int h2=(int)(hash>>>16)|1;
+        for(int i=0;i<NUMBER_OF_HASHES;i++){
+            int bit=(h1+i*h2)&(BLOCK_BITS-1);
+            if((bits[base+(bit>>>6)]&(1L<<bit))==0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method that returns the position in <code>bits</code> of the block
+     * corresponding to a hash.
+     * @param hash Hash of a string
+     * @return Returns the position of the first <code>long</code> of the block
+     */
+    private int Block(long hash){
+        //The bits of the hash used to choose the block are not used to choose
+        //the bits inside it
+        return (int)(((hash>>>40)*nblocks)>>>24)*BLOCK_LONGS;
+    }
+
+    /**
+     * Method that extends a FNV-1a hash with the characters of a string.
+     * @param hash Hash of the preceding characters
+     * @param s String to be added
+     * @return Returns the hash of the preceding characters followed by the string
+     */
+    private static long Hash(long hash, String s){
+        for(int i=0;i<s.length();i++) {
+            hash=(hash^s.charAt(i))*FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Method that applies the finalisation step of MurmurHash3 to a hash, so
+     * all its bits depend on all the characters of the string.
+     * @param hash Hash to be mixed
+     * @return Returns the mixed hash
+     */
+    private static long Mix(long hash){
+        hash^=hash>>>33;
+        hash*=0xff51afd7ed558ccdL;
+        hash^=hash>>>33;
+        hash*=0xc4ceb9fe1a85ec53L;
+        hash^=hash>>>33;
+        return hash;
+    }
+}
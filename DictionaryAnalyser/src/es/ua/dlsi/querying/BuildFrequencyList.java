@@ -0,0 +1,146 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.querying;
+
+import es.ua.dlsi.utils.CmdLineParser;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * Class that only contains a main method which builds the vocabulary of a
+ * tokenised corpus, i.e. the number of occurrences of every token, replacing
+ * the pipeline <code>tr ' ' '\n' | sort | uniq -c | sort -nr</code> (see
+ * {@link CorpusCounter}). The corpus may be compressed with gzip; corpora
+ * compressed with bzip2 can be read from the standard input through
+ * <code>bzcat</code>. The vocabulary is written either as a frequency list in
+ * text format, sorted by decreasing number of occurrences, or as a binary
+ * image (see <code>CompactVocabulary.Write</code>).
+ * <p>
+ * The memory used is bounded by the option <code>--max-tokens</code> (the
+ * maximum number of different tokens kept in memory) when writing the text
+ * format, since the counts are merged and sorted on disk (see
+ * <code>CorpusCounter.WriteFrequencyList</code>). The binary image, on the
+ * contrary, is built in memory: all the different tokens must fit in the
+ * 2 GB of UTF-8 text allowed by <code>CompactVocabulary</code>, so the text
+ * format should be used for larger vocabularies.
+ * @author Miquel Esplà i Gomis
+ */
+public class BuildFrequencyList {
+
+    /**
+     * Main method that counts the corpus and writes the vocabulary.
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        CmdLineParser parser = new CmdLineParser();
+        //Tokenised corpus to be counted (standard input if it is not set or it is "-")
+        CmdLineParser.Option ocorpus = parser.addStringOption('c',"corpus");
+        //Option for specifying the output file path
+        CmdLineParser.Option ooutput = parser.addStringOption('o',"output");
+        //Option for writing a binary image instead of a text frequency list
+        //(the whole vocabulary is kept in memory, up to 2 GB of text)
+        CmdLineParser.Option obinary = parser.addBooleanOption('b',"binary");
+        //Option for counting only the tokens containing a letter
+        CmdLineParser.Option oalpha = parser.addBooleanOption('a',"alpha-only");
+        //Number of threads counting the tokens
+        CmdLineParser.Option othreads = parser.addIntegerOption('t',"threads");
+        //Maximum number of different tokens kept in memory
+        CmdLineParser.Option omaxtokens = parser.addIntegerOption('m',"max-tokens");
+        //Directory for the temporary files
+        CmdLineParser.Option otmpdir = parser.addStringOption("tmp-dir");
+
+        try{
+            parser.parse(args);
+        }
+        catch(CmdLineParser.IllegalOptionValueException e){
+            System.err.println(e);
+            System.exit(-1);
+        }
+        catch(CmdLineParser.UnknownOptionException e){
+            System.err.println(e);
+            System.exit(-1);
+        }
+
+        String corpuspath=(String)parser.getOptionValue(ocorpus,null);
+        String outputpath=(String)parser.getOptionValue(ooutput,null);
+        boolean binary=(Boolean)parser.getOptionValue(obinary,false);
+        boolean alphaonly=(Boolean)parser.getOptionValue(oalpha,false);
+        int threads=(Integer)parser.getOptionValue(othreads,
+                Runtime.getRuntime().availableProcessors());
+        int maxtokens=(Integer)parser.getOptionValue(omaxtokens,4000000);
+        String tmpdir=(String)parser.getOptionValue(otmpdir,null);
+
+        if(outputpath==null){
+            System.err.println("Error: It is necessary to set the output file path (use opton -o or --output).");
+            System.exit(-1);
+        }
+
+        CorpusCounter counter=new CorpusCounter(threads, maxtokens, tmpdir, alphaonly);
+        try{
+            try {
+                counter.Count(CorpusCounter.Open(corpuspath));
+            } catch (FileNotFoundException ex) {
+                System.err.println("ERROR: File '"+corpuspath+"' could not be found.");
+                System.exit(-1);
+            } catch (IOException ex) {
+                System.err.println("Error while counting the corpus: "+ex.getMessage());
+                System.exit(-1);
+            }
+            long ntypes=0;
+            if(binary){
+                CompactVocabulary.Arena arena=new CompactVocabulary.Arena();
+                try {
+                    counter.Merge(arena);
+                } catch (IOException ex) {
+                    System.err.println("Error while merging the counts: "+ex.getMessage());
+                    System.exit(-1);
+                }
+                try {
+                    new CompactVocabulary(arena).Write(outputpath);
+                } catch (IOException ex) {
+                    System.err.print("Error while writing the vocabulary to file '");
+                    System.err.print(outputpath);
+                    System.err.println("'.");
+                    System.exit(-1);
+                }
+                ntypes=arena.n;
+            }
+            else{
+                try {
+                    ntypes=counter.WriteFrequencyList(outputpath);
+                } catch (IOException ex) {
+                    System.err.print("Error while merging the counts or writing the vocabulary to file '");
+                    System.err.print(outputpath);
+                    System.err.println("': "+ex.getMessage());
+                    System.exit(-1);
+                }
+            }
+            System.err.println(counter.getNumberOfTokens()+" tokens and "+
+                    ntypes+" different words counted ("+
+                    counter.getNumberOfRuns()+" runs written to disk).");
+        }
+        finally{
+            counter.Close();
+        }
+    }
+}
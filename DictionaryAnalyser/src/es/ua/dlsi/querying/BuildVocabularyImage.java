@@ -0,0 +1,95 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.querying;
+
+import es.ua.dlsi.utils.CmdLineParser;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * Class that only contains a main method which converts a vocabulary in text
+ * format (a word and its number of occurrences in every line, see
+ * {@link Vocabulary}) into a binary image (see
+ * <code>CompactVocabulary.Write</code>). The image can be passed instead of
+ * the text file to any tool reading a vocabulary, and it is opened in
+ * constant time (see <code>Vocabulary.Load</code>).
+ * @author Miquel Esplà i Gomis
+ */
+public class BuildVocabularyImage {
+
+    /**
+     * Main method that converts the vocabulary.
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        CmdLineParser parser = new CmdLineParser();
+        //Vocabulary in text format to be converted
+        CmdLineParser.Option ovocabulary = parser.addStringOption('v',"vocabulary");
+        //Option for specifying the output file path
+        CmdLineParser.Option ooutput = parser.addStringOption('o',"output");
+
+        try{
+            parser.parse(args);
+        }
+        catch(CmdLineParser.IllegalOptionValueException e){
+            System.err.println(e);
+            System.exit(-1);
+        }
+        catch(CmdLineParser.UnknownOptionException e){
+            System.err.println(e);
+            System.exit(-1);
+        }
+
+        String vocabularypath=(String)parser.getOptionValue(ovocabulary,null);
+        String outputpath=(String)parser.getOptionValue(ooutput,null);
+
+        if(vocabularypath==null){
+            System.err.println("Error: It is necessary to set the vocabulary path (use opton -v or --vocabulary).");
+            System.exit(-1);
+        }
+        if(outputpath==null){
+            System.err.println("Error: It is necessary to set the output file path (use opton -o or --output).");
+            System.exit(-1);
+        }
+
+        CompactVocabulary vocabulary=null;
+        try {
+            vocabulary=new CompactVocabulary(vocabularypath);
+        } catch (FileNotFoundException ex) {
+            System.err.println("ERROR: File '"+vocabularypath+"' could not be found.");
+            System.exit(-1);
+        } catch (IOException ex) {
+            System.err.println("Error while reading file '"+vocabularypath+"'.");
+            System.exit(-1);
+        }
+        try {
+            vocabulary.Write(outputpath);
+        } catch (IOException ex) {
+            System.err.print("Error while writing the vocabulary to file '");
+            System.err.print(outputpath);
+            System.err.println("'.");
+            System.exit(-1);
+        }
+        System.err.println(vocabulary.size()+" words saved.");
+    }
+}
@@ -0,0 +1,957 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.querying;
+
+import es.ua.dlsi.monolingual.Paradigm;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Class that represents a vocabulary with the number of occurrences of every
+ * word in a corpus, stored in a compact way for very large vocabularies. Unlike
+ * {@link Vocabulary}, which keeps a <code>HashMap</code> with a
+ * <code>String</code> and an <code>Integer</code> object for every word, this
+ * class stores:
+ * <ul>
+ * <li>the words encoded in UTF-8, one after the other, in a single buffer
+ * allocated out of the Java heap;</li>
+ * <li>the position of every word in this buffer, in another buffer out of the
+ * heap;</li>
+ * <li>a minimal perfect hash function that maps every word of the vocabulary
+ * to its position in the buffers; and</li>
+ * <li>the number of occurrences of the words packed in an array of
+ * <code>long</code> values, using only as many bits as needed for the
+ * highest frequency.</li>
+ * </ul>
+ * The perfect hash function follows the <i>hash, displace and compress</i>
+ * approach: the words are distributed in buckets with a first hash function,
+ * and, for every bucket, a seed is searched so that a second hash function,
+ * using this seed, sends all the words of the bucket to free positions; buckets
+ * with only one word are directly assigned a free position. The function only
+ * needs the seed (or position) of every bucket, and a query needs to compute
+ * at most two hash functions and compare the word with only one word of the
+ * vocabulary, which is necessary since words not in the vocabulary are also
+ * mapped to some position.
+ * <p>
+ * The buffers can also be read directly from a binary image of the
+ * vocabulary mapped in memory (see {@link #Write(String)} and
+ * {@link #Map(String)}), so a vocabulary converted once can be opened in
+ * constant time instead of parsing the text file every time a tool is run.
+ * <p>
+ * The object cannot be modified once built, so it can be queried by several
+ * threads at the same time.
+ * @author Miquel Esplà i Gomis
+ */
+public class CompactVocabulary extends Vocabulary{
+
+    /** Maximum number of seeds tried for a bucket of the perfect hash function. */
+    private static final int MAX_SEEDS=1<<24;
+
+    /** Magic number at the beginning of the binary image of the vocabulary ("PATV"). */
+    private static final int IMAGE_MAGIC=0x50415456;
+
+    /** Version of the format of the binary image of the vocabulary. */
+    private static final int IMAGE_VERSION=1;
+
+    /** Size in bytes of the header of the binary image: magic number, version,
+     * number of words, number of buckets, bits per frequency, and the sizes of
+     * the buffers of words and frequencies. */
+    private static final int IMAGE_HEADER_SIZE=4+4+5*4;
+
+    /** Number of different words in the vocabulary. */
+    private transient int nwords;
+
+    /** Number of buckets of the perfect hash function. */
+    private transient int nbuckets;
+
+    /** For every bucket: 0 if it is empty, the seed of the second hash function
+     * if it contains more than one word or, if it contains only one word, the
+     * position of this word <code>p</code> encoded as <code>-p-1</code>. */
+    private transient IntBuffer displacements;
+
+    /** Position of every word in <code>words</code>; the word at position
+     * <code>p</code> ends where word <code>p+1</code> starts. */
+    private transient IntBuffer offsets;
+
+    /** Words of the vocabulary encoded in UTF-8. */
+    private transient ByteBuffer words;
+
+    /** Number of occurrences of every word, packed with
+     * <code>frequency_bits</code> bits per word. */
+    private transient LongBuffer frequencies;
+
+    /** Number of bits used for the number of occurrences of every word. */
+    private transient int frequency_bits;
+
+    /** Buffer used by every thread to encode the words queried. */
+    private transient ThreadLocal<byte[]> encoding_buffer;
+
+    /** Builder reused by every thread to produce the forms of a paradigm. */
+    private transient ThreadLocal<StringBuilder> form_builder;
+
+    /**
+     * Overloaded constructor of the vocabulary. This method reads the
+     * vocabulary from a file containing, for each line, the number of
+     * occurrences of a word in a corpus and the word, separated by blank
+     * spaces or tabulators (the same format read by {@link Vocabulary}, see
+     * {@link FrequencyListReader}). If a word appears
+     * more than once, the last number of occurrences is kept.
+     * @param vocabularypath Path where the file to be read is placed
+     * @throws FileNotFoundException If the file cannot be found, an exception is thrown
+     * @throws IOException If there is an error while reading the file, an exception
+     * is thrown
+     */
+    public CompactVocabulary(String vocabularypath) throws FileNotFoundException, IOException{
+        this(ReadFrequencyList(vocabularypath));
+    }
+
+    /**
+     * Overloaded constructor of the vocabulary that builds it from the words
+     * collected in a temporary buffer (see {@link Arena}). If a word appears
+     * more than once, the last number of occurrences is kept.
+     * @param arena Buffer containing the words of the vocabulary
+     */
+    CompactVocabulary(Arena arena){
+        super();
+        Build(arena.buffer, arena.starts, arena.hits, arena.n);
+        Init();
+    }
+
+    /**
+     * Method that reads a frequency list in a temporary buffer, keeping the
+     * words in the same order of the file.
+     * @param vocabularypath Path where the file to be read is placed
+     * @return Returns the buffer containing the words read
+     * @throws FileNotFoundException If the file cannot be found, an exception is thrown
+     * @throws IOException If there is an error while reading the file, an exception
+     * is thrown
+     */
+    private static Arena ReadFrequencyList(String vocabularypath) throws FileNotFoundException, IOException{
+        Arena arena=new Arena();
+        new FrequencyListReader(vocabularypath).Read(arena);
+        return arena;
+    }
+
+    /**
+     * Overloaded constructor of the vocabulary that builds it from the buffers
+     * already computed (see {@link #Map(String)}).
+     * @param nwords Number of different words in the vocabulary
+     * @param nbuckets Number of buckets of the perfect hash function
+     * @param frequency_bits Number of bits used for every frequency
+     * @param displacements Seed or position of every bucket
+     * @param offsets Position of every word in <code>words</code>
+     * @param words Words of the vocabulary encoded in UTF-8
+     * @param frequencies Packed number of occurrences of every word
+     */
+    private CompactVocabulary(int nwords, int nbuckets, int frequency_bits,
+            IntBuffer displacements, IntBuffer offsets, ByteBuffer words,
+            LongBuffer frequencies){
+        super();
+        this.nwords=nwords;
+        this.nbuckets=nbuckets;
+        this.frequency_bits=frequency_bits;
+        this.displacements=displacements;
+        this.offsets=offsets;
+        this.words=words;
+        this.frequencies=frequencies;
+        Init();
+    }
+
+    /**
+     * Method that initialises the buffers used by every thread to query the
+     * vocabulary.
+     */
+    private void Init(){
+        this.encoding_buffer=new ThreadLocal<byte[]>(){
+            @Override
+            protected byte[] initialValue(){
+                return new byte[64];
+            }
+        };
+        this.form_builder=new ThreadLocal<StringBuilder>(){
+            @Override
+            protected StringBuilder initialValue(){
+                return new StringBuilder();
+            }
+        };
+    }
+
+    /**
+     * Method that builds the perfect hash function and the compact buffers
+     * from the words read.
+     * @param arena Buffer with the words read, encoded in UTF-8
+     * @param starts Position in <code>arena</code> where every word starts
+     * (every word ends where the next one starts)
+     * @param hits Number of occurrences of every word
+     * @param n Number of words read
+     */
+    private void Build(ByteBuffer arena, int[] starts, int[] hits, int n){
+        int end=arena.position();
+        this.nbuckets=Math.max(1, n);
+        byte[] word=new byte[64];
+
+        //Words sorted by bucket
+        int[] bucketstart=new int[nbuckets+1];
+        int[] bucketof=new int[n];
+        for(int i=0;i<n;i++){
+            int length=WordLength(starts, i, n, end);
+            word=Read(arena, starts[i], length, word);
+            bucketof[i]=(int)((Hash(0, word, length)>>>1)%nbuckets);
+            bucketstart[bucketof[i]+1]++;
+        }
+        for(int b=0;b<nbuckets;b++){
+            bucketstart[b+1]+=bucketstart[b];
+        }
+        int[] members=new int[n];
+        int[] fill=Arrays.copyOf(bucketstart, nbuckets);
+        for(int i=0;i<n;i++){
+            members[fill[bucketof[i]]++]=i;
+        }
+        bucketof=null;
+
+        //Repeated words fall in the same bucket: only the last one is kept
+        BitSet repeated=new BitSet(n);
+        byte[] other=new byte[64];
+        for(int b=0;b<nbuckets;b++){
+            for(int i=bucketstart[b];i<bucketstart[b+1];i++){
+                int length=WordLength(starts, members[i], n, end);
+                word=Read(arena, starts[members[i]], length, word);
+                for(int j=i+1;j<bucketstart[b+1] && !repeated.get(members[i]);j++){
+                    int otherlength=WordLength(starts, members[j], n, end);
+                    other=Read(arena, starts[members[j]], otherlength, other);
+                    if(SameBytes(word, length, other, otherlength)){
+                        //Members of a bucket are in the order of the file
+                        repeated.set(members[i]);
+                    }
+                }
+            }
+        }
+        this.nwords=n-repeated.cardinality();
+
+        //Buckets sorted by decreasing number of words
+        int maxsize=0;
+        int[] sizes=new int[nbuckets];
+        for(int b=0;b<nbuckets;b++){
+            for(int i=bucketstart[b];i<bucketstart[b+1];i++){
+                if(!repeated.get(members[i])) {
+                    sizes[b]++;
+                }
+            }
+            maxsize=Math.max(maxsize, sizes[b]);
+        }
+        int[] bysize=new int[maxsize+2];
+        for(int b=0;b<nbuckets;b++){
+            bysize[maxsize-sizes[b]+1]++;
+        }
+        for(int s=0;s<=maxsize;s++){
+            bysize[s+1]+=bysize[s];
+        }
+        int[] order=new int[nbuckets];
+        for(int b=0;b<nbuckets;b++){
+            order[bysize[maxsize-sizes[b]]++]=b;
+        }
+
+        //Searching a seed for every bucket with more than one word
+        int[] seeds=new int[nbuckets];
+        int[] positionof=new int[n];
+        BitSet used=new BitSet(nwords);
+        int[] bucketpositions=new int[Math.max(1, maxsize)];
+        int[] bucketwords=new int[Math.max(1, maxsize)];
+        int next=0;
+        for(;next<nbuckets && sizes[order[next]]>1;next++){
+            int b=order[next];
+            int size=0;
+            for(int i=bucketstart[b];i<bucketstart[b+1];i++){
+                if(!repeated.get(members[i])) {
+                    bucketwords[size++]=members[i];
+                }
+            }
+            boolean found=false;
+            for(int seed=1;seed<MAX_SEEDS && !found;seed++){
+                found=true;
+                for(int k=0;k<size && found;k++){
+                    int length=WordLength(starts, bucketwords[k], n, end);
+                    word=Read(arena, starts[bucketwords[k]], length, word);
+                    int position=(int)((Hash(seed, word, length)>>>1)%nwords);
+                    if(used.get(position)) {
+                        found=false;
+                    }
+                    for(int l=0;l<k && found;l++){
+                        if(bucketpositions[l]==position) {
+                            found=false;
+                        }
+                    }
+                    bucketpositions[k]=position;
+                }
+                if(found){
+                    seeds[b]=seed;
+                    for(int k=0;k<size;k++){
+                        used.set(bucketpositions[k]);
+                        positionof[bucketwords[k]]=bucketpositions[k];
+                    }
+                }
+            }
+            if(!found) {
+                throw new IllegalStateException("No perfect hash function found for the vocabulary.");
+            }
+        }
+        //Buckets with only one word take the free positions
+        int free=0;
+        for(;next<nbuckets && sizes[order[next]]==1;next++){
+            int b=order[next];
+            for(int i=bucketstart[b];i<bucketstart[b+1];i++){
+                if(!repeated.get(members[i])){
+                    free=used.nextClearBit(free);
+                    used.set(free);
+                    seeds[b]=-free-1;
+                    positionof[members[i]]=free;
+                }
+            }
+        }
+
+        //Words, positions and frequencies stored in the final order
+        int[] wordat=new int[nwords];
+        int bytes=0;
+        int allhits=0;
+        for(int i=0;i<n;i++){
+            if(!repeated.get(i)){
+                wordat[positionof[i]]=i;
+                bytes+=WordLength(starts, i, n, end);
+                allhits|=hits[i];
+            }
+        }
+        this.frequency_bits=Math.max(1, 32-Integer.numberOfLeadingZeros(allhits));
+        this.displacements=ByteBuffer.allocateDirect(nbuckets*4).asIntBuffer();
+        this.displacements.put(seeds);
+        this.offsets=ByteBuffer.allocateDirect((nwords+1)*4).asIntBuffer();
+        this.words=ByteBuffer.allocateDirect(Math.max(1, bytes));
+        this.frequencies=ByteBuffer.allocateDirect(
+                (int)(((long)nwords*frequency_bits+63)/64)*8+8).asLongBuffer();
+        for(int p=0;p<nwords;p++){
+            int i=wordat[p];
+            int length=WordLength(starts, i, n, end);
+            word=Read(arena, starts[i], length, word);
+            this.offsets.put(p, this.words.position());
+            this.words.put(word, 0, length);
+            SetFrequency(p, hits[i]);
+        }
+        this.offsets.put(nwords, this.words.position());
+    }
+
+    /**
+     * Method that returns the length of a word read in the temporary buffer.
+     * @param starts Position where every word starts
+     * @param i Number of the word
+     * @param n Number of words
+     * @param end Position where the last word ends
+     * @return Returns the length in bytes of the word
+     */
+    private static int WordLength(int[] starts, int i, int n, int end){
+        return ((i+1<n)? starts[i+1]: end)-starts[i];
+    }
+
+    /**
+     * Method that copies a word from a buffer to an array, which is grown if
+     * it is too small.
+     * @param buffer Buffer containing the word
+     * @param start Position where the word starts
+     * @param length Length of the word in bytes
+     * @param array Array in which the word is copied
+     * @return Returns the array containing the word (the same array or a
+     * bigger one)
+     */
+    private static byte[] Read(ByteBuffer buffer, int start, int length, byte[] array){
+        if(array.length<length) {
+            array=new byte[Math.max(length, array.length*2)];
+        }
+        for(int i=0;i<length;i++) {
+            array[i]=buffer.get(start+i);
+        }
+        return array;
+    }
+
+    /**
+     * Method that compares two sequences of bytes.
+     * @param a First array
+     * @param alength Number of bytes used in the first array
+     * @param b Second array
+     * @param blength Number of bytes used in the second array
+     * @return Returns <code>true</code> if both sequences are equal
+     */
+    private static boolean SameBytes(byte[] a, int alength, byte[] b, int blength){
+        if(alength!=blength) {
+            return false;
+        }
+        for(int i=0;i<alength;i++){
+            if(a[i]!=b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method that returns a copy of a buffer with, at least, a given number of
+     * extra bytes free.
+     * @param buffer Buffer to be grown
+     * @param needed Number of bytes that must fit in the new buffer
+     * @return Returns a bigger buffer with the same content and position
+     * @throws IOException If the buffer would need more than 2 GB
+     */
+    private static ByteBuffer Grow(ByteBuffer buffer, int needed) throws IOException{
+        long capacity=Math.max((long)buffer.capacity()*2, (long)buffer.position()+needed);
+        if(capacity>Integer.MAX_VALUE-8) {
+            capacity=Integer.MAX_VALUE-8;
+        }
+        if(capacity-buffer.position()<needed) {
+            throw new IOException("The vocabulary does not fit in a compact vocabulary (2 GB of text).");
+        }
+        ByteBuffer exit=ByteBuffer.allocateDirect((int)capacity);
+        buffer.flip();
+        exit.put(buffer);
+        return exit;
+    }
+
+    /**
+     * Method that returns an array big enough for encoding in UTF-8 a word with
+     * a given number of characters.
+     * @param array Current array
+     * @param nchars Number of characters of the word
+     * @return Returns the same array or a bigger one
+     */
+    private static byte[] EnsureCapacity(byte[] array, int nchars){
+        if(array.length<nchars*3) {
+            return new byte[Math.max(nchars*3, array.length*2)];
+        }
+        else {
+            return array;
+        }
+    }
+
+    /**
+     * Method that encodes a sequence of characters in UTF-8. Unpaired
+     * surrogates are encoded as any other character of three bytes; words
+     * read from a file never contain them, so a word containing them is never
+     * found. The array must have room for three bytes per character.
+     * @param s Sequence of characters to be encoded
+     * @param out Array where the bytes are written
+     * @return Returns the number of bytes written
+     */
+    private static int Encode(CharSequence s, byte[] out){
+        int pos=0;
+        int length=s.length();
+        for(int i=0;i<length;i++){
+            char c=s.charAt(i);
+            if(c<0x80){
+                out[pos++]=(byte)c;
+            }
+            else if(c<0x800){
+                out[pos++]=(byte)(0xc0|(c>>6));
+                out[pos++]=(byte)(0x80|(c&0x3f));
+            }
+            else if(Character.isHighSurrogate(c) && i+1<length &&
+                    Character.isLowSurrogate(s.charAt(i+1))){
+                int cp=Character.toCodePoint(c, s.charAt(++i));
+                out[pos++]=(byte)(0xf0|(cp>>18));
+                out[pos++]=(byte)(0x80|((cp>>12)&0x3f));
+                out[pos++]=(byte)(0x80|((cp>>6)&0x3f));
+                out[pos++]=(byte)(0x80|(cp&0x3f));
+            }
+            else{
+                out[pos++]=(byte)(0xe0|(c>>12));
+                out[pos++]=(byte)(0x80|((c>>6)&0x3f));
+                out[pos++]=(byte)(0x80|(c&0x3f));
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Method that computes a 64-bit hash of a sequence of bytes for a given
+     * seed (FNV-1a followed by the finalisation step of MurmurHash3).
+     * @param seed Seed of the hash function
+     * @param bytes Array containing the bytes
+     * @param length Number of bytes to be hashed
+     * @return Returns the hash of the bytes
+     */
+    private static long Hash(long seed, byte[] bytes, int length){
+        long h=seed*0x9e3779b97f4a7c15L+length;
+        for(int i=0;i<length;i++) {
+            h=(h^(bytes[i]&0xff))*0x100000001b3L;
+        }
+        h^=h>>>33;
+        h*=0xff51afd7ed558ccdL;
+        h^=h>>>33;
+        h*=0xc4ceb9fe1a85ec53L;
+        h^=h>>>33;
+        return h;
+    }
+
+    /**
+     * Method that returns the position of a word in the vocabulary.
+     * @param bytes Array containing the word encoded in UTF-8
+     * @param length Length of the word in bytes
+     * @return Returns the position of the word or -1 if it is not in the
+     * vocabulary
+     */
+    private int Find(byte[] bytes, int length){
+        int seed=displacements.get((int)((Hash(0, bytes, length)>>>1)%nbuckets));
+        if(seed==0) {
+            return -1;
+        }
+        int position;
+        if(seed<0) {
+            position=-seed-1;
+        }
+        else {
+            position=(int)((Hash(seed, bytes, length)>>>1)%nwords);
+        }
+        int start=offsets.get(position);
+        if(offsets.get(position+1)-start!=length) {
+            return -1;
+        }
+        for(int i=0;i<length;i++){
+            if(words.get(start+i)!=bytes[i]) {
+                return -1;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Method that returns the position of a word in the vocabulary.
+     * @param word Word to be found
+     * @return Returns the position of the word or -1 if it is not in the
+     * vocabulary
+     */
+    private int Find(CharSequence word){
+        byte[] bytes=encoding_buffer.get();
+        if(bytes.length<word.length()*3){
+            bytes=EnsureCapacity(bytes, word.length());
+            encoding_buffer.set(bytes);
+        }
+        return Find(bytes, Encode(word, bytes));
+    }
+
+    /**
+     * Method that returns the number of occurrences of the word at a given
+     * position.
+     * @param position Position of the word
+     * @return Returns the number of occurrences of the word
+     */
+    private int GetFrequency(int position){
+        long bit=(long)position*frequency_bits;
+        int index=(int)(bit>>>6);
+        int shift=(int)(bit&63);
+        long value=frequencies.get(index)>>>shift;
+        if(shift+frequency_bits>64) {
+            value|=frequencies.get(index+1)<<(64-shift);
+        }
+        return (int)(value&((1L<<frequency_bits)-1));
+    }
+
+    /**
+     * Method that sets the number of occurrences of the word at a given
+     * position.
+     * @param position Position of the word
+     * @param hits Number of occurrences of the word
+     */
+    private void SetFrequency(int position, int hits){
+        long value=hits&((1L<<frequency_bits)-1);
+        long bit=(long)position*frequency_bits;
+        int index=(int)(bit>>>6);
+        int shift=(int)(bit&63);
+        frequencies.put(index, frequencies.get(index)|(value<<shift));
+        if(shift+frequency_bits>64) {
+            frequencies.put(index+1, frequencies.get(index+1)|(value>>>(64-shift)));
+        }
+    }
+
+    /**
+     * Method that returns the most frequent surface form inflected from a pair
+     * stem/paradigm candidate by using the occurrence information in the
+     * vocabulary. The forms are looked up without building a
+     * <code>String</code> for every one of them.
+     * @param stem The stem used to produce the inflected forms
+     * @param paradigm The paradigm used to produce the inflected forms
+     * @return Returns the most frequent surface form inflected from a pair
+     * stem/paradigm candidate by using the occurrence information in the
+     * vocabulary
+     */
+    @Override
+    public String GetMostFrequentSurfaceForm(String stem, Paradigm paradigm){
+        int best_occ=0;
+        String best_suffix=null;
+        StringBuilder form=form_builder.get();
+        form.setLength(0);
+        form.append(stem);
+        for(String suffix: paradigm.getSuffixesByForm().keySet()){
+            form.setLength(stem.length());
+            form.append(suffix);
+            int position=Find(form);
+            int occurrences=(position<0)? 0: GetFrequency(position);
+            if(best_occ<occurrences){
+                best_occ=occurrences;
+                best_suffix=suffix;
+            }
+        }
+        return (best_suffix==null)? null: stem+best_suffix;
+    }
+
+    /**
+     * This method checks if a given surface form occurs in the vocabulary.
+     * @param surfaceform The surface form to be checked in the vocabulary
+     * @return The method returns <code>true</code> if the surface form occurs
+     * in the vocabulary and <code>false</code> otherwise
+     */
+    @Override
+    public boolean Contains(String surfaceform){
+        return Find(surfaceform)>=0;
+    }
+
+    /**
+     * This method checks if the surface form produced by adding a suffix to a
+     * stem occurs in the vocabulary. The surface form is never built as a
+     * <code>String</code>: it is looked up from a builder reused by every
+     * thread.
+     * @param stem Stem of the surface form to be checked
+     * @param suffix Suffix of the surface form to be checked
+     * @return The method returns <code>true</code> if the surface form occurs
+     * in the vocabulary and <code>false</code> otherwise
+     */
+    @Override
+    public boolean Contains(String stem, String suffix){
+        StringBuilder form=form_builder.get();
+        form.setLength(0);
+        form.append(stem);
+        form.append(suffix);
+        return Find(form)>=0;
+    }
+
+    /**
+     * This method returns the number of occurrences of a given surface form.
+     * @param surfaceform Surface form for which the number of occurrences is
+     * to be found
+     * @return Returns the number of occurrences of a given surface form
+     */
+    @Override
+    public int Get(String surfaceform){
+        int position=Find(surfaceform);
+        return (position<0)? 0: GetFrequency(position);
+    }
+
+    /**
+     * Method that returns the number of different words in the vocabulary.
+     * @return Returns the number of different words in the vocabulary
+     */
+    @Override
+    public int size(){
+        return nwords;
+    }
+
+    /**
+     * Method that would build a Bloom filter of the words of the vocabulary
+     * (see {@link Vocabulary#BuildFilter()}), which is not done for this class.
+     * A query already computes at most two hash functions and compares the
+     * word with only one word of the vocabulary, so the filter would save
+     * little, while building it would decode every word of the vocabulary and
+     * lose the constant-time opening of mapped images.
+     */
+    @Override
+    public void BuildFilter(){
+    }
+
+    /**
+     * Method that writes a binary image of the vocabulary to a file. The image
+     * contains a header (magic number, version of the format and sizes of the
+     * buffers) followed by the buffers of the vocabulary in big-endian order:
+     * the seeds of the buckets, the positions of the words, the packed
+     * frequencies and, finally, the words in UTF-8. It can be read back with
+     * {@link #Map(String)}.
+     * @param path Path of the file to be written
+     * @throws IOException If the file cannot be written
+     */
+    public void Write(String path) throws IOException{
+        DataOutputStream dos=new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(path), 1<<16));
+        try{
+            int nbytes=offsets.get(nwords);
+            int nlongs=frequencies.limit();
+            dos.writeInt(IMAGE_MAGIC);
+            dos.writeInt(IMAGE_VERSION);
+            dos.writeInt(nwords);
+            dos.writeInt(nbuckets);
+            dos.writeInt(frequency_bits);
+            dos.writeInt(nbytes);
+            dos.writeInt(nlongs);
+            for(int i=0;i<nbuckets;i++) {
+                dos.writeInt(displacements.get(i));
+            }
+            for(int i=0;i<=nwords;i++) {
+                dos.writeInt(offsets.get(i));
+            }
+            for(int i=0;i<nlongs;i++) {
+                dos.writeLong(frequencies.get(i));
+            }
+            byte[] chunk=new byte[1<<16];
+            for(int start=0;start<nbytes;start+=chunk.length){
+                int length=Math.min(chunk.length, nbytes-start);
+                chunk=Read(words, start, length, chunk);
+                dos.write(chunk, 0, length);
+            }
+        }
+        finally{
+            dos.close();
+        }
+    }
+
+    /**
+     * Method that opens a binary image of the vocabulary written with
+     * {@link #Write(String)}. The file is mapped in memory and the vocabulary
+     * is queried directly on the mapped bytes, so opening it does not depend
+     * on the size of the vocabulary.
+     * @param path Path of the binary image
+     * @return Returns the vocabulary stored in the image
+     * @throws VocabularyImageException If the file is not a valid image of a
+     * vocabulary or has a different version
+     * @throws IOException If the file cannot be read
+     */
+    public static CompactVocabulary Map(String path) throws IOException{
+        RandomAccessFile raf=new RandomAccessFile(path, "r");
+        MappedByteBuffer buffer;
+        try{
+            FileChannel channel=raf.getChannel();
+            if(channel.size()<IMAGE_HEADER_SIZE){
+                throw new VocabularyImageException("File '"+path+"' is not a vocabulary image.");
+            }
+            if(channel.size()>Integer.MAX_VALUE){
+                throw new VocabularyImageException("Vocabulary image '"+path+"' is too large to be mapped.");
+            }
+            buffer=channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        finally{
+            raf.close();
+        }
+        if(buffer.getInt()!=IMAGE_MAGIC){
+            throw new VocabularyImageException("File '"+path+"' is not a vocabulary image.");
+        }
+        int version=buffer.getInt();
+        if(version!=IMAGE_VERSION){
+            throw new VocabularyImageException("Vocabulary image '"+path+
+                    "' has version "+version+" but version "+IMAGE_VERSION+" was expected.");
+        }
+        int nwords=buffer.getInt();
+        int nbuckets=buffer.getInt();
+        int frequency_bits=buffer.getInt();
+        int nbytes=buffer.getInt();
+        int nlongs=buffer.getInt();
+        try{
+            IntBuffer displacements=Slice(buffer, nbuckets*4).asIntBuffer();
+            IntBuffer offsets=Slice(buffer, (nwords+1)*4).asIntBuffer();
+            LongBuffer frequencies=Slice(buffer, nlongs*8).asLongBuffer();
+            ByteBuffer words=Slice(buffer, nbytes);
+            return new CompactVocabulary(nwords, nbuckets, frequency_bits,
+                    displacements, offsets, words, frequencies);
+        }
+        catch(RuntimeException ex){
+            //Buffer underflows or wrong limits mean that the file is truncated
+            throw new VocabularyImageException("Vocabulary image '"+path+
+                    "' is corrupted: "+ex);
+        }
+    }
+
+    /**
+     * Method that returns a view of the next <code>size</code> bytes in a
+     * buffer and moves the position of the buffer after them.
+     * @param buffer Buffer from which the bytes are read
+     * @param size Number of bytes in the view
+     * @return Returns a <code>ByteBuffer</code> with the bytes
+     */
+    private static ByteBuffer Slice(ByteBuffer buffer, int size){
+        ByteBuffer slice=buffer.slice();
+        slice.limit(size);
+        buffer.position(buffer.position()+size);
+        return slice;
+    }
+
+    /**
+     * Method that checks if a file is a binary image of a vocabulary (see
+     * {@link #Write(String)}) by reading its magic number.
+     * @param path Path of the file
+     * @return Returns <code>true</code> if the file starts with the magic
+     * number of the images of vocabularies and <code>false</code> otherwise
+     * @throws IOException If the file cannot be read
+     */
+    public static boolean IsImage(String path) throws IOException{
+        DataInputStream dis=new DataInputStream(new FileInputStream(path));
+        try{
+            return dis.readInt()==IMAGE_MAGIC;
+        }
+        catch(EOFException ex){
+            return false;
+        }
+        finally{
+            dis.close();
+        }
+    }
+
+    /**
+     * Method that writes the object when it is serialised: the buffers out of
+     * the heap are written as arrays.
+     * @param out Stream where the object is written
+     * @throws IOException If the object cannot be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException{
+        out.defaultWriteObject();
+        out.writeInt(nwords);
+        out.writeInt(nbuckets);
+        out.writeInt(frequency_bits);
+        for(int i=0;i<displacements.limit();i++) {
+            out.writeInt(displacements.get(i));
+        }
+        for(int i=0;i<offsets.limit();i++) {
+            out.writeInt(offsets.get(i));
+        }
+        int nbytes=offsets.get(nwords);
+        out.writeInt(nbytes);
+        byte[] chunk=new byte[1<<16];
+        for(int start=0;start<nbytes;start+=chunk.length){
+            int length=Math.min(chunk.length, nbytes-start);
+            chunk=Read(words, start, length, chunk);
+            out.write(chunk, 0, length);
+        }
+        out.writeInt(frequencies.limit());
+        for(int i=0;i<frequencies.limit();i++) {
+            out.writeLong(frequencies.get(i));
+        }
+    }
+
+    /**
+     * Method that reads the object when it is deserialised (see
+     * <code>writeObject</code>).
+     * @param in Stream from which the object is read
+     * @throws IOException If the object cannot be read
+     * @throws ClassNotFoundException If the class of the object is not found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException{
+        in.defaultReadObject();
+        nwords=in.readInt();
+        nbuckets=in.readInt();
+        frequency_bits=in.readInt();
+        displacements=ByteBuffer.allocateDirect(nbuckets*4).asIntBuffer();
+        for(int i=0;i<nbuckets;i++) {
+            displacements.put(i, in.readInt());
+        }
+        offsets=ByteBuffer.allocateDirect((nwords+1)*4).asIntBuffer();
+        for(int i=0;i<=nwords;i++) {
+            offsets.put(i, in.readInt());
+        }
+        words=ByteBuffer.allocateDirect(in.readInt());
+        byte[] chunk=new byte[1<<16];
+        while(words.hasRemaining()){
+            int length=Math.min(chunk.length, words.remaining());
+            in.readFully(chunk, 0, length);
+            words.put(chunk, 0, length);
+        }
+        int nlongs=in.readInt();
+        frequencies=ByteBuffer.allocateDirect(nlongs*8).asLongBuffer();
+        for(int i=0;i<nlongs;i++) {
+            frequencies.put(i, in.readLong());
+        }
+        Init();
+    }
+
+    /**
+     * Class that contains the words read before building the vocabulary: the
+     * words encoded in UTF-8, one after the other, in a temporary buffer, and
+     * their number of occurrences. The words can be passed directly to it as a
+     * visitor of a frequency list (see {@link FrequencyListReader}).
+     */
+    static class Arena implements FrequencyListReader.Visitor{
+        /** Buffer containing the words read. */
+        ByteBuffer buffer=ByteBuffer.allocateDirect(1<<20);
+
+        /** Position in <code>buffer</code> where every word starts. */
+        int[] starts=new int[1024];
+
+        /** Number of occurrences of every word. */
+        int[] hits=new int[1024];
+
+        /** Number of words read. */
+        int n=0;
+
+        /** Array used to encode the words. */
+        private byte[] encoded=new byte[64];
+
+        /**
+         * Method that adds a word at the end of the buffer.
+         * @param word Word to be added
+         * @param occurrences Number of occurrences of the word
+         * @throws IOException If the buffer would need more than 2 GB
+         */
+        void Add(String word, int occurrences) throws IOException{
+            encoded=EnsureCapacity(encoded, word.length());
+            int length=Encode(word, encoded);
+            if(buffer.remaining()<length){
+                buffer=Grow(buffer, length);
+            }
+            if(n==starts.length){
+                starts=Arrays.copyOf(starts, n*2);
+                hits=Arrays.copyOf(hits, n*2);
+            }
+            starts[n]=buffer.position();
+            hits[n]=occurrences;
+            buffer.put(encoded, 0, length);
+            n++;
+        }
+
+        /**
+         * Method that adds a word at the end of the buffer (see
+         * <code>Add</code>).
+         * @param word Word to be added
+         * @param occurrences Number of occurrences of the word
+         * @throws IOException If the buffer would need more than 2 GB
+         */
+        @Override
+        public void Visit(String word, int occurrences) throws IOException{
+            Add(word, occurrences);
+        }
+    }
+}
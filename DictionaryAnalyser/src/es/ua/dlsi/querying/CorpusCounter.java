@@ -0,0 +1,680 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.querying;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class that counts the number of occurrences of every token in a tokenised
+ * corpus, producing the same information as the pipeline
+ * <code>tr ' ' '\n' | sort | uniq -c</code> in a single pass and with bounded
+ * memory. The corpus is read in blocks of lines that are split in tokens (by
+ * blank spaces and tabulators) by several threads; every thread counts the
+ * tokens of a block in a private map and then adds them to a set of shared
+ * maps, each of them protected by its own lock, so the threads rarely wait for
+ * each other. When the shared maps contain more than a given number of
+ * different tokens, they are written to disk as a run of tokens sorted
+ * alphabetically and emptied; at the end, all the runs are merged, adding up
+ * the occurrences of the same token in different runs (see {@link #Merge}).
+ * <p>
+ * Usage: call {@link #Count(InputStream)} for every part of the corpus,
+ * {@link #Merge} or {@link #WriteFrequencyList(String)} once to obtain the
+ * tokens and {@link #Close()} to remove the temporary files.
+ * @author Miquel Esplà i Gomis
+ */
+public class CorpusCounter {
+
+    /** Number of bits of the number of shared maps. */
+    private static final int SHARD_BITS=6;
+
+    /** Number of shared maps in which the tokens are counted. */
+    private static final int SHARDS=1<<SHARD_BITS;
+
+    /** Approximate number of characters in every block of lines. */
+    private static final int BLOCK_SIZE=1<<20;
+
+    /** Number of threads counting the tokens. */
+    private int threads;
+
+    /** Maximum number of different tokens kept in memory before writing them to disk. */
+    private long max_tokens;
+
+    /** Directory where the temporary runs are written. */
+    private File tmpdir;
+
+    /** Flag that indicates if only the tokens containing a letter are counted. */
+    private boolean alpha_only;
+
+    /** Shared maps with the number of occurrences of every token; every token
+     * always goes to the same map (see <code>Shard</code>). */
+    private List<Map<String,long[]>> shards;
+
+    /** Number of different tokens in the shared maps. */
+    private AtomicLong tokens_in_memory;
+
+    /** Total number of tokens counted. */
+    private AtomicLong ntokens;
+
+    /** Lock shared by the threads adding tokens to the maps and exclusive for
+     * writing the maps to disk. */
+    private ReadWriteLock spill_lock;
+
+    /** Temporary files containing the runs written to disk. */
+    private List<File> runs;
+
+    /** Temporary files containing the runs of tokens sorted by number of
+     * occurrences written by <code>WriteFrequencyList</code>. */
+    private List<File> count_runs;
+
+    /**
+     * Overloaded constructor of the class.
+     * @param threads Number of threads counting the tokens
+     * @param max_tokens Maximum number of different tokens kept in memory
+     * before writing them to disk
+     * @param tmpdir Directory where the temporary runs are written
+     * (<code>null</code> for the default temporary directory)
+     * @param alpha_only Flag that indicates if only the tokens containing at
+     * least a letter are counted (as <code>grep "[[:alpha:]]"</code>)
+     */
+    public CorpusCounter(int threads, long max_tokens, String tmpdir, boolean alpha_only){
+        this.threads=Math.max(1, threads);
+        this.max_tokens=Math.max(1, max_tokens);
+        this.tmpdir=(tmpdir==null)? null: new File(tmpdir);
+        this.alpha_only=alpha_only;
+        this.shards=new ArrayList<Map<String,long[]>>(SHARDS);
+        for(int i=0;i<SHARDS;i++) {
+            this.shards.add(new HashMap<String, long[]>());
+        }
+        this.tokens_in_memory=new AtomicLong();
+        this.ntokens=new AtomicLong();
+        this.spill_lock=new ReentrantReadWriteLock();
+        this.runs=new ArrayList<File>();
+        this.count_runs=new ArrayList<File>();
+    }
+
+    /**
+     * Method that opens a corpus. The corpus is read from the standard input
+     * if the path is <code>null</code> or "-", and it is decompressed if it
+     * is compressed with gzip. Corpora compressed with bzip2 must be
+     * decompressed by another program (e.g. <code>bzcat</code>) and read from
+     * the standard input.
+     * @param path Path of the corpus
+     * @return Returns a stream with the contents of the corpus
+     * @throws FileNotFoundException If the file cannot be found, an exception is thrown
+     * @throws IOException If the file cannot be read or it is compressed with
+     * bzip2, an exception is thrown
+     */
+    public static InputStream Open(String path) throws FileNotFoundException, IOException{
+        InputStream input;
+        if(path==null || path.equals("-")) {
+            input=System.in;
+        }
+        else {
+            input=new FileInputStream(path);
+        }
+        input=new BufferedInputStream(input, 1<<16);
+        input.mark(3);
+        int b1=input.read();
+        int b2=input.read();
+        int b3=input.read();
+        input.reset();
+        if(b1==0x1f && b2==0x8b) {
+            return new GZIPInputStream(input, 1<<16);
+        }
+        else if(b1=='B' && b2=='Z' && b3=='h') {
+            input.close();
+            throw new IOException("The corpus is compressed with bzip2: decompress it with bzcat and read it from the standard input.");
+        }
+        else {
+            return input;
+        }
+    }
+
+    /**
+     * Method that counts the tokens of a tokenised corpus, read in UTF-8. The
+     * stream is closed at the end.
+     * @param input Stream with the contents of the corpus (see <code>Open</code>)
+     * @throws IOException If there is an error while reading the corpus or
+     * writing a run to disk, an exception is thrown
+     */
+    public void Count(InputStream input) throws IOException{
+        Reader reader=new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1<<16);
+        //At most two blocks per thread are kept in memory waiting to be counted
+        LinkedList<Future<Object>> pending=new LinkedList<Future<Object>>();
+        ExecutorService pool=Executors.newFixedThreadPool(threads);
+        try{
+            char[] block=new char[BLOCK_SIZE];
+            int length=0;
+            boolean end=false;
+            while(!end || !pending.isEmpty()){
+                if(!end){
+                    int read=reader.read(block, length, block.length-length);
+                    if(read<0) {
+                        end=true;
+                    }
+                    else {
+                        length+=read;
+                    }
+                    //The block is sent when it is full or at the end of the
+                    //corpus, but only up to its last complete line
+                    if(length==block.length || (end && length>0)){
+                        int cut=length;
+                        if(!end){
+                            while(cut>0 && block[cut-1]!='\n') {
+                                cut--;
+                            }
+                            if(cut==0){
+                                block=Arrays.copyOf(block, block.length*2);
+                                continue;
+                            }
+                        }
+                        final char[] tocount=block;
+                        final int tocountlength=cut;
+                        pending.add(pool.submit(new Callable<Object>() {
+                            @Override
+                            public Object call() {
+                                CountBlock(tocount, tocountlength);
+                                return null;
+                            }
+                        }));
+                        block=new char[Math.max(BLOCK_SIZE, length-cut)];
+                        System.arraycopy(tocount, cut, block, 0, length-cut);
+                        length=length-cut;
+                    }
+                }
+                if(pending.size()>=threads*2 || (end && !pending.isEmpty())) {
+                    pending.removeFirst().get();
+                }
+                if(tokens_in_memory.get()>max_tokens) {
+                    Spill();
+                }
+            }
+        }
+        catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new IOException("The counting of the corpus was interrupted.", ex);
+        }
+        catch(ExecutionException ex){
+            if(ex.getCause() instanceof IOException) {
+                throw (IOException)ex.getCause();
+            }
+            else {
+                throw new IOException(ex.getCause());
+            }
+        }
+        finally{
+            pool.shutdownNow();
+            reader.close();
+        }
+    }
+
+    /**
+     * Method that counts the tokens in a block of lines and adds them to the
+     * shared maps.
+     * @param block Array containing the lines
+     * @param length Number of characters of the block
+     */
+    private void CountBlock(char[] block, int length){
+        Map<String,long[]> local=new HashMap<String, long[]>();
+        long counted=0;
+        int i=0;
+        while(i<length){
+            while(i<length && IsSeparator(block[i])) {
+                i++;
+            }
+            int start=i;
+            boolean letter=!alpha_only;
+            while(i<length && !IsSeparator(block[i])){
+                if(!letter && Character.isLetter(Character.codePointAt(block, i, length))) {
+                    letter=true;
+                }
+                i++;
+            }
+            if(i>start && letter){
+                String token=new String(block, start, i-start);
+                long[] count=local.get(token);
+                if(count==null) {
+                    local.put(token, new long[]{1});
+                }
+                else {
+                    count[0]++;
+                }
+                counted++;
+            }
+        }
+        ntokens.addAndGet(counted);
+
+        //The tokens are grouped by shared map, so every lock is taken once
+        List<List<Map.Entry<String,long[]>>> byshard=new ArrayList<List<Map.Entry<String,long[]>>>(SHARDS);
+        for(int s=0;s<SHARDS;s++) {
+            byshard.add(new ArrayList<Map.Entry<String,long[]>>());
+        }
+        for(Map.Entry<String,long[]> e: local.entrySet()) {
+            byshard.get(Shard(e.getKey())).add(e);
+        }
+        spill_lock.readLock().lock();
+        try{
+            for(int s=0;s<SHARDS;s++){
+                Map<String,long[]> shard=shards.get(s);
+                long added=0;
+                synchronized(shard){
+                    for(Map.Entry<String,long[]> e: byshard.get(s)){
+                        long[] count=shard.get(e.getKey());
+                        if(count==null){
+                            shard.put(e.getKey(), e.getValue());
+                            added++;
+                        }
+                        else {
+                            count[0]+=e.getValue()[0];
+                        }
+                    }
+                }
+                tokens_in_memory.addAndGet(added);
+            }
+        }
+        finally{
+            spill_lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method that checks if a character separates two tokens.
+     * @param c Character to be checked
+     * @return Returns <code>true</code> if the character is a blank space, a
+     * tabulator or the end of a line and <code>false</code> otherwise
+     */
+    private static boolean IsSeparator(char c){
+        return c==' ' || c=='\t' || c=='\n' || c=='\r';
+    }
+
+    /**
+     * Method that returns the shared map in which a token is counted.
+     * @param token Token to be counted
+     * @return Returns the number of the shared map
+     */
+    private static int Shard(String token){
+        //The highest bits of a multiplicative hash are used, since the lowest
+        //bits of the hash code choose the bucket inside the map, and using
+        //them here would leave most of the buckets of every map empty
+        return (token.hashCode()*0x9e3779b9)>>>(32-SHARD_BITS);
+    }
+
+    /**
+     * Method that returns the tokens in the shared maps sorted alphabetically.
+     * @return Returns the tokens in the shared maps sorted alphabetically
+     */
+    private List<Map.Entry<String,long[]>> SortedTokens(){
+        List<Map.Entry<String,long[]>> exit=new ArrayList<Map.Entry<String,long[]>>(
+                (int)Math.min(Integer.MAX_VALUE-8, tokens_in_memory.get()));
+        for(Map<String,long[]> shard: shards) {
+            exit.addAll(shard.entrySet());
+        }
+        Collections.sort(exit, new Comparator<Map.Entry<String,long[]>>() {
+            @Override
+            public int compare(Map.Entry<String,long[]> o1, Map.Entry<String,long[]> o2) {
+                return o1.getKey().compareTo(o2.getKey());
+            }
+        });
+        return exit;
+    }
+
+    /**
+     * Method that writes a list of tokens to a new temporary file, as a run.
+     * Every token is written as the length of its UTF-8 encoding, the encoding
+     * and the number of occurrences; the end of the run is marked with a
+     * length of -1.
+     * @param tokens Tokens to be written, in the order of the run
+     * @return Returns the file containing the run
+     * @throws IOException If the run cannot be written, an exception is thrown
+     */
+    private File WriteRun(List<Map.Entry<String,long[]>> tokens) throws IOException{
+        File run=File.createTempFile("pat-counts-", ".run", tmpdir);
+        run.deleteOnExit();
+        DataOutputStream output=new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(run), 1<<16));
+        try{
+            for(Map.Entry<String,long[]> e: tokens){
+                byte[] bytes=e.getKey().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+                output.writeLong(e.getValue()[0]);
+            }
+            output.writeInt(-1);
+        }
+        finally{
+            output.close();
+        }
+        return run;
+    }
+
+    /**
+     * Method that writes the tokens in the shared maps to disk, as a new run
+     * of tokens sorted alphabetically (see <code>WriteRun</code>), and empties
+     * the maps.
+     * @throws IOException If the run cannot be written, an exception is thrown
+     */
+    private void Spill() throws IOException{
+        spill_lock.writeLock().lock();
+        try{
+            if(tokens_in_memory.get()==0) {
+                return;
+            }
+            runs.add(WriteRun(SortedTokens()));
+            for(Map<String,long[]> shard: shards) {
+                shard.clear();
+            }
+            tokens_in_memory.set(0);
+        }
+        finally{
+            spill_lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Method that passes every different token counted, with its number of
+     * occurrences, to a visitor, in alphabetical order. If any run has been
+     * written to disk, the tokens still in memory are written as a last run
+     * and all the runs are merged. The numbers of occurrences greater than the
+     * maximum value of an <code>int</code> are truncated to this value.
+     * @param visitor Object receiving the tokens
+     * @throws IOException If there is an error while reading the runs or the
+     * visitor throws an exception, an exception is thrown
+     */
+    public void Merge(FrequencyListReader.Visitor visitor) throws IOException{
+        if(runs.isEmpty()){
+            for(Map.Entry<String,long[]> e: SortedTokens()) {
+                visitor.Visit(e.getKey(), (int)Math.min(Integer.MAX_VALUE, e.getValue()[0]));
+            }
+            return;
+        }
+        Spill();
+        PriorityQueue<Run> queue=new PriorityQueue<Run>();
+        try{
+            for(File file: runs){
+                Run run=new Run(file);
+                if(run.Next()) {
+                    queue.add(run);
+                }
+                else {
+                    run.Close();
+                }
+            }
+            while(!queue.isEmpty()){
+                Run first=queue.poll();
+                String token=first.token;
+                long count=first.count;
+                if(first.Next()) {
+                    queue.add(first);
+                }
+                else {
+                    first.Close();
+                }
+                while(!queue.isEmpty() && queue.peek().token.equals(token)){
+                    Run same=queue.poll();
+                    count+=same.count;
+                    if(same.Next()) {
+                        queue.add(same);
+                    }
+                    else {
+                        same.Close();
+                    }
+                }
+                visitor.Visit(token, (int)Math.min(Integer.MAX_VALUE, count));
+            }
+        }
+        finally{
+            for(Run run: queue) {
+                run.Close();
+            }
+        }
+    }
+
+    /**
+     * Method that writes every different token counted to a frequency list in
+     * text format (lines with the number of occurrences and the token), sorted
+     * by decreasing number of occurrences and, for the same number,
+     * alphabetically (the format read by {@link FrequencyListReader}). The
+     * list is sorted on disk, so no more than the maximum number of
+     * different tokens set in the constructor are kept in memory at the same
+     * time: the tokens produced by {@link #Merge} are collected in chunks of
+     * this size, every chunk is sorted by number of occurrences and written as
+     * a run, and the runs are merged into the output file.
+     * @param path Path of the file to be written
+     * @return Returns the number of different tokens written
+     * @throws IOException If there is an error while reading or writing the
+     * runs or writing the file, an exception is thrown
+     */
+    public long WriteFrequencyList(String path) throws IOException{
+        final int chunk=(int)Math.min(Integer.MAX_VALUE-8, max_tokens);
+        final List<Map.Entry<String,long[]>> tokens=new ArrayList<Map.Entry<String,long[]>>();
+        final Comparator<Map.Entry<String,long[]>> bycount=new Comparator<Map.Entry<String,long[]>>() {
+            @Override
+            public int compare(Map.Entry<String,long[]> o1, Map.Entry<String,long[]> o2) {
+                return Long.compare(o2.getValue()[0], o1.getValue()[0]);
+            }
+        };
+        final long[] ntypes=new long[1];
+        //Tokens come alphabetically and the sort is stable, so the tokens with
+        //the same number of occurrences remain in alphabetical order
+        Merge(new FrequencyListReader.Visitor() {
+            @Override
+            public void Visit(String word, int occurrences) throws IOException {
+                tokens.add(new AbstractMap.SimpleEntry<String,long[]>(word,
+                        new long[]{occurrences}));
+                ntypes[0]++;
+                if(tokens.size()>=chunk){
+                    Collections.sort(tokens, bycount);
+                    count_runs.add(WriteRun(tokens));
+                    tokens.clear();
+                }
+            }
+        });
+        Collections.sort(tokens, bycount);
+
+        //Every run is identified by its position, so the tokens with the same
+        //number of occurrences are taken from the earliest runs first
+        PriorityQueue<Run> queue=new PriorityQueue<Run>(Math.max(1, count_runs.size()),
+                new Comparator<Run>() {
+            @Override
+            public int compare(Run o1, Run o2) {
+                int cmp=Long.compare(o2.count, o1.count);
+                return (cmp!=0)? cmp: Integer.compare(o1.position, o2.position);
+            }
+        });
+        BufferedOutputStream output=new BufferedOutputStream(
+                new FileOutputStream(path), 1<<16);
+        try{
+            for(int i=0;i<count_runs.size();i++){
+                Run run=new Run(count_runs.get(i));
+                run.position=i;
+                if(run.Next()) {
+                    queue.add(run);
+                }
+                else {
+                    run.Close();
+                }
+            }
+            int next=0;
+            while(!queue.isEmpty() || next<tokens.size()){
+                String token;
+                long count;
+                //The tokens still in memory come after all the runs
+                if(next<tokens.size() && (queue.isEmpty() ||
+                        tokens.get(next).getValue()[0]>queue.peek().count)){
+                    token=tokens.get(next).getKey();
+                    count=tokens.get(next).getValue()[0];
+                    next++;
+                }
+                else{
+                    Run first=queue.poll();
+                    token=first.token;
+                    count=first.count;
+                    if(first.Next()) {
+                        queue.add(first);
+                    }
+                    else {
+                        first.Close();
+                    }
+                }
+                output.write(Long.toString(count).getBytes(StandardCharsets.US_ASCII));
+                output.write(' ');
+                output.write(token.getBytes(StandardCharsets.UTF_8));
+                output.write('\n');
+            }
+        }
+        finally{
+            output.close();
+            for(Run run: queue) {
+                run.Close();
+            }
+        }
+        return ntypes[0];
+    }
+
+    /**
+     * Method that returns the total number of tokens counted.
+     * @return Returns the total number of tokens counted
+     */
+    public long getNumberOfTokens(){
+        return ntokens.get();
+    }
+
+    /**
+     * Method that returns the number of runs written to disk.
+     * @return Returns the number of runs written to disk
+     */
+    public int getNumberOfRuns(){
+        return runs.size();
+    }
+
+    /**
+     * Method that removes the temporary runs written to disk.
+     */
+    public void Close(){
+        for(File run: runs) {
+            run.delete();
+        }
+        runs.clear();
+        for(File run: count_runs) {
+            run.delete();
+        }
+        count_runs.clear();
+    }
+
+    /**
+     * Class that reads a run written to disk, token by token.
+     */
+    private static class Run implements Comparable<Run>{
+        /** Stream from which the run is read. */
+        private DataInputStream input;
+
+        /** Current token of the run. */
+        String token;
+
+        /** Number of occurrences of the current token. */
+        long count;
+
+        /** Position of the run in the list of runs being merged. */
+        int position;
+
+        /**
+         * Overloaded constructor of the class.
+         * @param file File containing the run
+         * @throws FileNotFoundException If the file cannot be found, an exception is thrown
+         */
+        Run(File file) throws FileNotFoundException{
+            this.input=new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file), 1<<16));
+        }
+
+        /**
+         * Method that reads the next token of the run.
+         * @return Returns <code>true</code> if a token was read and
+         * <code>false</code> if the run is over
+         * @throws IOException If the run cannot be read, an exception is thrown
+         */
+        boolean Next() throws IOException{
+            int length=input.readInt();
+            if(length<0) {
+                return false;
+            }
+            byte[] bytes=new byte[length];
+            input.readFully(bytes);
+            token=new String(bytes, StandardCharsets.UTF_8);
+            count=input.readLong();
+            return true;
+        }
+
+        /**
+         * Method that closes the run.
+         */
+        void Close(){
+            try {
+                input.close();
+            } catch (IOException ex) {
+            }
+        }
+
+        /**
+         * Method that compares the current tokens of two runs.
+         * @param o Run to be compared
+         * @return Returns the alphabetical comparison of the current tokens
+         */
+        @Override
+        public int compareTo(Run o) {
+            return token.compareTo(o.token);
+        }
+    }
+}
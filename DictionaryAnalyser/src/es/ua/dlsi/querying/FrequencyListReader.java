@@ -0,0 +1,402 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.querying;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that reads frequency lists, i.e. files containing, for each line, the
+ * number of occurrences of a word in a corpus and the word, separated by one or
+ * more blank spaces or tabulators. This is the format produced by
+ * <code>sort | uniq -c</code>, which pads the numbers on the left with blank
+ * spaces, so any blank space at the beginning of the lines is also ignored.
+ * The files are always read in UTF-8.
+ * <p>
+ * The file is split in ranges of bytes that are parsed in parallel: every range
+ * is read with a single positional read and the lines in it are parsed directly
+ * on the bytes read, without regular expressions or splitting the lines, so the
+ * only object built for every line is the <code>String</code> of its word. The
+ * words read are passed to a {@link Visitor} in the same order in which they
+ * appear in the file, always from the thread that called {@link #Read}, so the
+ * visitor does not need to be thread-safe.
+ * @author Miquel Esplà i Gomis
+ */
+public class FrequencyListReader {
+
+    /**
+     * Interface of the objects receiving the words read from a frequency list.
+     */
+    public interface Visitor{
+        /**
+         * Method called for every line of the frequency list, in the order
+         * of the file.
+         * @param word Word in the line
+         * @param occurrences Number of occurrences of the word
+         * @throws IOException The visitor may stop the reading of the file
+         * by throwing an exception, which is thrown by {@link #Read}
+         */
+        void Visit(String word, int occurrences) throws IOException;
+    }
+
+    /** Default size in bytes of the ranges in which the file is split. */
+    private static final int DEFAULT_RANGE_SIZE=8<<20;
+
+    /** Size in bytes of the blocks read after the end of a range to complete
+     * its last line. */
+    private static final int LINE_BLOCK_SIZE=1<<12;
+
+    /** Path of the file to be read. */
+    private String path;
+
+    /** Number of threads used to parse the file. */
+    private int threads;
+
+    /** Size in bytes of the ranges in which the file is split. */
+    private int range_size;
+
+    /**
+     * Overloaded constructor of the class, which uses as many threads as
+     * processors available.
+     * @param path Path of the frequency list to be read
+     */
+    public FrequencyListReader(String path){
+        this(path, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Overloaded constructor of the class.
+     * @param path Path of the frequency list to be read
+     * @param threads Number of threads used to parse the file
+     */
+    public FrequencyListReader(String path, int threads){
+        this.path=path;
+        this.threads=Math.max(1, threads);
+        this.range_size=DEFAULT_RANGE_SIZE;
+    }
+
+    /**
+     * Method that sets the size of the ranges of bytes in which the file is
+     * split. At most two ranges per thread are kept in memory at the same time.
+     * @param range_size Size in bytes of the ranges
+     */
+    public void setRangeSize(int range_size){
+        this.range_size=Math.max(1, range_size);
+    }
+
+    /**
+     * Method that reads the whole frequency list and passes every word, with
+     * its number of occurrences, to a visitor. Empty lines are ignored.
+     * @param visitor Object receiving the words read
+     * @throws FileNotFoundException If the file cannot be found, an exception is thrown
+     * @throws IOException If there is an error while reading the file or a line
+     * does not follow the format, an exception is thrown
+     */
+    public void Read(Visitor visitor) throws FileNotFoundException, IOException{
+        FileInputStream input=new FileInputStream(path);
+        try{
+            final FileChannel channel=input.getChannel();
+            long size=channel.size();
+            if(threads==1 || size<=range_size){
+                for(long start=0;start<size;start+=range_size){
+                    ParseRange(channel, start, Math.min(size, start+range_size)).Visit(visitor);
+                }
+            }
+            else{
+                //At most two ranges per thread are kept in memory waiting to
+                //be visited
+                LinkedList<Future<Range>> pending=new LinkedList<Future<Range>>();
+                ExecutorService pool=Executors.newFixedThreadPool(threads);
+                try{
+                    for(long from=0;from<size || !pending.isEmpty();from+=range_size){
+                        if(from<size){
+                            final long rangestart=from;
+                            final long rangeend=Math.min(size, from+range_size);
+                            pending.add(pool.submit(new Callable<Range>() {
+                                @Override
+                                public Range call() throws IOException {
+                                    return ParseRange(channel, rangestart, rangeend);
+                                }
+                            }));
+                        }
+                        if(pending.size()>=threads*2 || from+range_size>=size) {
+                            pending.removeFirst().get().Visit(visitor);
+                        }
+                    }
+                }
+                catch(InterruptedException ex){
+                    Thread.currentThread().interrupt();
+                    throw new IOException("The reading of the file was interrupted.", ex);
+                }
+                catch(ExecutionException ex){
+                    if(ex.getCause() instanceof IOException) {
+                        throw (IOException)ex.getCause();
+                    }
+                    else {
+                        throw new IOException(ex.getCause());
+                    }
+                }
+                finally{
+                    pool.shutdownNow();
+                }
+            }
+        }
+        finally{
+            input.close();
+        }
+    }
+
+    /**
+     * Method that reads the set of different words in a frequency list,
+     * ignoring their number of occurrences.
+     * @param path Path of the frequency list to be read
+     * @return Returns the set of words in the file
+     * @throws FileNotFoundException If the file cannot be found, an exception is thrown
+     * @throws IOException If there is an error while reading the file or a line
+     * does not follow the format, an exception is thrown
+     */
+    public static Set<String> ReadWords(String path) throws FileNotFoundException, IOException{
+        final Set<String> exit=new HashSet<String>();
+        new FrequencyListReader(path).Read(new Visitor() {
+            @Override
+            public void Visit(String word, int occurrences) {
+                exit.add(word);
+            }
+        });
+        return exit;
+    }
+
+    /**
+     * Method that parses the lines starting in a range of bytes of the file. A
+     * line belongs to the range where its first byte is, so the last line of
+     * the range is completed by reading after its end.
+     * @param channel Channel of the file
+     * @param start Position of the first byte of the range
+     * @param end Position after the last byte of the range
+     * @return Returns the words read in the range
+     * @throws IOException If there is an error while reading the file or a line
+     * does not follow the format, an exception is thrown
+     */
+    private static Range ParseRange(FileChannel channel, long start, long end) throws IOException{
+        long size=channel.size();
+        //The byte before the range is also read to know if a line starts with
+        //the range
+        long from=Math.max(0, start-1);
+        ByteBuffer buffer=ByteBuffer.allocate((int)(end-from)+LINE_BLOCK_SIZE);
+        ReadFully(channel, buffer, from, (int)(end-from));
+        //The last line of the range is completed with the next bytes of the file
+        long read=from+buffer.position();
+        int scanned=buffer.position();
+        while(read<size && (scanned==0 || buffer.get(scanned-1)!='\n')){
+            while(scanned<buffer.position() && buffer.get(scanned)!='\n') {
+                scanned++;
+            }
+            if(scanned<buffer.position()){
+                scanned++;
+            }
+            else{
+                if(buffer.remaining()<LINE_BLOCK_SIZE){
+                    ByteBuffer bigger=ByteBuffer.allocate(buffer.capacity()*2);
+                    buffer.flip();
+                    bigger.put(buffer);
+                    buffer=bigger;
+                }
+                int block=(int)Math.min(LINE_BLOCK_SIZE, size-read);
+                int n=ReadFully(channel, buffer, read, block);
+                if(n==0) {
+                    break;
+                }
+                read+=n;
+            }
+        }
+        byte[] bytes=buffer.array();
+        int length=buffer.position();
+
+        int i=0;
+        if(start>0){
+            //The first line belongs to the previous range unless the byte
+            //before the range is the end of a line
+            while(i<length && bytes[i]!='\n') {
+                i++;
+            }
+            i++;
+        }
+        //Only the lines starting before the end of the range are parsed
+        int limit=(int)(end-from);
+        Range exit=new Range();
+        while(i<limit){
+            int lineend=i;
+            while(lineend<length && bytes[lineend]!='\n') {
+                lineend++;
+            }
+            ParseLine(bytes, i, lineend, from+i, exit);
+            i=lineend+1;
+        }
+        return exit;
+    }
+
+    /**
+     * Method that parses a line and adds its word and number of occurrences to
+     * a range.
+     * @param bytes Bytes read from the file
+     * @param start Position of the first byte of the line
+     * @param end Position of the end of the line
+     * @param offset Position of the line in the file, used to report errors
+     * @param range Range to which the word is added
+     * @throws IOException If the line does not follow the format, an exception
+     * is thrown
+     */
+    private static void ParseLine(byte[] bytes, int start, int end, long offset,
+            Range range) throws IOException{
+        if(end>start && bytes[end-1]=='\r') {
+            end--;
+        }
+        int i=start;
+        while(i<end && IsBlank(bytes[i])) {
+            i++;
+        }
+        if(i==end) {
+            return;
+        }
+        long occurrences=0;
+        int digits=i;
+        while(i<end && bytes[i]>='0' && bytes[i]<='9'){
+            occurrences=occurrences*10+(bytes[i]-'0');
+            if(occurrences>Integer.MAX_VALUE) {
+                throw new IOException("Number of occurrences out of range in the line at byte "+offset+".");
+            }
+            i++;
+        }
+        if(i==digits || i==end || !IsBlank(bytes[i])) {
+            throw new IOException("Wrong format in the line at byte "+offset+
+                    ": a number of occurrences followed by a word was expected.");
+        }
+        while(i<end && IsBlank(bytes[i])) {
+            i++;
+        }
+        int wordstart=i;
+        while(i<end && !IsBlank(bytes[i])) {
+            i++;
+        }
+        if(i==wordstart) {
+            throw new IOException("Wrong format in the line at byte "+offset+
+                    ": a number of occurrences followed by a word was expected.");
+        }
+        range.Add(new String(bytes, wordstart, i-wordstart, StandardCharsets.UTF_8),
+                (int)occurrences);
+    }
+
+    /**
+     * Method that checks if a byte is a blank space or a tabulator.
+     * @param b Byte to be checked
+     * @return Returns <code>true</code> if the byte is a blank space or a
+     * tabulator and <code>false</code> otherwise
+     */
+    private static boolean IsBlank(byte b){
+        return b==' ' || b=='\t';
+    }
+
+    /**
+     * Method that reads a given number of bytes from a position of a channel,
+     * unless the end of the file is found before. No more than
+     * <code>length</code> bytes are written in the buffer, even if it has room
+     * for more.
+     * @param channel Channel to be read
+     * @param buffer Buffer in which the bytes are written
+     * @param position Position of the first byte to be read
+     * @param length Number of bytes to be read
+     * @return Returns the number of bytes actually read
+     * @throws IOException If there is an error while reading the file, an
+     * exception is thrown
+     */
+    private static int ReadFully(FileChannel channel, ByteBuffer buffer,
+            long position, int length) throws IOException{
+        int limit=buffer.limit();
+        buffer.limit(buffer.position()+length);
+        int read=0;
+        try{
+            while(read<length){
+                int n=channel.read(buffer, position+read);
+                if(n<0) {
+                    break;
+                }
+                read+=n;
+            }
+        }
+        finally{
+            buffer.limit(limit);
+        }
+        return read;
+    }
+
+    /**
+     * Class that contains the words read in a range of the file, in the same
+     * order of the file.
+     */
+    private static class Range{
+        /** Words read. */
+        private List<String> words=new ArrayList<String>();
+
+        /** Number of occurrences of every word. */
+        private int[] occurrences=new int[16];
+
+        /**
+         * Method that adds a word to the range.
+         * @param word Word to be added
+         * @param n Number of occurrences of the word
+         */
+        void Add(String word, int n){
+            if(words.size()==occurrences.length) {
+                occurrences=Arrays.copyOf(occurrences, occurrences.length*2);
+            }
+            occurrences[words.size()]=n;
+            words.add(word);
+        }
+
+        /**
+         * Method that passes all the words in the range to a visitor.
+         * @param visitor Visitor receiving the words
+         * @throws IOException If the visitor throws an exception, it is thrown
+         */
+        void Visit(Visitor visitor) throws IOException{
+            for(int i=0;i<words.size();i++) {
+                visitor.Visit(words.get(i), occurrences[i]);
+            }
+        }
+    }
+}
@@ -183,7 +183,7 @@ public class Questions {
         //Reading the vocabulary
         Vocabulary vocabulary=null;
         try {
-            vocabulary=new Vocabulary(vocabularypath);
+            vocabulary=Vocabulary.Load(vocabularypath, true);
         } catch (FileNotFoundException ex) {
             System.err.println("ERROR: File '"+vocabularypath+"' could not be found.");
             System.exit(-1);
@@ -236,22 +236,10 @@ public class Questions {
                         Set<Candidate> candidates=new LinkedHashSet<Candidate>();
                         candidates.addAll(d2s.getSuffixTree().SegmentWord(word));
                         Set<String> possiblesurfaceforms=new HashSet<String>();
-                        Set<EquivalentCandidates> sf_candidate=new LinkedHashSet<EquivalentCandidates>();
-                        for(Candidate c: candidates){
-                            if(!notclosedcats || ! c.isClosedCategoryParadigm(dic)){
-                                boolean added=false;
-                                for(EquivalentCandidates ec: sf_candidate){
-                                    if(c.GetSurfaceForms(dic).equals(ec.getSurfaceForms(dic))){
-                                        ec.addCandidate(c);
-                                        added=true;
-                                        break;
-                                    }
-                                }
-                                if(!added){
-                                    sf_candidate.add(new EquivalentCandidates(c));
-                                    possiblesurfaceforms.addAll(c.GetSurfaceForms(dic));
-                                }
-                            }
+                        Set<EquivalentCandidates> sf_candidate=EquivalentCandidates.GroupCandidates(
+                                candidates, dic, notclosedcats);
+                        for(EquivalentCandidates ec: sf_candidate){
+                            possiblesurfaceforms.addAll(ec.getSurfaceForms(dic));
                         }
 
                         InstanceCollection records;
@@ -23,9 +23,7 @@
 package es.ua.dlsi.querying;
 
 import es.ua.dlsi.monolingual.Paradigm;
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashMap;
@@ -44,26 +42,114 @@ public class Vocabulary implements Serializable{
     
     /** The structure that contains the vocabulary information. */
     Map<String,Integer> vocabulary;
+
+    /** Bloom filter of the words of the vocabulary, used to discard the words
+     * not in it before looking them up (see {@link #BuildFilter()}); it is
+     * <code>null</code> if it has not been built. */
+    BlockedBloomFilter filter;
+    
+    /**
+     * Default constructor, used by the subclasses storing the vocabulary in a
+     * different way (see {@link CompactVocabulary}).
+     */
+    protected Vocabulary(){
+        vocabulary=null;
+        filter=null;
+    }
     
     /**
      * Overloaded constructor of the vocabulary. This method reads the
-     * vocabulary from a file containing, for each line, a word and the number
-     * of occurrences of that word in a corpus separated by a tabulator
+     * vocabulary from a file containing, for each line, the number of
+     * occurrences of a word in a corpus and the word, separated by blank spaces
+     * or tabulators, as produced by <code>uniq -c</code> (see
+     * {@link FrequencyListReader}). If a word appears more than once, the last
+     * number of occurrences is kept.
      * @param vocabularypath Path where the file to be read is placed
      * @throws FileNotFoundException If the file cannot be found, an exception is thrown
      * @throws IOException If there is an error while reading the file, an exception
      * is thrown
      */
     public Vocabulary(String vocabularypath) throws FileNotFoundException, IOException{
-        BufferedReader br = new BufferedReader(new FileReader(vocabularypath));
-        String line;
         vocabulary=new HashMap<String, Integer>();
-        while ((line = br.readLine()) != null) {
-            String[] readed = line.split(" ");
-            int hits = Integer.parseInt(readed[0]);
-            String word = readed[1];
-            vocabulary.put(word, hits);
+        new FrequencyListReader(vocabularypath).Read(new FrequencyListReader.Visitor() {
+            @Override
+            public void Visit(String word, int occurrences) {
+                vocabulary.put(word, occurrences);
+            }
+        });
+    }
+    
+    /**
+     * Method that opens a vocabulary from a file, which may either be a text
+     * file with the format read by {@link #Vocabulary(String)} or a binary
+     * image of a vocabulary (see <code>CompactVocabulary.Write</code>). Binary
+     * images are mapped in memory, so they are opened in constant time.
+     * @param vocabularypath Path where the file to be read is placed
+     * @return Returns the vocabulary read
+     * @throws FileNotFoundException If the file cannot be found, an exception is thrown
+     * @throws IOException If there is an error while reading the file, an exception
+     * is thrown
+     */
+    public static Vocabulary Load(String vocabularypath) throws FileNotFoundException, IOException{
+        if(CompactVocabulary.IsImage(vocabularypath)) {
+            return CompactVocabulary.Map(vocabularypath);
+        }
+        else {
+            return new Vocabulary(vocabularypath);
+        }
+    }
+
+    /**
+     * Method that opens a vocabulary from a file (see {@link #Load(String)})
+     * and, optionally, builds a Bloom filter of its words (see
+     * {@link #BuildFilter()}). The filter is not built for binary images,
+     * which are still opened in constant time.
+     * @param vocabularypath Path where the file to be read is placed
+     * @param filter Flag that indicates if the Bloom filter must be built
+     * @return Returns the vocabulary read
+     * @throws FileNotFoundException If the file cannot be found, an exception is thrown
+     * @throws IOException If there is an error while reading the file, an exception
+     * is thrown
+     */
+    public static Vocabulary Load(String vocabularypath, boolean filter) throws FileNotFoundException, IOException{
+        Vocabulary exit=Load(vocabularypath);
+        if(filter) {
+            exit.BuildFilter();
         }
+        return exit;
+    }
+
+    /**
+     * Method that builds a Bloom filter of the words of the vocabulary, which
+     * is checked before looking up any word. Most of the forms looked up when
+     * profiling the paradigms are not in the vocabulary, and the filter
+     * discards most of them with a single access to memory and, when using
+     * {@link #Contains(String, String)}, without building the form. The
+     * filter uses 10 bits per word. It is not built by
+     * {@link CompactVocabulary}, whose queries are already cheap.
+     */
+    public void BuildFilter(){
+        BlockedBloomFilter newfilter=new BlockedBloomFilter(size());
+        for(String word: getWords()) {
+            newfilter.Add(word);
+        }
+        this.filter=newfilter;
+    }
+
+    /**
+     * Method that returns the number of different words in the vocabulary.
+     * @return Returns the number of different words in the vocabulary
+     */
+    public int size(){
+        return vocabulary.size();
+    }
+
+    /**
+     * Method that returns the words of the vocabulary.
+     * @return Returns the words of the vocabulary, in no particular order
+     */
+    protected Iterable<String> getWords(){
+        return vocabulary.keySet();
     }
     
     /**
@@ -103,8 +189,28 @@ public class Vocabulary implements Serializable{
      * in the vocabulary and <code>false</code> otherwise
      */
     public boolean Contains(String surfaceform){
+        if(filter!=null && !filter.MightContain(surfaceform)) {
+            return false;
+        }
         return (this.vocabulary.containsKey(surfaceform));
     }
+
+    /**
+     * This method checks if the surface form produced by adding a suffix to a
+     * stem occurs in the vocabulary. If the Bloom filter has been built (see
+     * {@link #BuildFilter()}), the surface form is only built if it passes
+     * the filter.
+     * @param stem Stem of the surface form to be checked
+     * @param suffix Suffix of the surface form to be checked
+     * @return The method returns <code>true</code> if the surface form occurs
+     * in the vocabulary and <code>false</code> otherwise
+     */
+    public boolean Contains(String stem, String suffix){
+        if(filter!=null && !filter.MightContain(stem, suffix)) {
+            return false;
+        }
+        return (this.vocabulary.containsKey(stem+suffix));
+    }
     
     /**
      * This method returns the number of occurrences of a given surface form.
@@ -113,6 +219,9 @@ public class Vocabulary implements Serializable{
      * @return Returns the number of occurrences of a given surface form
      */
     public int Get(String surfaceform){
+        if(filter!=null && !filter.MightContain(surfaceform)) {
+            return 0;
+        }
         if(this.vocabulary.containsKey(surfaceform)){
             return (this.vocabulary.get(surfaceform));
         }
@@ -132,10 +132,13 @@ public class SortedSetOfCandidates extends GenericCandidateStructure{
      * @param c Candidate to be added
      * @param score Score of the new candidate in the list
      * @param sfs Set of surface forms generated by the candidate
+     * @return Returns the new ranked candidate added to the list
      */
-    public void addCandidate(Candidate c, double score, ScoredSurfaceFormsSet sfs){
-        candidateslist.add(new RankedCandidate(c,score,sfs));
+    public RankedCandidate addCandidate(Candidate c, double score, ScoredSurfaceFormsSet sfs){
+        RankedCandidate rc=new RankedCandidate(c,score,sfs);
+        candidateslist.add(rc);
         Collections.sort(candidateslist,new CandidateComparator());
+        return rc;
     }
 
     /**
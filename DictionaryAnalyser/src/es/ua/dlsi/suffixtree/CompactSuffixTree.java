@@ -0,0 +1,970 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.suffixtree;
+
+import es.ua.dlsi.monolingual.Candidate;
+import es.ua.dlsi.monolingual.ParadigmSymbolTable;
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Class that implements a compact, array-based version of the suffix tree.
+ * This class contains the same information than a <code>SuffixTree</code>, but
+ * instead of using a <code>Node</code> object per node, the tree is stored in a
+ * few flat arrays. Nodes are identified by an integer (the root node is always
+ * node 0) and the outgoing edges of every node are stored in a contiguous range
+ * of the edge arrays, sorted by character, so the child for a given character
+ * is found by binary search. In the same way, the paradigms of every node are
+ * stored as a range of integer identifiers which point to the table of
+ * paradigm names. This representation uses much less memory than the one based
+ * in <code>Node</code> objects and it is faster to query.
+ * <p>
+ * The arrays are accessed through <code>java.nio</code> buffers, so the tree can
+ * either live in the heap or be read directly from a binary image of the tree
+ * mapped in memory (see {@link #Write(String, long)} and
+ * {@link #Map(String, long)}), which avoids building or deserialising the tree
+ * every time a tool is run.
+ * <p>
+ * Objects of this class are immutable once built (only their segmentation
+ * counters, which are atomic, change), so the same tree can be
+ * queried from several threads at the same time (see
+ * {@link #SegmentAll(List)}). A <code>SuffixTree</code> can be turned into
+ * one of these objects with <code>SuffixTree.Freeze()</code>.
+ * @author Miquel Esplà i Gomis
+ */
+public class CompactSuffixTree implements MonitoredSuffixTree{
+
+    /** Identifier of the root node of the tree. */
+    public static final int ROOT=0;
+
+    /** Magic number at the beginning of the binary image of the tree ("PATS"). */
+    private static final int IMAGE_MAGIC=0x50415453;
+
+    /** Version of the format of the binary image of the tree. */
+    private static final int IMAGE_VERSION=1;
+
+    /** Minimum number of words segmented by a single task in
+     * {@link #SegmentAll(List, ForkJoinPool)}. */
+    private static final int SEGMENTATION_BATCH=512;
+
+    /** Size in bytes of the header of the binary image: magic number, version,
+     * checksum of the dictionary and the sizes of the five arrays. */
+    private static final int IMAGE_HEADER_SIZE=4+4+8+5*4;
+
+    /** Position of the first edge of every node in {@link #edge_labels}; the
+     * edges of node <code>n</code> are in the range
+     * <code>[edge_start[n], edge_start[n+1])</code>. */
+    private final IntBuffer edge_start;
+
+    /** Character of every edge; the edges of a node are sorted by character. */
+    private final CharBuffer edge_labels;
+
+    /** Node reached through every edge. */
+    private final IntBuffer edge_targets;
+
+    /** Position of the first paradigm of every node in {@link #paradigm_ids};
+     * the paradigms of node <code>n</code> are in the range
+     * <code>[paradigm_start[n], paradigm_start[n+1])</code>. */
+    private final IntBuffer paradigm_start;
+
+    /** Identifiers of the paradigms generating the suffix of every node. */
+    private final IntBuffer paradigm_ids;
+
+    /** Table with the names of the paradigms; the identifier of a paradigm is
+     * its position in this table. */
+    private final String[] paradigm_names;
+
+    /** Identifier of every paradigm of the tree in the table shared by the
+     * candidates (see <code>ParadigmSymbolTable.GetSharedTable</code>), so
+     * the candidates are created without looking up the name of their
+     * paradigm. */
+    private final int[] candidate_paradigms;
+
+    /** Number of words segmented with the tree. */
+    private final AtomicLong segmentword_calls=new AtomicLong();
+
+    /** Number of nodes visited while segmenting words. */
+    private final AtomicLong nodes_visited=new AtomicLong();
+
+    /** Number of candidates produced while segmenting words. */
+    private final AtomicLong candidates_emitted=new AtomicLong();
+
+    /**
+     * Overloaded constructor of the class that builds the compact tree from a
+     * <code>SuffixTree</code>. Nodes are numbered in breadth-first order.
+     * @param suffixtree Suffix tree from which the compact tree is built
+     */
+    public CompactSuffixTree(SuffixTree suffixtree){
+        //Numbering the nodes in breadth-first order
+        List<Node> nodes=new ArrayList<Node>();
+        nodes.add(suffixtree.rootnode);
+        int nedges=0, nparadigms=0;
+        for(int current=0;current<nodes.size();current++){
+            Node node=nodes.get(current);
+            if(node.getChildren()!=null){
+                char[] labels=SortedLabels(node);
+                for(char c: labels){
+                    nodes.add(node.getChild(c));
+                }
+                nedges+=labels.length;
+            }
+            nparadigms+=node.NumberOfParadigms();
+        }
+
+        int[] edge_start=new int[nodes.size()+1];
+        char[] edge_labels=new char[nedges];
+        int[] edge_targets=new int[nedges];
+        int[] paradigm_start=new int[nodes.size()+1];
+        int[] paradigm_ids=new int[nparadigms];
+
+        int edge=0, paradigm=0, next_child=1;
+        for(int current=0;current<nodes.size();current++){
+            Node node=nodes.get(current);
+            edge_start[current]=edge;
+            if(node.getChildren()!=null){
+                for(char c: SortedLabels(node)){
+                    edge_labels[edge]=c;
+                    edge_targets[edge]=next_child;
+                    next_child++;
+                    edge++;
+                }
+            }
+            paradigm_start[current]=paradigm;
+            for(int p=0;p<node.NumberOfParadigms();p++){
+                paradigm_ids[paradigm]=node.getParadigmId(p);
+                paradigm++;
+            }
+        }
+        edge_start[nodes.size()]=edge;
+        paradigm_start[nodes.size()]=paradigm;
+        this.edge_start=IntBuffer.wrap(edge_start);
+        this.edge_labels=CharBuffer.wrap(edge_labels);
+        this.edge_targets=IntBuffer.wrap(edge_targets);
+        this.paradigm_start=IntBuffer.wrap(paradigm_start);
+        this.paradigm_ids=IntBuffer.wrap(paradigm_ids);
+        ParadigmSymbolTable symbols=suffixtree.getSymbolTable();
+        this.paradigm_names=new String[symbols.size()];
+        for(int id=0;id<paradigm_names.length;id++){
+            this.paradigm_names[id]=symbols.getName(id);
+        }
+        this.candidate_paradigms=SharedIds(paradigm_names);
+    }
+
+    /**
+     * Overloaded constructor of the class that builds the compact tree from the
+     * buffers read from a binary image.
+     * @param edge_start Position of the first edge of every node
+     * @param edge_labels Character of every edge
+     * @param edge_targets Node reached through every edge
+     * @param paradigm_start Position of the first paradigm of every node
+     * @param paradigm_ids Identifiers of the paradigms of every node
+     * @param paradigm_names Table with the names of the paradigms
+     */
+    private CompactSuffixTree(IntBuffer edge_start, CharBuffer edge_labels,
+            IntBuffer edge_targets, IntBuffer paradigm_start,
+            IntBuffer paradigm_ids, String[] paradigm_names){
+        this.edge_start=edge_start;
+        this.edge_labels=edge_labels;
+        this.edge_targets=edge_targets;
+        this.paradigm_start=paradigm_start;
+        this.paradigm_ids=paradigm_ids;
+        this.paradigm_names=paradigm_names;
+        this.candidate_paradigms=SharedIds(paradigm_names);
+    }
+
+    /**
+     * Method that returns the identifiers of a list of paradigms in the table
+     * shared by the candidates.
+     * @param names Names of the paradigms
+     * @return Returns the identifier of every paradigm in the shared table
+     */
+    private static int[] SharedIds(String[] names){
+        ParadigmSymbolTable shared=ParadigmSymbolTable.GetSharedTable();
+        int[] ids=new int[names.length];
+        for(int i=0;i<names.length;i++){
+            ids[i]=shared.getOrAddId(names[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Method that returns a minimised version of the tree. In a suffix tree
+     * built from the paradigms of a dictionary, many sub-trees are identical
+     * (for example, the tails of the suffixes shared by many paradigms). This
+     * method merges every group of nodes with the same paradigms and the same
+     * outgoing edges leading to equivalent nodes, so the tree becomes a
+     * directed acyclic word graph (DAWG). Since the stem of a candidate only
+     * depends on the depth at which a node is reached,
+     * <code>SegmentWord</code> and <code>NodeMatchingSuffix</code> produce the
+     * same results on the minimised tree, but it uses much less memory. Nodes
+     * are only merged if their paradigms appear in the same order, so the order
+     * of the candidates is also kept.
+     * @return Returns a new compact tree in which equivalent nodes are shared
+     */
+    public CompactSuffixTree Minimise(){
+        int nnodes=NumberOfNodes();
+        int[] canonical=new int[nnodes];
+        Map<NodeSignature,Integer> register=new HashMap<NodeSignature, Integer>();
+        //The children of a node must be processed before it
+        for(int node: PostOrder()){
+            int first_edge=edge_start.get(node);
+            int nedges=edge_start.get(node+1)-first_edge;
+            int first_paradigm=paradigm_start.get(node);
+            int nparadigms=paradigm_start.get(node+1)-first_paradigm;
+            int[] signature=new int[1+nparadigms+2*nedges];
+            signature[0]=nparadigms;
+            int pos=1;
+            for(int p=0;p<nparadigms;p++){
+                signature[pos++]=paradigm_ids.get(first_paradigm+p);
+            }
+            for(int e=0;e<nedges;e++){
+                signature[pos++]=edge_labels.get(first_edge+e);
+                signature[pos++]=canonical[edge_targets.get(first_edge+e)];
+            }
+            NodeSignature key=new NodeSignature(signature);
+            Integer equivalent=register.get(key);
+            if(equivalent==null){
+                register.put(key, node);
+                canonical[node]=node;
+            }
+            else{
+                canonical[node]=equivalent;
+            }
+        }
+
+        //Numbering the remaining nodes in breadth-first order
+        int[] newid=new int[nnodes];
+        Arrays.fill(newid, -1);
+        int[] order=new int[register.size()];
+        order[0]=canonical[ROOT];
+        newid[canonical[ROOT]]=0;
+        int nnewnodes=1, nnewedges=0, nnewparadigms=0;
+        for(int current=0;current<nnewnodes;current++){
+            int node=order[current];
+            for(int e=edge_start.get(node);e<edge_start.get(node+1);e++){
+                int target=canonical[edge_targets.get(e)];
+                if(newid[target]==-1){
+                    newid[target]=nnewnodes;
+                    order[nnewnodes]=target;
+                    nnewnodes++;
+                }
+            }
+            nnewedges+=edge_start.get(node+1)-edge_start.get(node);
+            nnewparadigms+=NumberOfParadigms(node);
+        }
+
+        int[] new_edge_start=new int[nnewnodes+1];
+        char[] new_edge_labels=new char[nnewedges];
+        int[] new_edge_targets=new int[nnewedges];
+        int[] new_paradigm_start=new int[nnewnodes+1];
+        int[] new_paradigm_ids=new int[nnewparadigms];
+        int edge=0, paradigm=0;
+        for(int current=0;current<nnewnodes;current++){
+            int node=order[current];
+            new_edge_start[current]=edge;
+            for(int e=edge_start.get(node);e<edge_start.get(node+1);e++){
+                new_edge_labels[edge]=edge_labels.get(e);
+                new_edge_targets[edge]=newid[canonical[edge_targets.get(e)]];
+                edge++;
+            }
+            new_paradigm_start[current]=paradigm;
+            for(int p=paradigm_start.get(node);p<paradigm_start.get(node+1);p++){
+                new_paradigm_ids[paradigm]=paradigm_ids.get(p);
+                paradigm++;
+            }
+        }
+        new_edge_start[nnewnodes]=edge;
+        new_paradigm_start[nnewnodes]=paradigm;
+        return new CompactSuffixTree(IntBuffer.wrap(new_edge_start),
+                CharBuffer.wrap(new_edge_labels), IntBuffer.wrap(new_edge_targets),
+                IntBuffer.wrap(new_paradigm_start), IntBuffer.wrap(new_paradigm_ids),
+                paradigm_names);
+    }
+
+    /**
+     * Method that returns the nodes of the tree in post-order, i.e. every node
+     * appears after all its descendants. The tree is traversed with an explicit
+     * stack, so this method also works on deep trees and on minimised trees,
+     * in which a node may be reached from several parents.
+     * @return Returns the identifiers of the nodes in post-order
+     */
+    private int[] PostOrder(){
+        int nnodes=NumberOfNodes();
+        int[] exit=new int[nnodes];
+        int nvisited=0;
+        boolean[] visited=new boolean[nnodes];
+        int[] stack_nodes=new int[nnodes];
+        int[] stack_edges=new int[nnodes];
+        int top=0;
+        stack_nodes[0]=ROOT;
+        stack_edges[0]=edge_start.get(ROOT);
+        visited[ROOT]=true;
+        while(top>=0){
+            int node=stack_nodes[top];
+            if(stack_edges[top]<edge_start.get(node+1)){
+                int target=edge_targets.get(stack_edges[top]);
+                stack_edges[top]++;
+                if(!visited[target]){
+                    visited[target]=true;
+                    top++;
+                    stack_nodes[top]=target;
+                    stack_edges[top]=edge_start.get(target);
+                }
+            }
+            else{
+                exit[nvisited]=node;
+                nvisited++;
+                top--;
+            }
+        }
+        return Arrays.copyOf(exit, nvisited);
+    }
+
+    /**
+     * Class that represents the right language of a node during the
+     * minimisation of the tree: the paradigms of the node and its outgoing
+     * edges (character and equivalent target node), stored in an array of
+     * integers.
+     */
+    private static class NodeSignature{
+        /** Paradigms and edges of the node. */
+        private final int[] signature;
+
+        /** Hash code of the signature (computed only once). */
+        private final int hash;
+
+        /**
+         * Constructor of the class.
+         * @param signature Paradigms and edges of the node
+         */
+        NodeSignature(int[] signature){
+            this.signature=signature;
+            this.hash=Arrays.hashCode(signature);
+        }
+
+        @Override
+        public int hashCode(){
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof NodeSignature &&
+                    Arrays.equals(signature, ((NodeSignature)o).signature);
+        }
+    }
+
+    /**
+     * Method that returns the characters of the children of a node sorted.
+     * @param node Node from which the characters are obtained
+     * @return Returns a sorted array with the characters leading to the
+     * children of the node
+     */
+    private static char[] SortedLabels(Node node){
+        char[] labels=new char[node.getChildren().size()];
+        int i=0;
+        for(Character c: node.getChildren().keySet()){
+            labels[i]=c;
+            i++;
+        }
+        Arrays.sort(labels);
+        return labels;
+    }
+
+    /**
+     * Method that returns the number of nodes in the tree.
+     * @return Returns the number of nodes in the tree
+     */
+    public int NumberOfNodes(){
+        return edge_start.limit()-1;
+    }
+
+    /**
+     * Method that returns the number of children of a node.
+     * @param node Identifier of the node
+     * @return Returns the number of outgoing edges of the node
+     */
+    public int NumberOfChildren(int node){
+        return edge_start.get(node+1)-edge_start.get(node);
+    }
+
+    /**
+     * Method that returns the i-th child of a node, in the order of the
+     * characters of the edges.
+     * @param node Identifier of the node
+     * @param i Position of the child in the node
+     * @return Returns the identifier of the child
+     */
+    public int getChildAt(int node, int i){
+        return edge_targets.get(edge_start.get(node)+i);
+    }
+
+    /**
+     * Method that returns the child of a node reached through a given character.
+     * The character is looked for by binary search in the sorted range of edges
+     * of the node.
+     * @param node Identifier of the node
+     * @param character Character leading to the child
+     * @return Returns the identifier of the child or -1 if the node has no
+     * child for this character
+     */
+    public int getChild(int node, char character){
+        int low=edge_start.get(node);
+        int high=edge_start.get(node+1)-1;
+        while(low<=high){
+            int middle=(low+high)>>>1;
+            char label=edge_labels.get(middle);
+            if(label<character) {
+                low=middle+1;
+            }
+            else if(label>character) {
+                high=middle-1;
+            }
+            else {
+                return edge_targets.get(middle);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method that returns the number of paradigms generating the suffix of a
+     * given node.
+     * @param node Identifier of the node
+     * @return Returns the number of paradigms in the node
+     */
+    public int NumberOfParadigms(int node){
+        return paradigm_start.get(node+1)-paradigm_start.get(node);
+    }
+
+    /**
+     * Method that returns the identifier of the i-th paradigm of a node.
+     * @param node Identifier of the node
+     * @param i Position of the paradigm in the node
+     * @return Returns the identifier of the paradigm
+     */
+    public int getParadigmId(int node, int i){
+        return paradigm_ids.get(paradigm_start.get(node)+i);
+    }
+
+    /**
+     * Method that returns the name of a paradigm from its identifier.
+     * @param id Identifier of the paradigm
+     * @return Returns the name of the paradigm
+     */
+    public String getParadigmName(int id){
+        return paradigm_names[id];
+    }
+
+    /**
+     * Method that returns the set of names of the paradigms producing the suffix
+     * of a given node.
+     * @param node Identifier of the node
+     * @return Returns the set of names of the paradigms producing the suffix or
+     * <code>null</code> if the node has no paradigms (as in the class
+     * <code>Node</code>)
+     */
+    public Set<String> getParadigmNames(int node){
+        if(NumberOfParadigms(node)==0) {
+            return null;
+        }
+        else{
+            Set<String> exit=new LinkedHashSet<String>();
+            for(int p=paradigm_start.get(node);p<paradigm_start.get(node+1);p++){
+                exit.add(paradigm_names[paradigm_ids.get(p)]);
+            }
+            return exit;
+        }
+    }
+
+    /**
+     * Method that returns the node matching a given suffix.
+     * @param suffix Suffix to search in the tree.
+     * @return Returns the identifier of the node matching a given suffix or -1
+     * if the suffix is not in the tree
+     */
+    public int NodeMatchingSuffix(String suffix) {
+        int currnode=ROOT;
+        for(int spos=suffix.length()-1; currnode!=-1 && spos>=0; spos--){
+            currnode=getChild(currnode, suffix.charAt(spos));
+        }
+        return currnode;
+    }
+
+    /**
+     * Method that segments a given word in all the possible combinations stem/suffix
+     * given the suffixes in the tree. The candidates are returned in the same
+     * order than in <code>SuffixTree.SegmentWord</code>. Since the tree has no
+     * <code>Node</code> objects, the candidates do not keep a reference to the
+     * node in which they were found (<code>Candidate.getReftotree</code>
+     * returns <code>null</code>); it can be obtained with
+     * {@link #NodeMatchingSuffix(String)} from the suffix of the candidate.
+     * @param word Word to be segmented.
+     * @return Returns a set of candidates stem/paradigm.
+     */
+    public Set<Candidate> SegmentWord(String word) {
+        Set<Candidate> exit=new LinkedHashSet<Candidate>();
+        for(int p=paradigm_start.get(ROOT);p<paradigm_start.get(ROOT+1);p++){
+            exit.add(new Candidate(word,word.length(),candidate_paradigms[paradigm_ids.get(p)]));
+        }
+        //Going down in the tree while the word matches, storing the nodes visited
+        int[] path=new int[word.length()];
+        int depth=WalkDown(word, path, 0);
+        AddCandidates(word, path, depth, exit);
+        segmentword_calls.incrementAndGet();
+        nodes_visited.addAndGet(depth);
+        candidates_emitted.addAndGet(exit.size());
+        return exit;
+    }
+
+    /**
+     * Method that goes down in the tree following the characters of a word
+     * from the end, while the word matches the tree.
+     * @param word Word to be followed in the tree
+     * @param path Array in which the nodes visited are stored: position
+     * <code>d</code> contains the node reached with the last <code>d+1</code>
+     * characters of the word. The first <code>depth</code> positions must
+     * already contain the path for the last <code>depth</code> characters
+     * @param depth Number of characters of the word already matched
+     * @return Returns the number of characters of the word matched in the tree
+     */
+    private int WalkDown(String word, int[] path, int depth){
+        int currnode=(depth==0)? ROOT: path[depth-1];
+        for(int pos=word.length()-depth-1;pos>=0;pos--){
+            currnode=getChild(currnode, word.charAt(pos));
+            if(currnode==-1) {
+                break;
+            }
+            path[depth]=currnode;
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Method that adds to a set the candidates stem/paradigm of a word given
+     * the path of nodes matching the word (see {@link #WalkDown(String, int[], int)}).
+     * Candidates are produced from the longest suffix to the shortest one.
+     * @param word Word to be segmented
+     * @param path Nodes matching the end of the word
+     * @param depth Number of characters of the word matched in the tree
+     * @param exit Set in which the candidates are added
+     */
+    private void AddCandidates(String word, int[] path, int depth, Set<Candidate> exit){
+        for(int d=depth-1;d>=0;d--){
+            int node=path[d];
+            for(int p=paradigm_start.get(node);p<paradigm_start.get(node+1);p++){
+                exit.add(new Candidate(word,word.length()-d-1,
+                        candidate_paradigms[paradigm_ids.get(p)]));
+            }
+        }
+    }
+
+    /**
+     * Method that segments a list of words in all the possible candidates
+     * stem/paradigm. The words are processed sorted by their reversed form, so
+     * consecutive words usually share their ending; the path in the tree
+     * matching the ending shared with the previous word is reused and only the
+     * rest of the word is looked up in the tree. The result is the same as
+     * calling {@link #SegmentWord(String)} for every word.
+     * @param words List of words to be segmented
+     * @return Returns a list with the set of candidates of every word, in the
+     * same order as the list of words
+     */
+    public List<Set<Candidate>> SegmentWords(List<String> words){
+        String[] input=words.toArray(new String[words.size()]);
+        Integer[] order=SuffixTree.ReverseSortedOrder(input);
+        List<Set<Candidate>> output=new ArrayList<Set<Candidate>>(
+                Collections.<Set<Candidate>>nCopies(input.length, null));
+        SegmentSorted(input, order, 0, input.length, output);
+        return output;
+    }
+
+    /**
+     * Method that segments a range of a list of words sorted by their reversed
+     * form, reusing the path in the tree shared by consecutive words.
+     * @param input Words to be segmented
+     * @param order Positions of the words in <code>input</code> sorted by the
+     * reversed form of the words
+     * @param from First position of the range in <code>order</code>
+     * @param to Position after the last one of the range in <code>order</code>
+     * @param output List in which the candidates of every word are stored (in
+     * the same position of the word in <code>input</code>)
+     */
+    private void SegmentSorted(String[] input, Integer[] order, int from, int to,
+            List<Set<Candidate>> output){
+        int[] path=new int[16];
+        String previous=null;
+        int previousdepth=0;
+        long visited=0, candidates=0;
+        for(int i=from;i<to;i++){
+            String word=input[order[i]];
+            if(path.length<word.length()) {
+                path=Arrays.copyOf(path, Math.max(word.length(), path.length*2));
+            }
+            int depth=0;
+            if(previous!=null) {
+                depth=SuffixTree.CommonSuffixLength(previous, word, previousdepth);
+            }
+            int reused=depth;
+            depth=WalkDown(word, path, depth);
+            visited+=depth-reused;
+            Set<Candidate> exit=new LinkedHashSet<Candidate>();
+            for(int p=paradigm_start.get(ROOT);p<paradigm_start.get(ROOT+1);p++){
+                exit.add(new Candidate(word,word.length(),candidate_paradigms[paradigm_ids.get(p)]));
+            }
+            AddCandidates(word, path, depth, exit);
+            output.set(order[i], exit);
+            candidates+=exit.size();
+            previous=word;
+            previousdepth=depth;
+        }
+        segmentword_calls.addAndGet(to-from);
+        nodes_visited.addAndGet(visited);
+        candidates_emitted.addAndGet(candidates);
+    }
+
+    /**
+     * Method that segments a list of words in all the possible candidates
+     * stem/paradigm using all the available processors. See
+     * {@link #SegmentAll(List, ForkJoinPool)}.
+     * @param words List of words to be segmented
+     * @return Returns a list with the set of candidates of every word, in the
+     * same order as the list of words
+     */
+    public List<Set<Candidate>> SegmentAll(List<String> words){
+        ForkJoinPool pool=new ForkJoinPool();
+        try{
+            return SegmentAll(words, pool);
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Method that segments a list of words in all the possible candidates
+     * stem/paradigm in parallel. The words are sorted by their reversed form
+     * (see {@link #SegmentWords(List)}) and the sorted list is split
+     * recursively in batches which are run as tasks in a fork-join pool. The
+     * result is the same as calling {@link #SegmentWord(String)} for every word.
+     * @param words List of words to be segmented
+     * @param pool Fork-join pool in which the segmentation is run
+     * @return Returns a list with the set of candidates of every word, in the
+     * same order as the list of words
+     */
+    public List<Set<Candidate>> SegmentAll(List<String> words, ForkJoinPool pool){
+        String[] input=words.toArray(new String[words.size()]);
+        Integer[] order=SuffixTree.ReverseSortedOrder(input);
+        List<Set<Candidate>> output=new ArrayList<Set<Candidate>>(
+                Collections.<Set<Candidate>>nCopies(input.length, null));
+        pool.invoke(new SegmentationTask(input, order, output, 0, input.length));
+        return output;
+    }
+
+    /**
+     * Task that segments a range of a list of words sorted by their reversed
+     * form. If the range is larger
+     * than {@link #SEGMENTATION_BATCH}, it is split in two halves which are
+     * run in parallel.
+     */
+    private class SegmentationTask extends RecursiveAction{
+        /** Words to be segmented. */
+        private final String[] input;
+
+        /** Positions of the words sorted by their reversed form. */
+        private final Integer[] order;
+
+        /** List in which the candidates of every word are stored. */
+        private final List<Set<Candidate>> output;
+
+        /** First position of the range of words to segment. */
+        private final int from;
+
+        /** Position after the last word of the range to segment. */
+        private final int to;
+
+        /**
+         * Constructor of the class.
+         * @param input Words to be segmented
+         * @param order Positions of the words sorted by their reversed form
+         * @param output List in which the candidates of every word are stored
+         * @param from First position of the range of words to segment
+         * @param to Position after the last word of the range to segment
+         */
+        SegmentationTask(String[] input, Integer[] order, List<Set<Candidate>> output,
+                int from, int to){
+            this.input=input;
+            this.order=order;
+            this.output=output;
+            this.from=from;
+            this.to=to;
+        }
+
+        @Override
+        protected void compute(){
+            if(to-from<=SEGMENTATION_BATCH){
+                SegmentSorted(input, order, from, to, output);
+            }
+            else{
+                int middle=(from+to)>>>1;
+                invokeAll(new SegmentationTask(input, order, output, from, middle),
+                        new SegmentationTask(input, order, output, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Method that returns the number of words segmented with the tree since it
+     * was built or since the last call to <code>ResetCounters()</code>.
+     * @return Returns the number of words segmented
+     */
+    @Override
+    public long getSegmentWordCalls(){
+        return segmentword_calls.get();
+    }
+
+    /**
+     * Method that returns the number of nodes visited while walking down the
+     * tree to segment words. When segmenting a list of words with
+     * <code>SegmentWords</code> or <code>SegmentAll</code>, the nodes reused
+     * from the previous word are not counted.
+     * @return Returns the number of nodes visited
+     */
+    @Override
+    public long getNodesVisited(){
+        return nodes_visited.get();
+    }
+
+    /**
+     * Method that returns the number of candidates produced while segmenting
+     * words.
+     * @return Returns the number of candidates produced
+     */
+    @Override
+    public long getCandidatesEmitted(){
+        return candidates_emitted.get();
+    }
+
+    /**
+     * Method that sets the segmentation counters of the tree to zero.
+     */
+    @Override
+    public void ResetCounters(){
+        segmentword_calls.set(0);
+        nodes_visited.set(0);
+        candidates_emitted.set(0);
+    }
+
+    /**
+     * Method that computes the statistics about the shape of the tree: number
+     * of nodes and leaves, histograms of fan-out, depth and paradigms per node
+     * and estimated memory retained by the arrays of the tree.
+     * @return Returns the statistics of the tree
+     */
+    @Override
+    public SuffixTreeStatistics getStatistics(){
+        return new SuffixTreeStatistics(this);
+    }
+
+    /**
+     * Method that computes the checksum of a dictionary file. This checksum is
+     * stored in the binary image of the tree in order to detect images which
+     * were built from a different version of the dictionary.
+     * @param dicpath Path to the dictionary file
+     * @return Returns the CRC32 checksum of the content of the file
+     * @throws IOException If the dictionary cannot be read
+     */
+    public static long DictionaryChecksum(String dicpath) throws IOException{
+        CRC32 crc=new CRC32();
+        InputStream is=new FileInputStream(dicpath);
+        try{
+            byte[] buffer=new byte[1<<16];
+            int read;
+            while((read=is.read(buffer))!=-1){
+                crc.update(buffer, 0, read);
+            }
+        }
+        finally{
+            is.close();
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Method that writes a binary image of the tree to a file. The image
+     * contains a header (magic number, version of the format, checksum of the
+     * dictionary and sizes of the arrays), the arrays of the tree in big-endian
+     * order and, finally, the names of the paradigms encoded in UTF-8. It can
+     * be read back with {@link #Map(String, long)}.
+     * @param path Path of the file to be written
+     * @param dicchecksum Checksum of the dictionary from which the tree was
+     * built (see {@link #DictionaryChecksum(String)})
+     * @throws IOException If the file cannot be written
+     */
+    public void Write(String path, long dicchecksum) throws IOException{
+        DataOutputStream dos=new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(path), 1<<16));
+        try{
+            dos.writeInt(IMAGE_MAGIC);
+            dos.writeInt(IMAGE_VERSION);
+            dos.writeLong(dicchecksum);
+            dos.writeInt(edge_start.limit());
+            dos.writeInt(edge_targets.limit());
+            dos.writeInt(paradigm_start.limit());
+            dos.writeInt(paradigm_ids.limit());
+            dos.writeInt(paradigm_names.length);
+            for(int i=0;i<edge_start.limit();i++) {
+                dos.writeInt(edge_start.get(i));
+            }
+            for(int i=0;i<edge_targets.limit();i++) {
+                dos.writeInt(edge_targets.get(i));
+            }
+            for(int i=0;i<paradigm_start.limit();i++) {
+                dos.writeInt(paradigm_start.get(i));
+            }
+            for(int i=0;i<paradigm_ids.limit();i++) {
+                dos.writeInt(paradigm_ids.get(i));
+            }
+            for(int i=0;i<edge_labels.limit();i++) {
+                dos.writeChar(edge_labels.get(i));
+            }
+            Charset utf8=Charset.forName("UTF-8");
+            for(String name: paradigm_names){
+                byte[] bytes=name.getBytes(utf8);
+                dos.writeInt(bytes.length);
+                dos.write(bytes);
+            }
+        }
+        finally{
+            dos.close();
+        }
+    }
+
+    /**
+     * Method that opens a binary image of the tree written with
+     * {@link #Write(String, long)}. The file is mapped in memory and the tree
+     * is queried directly on the mapped bytes, so opening it does not depend on
+     * the size of the tree (only the names of the paradigms are decoded).
+     * @param path Path of the binary image
+     * @param dicchecksum Checksum of the current version of the dictionary (see
+     * {@link #DictionaryChecksum(String)}); if it is different from the one
+     * stored in the image, the image is rejected
+     * @return Returns the compact tree stored in the image
+     * @throws SuffixTreeImageException If the file is not a valid image of the
+     * tree, has a different version or was built from a different dictionary
+     * @throws IOException If the file cannot be read
+     */
+    public static CompactSuffixTree Map(String path, long dicchecksum) throws IOException{
+        RandomAccessFile raf=new RandomAccessFile(path, "r");
+        MappedByteBuffer buffer;
+        try{
+            FileChannel channel=raf.getChannel();
+            if(channel.size()<IMAGE_HEADER_SIZE){
+                throw new SuffixTreeImageException("File '"+path+"' is not a suffix tree image.");
+            }
+            buffer=channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        finally{
+            raf.close();
+        }
+        if(buffer.getInt()!=IMAGE_MAGIC){
+            throw new SuffixTreeImageException("File '"+path+"' is not a suffix tree image.");
+        }
+        int version=buffer.getInt();
+        if(version!=IMAGE_VERSION){
+            throw new SuffixTreeImageException("Suffix tree image '"+path+
+                    "' has version "+version+" but version "+IMAGE_VERSION+" was expected.");
+        }
+        if(buffer.getLong()!=dicchecksum){
+            throw new SuffixTreeImageException("Suffix tree image '"+path+
+                    "' was built from a different version of the dictionary.");
+        }
+        int nedgestart=buffer.getInt();
+        int nedges=buffer.getInt();
+        int nparadigmstart=buffer.getInt();
+        int nparadigmids=buffer.getInt();
+        int nnames=buffer.getInt();
+        try{
+            IntBuffer edge_start=IntSlice(buffer, nedgestart);
+            IntBuffer edge_targets=IntSlice(buffer, nedges);
+            IntBuffer paradigm_start=IntSlice(buffer, nparadigmstart);
+            IntBuffer paradigm_ids=IntSlice(buffer, nparadigmids);
+            ByteBuffer labels=buffer.slice();
+            labels.limit(nedges*2);
+            CharBuffer edge_labels=labels.asCharBuffer();
+            buffer.position(buffer.position()+nedges*2);
+            Charset utf8=Charset.forName("UTF-8");
+            String[] paradigm_names=new String[nnames];
+            for(int i=0;i<nnames;i++){
+                byte[] bytes=new byte[buffer.getInt()];
+                buffer.get(bytes);
+                paradigm_names[i]=new String(bytes, utf8).intern();
+            }
+            return new CompactSuffixTree(edge_start, edge_labels, edge_targets,
+                    paradigm_start, paradigm_ids, paradigm_names);
+        }
+        catch(RuntimeException ex){
+            //Buffer underflows or wrong limits mean that the file is truncated
+            throw new SuffixTreeImageException("Suffix tree image '"+path+
+                    "' is corrupted: "+ex);
+        }
+    }
+
+    /**
+     * Method that returns a view of the next <code>size</code> integers in a
+     * buffer and moves the position of the buffer after them.
+     * @param buffer Buffer from which the integers are read
+     * @param size Number of integers in the view
+     * @return Returns an <code>IntBuffer</code> with the integers
+     */
+    private static IntBuffer IntSlice(ByteBuffer buffer, int size){
+        ByteBuffer slice=buffer.slice();
+        slice.limit(size*4);
+        buffer.position(buffer.position()+size*4);
+        return slice.asIntBuffer();
+    }
+}
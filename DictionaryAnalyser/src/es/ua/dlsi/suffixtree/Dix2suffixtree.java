@@ -30,6 +30,9 @@ import es.ua.dlsi.lexicalinformation.ClosedCategories;
 import es.ua.dlsi.monolingual.Candidate;
 import es.ua.dlsi.monolingual.EquivalentCandidates;
 import es.ua.dlsi.monolingual.Paradigm;
+import es.ua.dlsi.monolingual.ParadigmEquivalences;
+import es.ua.dlsi.monolingual.ParadigmRegistry;
+import es.ua.dlsi.monolingual.ParadigmSymbolTable;
 import es.ua.dlsi.monolingual.Suffix;
 import es.ua.dlsi.paradigms.paradigmprofiling.DictionaryWord;
 import es.ua.dlsi.paradigms.paradigmprofiling.ParadigmProfiler;
@@ -53,6 +56,15 @@ public class Dix2suffixtree {
     /** Suffix tree object. */
     private SuffixTree st;
 
+    /** Compact version of the suffix tree (built on demand). */
+    private CompactSuffixTree cst;
+
+    /** Entries of the dictionary whose suffixes are currently in the suffix
+     * tree (compared by identity). It is used to reject the removal of entries
+     * that are not in the tree, which would decrease the reference count of
+     * the suffixes added by other entries with the same paradigm. */
+    private Set<E> entries_in_tree=Collections.newSetFromMap(new IdentityHashMap<E, Boolean>());
+
     /**
      * Overloaded constructor for the class using a Dictionary object.
      * This method builds the suffix tree from a Dictionary object.
@@ -60,10 +72,8 @@ public class Dix2suffixtree {
      */
     public Dix2suffixtree(Dictionary dic) {
         this.dic = dic;
-        st=new SuffixTree();
-        for (Section section : dic.sections) {
-            BuildSuffixTree(section.elements);
-        }
+        st=new SuffixTree(ParadigmSymbolTable.GetSymbolTable(dic));
+        BuildSuffixTree();
     }
 
     /**
@@ -74,45 +84,211 @@ public class Dix2suffixtree {
     public Dix2suffixtree(String fileName) {
         DictionaryReader dicReader = new DictionaryReader(fileName);
         this.dic = dicReader.readDic();
-        st=new SuffixTree();
-        for (Section section : dic.sections) {
-            BuildSuffixTree(section.elements);
+        st=new SuffixTree(ParadigmSymbolTable.GetSymbolTable(dic));
+        BuildSuffixTree();
+    }
+
+    /**
+     * Overloaded constructor for the class using a Dictionary object and a
+     * compact suffix tree already built for it (for example, one opened with
+     * {@link CompactSuffixTree#Map(String, long)}). In this case the
+     * <code>SuffixTree</code> is not built, so <code>getSuffixTree()</code>
+     * returns <code>null</code> and all the queries are run on the compact tree.
+     * @param dic Dictionary object from which the suffix tree was built.
+     * @param cst Compact suffix tree corresponding to the dictionary.
+     */
+    public Dix2suffixtree(Dictionary dic, CompactSuffixTree cst) {
+        this.dic = dic;
+        this.st=null;
+        this.cst=cst;
+    }
+
+    /**
+     * Method that builds the suffix tree from the entries of the dictionary.
+     * Many entries share the same paradigm, so, instead of expanding the
+     * paradigm of every entry, this method first counts the number of entries
+     * of every paradigm that has to be included in the tree and then expands
+     * every paradigm only once (in parallel). Finally, the suffixes of every
+     * paradigm are added to the tree with a reference count equal to the number
+     * of entries using it. Paradigms are added in the order in which they
+     * first appear in the dictionary, so the resulting tree is the same as if
+     * the entries were added one by one. Entries whose paradigm is not defined
+     * in the dictionary are ignored.
+     */
+    private void BuildSuffixTree(){
+        Map<String,Integer> entries_per_paradigm=new LinkedHashMap<String, Integer>();
+        for(Section section: dic.sections){
+            for(E element: section.elements){
+                String paradigm=GetTreeParadigm(element);
+                if(paradigm!=null){
+                    entries_in_tree.add(element);
+                    Integer count=entries_per_paradigm.get(paradigm);
+                    if(count==null) {
+                        entries_per_paradigm.put(paradigm, 1);
+                    }
+                    else {
+                        entries_per_paradigm.put(paradigm, count+1);
+                    }
+                }
+            }
+        }
+        List<String> names=new ArrayList<String>(entries_per_paradigm.keySet());
+        List<Paradigm> paradigms=ParadigmRegistry.GetRegistry(dic).Compile(names);
+        for(int i=0;i<names.size();i++){
+            Paradigm par=paradigms.get(i);
+            if(par!=null && !par.isMultiword()){
+                int count=entries_per_paradigm.get(names.get(i));
+                for(Suffix suffix: par.getSuffixes()) {
+                    st.AddWord(suffix.getSuffix(), 0, names.get(i), count);
+                }
+            }
         }
     }
 
     /**
-     * Method that builds a suffix tree from the list of elements in a given
-     * dictionary. Method that builds a suffix tree from the list of elements in
-     * a given dictionary.
-     * @param elements List of elements in a section of the dictionary from which
-     * the suffix tree is built.
+     * Method that returns the paradigm of a dictionary entry if the entry has
+     * to be included in the suffix tree. Multiword entries and entries from
+     * closed categories are not included in the tree.
+     * @param element Entry of the dictionary
+     * @return Returns the name of the paradigm of the entry or <code>null</code>
+     * if the entry is not included in the tree
      */
-    private void BuildSuffixTree(List<E> elements){
-        for(E element: elements){
-            if(!element.isMultiWord() && !ClosedCategories.isClosedCategory(element, dic)){
-                Candidate c=DicEntry.GetStemParadigm(element);
-                if(c!=null){
-                    Paradigm par=new Paradigm(c.getParadigm(), dic);
-                    if(!par.isMultiword()){
-                        Set<Suffix> suffixes=par.getSuffixes();
-                        if(suffixes.size()>0){
-                            for(Suffix suffix: suffixes)
-                                st.AddWord(suffix.getSuffix(), 0, c.getParadigm());
-                        }
+    private String GetTreeParadigm(E element){
+        if(!element.isMultiWord() && !ClosedCategories.isClosedCategory(element, dic)){
+            Candidate c=DicEntry.GetStemParadigm(element);
+            if(c!=null){
+                return c.getParadigm();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method that adds the suffixes of the paradigm of a dictionary entry to
+     * the suffix tree, or removes them from it. Multiword entries, entries
+     * from closed categories and entries with multiword paradigms or with
+     * paradigms not defined in the dictionary are ignored, as when the tree is
+     * built. Entries already in the tree are not added again and entries not
+     * in the tree are not removed.
+     * @param element Entry of the dictionary
+     * @param add If <code>true</code> the suffixes are added to the tree; if
+     * <code>false</code> they are removed from it
+     * @return Returns <code>true</code> if the tree was modified and
+     * <code>false</code> otherwise
+     */
+    private boolean UpdateSuffixTree(E element, boolean add){
+        boolean modified=false;
+        String paradigm=GetTreeParadigm(element);
+        if(paradigm!=null){
+            if(add) {
+                if(!entries_in_tree.add(element)) {
+                    return false;
+                }
+            }
+            else if(!entries_in_tree.remove(element)) {
+                return false;
+            }
+            Paradigm par=ParadigmRegistry.GetParadigm(paradigm, dic);
+            if(par!=null && !par.isMultiword()){
+                for(Suffix suffix: par.getSuffixes()){
+                    if(add){
+                        st.AddWord(suffix.getSuffix(), 0, paradigm);
+                        modified=true;
+                    }
+                    else if(st.RemoveWord(suffix.getSuffix(), 0, paradigm)){
+                        modified=true;
                     }
                 }
             }
         }
+        return modified;
+    }
+
+    /**
+     * Method that adds a new entry of the dictionary to the suffix tree without
+     * building it again. The entry is not added to the dictionary: this must be
+     * done by the caller.
+     * @param element Entry to be added
+     * @return Returns <code>true</code> if the suffix tree was modified and
+     * <code>false</code> if the entry is ignored (multiword entries, closed
+     * categories, undefined paradigms, entries already in the tree, etc.)
+     */
+    public boolean addEntry(E element){
+        if(st==null) {
+            throw new IllegalStateException("The suffix tree cannot be modified: it was loaded as a compact suffix tree.");
+        }
+        boolean modified=UpdateSuffixTree(element, true);
+        if(modified) {
+            cst=null;
+        }
+        return modified;
+    }
+
+    /**
+     * Method that removes an entry of the dictionary from the suffix tree
+     * without building it again. The suffixes of the paradigm of the entry are
+     * only removed from the tree when no other entry in the tree uses them. The
+     * entry is not removed from the dictionary: this must be done by the
+     * caller. Entries are compared by identity: only the same
+     * <code>E</code> object that was in the dictionary when the tree was built,
+     * or that was added with <code>addEntry</code>, can be removed; any other
+     * entry is ignored, so the suffixes of other entries with the same paradigm
+     * are never removed by mistake.
+     * @param element Entry to be removed
+     * @return Returns <code>true</code> if the suffix tree was modified and
+     * <code>false</code> otherwise (including when the entry is not in the
+     * tree)
+     */
+    public boolean removeEntry(E element){
+        if(st==null) {
+            throw new IllegalStateException("The suffix tree cannot be modified: it was loaded as a compact suffix tree.");
+        }
+        boolean modified=UpdateSuffixTree(element, false);
+        if(modified) {
+            cst=null;
+        }
+        return modified;
     }
 
     /**
      * Method that returns the sufix tree in the class.
-     * @return Returns the <code>SuffixTree</code> stored in the class.
+     * @return Returns the <code>SuffixTree</code> stored in the class, or
+     * <code>null</code> if the object was built from a compact suffix tree.
      */
     public SuffixTree getSuffixTree(){
         return st;
     }
 
+    /**
+     * Method that returns the compact version of the suffix tree in the class.
+     * The compact tree is built from the suffix tree the first time this method
+     * is called.
+     * @return Returns the <code>CompactSuffixTree</code> corresponding to the
+     * suffix tree stored in the class.
+     */
+    public CompactSuffixTree getCompactSuffixTree(){
+        if(cst==null) {
+            cst=st.Freeze();
+        }
+        return cst;
+    }
+
+    /**
+     * Method that segments a word in all the possible candidates stem/paradigm.
+     * The segmentation is run on the suffix tree if available, or on the
+     * compact suffix tree otherwise.
+     * @param word Word to be segmented
+     * @return Returns the set of candidates stem/paradigm for the word
+     */
+    private Set<Candidate> SegmentWord(String word){
+        if(st!=null) {
+            return st.SegmentWord(word);
+        }
+        else {
+            return cst.SegmentWord(word);
+        }
+    }
+
     /**
      * Method that returns a list of ordered <code>Candidate</code> objects with
      * all the possible pairs stem/paradigm that could generate a given form.
@@ -140,13 +316,25 @@ public class Dix2suffixtree {
             String stored_plf_prefix, Map<String,Double> relation,
             boolean remove_closed_cats) {
         SortedSetOfCandidates candidates=new SortedSetOfCandidates();
-        if(st!=null){
-            Set<Candidate> result=st.SegmentWord(word);
+        //Candidates already in the list, indexed by the key of their surface
+        //forms (see Candidate.getEquivalenceKey)
+        Map<ParadigmEquivalences.Key,EquivalentCandidates> bykey=
+                new HashMap<ParadigmEquivalences.Key, EquivalentCandidates>();
+        if(st!=null || cst!=null){
+            Set<Candidate> result=SegmentWord(word);
             
             for(Candidate c: result){
                 if(!remove_closed_cats || !c.isClosedCategoryParadigm(dic)){
-                    Paradigm par=new Paradigm(dic.pardefs.getParadigmDefinition(c.getParadigm()), dic);
+                    Paradigm par=ParadigmRegistry.GetParadigm(c.getParadigm(), dic);
                     if(par.getSuffixes().size()>0){
+                        ParadigmEquivalences.Key key=c.getEquivalenceKey(dic);
+                        EquivalentCandidates qc=bykey.get(key);
+                        if(qc!=null){
+                            //The candidate generates the same surface forms as
+                            //another one already in the list
+                            qc.addCandidate(c);
+                            continue;
+                        }
                         ParadigmProfiler plf=null;
                         if(stored_plf_prefix!=null){
                             ObjectInputStream plf_ois;
@@ -175,34 +363,24 @@ public class Dix2suffixtree {
                             plf.BuildProfiles(wordlist);
                         }
                         ScoredSurfaceFormsSet sfs=new ScoredSurfaceFormsSet(c.getStem(), par.getName(), dic, plf);
-                        boolean added=false;
-
-                        for(EquivalentCandidates qc: candidates.getCandidates()){
-                            if(qc.getSurfaceForms(dic).equals(sfs.getSurfaceForms())){
-                                qc.addCandidate(c);
-                                added=true;
-                                break;
-                            }
+                        DictionaryWord lf=new DictionaryWord(c.getStem());
+                        lf.setProfile(par, wordlist);
+                        plf.AddWord(lf);
+                        double correl;
+                        if(relation==null) {
+                            correl=1;
                         }
-                        if(!added){
-                            DictionaryWord lf=new DictionaryWord(c.getStem());
-                            lf.setProfile(par, wordlist);
-                            plf.AddWord(lf);
-                            double correl;
-                            if(relation==null) {
-                                correl=1;
+                        else{
+                            if(relation.containsKey(c.getParadigm())) {
+                                correl=relation.get(c.getParadigm());
                             }
-                            else{
-                                if(relation.containsKey(c.getParadigm())) {
-                                    correl=relation.get(c.getParadigm());
-                                }
-                                else {
-                                    correl=1.0/(double)(relation.size()*10);
-                                }
+                            else {
+                                correl=1.0/(double)(relation.size()*10);
                             }
-                            //System.out.println(plf.getPercentil(lf)+"\t"+plf.getSurfaceFormAparition(lf, 0.1)+"\t"+paradigm.getFirst()+"\t"+paradigm.getSecond());
-                            candidates.addCandidate(c,plf.getSurfaceFormAparition(lf, 0.1)*correl, sfs);
                         }
+                        //System.out.println(plf.getPercentil(lf)+"\t"+plf.getSurfaceFormAparition(lf, 0.1)+"\t"+paradigm.getFirst()+"\t"+paradigm.getSecond());
+                        bykey.put(key, candidates.addCandidate(c,
+                                plf.getSurfaceFormAparition(lf, 0.1)*correl, sfs));
                     }
                 }
             }
@@ -236,22 +414,25 @@ public class Dix2suffixtree {
     public SortedSetOfCandidates CheckNewWordCatLex(String string, Vocabulary wordlist,
             String stored_plf_prefix, Map<String,Double> relation, boolean remove_closed_cats) {
         SortedSetOfCandidates candidates=new SortedSetOfCandidates();
-        if(st!=null){
-            Set<Candidate> result=st.SegmentWord(string);
+        //Candidates already in the list, indexed by the key of their surface
+        //forms (see Candidate.getEquivalenceKey)
+        Map<ParadigmEquivalences.Key,EquivalentCandidates> bykey=
+                new HashMap<ParadigmEquivalences.Key, EquivalentCandidates>();
+        if(st!=null || cst!=null){
+            Set<Candidate> result=SegmentWord(string);
             for(Candidate c: result){
                 if(!remove_closed_cats || ! c.isClosedCategoryParadigm(dic)){
-                    Paradigm par=new Paradigm(dic.pardefs.getParadigmDefinition(c.getParadigm()), dic);
+                    Paradigm par=ParadigmRegistry.GetParadigm(c.getParadigm(), dic);
                     if(par.getSuffixes().size()>0){
                         ParadigmProfiler plf=null;
-                        boolean added=false;
-                        Set<String> surfaceforms=c.GetSurfaceForms(dic);
-                        for(EquivalentCandidates qc: candidates.getCandidates()){
-                            if(qc.getSurfaceForms(dic).equals(surfaceforms)){
-                                qc.addCandidate(c);
-                                added=true;
-                            }
+                        ParadigmEquivalences.Key key=c.getEquivalenceKey(dic);
+                        EquivalentCandidates qc=bykey.get(key);
+                        if(qc!=null){
+                            //The candidate generates the same surface forms as
+                            //another one already in the list
+                            qc.addCandidate(c);
                         }
-                        if(!added){
+                        else{
                             if(stored_plf_prefix!=null){
                                 ObjectInputStream plf_ois;
                                 try{
@@ -295,7 +476,8 @@ public class Dix2suffixtree {
                             }
                             ScoredSurfaceFormsSet sfs=new ScoredSurfaceFormsSet(c.getStem(), par.getName(), dic, plf);
                             //System.out.println(plf.getPercentil(lf)+"\t"+plf.getSurfaceFormAparition(lf, 0.1)+"\t"+paradigm.getFirst()+"\t"+paradigm.getSecond());
-                            candidates.addCandidate(c,plf.getSurfaceFormAparition(lf, 0.1)*correl, sfs);
+                            bykey.put(key, candidates.addCandidate(c,
+                                    plf.getSurfaceFormAparition(lf, 0.1)*correl, sfs));
                         }
                     }
                 }
@@ -0,0 +1,62 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+package es.ua.dlsi.suffixtree;
+
+/**
+ * Interface implemented by the suffix trees which keep counters of their
+ * segmentations and can compute statistics about their shape, so they can be
+ * monitored with {@link SuffixTreeMonitor}.
+ * @author Miquel Esplà i Gomis
+ */
+public interface MonitoredSuffixTree {
+    /**
+     * Method that computes the statistics about the shape of the tree.
+     * @return Returns the statistics of the tree
+     */
+    SuffixTreeStatistics getStatistics();
+
+    /**
+     * Method that returns the number of words segmented with the tree since it
+     * was built or since the last call to <code>ResetCounters()</code>.
+     * @return Returns the number of words segmented
+     */
+    long getSegmentWordCalls();
+
+    /**
+     * Method that returns the number of nodes visited while walking down the
+     * tree to segment words.
+     * @return Returns the number of nodes visited
+     */
+    long getNodesVisited();
+
+    /**
+     * Method that returns the number of candidates produced while segmenting
+     * words.
+     * @return Returns the number of candidates produced
+     */
+    long getCandidatesEmitted();
+
+    /**
+     * Method that sets the segmentation counters of the tree to zero.
+     */
+    void ResetCounters();
+}
@@ -22,7 +22,10 @@
 
 package es.ua.dlsi.suffixtree;
 
+import es.ua.dlsi.monolingual.ParadigmSymbolTable;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -38,8 +41,16 @@ public class Node implements Serializable{
     /** Flag that indicates that, going from this node to the root, a suffix can be built */
     private boolean startingsuffix;
 
-    /** Set of names of paradigms that produce the the suffix */
-    private Set<String> paradigm;
+    /** Identifiers of the paradigms that produce the the suffix, in the order
+     * in which they were added (<code>null</code> if there are none) */
+    private int[] paradigm;
+
+    /** Number of times that every paradigm in <code>paradigm</code> has been
+     * added to the node (reference counts used to remove words from the tree) */
+    private int[] paradigm_count;
+
+    /** Symbol table with the identifiers of the paradigms in the tree */
+    private ParadigmSymbolTable symbols;
     
     /** Parent node */
     private Node parent;
@@ -69,10 +80,84 @@ public class Node implements Serializable{
 
     /**
      * Method that returns the set of names of the paradigms producing the suffix.
-     * @return Returns the set of names of the paradigms producing the suffix.
+     * The set is built from the identifiers of the paradigms stored in the node;
+     * to avoid building it, use <code>NumberOfParadigms()</code>,
+     * <code>getParadigmId(int)</code> or <code>hasParadigm(int)</code>.
+     * @return Returns the set of names of the paradigms producing the suffix or
+     * <code>null</code> if there are none.
      */
     public Set<String> getParadigmNames(){
-        return paradigm;
+        if(paradigm==null) {
+            return null;
+        }
+        Set<String> exit=new LinkedHashSet<String>();
+        for(int id: paradigm){
+            exit.add(symbols.getName(id));
+        }
+        return exit;
+    }
+
+    /**
+     * Method that returns the number of paradigms producing the suffix.
+     * @return Returns the number of paradigms producing the suffix.
+     */
+    public int NumberOfParadigms(){
+        if(paradigm==null) {
+            return 0;
+        }
+        else {
+            return paradigm.length;
+        }
+    }
+
+    /**
+     * Method that returns the identifier of the i-th paradigm producing the suffix.
+     * @param i Position of the paradigm in the node
+     * @return Returns the identifier of the paradigm in the symbol table of the tree
+     */
+    public int getParadigmId(int i){
+        return paradigm[i];
+    }
+
+    /**
+     * Method that checks if a paradigm produces the suffix.
+     * @param id Identifier of the paradigm in the symbol table of the tree
+     * @return Returns <code>true</code> if the paradigm produces the suffix and
+     * <code>false</code> otherwise
+     */
+    public boolean hasParadigm(int id){
+        if(paradigm!=null){
+            for(int p: paradigm){
+                if(p==id) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method that returns the set of paradigms producing the suffix as a
+     * <code>BitSet</code> indexed by the identifiers of the paradigms.
+     * @return Returns a new <code>BitSet</code> with the paradigms producing the suffix
+     */
+    public BitSet getParadigmSet(){
+        BitSet exit=new BitSet(symbols.size());
+        if(paradigm!=null){
+            for(int id: paradigm){
+                exit.set(id);
+            }
+        }
+        return exit;
+    }
+
+    /**
+     * Method that returns the symbol table with the identifiers of the paradigms
+     * in the tree to which the node belongs.
+     * @return Returns the symbol table of the paradigms
+     */
+    public ParadigmSymbolTable getSymbolTable(){
+        return symbols;
     }
 
     /**
@@ -80,21 +165,105 @@ public class Node implements Serializable{
      * @param name Name of the new paradigm to be added to the list.
      */
     public void addParadigmName(String name){
+        addParadigm(symbols.getOrAddId(name));
+    }
+
+    /**
+     * Method that adds a new paradigm to the list of paradigms generating the
+     * suffix. If the paradigm is already in the list, its reference count is
+     * increased.
+     * @param id Identifier of the paradigm in the symbol table of the tree.
+     */
+    public void addParadigm(int id){
+        addParadigm(id, 1);
+    }
+
+    /**
+     * Method that adds a new paradigm to the list of paradigms generating the
+     * suffix with a given reference count (for example, the number of entries
+     * of the dictionary using the paradigm). If the paradigm is already in the
+     * list, its reference count is increased by this amount.
+     * @param id Identifier of the paradigm in the symbol table of the tree.
+     * @param count Number of references to be added.
+     */
+    public void addParadigm(int id, int count){
         if(paradigm==null) {
-            this.paradigm=new LinkedHashSet<String>();
+            this.paradigm=new int[]{id};
+            this.paradigm_count=new int[]{count};
+        }
+        else{
+            for(int p=0;p<paradigm.length;p++){
+                if(paradigm[p]==id){
+                    paradigm_count[p]+=count;
+                    return;
+                }
+            }
+            this.paradigm=Arrays.copyOf(paradigm, paradigm.length+1);
+            this.paradigm[paradigm.length-1]=id;
+            this.paradigm_count=Arrays.copyOf(paradigm_count, paradigm_count.length+1);
+            this.paradigm_count[paradigm_count.length-1]=count;
+        }
+    }
+
+    /**
+     * Method that decreases the reference count of a paradigm generating the
+     * suffix and removes it from the list when the count reaches zero.
+     * @param id Identifier of the paradigm in the symbol table of the tree.
+     * @return Returns <code>true</code> if the paradigm was in the list and
+     * <code>false</code> otherwise.
+     */
+    public boolean removeParadigm(int id){
+        if(paradigm!=null){
+            for(int p=0;p<paradigm.length;p++){
+                if(paradigm[p]==id){
+                    paradigm_count[p]--;
+                    if(paradigm_count[p]==0){
+                        if(paradigm.length==1){
+                            this.paradigm=null;
+                            this.paradigm_count=null;
+                        }
+                        else{
+                            int[] newparadigm=new int[paradigm.length-1];
+                            int[] newcount=new int[paradigm.length-1];
+                            System.arraycopy(paradigm, 0, newparadigm, 0, p);
+                            System.arraycopy(paradigm, p+1, newparadigm, p, paradigm.length-p-1);
+                            System.arraycopy(paradigm_count, 0, newcount, 0, p);
+                            System.arraycopy(paradigm_count, p+1, newcount, p, paradigm.length-p-1);
+                            this.paradigm=newparadigm;
+                            this.paradigm_count=newcount;
+                        }
+                    }
+                    return true;
+                }
+            }
         }
-        paradigm.add(name.intern());
+        return false;
     }
 
     /**
-     * Constructor of the class.
+     * Constructor of the class. The node uses the same symbol table for the
+     * paradigms as its parent node (or a new one if it has no parent).
+     * @param parent Parent node
+     * @param character Character of the node
      */
     public Node(Node parent, Character character){
+        this(parent, character, (parent==null)? new ParadigmSymbolTable(): parent.symbols);
+    }
+
+    /**
+     * Overloaded constructor of the class.
+     * @param parent Parent node
+     * @param character Character of the node
+     * @param symbols Symbol table with the identifiers of the paradigms
+     */
+    public Node(Node parent, Character character, ParadigmSymbolTable symbols){
         this.startingsuffix=false;
         this.paradigm=null;
+        this.paradigm_count=null;
         this.children=null;
         this.parent=parent;
         this.character=character;
+        this.symbols=symbols;
         //this.ambiguous=null;
     }
 
@@ -110,6 +279,20 @@ public class Node implements Serializable{
         children.put(SuffixTree.GetCharObject(character),n);
     }
 
+    /**
+     * Method that removes the child of the current node reached through a
+     * given character.
+     * @param character Character that drives to the node to be removed.
+     */
+    public void RemoveChild(char character){
+        if(children!=null){
+            children.remove(character);
+            if(children.isEmpty()) {
+                this.children=null;
+            }
+        }
+    }
+
     /**
      * Method that returns the map with all the children hanging from the current node.
      * @return Returns a hash map with the characters to be added to the current suffix and the
@@ -162,6 +345,20 @@ public class Node implements Serializable{
      * @param debug Flag that indicates if the debug information should be printed.
      */
     public void InsertWord(String word, int currentpos, int startingsuffixpos, String paradigm, boolean debug){
+        InsertWord(word, currentpos, startingsuffixpos, paradigm, 1, debug);
+    }
+
+    /**
+     * Method that adds a new word in the suffix tree with a given reference
+     * count for the paradigm (see <code>addParadigm(int, int)</code>).
+     * @param word The whole word to be added to the tree.
+     * @param currentpos The current position in the addition.
+     * @param startingsuffixpos Variable which indicates in which position of the word the suffix starts.
+     * @param paradigm Paradigm which generates the surface form to be added.
+     * @param count Number of references of the paradigm to be added.
+     * @param debug Flag that indicates if the debug information should be printed.
+     */
+    public void InsertWord(String word, int currentpos, int startingsuffixpos, String paradigm, int count, boolean debug){
         if(currentpos>=0){
             Node n=getChild(word.charAt(currentpos));
             if(n!=null){
@@ -174,10 +371,10 @@ public class Node implements Serializable{
                     }
                     n.setStartingsuffix(true);
                     //n.InsertWord(word, currentpos-1, debug);
-                    n.addParadigmName(paradigm);
+                    n.addParadigm(symbols.getOrAddId(paradigm), count);
                 }
                 else{
-                    n.InsertWord(word, currentpos-1, startingsuffixpos, paradigm, debug);
+                    n.InsertWord(word, currentpos-1, startingsuffixpos, paradigm, count, debug);
                 }
             }
             else {
@@ -191,10 +388,10 @@ public class Node implements Serializable{
                     }
                     newnode.setStartingsuffix(true);
                     //newnode.InsertWord(word, currentpos-1, debug);
-                    newnode.addParadigmName(paradigm);
+                    newnode.addParadigm(symbols.getOrAddId(paradigm), count);
                 }
                 else{
-                    newnode.InsertWord(word, currentpos-1, startingsuffixpos, paradigm, debug);
+                    newnode.InsertWord(word, currentpos-1, startingsuffixpos, paradigm, count, debug);
                 }
                 AddChild(word.charAt(currentpos),newnode);
                 if(debug) {
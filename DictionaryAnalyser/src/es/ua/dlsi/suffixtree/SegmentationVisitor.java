@@ -0,0 +1,44 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.suffixtree;
+
+/**
+ * Interface for the objects that receive the candidates stem/paradigm found by
+ * <code>SuffixTree.SegmentWord(String, SegmentationVisitor)</code>. Instead of
+ * building a <code>Candidate</code> object for every segmentation of the word,
+ * the tree calls the method <code>Visit</code> of this interface, so the caller
+ * can count, filter or build the candidates it really needs.
+ * @author Miquel Esplà i Gomis
+ */
+public interface SegmentationVisitor {
+    /**
+     * Method called by the suffix tree for every candidate stem/paradigm found
+     * for a word.
+     * @param stemend Position of the word in which the stem ends (and the
+     * suffix starts), i.e. the stem is <code>word.substring(0, stemend)</code>
+     * @param paradigm Identifier of the paradigm in the suffix tree (see
+     * <code>SuffixTree.getParadigmName(int)</code>)
+     * @param node Node of the suffix tree corresponding to the suffix
+     */
+    void Visit(int stemend, int paradigm, Node node);
+}
@@ -23,30 +23,92 @@
 package es.ua.dlsi.suffixtree;
 
 import es.ua.dlsi.monolingual.Candidate;
+import es.ua.dlsi.monolingual.ParadigmSymbolTable;
 import java.io.Serializable;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class that implements a suffix tree. The suffix tree implemented in this class
  * can be used to get the possible candidates generating a surface form.
  * @author Miquel Esplà i Gomis
  */
-public class SuffixTree implements Serializable{
+public class SuffixTree implements Serializable, MonitoredSuffixTree{
     /** Root node of the suffix tree */
     public Node rootnode;
 
     /** Map between the characters in the tree and the memory position. This variable
      is intended to be useful in terms of eficiency when building the tree.*/
-    static private HashMap<Character,Character> chars=new HashMap<Character,Character>();
+    static private ConcurrentHashMap<Character,Character> chars=new ConcurrentHashMap<Character,Character>();
+
+    /** Number of words segmented with the tree. */
+    private final AtomicLong segmentword_calls=new AtomicLong();
+
+    /** Number of nodes visited while segmenting words. */
+    private final AtomicLong nodes_visited=new AtomicLong();
+
+    /** Number of candidates produced while segmenting words. */
+    private final AtomicLong candidates_emitted=new AtomicLong();
 
     /**
      * Class constructor.
      */
     public SuffixTree(){
-        rootnode=new Node(null,null);
+        this(new ParadigmSymbolTable());
+    }
+
+    /**
+     * Overloaded class constructor that uses a given symbol table for the
+     * identifiers of the paradigms (usually, the one of the dictionary from
+     * which the tree is built; see <code>ParadigmSymbolTable.GetSymbolTable</code>).
+     * @param symbols Symbol table with the identifiers of the paradigms
+     */
+    public SuffixTree(ParadigmSymbolTable symbols){
+        rootnode=new Node(null,null,symbols);
+    }
+
+    /**
+     * Method that returns the symbol table with the identifiers of the
+     * paradigms in the tree.
+     * @return Returns the symbol table of the paradigms
+     */
+    public ParadigmSymbolTable getSymbolTable(){
+        return rootnode.getSymbolTable();
+    }
+
+    /**
+     * Method that returns the identifier of a paradigm in the tree.
+     * @param paradigm Name of the paradigm
+     * @return Returns the identifier of the paradigm or -1 if the paradigm is
+     * not in the symbol table of the tree
+     */
+    public int getParadigmId(String paradigm){
+        return rootnode.getSymbolTable().getId(paradigm);
+    }
+
+    /**
+     * Method that returns the name of a paradigm given its identifier in the tree.
+     * @param id Identifier of the paradigm
+     * @return Returns the name of the paradigm
+     */
+    public String getParadigmName(int id){
+        return rootnode.getSymbolTable().getName(id);
+    }
+
+    /**
+     * Method that returns the number of paradigms in the symbol table of the tree.
+     * @return Returns the number of paradigms in the symbol table of the tree
+     */
+    public int NumberOfParadigms(){
+        return rootnode.getSymbolTable().size();
     }
 
     /**
@@ -61,28 +123,91 @@ public class SuffixTree implements Serializable{
         Character c=chars.get(character);
         if(c==null){
             c=new Character(character);
-            chars.put(c,c);
-            return c;
-        }
-        else {
-            return c;
+            Character previous=chars.putIfAbsent(c,c);
+            if(previous!=null) {
+                return previous;
+            }
         }
+        return c;
     }
 
     /**
-     * Method that adds a new word to the tree.
+     * Method that adds a new word to the tree. If the suffix of the word was
+     * already in the tree for the same paradigm, its reference count is
+     * increased (see <code>RemoveWord</code>).
      * @param word Word to be added to the tree
      * @param startingsuffixpos Position of the word in which the suffix starts
      * @param paradigm Paradigm which generates this word
      */
     public void AddWord(String word, int startingsuffixpos, String paradigm){
+        AddWord(word, startingsuffixpos, paradigm, 1);
+    }
+
+    /**
+     * Method that adds a new word to the tree a given number of times. This is
+     * equivalent to calling <code>AddWord(word, startingsuffixpos, paradigm)</code>
+     * <code>count</code> times, but the word is only inserted once.
+     * @param word Word to be added to the tree
+     * @param startingsuffixpos Position of the word in which the suffix starts
+     * @param paradigm Paradigm which generates this word
+     * @param count Number of times that the word is added
+     */
+    public void AddWord(String word, int startingsuffixpos, String paradigm, int count){
         if(startingsuffixpos==word.length()){
-            rootnode.addParadigmName(paradigm);
+            rootnode.addParadigm(rootnode.getSymbolTable().getOrAddId(paradigm), count);
             //rootnode.InsertWord(word, word.length()-1, false);
         }
         else {
-            rootnode.InsertWord(word, word.length()-1, startingsuffixpos, paradigm, false);
+            rootnode.InsertWord(word, word.length()-1, startingsuffixpos, paradigm, count, false);
+        }
+    }
+
+    /**
+     * Method that removes a word previously added to the tree with
+     * <code>AddWord</code>. Every node keeps a reference count for each of its
+     * paradigms, so the paradigm is only removed from the node when all the
+     * words adding it have been removed; then, the nodes which have been left
+     * without paradigms and without children are pruned from the tree.
+     * @param word Word to be removed from the tree
+     * @param startingsuffixpos Position of the word in which the suffix starts
+     * @param paradigm Paradigm which generates this word
+     * @return Returns <code>true</code> if the word was in the tree and
+     * <code>false</code> otherwise
+     */
+    public boolean RemoveWord(String word, int startingsuffixpos, String paradigm){
+        int id=getParadigmId(paradigm);
+        if(id<0) {
+            return false;
+        }
+        Node node=this.rootnode;
+        for(int pos=word.length()-1;node!=null && pos>=startingsuffixpos;pos--){
+            node=node.getChild(word.charAt(pos));
+        }
+        if(node==null || !node.removeParadigm(id)) {
+            return false;
+        }
+        if(node!=this.rootnode && node.NumberOfParadigms()==0){
+            node.setStartingsuffix(false);
+            while(node!=this.rootnode && node.NumberOfParadigms()==0 &&
+                    node.getChildren()==null){
+                Node parent=node.GetParent();
+                parent.RemoveChild(node.GetChar());
+                node=parent;
+            }
         }
+        return true;
+    }
+
+    /**
+     * Method that returns an immutable version of the tree. The
+     * <code>SuffixTree</code> can be modified (for example, by adding new words)
+     * and, therefore, it is not safe to share it between threads. This method
+     * builds a <code>CompactSuffixTree</code> with the same content, which
+     * cannot be modified and can be queried concurrently.
+     * @return Returns an immutable compact version of the tree
+     */
+    public CompactSuffixTree Freeze(){
+        return new CompactSuffixTree(this);
     }
 
     /**
@@ -139,19 +264,233 @@ public class SuffixTree implements Serializable{
      * @param word Word to be segmented.
      * @return Returns a set of candidates stem/paradigm.
      */
-    public Set<Candidate> SegmentWord(String word) {
-        Set<Candidate> exit=new LinkedHashSet<Candidate>();
-        if(this.rootnode.getParadigmNames()!=null){
-            for(String s: this.rootnode.getParadigmNames()){
-                Candidate candidate=new Candidate(word,s);
+    public Set<Candidate> SegmentWord(final String word) {
+        final Set<Candidate> exit=new LinkedHashSet<Candidate>();
+        SegmentWord(word, new SegmentationVisitor() {
+            @Override
+            public void Visit(int stemend, int paradigm, Node node) {
+                Candidate candidate=new Candidate(word,stemend,
+                        getParadigmName(paradigm));
+                candidate.setReftotree(node);
+                exit.add(candidate);
+            }
+        });
+        return exit;
+    }
+
+    /**
+     * Method that segments a given word in all the possible combinations
+     * stem/suffix given the suffixes in the tree, and passes every one of them
+     * to a visitor. This method does not build any object: the tree is walked
+     * down from the root following the word from its last character, and then
+     * back up to the root through the parent nodes, calling the visitor for
+     * every paradigm of the nodes where a suffix starts. The candidates are
+     * visited in the same order as in <code>SegmentWord(String)</code>: first
+     * the paradigms of the root (empty suffix) and then from the longest to
+     * the shortest suffix.
+     * @param word Word to be segmented.
+     * @param visitor Visitor which receives the candidates.
+     */
+    public void SegmentWord(String word, SegmentationVisitor visitor) {
+        int candidates=this.rootnode.NumberOfParadigms();
+        for(int p=0;p<this.rootnode.NumberOfParadigms();p++){
+            visitor.Visit(word.length(), this.rootnode.getParadigmId(p), this.rootnode);
+        }
+        Node currnode=this.rootnode;
+        int position=word.length();
+        while(position>0){
+            Node next=currnode.getChild(word.charAt(position-1));
+            if(next==null) {
+                break;
+            }
+            currnode=next;
+            position--;
+        }
+        int visited=word.length()-position;
+        while(currnode!=this.rootnode){
+            if(currnode.isStartingsuffix()){
+                candidates+=currnode.NumberOfParadigms();
+                for(int p=0;p<currnode.NumberOfParadigms();p++){
+                    visitor.Visit(position, currnode.getParadigmId(p), currnode);
+                }
+            }
+            currnode=currnode.GetParent();
+            position++;
+        }
+        segmentword_calls.incrementAndGet();
+        nodes_visited.addAndGet(visited);
+        candidates_emitted.addAndGet(candidates);
+    }
+
+    /**
+     * Method that segments a list of words in all the possible candidates
+     * stem/paradigm. Since the tree is built on the reversed suffixes, words
+     * sharing their ending follow the same path from the root. The words are
+     * processed sorted by their reversed form, so the path matching the ending
+     * shared with the previous word is reused and only the rest of the word is
+     * looked up in the tree. The result is the same as calling
+     * <code>SegmentWord(String)</code> for every word.
+     * @param words List of words to be segmented.
+     * @return Returns a list with the set of candidates of every word, in the
+     * same order as the list of words.
+     */
+    public List<Set<Candidate>> SegmentWords(List<String> words) {
+        String[] input=words.toArray(new String[words.size()]);
+        Integer[] order=ReverseSortedOrder(input);
+        List<Set<Candidate>> output=new ArrayList<Set<Candidate>>(
+                Collections.<Set<Candidate>>nCopies(input.length, null));
+        Node[] path=new Node[16];
+        path[0]=this.rootnode;
+        String previous=null;
+        int previousdepth=0;
+        long visited=0, candidates=0;
+        for(Integer i: order){
+            String word=input[i];
+            if(path.length<=word.length()) {
+                path=Arrays.copyOf(path, Math.max(word.length()+1, path.length*2));
+            }
+            //Reusing the nodes matching the ending shared with the previous word
+            int depth=0;
+            if(previous!=null) {
+                depth=CommonSuffixLength(previous, word, previousdepth);
+            }
+            int reused=depth;
+            while(depth<word.length()){
+                Node next=path[depth].getChild(word.charAt(word.length()-depth-1));
+                if(next==null) {
+                    break;
+                }
+                depth++;
+                path[depth]=next;
+            }
+            visited+=depth-reused;
+            Set<Candidate> exit=new LinkedHashSet<Candidate>();
+            for(int p=0;p<this.rootnode.NumberOfParadigms();p++){
+                Candidate candidate=new Candidate(word,
+                        getParadigmName(this.rootnode.getParadigmId(p)));
                 candidate.setReftotree(this.rootnode);
                 exit.add(candidate);
             }
+            for(int d=depth;d>0;d--){
+                Node node=path[d];
+                if(node.isStartingsuffix()){
+                    for(int p=0;p<node.NumberOfParadigms();p++){
+                        Candidate candidate=new Candidate(word,word.length()-d,
+                                getParadigmName(node.getParadigmId(p)));
+                        candidate.setReftotree(node);
+                        exit.add(candidate);
+                    }
+                }
+            }
+            candidates+=exit.size();
+            output.set(i, exit);
+            previous=word;
+            previousdepth=depth;
         }
-        SegmentWord(word, word.length()-1, exit, this.rootnode);
-        return exit;
+        segmentword_calls.addAndGet(input.length);
+        nodes_visited.addAndGet(visited);
+        candidates_emitted.addAndGet(candidates);
+        return output;
+    }
+
+    /**
+     * Method that returns the positions of a list of words sorted by the
+     * reversed form of the words, so words sharing their ending are
+     * consecutive.
+     * @param words Words to be sorted
+     * @return Returns the positions of the words in the array sorted by their
+     * reversed form
+     */
+    static Integer[] ReverseSortedOrder(final String[] words){
+        Integer[] order=new Integer[words.length];
+        for(int i=0;i<words.length;i++) {
+            order[i]=i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                String wa=words[a], wb=words[b];
+                int pa=wa.length()-1, pb=wb.length()-1;
+                while(pa>=0 && pb>=0){
+                    char ca=wa.charAt(pa), cb=wb.charAt(pb);
+                    if(ca!=cb) {
+                        return (ca<cb)? -1: 1;
+                    }
+                    pa--;
+                    pb--;
+                }
+                return wa.length()-wb.length();
+            }
+        });
+        return order;
     }
-    
+
+    /**
+     * Method that returns the length of the ending shared by two words, up to
+     * a given maximum.
+     * @param a First word
+     * @param b Second word
+     * @param max Maximum length to be checked
+     * @return Returns the number of characters shared by the end of both words
+     * (at most <code>max</code>)
+     */
+    static int CommonSuffixLength(String a, String b, int max){
+        int common=0;
+        int limit=Math.min(max, Math.min(a.length(), b.length()));
+        while(common<limit && a.charAt(a.length()-common-1)==b.charAt(b.length()-common-1)){
+            common++;
+        }
+        return common;
+    }
+
+    /**
+     * Method that returns the number of words segmented with the tree since it
+     * was built or since the last call to <code>ResetCounters()</code>.
+     * @return Returns the number of words segmented
+     */
+    public long getSegmentWordCalls(){
+        return segmentword_calls.get();
+    }
+
+    /**
+     * Method that returns the number of nodes visited while walking down the
+     * tree to segment words. When segmenting a list of words with
+     * <code>SegmentWords</code>, the nodes reused from the previous word are
+     * not counted.
+     * @return Returns the number of nodes visited
+     */
+    public long getNodesVisited(){
+        return nodes_visited.get();
+    }
+
+    /**
+     * Method that returns the number of candidates produced while segmenting
+     * words.
+     * @return Returns the number of candidates produced
+     */
+    public long getCandidatesEmitted(){
+        return candidates_emitted.get();
+    }
+
+    /**
+     * Method that sets the segmentation counters of the tree to zero.
+     */
+    public void ResetCounters(){
+        segmentword_calls.set(0);
+        nodes_visited.set(0);
+        candidates_emitted.set(0);
+    }
+
+    /**
+     * Method that computes the statistics about the shape of the tree: number
+     * of nodes and leaves, histograms of fan-out, depth and paradigms per node
+     * and estimated memory retained.
+     * @return Returns the statistics of the tree
+     */
+    public SuffixTreeStatistics getStatistics(){
+        return new SuffixTreeStatistics(this);
+    }
+
     /**
      * Method that returns the node matching a given suffix. Method that returns
      * the node matching a given suffix.
@@ -166,50 +505,6 @@ public class SuffixTree implements Serializable{
         return currnode;
     }
 
-    /**
-     * Sub method for segmenting a word in all the possible candidates.
-     * This method is used by <code>SegmentWord(String word)</code> in a recursive
-     * fashion in order to build all the possible candidates stem/paradigm from
-     * a given surface form.
-     * @param word
-     * @param currentposition
-     * @param steamparadigm
-     * @param currentnode 
-     */
-    private void SegmentWord(String word, int currentposition,
-            Set<Candidate> steamparadigm, Node currentnode) {
-        if(currentposition>=0){
-            Node node=currentnode.getChild(word.charAt(currentposition));
-            if(node!=null){
-                SegmentWord(word,currentposition-1,steamparadigm,node);
-                if(node.isStartingsuffix() && node.getParadigmNames()!=null){
-                    for(String s: node.getParadigmNames()){
-                        String stem=word.substring(0,currentposition);
-                        //System.out.println(word.substring(0, currentposition)+"/"+word.charAt(currentposition)+": "+s);
-                        /*Inflections inf=new Inflections(steam,s);
-                        Set<StringBuilder> inflected_words=GenerateAllInflexions(steam,s,dic);
-                        for(StringBuilder inflected_word: inflected_words){
-                            inf.addInflection(inflected_word.toString());
-                        }
-                        boolean inserted=false;
-                        for(Inflections prev_inf: inflections){
-                            if(prev_inf.CompareInflections(inf)){
-                                prev_inf.addParadigm(steam,s);
-                                inserted=true;
-                                break;
-                            }
-                        }
-                        if(!inserted)
-                            inflections.add(inf);*/
-                        Candidate ncandidate=new Candidate(stem,s);
-                        ncandidate.setReftotree(node);
-                        steamparadigm.add(ncandidate);
-                    }
-                }
-            }
-        }
-    }
-    
     /**
      * Method that returns the list of leaf nodes in the tree.
      * Method that runs all over the suffix tree and returns a set containing
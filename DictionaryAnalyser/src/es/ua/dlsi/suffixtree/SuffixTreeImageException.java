@@ -0,0 +1,42 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.suffixtree;
+
+import java.io.IOException;
+
+/**
+ * Exception class which is thrown when a binary image of a suffix tree cannot
+ * be used: the file is not an image of the tree, it was written with a
+ * different version of the format, it is truncated or it was built from a
+ * different version of the dictionary.
+ * @author Miquel Esplà i Gomis
+ */
+public class SuffixTreeImageException extends IOException {
+    /**
+     * Constructor of the class.
+     * @param message Message describing the problem found in the image
+     */
+    public SuffixTreeImageException(String message){
+        super(message);
+    }
+}
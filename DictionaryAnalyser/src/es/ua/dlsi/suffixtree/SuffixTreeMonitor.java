@@ -0,0 +1,125 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+package es.ua.dlsi.suffixtree;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class that exposes the statistics and the segmentation counters of a suffix
+ * tree (either a <code>SuffixTree</code> or a <code>CompactSuffixTree</code>)
+ * through JMX, so they can be inspected with tools such as JConsole while
+ * the tree is in use. The statistics of the shape of the tree are computed
+ * when the object is built and can be updated with
+ * <code>RefreshStatistics()</code>.
+ * @author Miquel Esplà i Gomis
+ */
+public class SuffixTreeMonitor implements SuffixTreeMonitorMBean {
+
+    /** Suffix tree monitored. */
+    private final MonitoredSuffixTree suffixtree;
+
+    /** Last statistics computed for the tree. */
+    private volatile SuffixTreeStatistics statistics;
+
+    /**
+     * Constructor of the class.
+     * @param suffixtree Suffix tree to be monitored
+     */
+    public SuffixTreeMonitor(MonitoredSuffixTree suffixtree){
+        this.suffixtree=suffixtree;
+        this.statistics=suffixtree.getStatistics();
+    }
+
+    /**
+     * Method that registers a monitor for a suffix tree in the platform MBean
+     * server.
+     * @param suffixtree Suffix tree to be monitored
+     * @param name Name used to identify the tree in the MBean server
+     * @return Returns the monitor registered
+     * @throws JMException If the monitor could not be registered
+     */
+    public static SuffixTreeMonitor Register(MonitoredSuffixTree suffixtree, String name)
+            throws JMException{
+        SuffixTreeMonitor monitor=new SuffixTreeMonitor(suffixtree);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(monitor,
+                new ObjectName("es.ua.dlsi.suffixtree:type=SuffixTree,name="+
+                ObjectName.quote(name)));
+        return monitor;
+    }
+
+    @Override
+    public int getNodeCount(){
+        return statistics.getNodeCount();
+    }
+
+    @Override
+    public int getLeafCount(){
+        return statistics.getLeafCount();
+    }
+
+    @Override
+    public long getParadigmLabelCount(){
+        return statistics.getParadigmLabelCount();
+    }
+
+    @Override
+    public int getMaxDepth(){
+        return statistics.getMaxDepth();
+    }
+
+    @Override
+    public long getEstimatedRetainedBytes(){
+        return statistics.getEstimatedRetainedBytes();
+    }
+
+    @Override
+    public String getStatisticsJSON(){
+        return statistics.toJSON().toJSONString();
+    }
+
+    @Override
+    public long getSegmentWordCalls(){
+        return suffixtree.getSegmentWordCalls();
+    }
+
+    @Override
+    public long getNodesVisited(){
+        return suffixtree.getNodesVisited();
+    }
+
+    @Override
+    public long getCandidatesEmitted(){
+        return suffixtree.getCandidatesEmitted();
+    }
+
+    @Override
+    public void RefreshStatistics(){
+        this.statistics=suffixtree.getStatistics();
+    }
+
+    @Override
+    public void ResetCounters(){
+        suffixtree.ResetCounters();
+    }
+}
@@ -0,0 +1,95 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+package es.ua.dlsi.suffixtree;
+
+/**
+ * Management interface of {@link SuffixTreeMonitor}, which exposes the
+ * statistics of a suffix tree and the counters of its segmentations as JMX
+ * attributes.
+ * @author Miquel Esplà i Gomis
+ */
+public interface SuffixTreeMonitorMBean {
+    /**
+     * Method that returns the number of nodes in the tree.
+     * @return Returns the number of nodes in the tree
+     */
+    int getNodeCount();
+
+    /**
+     * Method that returns the number of leaf nodes in the tree.
+     * @return Returns the number of leaf nodes in the tree
+     */
+    int getLeafCount();
+
+    /**
+     * Method that returns the number of pairs node/paradigm in the tree.
+     * @return Returns the number of pairs node/paradigm in the tree
+     */
+    long getParadigmLabelCount();
+
+    /**
+     * Method that returns the depth of the deepest node of the tree.
+     * @return Returns the maximum depth of the tree
+     */
+    int getMaxDepth();
+
+    /**
+     * Method that returns an estimation of the memory retained by the tree.
+     * @return Returns the estimated number of bytes retained by the tree
+     */
+    long getEstimatedRetainedBytes();
+
+    /**
+     * Method that returns all the statistics of the tree in JSON format.
+     * @return Returns a string with the statistics in JSON
+     */
+    String getStatisticsJSON();
+
+    /**
+     * Method that returns the number of words segmented with the tree.
+     * @return Returns the number of calls to the segmentation methods
+     */
+    long getSegmentWordCalls();
+
+    /**
+     * Method that returns the number of nodes visited while segmenting words.
+     * @return Returns the number of nodes visited
+     */
+    long getNodesVisited();
+
+    /**
+     * Method that returns the number of candidates produced while segmenting words.
+     * @return Returns the number of candidates produced
+     */
+    long getCandidatesEmitted();
+
+    /**
+     * Method that recomputes the statistics of the tree (for example, after
+     * adding or removing words).
+     */
+    void RefreshStatistics();
+
+    /**
+     * Method that sets the segmentation counters to zero.
+     */
+    void ResetCounters();
+}
@@ -0,0 +1,333 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+package es.ua.dlsi.suffixtree;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Stack;
+import java.util.TreeMap;
+import org.json.simple.JSONObject;
+
+/**
+ * Class that contains statistics about the shape of a suffix tree: number of
+ * nodes and leaves, histograms of the fan-out, of the depth of the nodes and
+ * of the number of paradigms per node, and an estimation of the memory retained
+ * by the tree. The statistics are computed in a single traversal of the tree
+ * when the object is built, so they describe the tree at that moment.
+ * @author Miquel Esplà i Gomis
+ */
+public class SuffixTreeStatistics {
+
+    /** Estimated size in bytes of a <code>Node</code> object (object header and
+     * seven fields, assuming a 64-bit JVM with compressed references). */
+    private static final int NODE_BYTES=40;
+
+    /** Estimated size in bytes of a <code>HashMap</code> object without its table. */
+    private static final int HASHMAP_BYTES=48;
+
+    /** Estimated size in bytes of an entry of a <code>HashMap</code>. */
+    private static final int HASHMAP_ENTRY_BYTES=32;
+
+    /** Estimated size in bytes of the header of an array. */
+    private static final int ARRAY_HEADER_BYTES=16;
+
+    /** Estimated size in bytes of a <code>java.nio</code> buffer object
+     * without its content. */
+    private static final int BUFFER_BYTES=48;
+
+    /** Number of nodes in the tree (including the root). */
+    private int nodes;
+
+    /** Number of leaf nodes in the tree. */
+    private int leaves;
+
+    /** Number of nodes with at least one paradigm. */
+    private int suffix_nodes;
+
+    /** Number of pairs node/paradigm in the tree. */
+    private long paradigm_labels;
+
+    /** Depth of the deepest node of the tree. */
+    private int max_depth;
+
+    /** Estimation of the memory retained by the nodes of the tree. */
+    private long estimated_bytes;
+
+    /** Histogram of the number of children per node. */
+    private Map<Integer,Integer> fanout_histogram;
+
+    /** Histogram of the depth of the nodes. */
+    private Map<Integer,Integer> depth_histogram;
+
+    /** Histogram of the number of paradigms per node. */
+    private Map<Integer,Integer> paradigms_histogram;
+
+    /**
+     * Constructor of the class that computes the statistics of a suffix tree.
+     * @param suffixtree Suffix tree from which the statistics are computed
+     */
+    public SuffixTreeStatistics(SuffixTree suffixtree){
+        fanout_histogram=new TreeMap<Integer, Integer>();
+        depth_histogram=new TreeMap<Integer, Integer>();
+        paradigms_histogram=new TreeMap<Integer, Integer>();
+        Stack<Node> nodestack=new Stack<Node>();
+        Stack<Integer> depthstack=new Stack<Integer>();
+        nodestack.push(suffixtree.rootnode);
+        depthstack.push(0);
+        while(!nodestack.isEmpty()){
+            Node node=nodestack.pop();
+            int depth=depthstack.pop();
+            HashMap<Character,Node> children=node.getChildren();
+            int fanout=(children==null)? 0: children.size();
+            int nparadigms=node.NumberOfParadigms();
+
+            nodes++;
+            if(fanout==0) {
+                leaves++;
+            }
+            if(nparadigms>0) {
+                suffix_nodes++;
+            }
+            paradigm_labels+=nparadigms;
+            max_depth=Math.max(max_depth, depth);
+            Increment(fanout_histogram, fanout);
+            Increment(depth_histogram, depth);
+            Increment(paradigms_histogram, nparadigms);
+
+            estimated_bytes+=NODE_BYTES;
+            if(nparadigms>0){
+                //Identifiers and reference counts of the paradigms
+                estimated_bytes+=2*ArrayBytes(nparadigms, 4);
+            }
+            if(children!=null){
+                int capacity=16;
+                while(capacity*3<children.size()*4) {
+                    capacity*=2;
+                }
+                estimated_bytes+=HASHMAP_BYTES+ArrayBytes(capacity, 4)+
+                        HASHMAP_ENTRY_BYTES*(long)children.size();
+                for(Node child: children.values()){
+                    nodestack.push(child);
+                    depthstack.push(depth+1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor of the class that computes the statistics of a compact
+     * suffix tree. Every node is counted once, even if it is shared by several
+     * branches of a minimised tree; the depth of such a node is that of the
+     * shortest path from the root. The estimation of the memory retained is
+     * that of the arrays of the tree, which may be either in the heap or in a
+     * binary image mapped in memory.
+     * @param suffixtree Compact suffix tree from which the statistics are
+     * computed
+     */
+    public SuffixTreeStatistics(CompactSuffixTree suffixtree){
+        fanout_histogram=new TreeMap<Integer, Integer>();
+        depth_histogram=new TreeMap<Integer, Integer>();
+        paradigms_histogram=new TreeMap<Integer, Integer>();
+        int nnodes=suffixtree.NumberOfNodes();
+        //Breadth-first traversal, so every node is reached first through the
+        //shortest path
+        int[] depths=new int[nnodes];
+        BitSet reached=new BitSet(nnodes);
+        int[] queue=new int[nnodes];
+        int head=0, tail=0;
+        long nedges=0;
+        queue[tail++]=CompactSuffixTree.ROOT;
+        reached.set(CompactSuffixTree.ROOT);
+        while(head<tail){
+            int node=queue[head++];
+            int depth=depths[node];
+            int fanout=suffixtree.NumberOfChildren(node);
+            int nparadigms=suffixtree.NumberOfParadigms(node);
+
+            nodes++;
+            if(fanout==0) {
+                leaves++;
+            }
+            if(nparadigms>0) {
+                suffix_nodes++;
+            }
+            paradigm_labels+=nparadigms;
+            max_depth=Math.max(max_depth, depth);
+            Increment(fanout_histogram, fanout);
+            Increment(depth_histogram, depth);
+            Increment(paradigms_histogram, nparadigms);
+
+            nedges+=fanout;
+            for(int i=0;i<fanout;i++){
+                int child=suffixtree.getChildAt(node, i);
+                if(!reached.get(child)){
+                    reached.set(child);
+                    depths[child]=depth+1;
+                    queue[tail++]=child;
+                }
+            }
+        }
+        //Arrays of the tree: start of the edges and of the paradigms of every
+        //node, label and target of every edge and identifier of every paradigm
+        estimated_bytes=5*BUFFER_BYTES+2*ArrayBytes(nnodes+1, 4)+
+                ArrayBytes((int)nedges, 2)+ArrayBytes((int)nedges, 4)+
+                ArrayBytes((int)paradigm_labels, 4);
+    }
+
+    /**
+     * Method that increments the value of a position of a histogram.
+     * @param histogram Histogram to be updated
+     * @param key Position of the histogram to be incremented
+     */
+    private static void Increment(Map<Integer,Integer> histogram, int key){
+        Integer value=histogram.get(key);
+        if(value==null) {
+            histogram.put(key, 1);
+        }
+        else {
+            histogram.put(key, value+1);
+        }
+    }
+
+    /**
+     * Method that estimates the size of an array in memory.
+     * @param length Number of elements of the array
+     * @param elementsize Size in bytes of every element
+     * @return Returns the estimated size of the array, aligned to 8 bytes
+     */
+    private static long ArrayBytes(int length, int elementsize){
+        long size=ARRAY_HEADER_BYTES+(long)length*elementsize;
+        return (size+7)&~7L;
+    }
+
+    /**
+     * Method that returns the number of nodes in the tree.
+     * @return Returns the number of nodes in the tree (including the root)
+     */
+    public int getNodeCount(){
+        return nodes;
+    }
+
+    /**
+     * Method that returns the number of leaf nodes in the tree.
+     * @return Returns the number of nodes without children
+     */
+    public int getLeafCount(){
+        return leaves;
+    }
+
+    /**
+     * Method that returns the number of nodes in which a suffix starts.
+     * @return Returns the number of nodes with at least one paradigm
+     */
+    public int getSuffixNodeCount(){
+        return suffix_nodes;
+    }
+
+    /**
+     * Method that returns the number of pairs node/paradigm in the tree.
+     * @return Returns the sum of the number of paradigms of every node
+     */
+    public long getParadigmLabelCount(){
+        return paradigm_labels;
+    }
+
+    /**
+     * Method that returns the depth of the deepest node of the tree, i.e. the
+     * length of the longest suffix.
+     * @return Returns the maximum depth of the tree
+     */
+    public int getMaxDepth(){
+        return max_depth;
+    }
+
+    /**
+     * Method that returns an estimation of the memory retained by the nodes of
+     * the tree (nodes, maps of children and arrays of paradigms, or the arrays
+     * of a compact tree). The estimation assumes a 64-bit JVM with compressed references and does not
+     * include the objects shared with other trees (characters and names of the
+     * paradigms).
+     * @return Returns the estimated number of bytes retained by the tree
+     */
+    public long getEstimatedRetainedBytes(){
+        return estimated_bytes;
+    }
+
+    /**
+     * Method that returns the histogram of the number of children per node.
+     * @return Returns a map from the number of children to the number of nodes
+     */
+    public Map<Integer,Integer> getFanOutHistogram(){
+        return fanout_histogram;
+    }
+
+    /**
+     * Method that returns the histogram of the depth of the nodes.
+     * @return Returns a map from the depth to the number of nodes
+     */
+    public Map<Integer,Integer> getDepthHistogram(){
+        return depth_histogram;
+    }
+
+    /**
+     * Method that returns the histogram of the number of paradigms per node.
+     * @return Returns a map from the number of paradigms to the number of nodes
+     */
+    public Map<Integer,Integer> getParadigmsPerNodeHistogram(){
+        return paradigms_histogram;
+    }
+
+    /**
+     * Method that returns the statistics in JSON format.
+     * @return Returns a JSON object with the statistics of the tree
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject toJSON(){
+        JSONObject json=new JSONObject();
+        json.put("nodes", nodes);
+        json.put("leaves", leaves);
+        json.put("suffix_nodes", suffix_nodes);
+        json.put("paradigm_labels", paradigm_labels);
+        json.put("max_depth", max_depth);
+        json.put("estimated_retained_bytes", estimated_bytes);
+        json.put("fanout_histogram", HistogramToJSON(fanout_histogram));
+        json.put("depth_histogram", HistogramToJSON(depth_histogram));
+        json.put("paradigms_per_node_histogram", HistogramToJSON(paradigms_histogram));
+        return json;
+    }
+
+    /**
+     * Method that converts a histogram to JSON.
+     * @param histogram Histogram to be converted
+     * @return Returns a map, serialisable to a JSON object, in which the keys
+     * are the positions of the histogram in increasing order
+     */
+    private static Map<String,Integer> HistogramToJSON(Map<Integer,Integer> histogram){
+        Map<String,Integer> json=new LinkedHashMap<String, Integer>();
+        for(Map.Entry<Integer,Integer> entry: histogram.entrySet()){
+            json.put(entry.getKey().toString(), entry.getValue());
+        }
+        return json;
+    }
+}
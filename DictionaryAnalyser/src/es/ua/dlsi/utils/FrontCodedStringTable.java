@@ -0,0 +1,212 @@
+/**************************************************************************
+ DictionaryAnalyser - Package based in DixTools and created to provide a set
+               of tools that ease the addition of new entries to dictionaries
+               and helps to analyse the dictionaries.
+
+ Copyright (C) 2011-2012 Universitat d'Alacant [www.ua.es]
+
+ This program is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ **************************************************************************/
+
+package es.ua.dlsi.utils;
+
+import java.io.Serializable;
+
+/**
+ * Class that stores a sorted set of strings with front coding. The strings are
+ * grouped in blocks of {@link #BLOCK_SIZE} strings: the first string of every
+ * block is stored complete and each of the following ones as the length of the
+ * prefix it shares with the previous string plus the characters that differ.
+ * All the blocks are kept in a single array of characters, so a table with
+ * millions of word forms uses a fraction of the memory of the equivalent set of
+ * <code>String</code> objects. Every string is identified by its position in
+ * the sorted set; a string is looked up through a binary search on the first
+ * strings of the blocks followed by a sequential decoding of a single block.
+ * The table is immutable and, therefore, it can be shared between threads.
+ * @author Miquel Esplà i Gomis
+ */
+public class FrontCodedStringTable implements Serializable{
+
+    /** Number of strings in every block */
+    public static final int BLOCK_SIZE=16;
+
+    /** Number of strings in the table */
+    private final int size;
+
+    /**
+     * Characters of all the blocks; every string is preceded by the length of
+     * the prefix shared with the previous string of the block (except the first
+     * one of the block) and by the number of characters that follow
+     */
+    private final char[] data;
+
+    /** Position in <code>data</code> where every block starts */
+    private final int[] blocks;
+
+    /** Length of the longest string in the table */
+    private final int max_length;
+
+    /**
+     * Overloaded constructor of the class.
+     * @param strings Strings to be stored; they must be sorted (following the
+     * order of <code>String.compareTo</code>) and without repetitions, and
+     * none of them can be longer than 65535 characters
+     */
+    public FrontCodedStringTable(String[] strings){
+        this.size=strings.length;
+        this.blocks=new int[(size+BLOCK_SIZE-1)/BLOCK_SIZE];
+        StringBuilder sb=new StringBuilder();
+        int maxlength=0;
+        String previous=null;
+        for(int i=0;i<size;i++){
+            String current=strings[i];
+            if(current.length()>Character.MAX_VALUE) {
+                throw new IllegalArgumentException("String too long for the table: "+
+                        current.substring(0, 32)+"...");
+            }
+            if(previous!=null && previous.compareTo(current)>=0) {
+                throw new IllegalArgumentException("Strings are not sorted or are repeated: "+
+                        previous+", "+current);
+            }
+            maxlength=Math.max(maxlength, current.length());
+            if(i%BLOCK_SIZE==0){
+                blocks[i/BLOCK_SIZE]=sb.length();
+                sb.append((char)current.length());
+                sb.append(current);
+            }
+            else{
+                int prefix=0;
+                int limit=Math.min(previous.length(), current.length());
+                while(prefix<limit && previous.charAt(prefix)==current.charAt(prefix)) {
+                    prefix++;
+                }
+                sb.append((char)prefix);
+                sb.append((char)(current.length()-prefix));
+                sb.append(current, prefix, current.length());
+            }
+            previous=current;
+        }
+        this.max_length=maxlength;
+        this.data=new char[sb.length()];
+        sb.getChars(0, sb.length(), data, 0);
+    }
+
+    /**
+     * Method that returns the number of strings in the table.
+     * @return Returns the number of strings in the table
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Method that returns the string with a given identifier.
+     * @param id Identifier of the string (its position in the sorted set)
+     * @return Returns the string with the given identifier
+     */
+    public String getString(int id){
+        if(id<0 || id>=size) {
+            throw new IndexOutOfBoundsException("Identifier out of the table: "+id);
+        }
+        char[] buffer=new char[max_length];
+        int pos=blocks[id/BLOCK_SIZE];
+        int length=data[pos++];
+        System.arraycopy(data, pos, buffer, 0, length);
+        pos+=length;
+        for(int i=id-id%BLOCK_SIZE+1;i<=id;i++){
+            int prefix=data[pos++];
+            int rest=data[pos++];
+            System.arraycopy(data, pos, buffer, prefix, rest);
+            pos+=rest;
+            length=prefix+rest;
+        }
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Method that returns the identifier of a string.
+     * @param s String to be looked up
+     * @return Returns the identifier of the string (its position in the sorted
+     * set) or -1 if it is not in the table
+     */
+    public int getId(CharSequence s){
+        if(size==0) {
+            return -1;
+        }
+        //Last block whose first string is lower or equal to s
+        int low=0, high=blocks.length-1;
+        while(low<high){
+            int middle=(low+high+1)>>>1;
+            int pos=blocks[middle];
+            if(Compare(data, pos+1, data[pos], s)<=0) {
+                low=middle;
+            }
+            else {
+                high=middle-1;
+            }
+        }
+        int pos=blocks[low];
+        int length=data[pos++];
+        int cmp=Compare(data, pos, length, s);
+        if(cmp==0) {
+            return low*BLOCK_SIZE;
+        }
+        else if(cmp>0) {
+            return -1;
+        }
+        char[] buffer=new char[max_length];
+        System.arraycopy(data, pos, buffer, 0, length);
+        pos+=length;
+        int last=Math.min(size, (low+1)*BLOCK_SIZE);
+        for(int i=low*BLOCK_SIZE+1;i<last;i++){
+            int prefix=data[pos++];
+            int rest=data[pos++];
+            System.arraycopy(data, pos, buffer, prefix, rest);
+            pos+=rest;
+            length=prefix+rest;
+            cmp=Compare(buffer, 0, length, s);
+            if(cmp==0) {
+                return i;
+            }
+            else if(cmp>0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method that compares a sequence of characters in an array with a string
+     * following the order of <code>String.compareTo</code>.
+     * @param chars Array containing the sequence of characters
+     * @param offset Position of the first character of the sequence
+     * @param length Length of the sequence
+     * @param s String to be compared
+     * @return Returns a negative number, zero or a positive number if the
+     * sequence is lower, equal or greater than the string
+     */
+    private static int Compare(char[] chars, int offset, int length,
+            CharSequence s){
+        int limit=Math.min(length, s.length());
+        for(int i=0;i<limit;i++){
+            char c=chars[offset+i];
+            char other=s.charAt(i);
+            if(c!=other) {
+                return c-other;
+            }
+        }
+        return length-s.length();
+    }
+}